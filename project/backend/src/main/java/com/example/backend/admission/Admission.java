@@ -0,0 +1,18 @@
+package com.example.backend.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Admission class of an endpoint, or of every endpoint of a controller when
+ * put on the class; a method annotation wins over the class one. Endpoints
+ * without it are {@link Priority#NORMAL}.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+
+    Priority value();
+}
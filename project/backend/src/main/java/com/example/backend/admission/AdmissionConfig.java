@@ -0,0 +1,57 @@
+package com.example.backend.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * One {@link GradientLimiter} per {@link Priority}, settings from
+ * app.admission.critical|normal|low, and the {@link AdmissionGate} in front
+ * of every MVC handler. The defaults below assume the default pool of ten
+ * JDBC connections and 200 Tomcat threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+    @Bean
+    @ConfigurationProperties("app.admission.critical")
+    public GradientLimiter criticalLimiter() {
+        return new GradientLimiter(Priority.CRITICAL, 20, 100, 100, 2000, 1);
+    }
+
+    @Bean
+    @ConfigurationProperties("app.admission.normal")
+    public GradientLimiter normalLimiter() {
+        return new GradientLimiter(Priority.NORMAL, 10, 60, 50, 500, 2);
+    }
+
+    @Bean
+    @ConfigurationProperties("app.admission.low")
+    public GradientLimiter lowLimiter() {
+        return new GradientLimiter(Priority.LOW, 4, 20, 10, 100, 5);
+    }
+
+    @Bean
+    public AdmissionGate admissionGate(List<GradientLimiter> limiters, MeterRegistry meterRegistry) {
+        return new AdmissionGate(limiters, meterRegistry);
+    }
+
+    // Ahead of the query-stats interceptor, so a shed request costs nothing else
+    @Bean
+    public WebMvcConfigurer admissionInterceptor(AdmissionGate gate) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(gate).order(Ordered.HIGHEST_PRECEDENCE);
+            }
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.backend.admission;
+
+import com.example.backend.dto.AdmissionStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Admits each MVC request into its endpoint's {@link Priority} class before
+ * the handler runs, so under overload the expensive reads are turned away
+ * while bookings and the ride lifecycle keep their threads and connections.
+ * While a more important class is congested a class runs at its min-limit,
+ * and it may only queue while no more important class is waiting; a request
+ * that cannot be admitted (or waits out its class's max-wait) gets 503 with
+ * the class's Retry-After.
+ *
+ * Metrics, tagged by priority: app.admission.limit, .active and .queued
+ * (gauges), app.admission.requests by outcome (admitted, shed, timed-out)
+ * and app.admission.wait.
+ */
+public class AdmissionGate implements HandlerInterceptor {
+
+    private static final String ADMITTED_AT = AdmissionGate.class.getName() + ".admittedAt";
+    private static final String LIMITER = AdmissionGate.class.getName() + ".limiter";
+
+    private final Map<Priority, GradientLimiter> limiters = new EnumMap<>(Priority.class);
+    private final MeterRegistry meterRegistry;
+
+    public AdmissionGate(List<GradientLimiter> limiters, MeterRegistry meterRegistry) {
+        for (GradientLimiter limiter : limiters)
+            this.limiters.put(limiter.getPriority(), limiter);
+        for (Priority priority : Priority.values())
+            if (!this.limiters.containsKey(priority))
+                throw new IllegalStateException("No admission limiter for " + priority);
+        this.meterRegistry = meterRegistry;
+        this.limiters.values().forEach(limiter -> {
+            String tag = limiter.getPriority().tag();
+            Gauge.builder("app.admission.limit", limiter, GradientLimiter::limit).tag("priority", tag)
+                    .register(meterRegistry);
+            Gauge.builder("app.admission.active", limiter, GradientLimiter::active).tag("priority", tag)
+                    .register(meterRegistry);
+            Gauge.builder("app.admission.queued", limiter, GradientLimiter::queued).tag("priority", tag)
+                    .register(meterRegistry);
+        });
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        // Error and async dispatches belong to a request that was already admitted
+        if (!(handler instanceof HandlerMethod method) || request.getDispatcherType() != DispatcherType.REQUEST)
+            return true;
+        Priority priority = priorityOf(method);
+        GradientLimiter limiter = limiters.get(priority);
+
+        long start = System.nanoTime();
+        GradientLimiter.Outcome outcome = limiter.acquire(!moreImportant(priority, l -> l.queued() > 0),
+                moreImportant(priority, GradientLimiter::congested));
+        long now = System.nanoTime();
+        meterRegistry.timer("app.admission.wait", "priority", priority.tag()).record(now - start, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("app.admission.requests", "priority", priority.tag(),
+                "outcome", outcome.name().toLowerCase().replace('_', '-')).increment();
+
+        if (outcome != GradientLimiter.Outcome.ADMITTED) {
+            reject(response, limiter);
+            return false;
+        }
+        request.setAttribute(ADMITTED_AT, now);
+        request.setAttribute(LIMITER, limiter);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(LIMITER) instanceof GradientLimiter limiter) {
+            request.removeAttribute(LIMITER);
+            limiter.release(System.nanoTime() - (long) request.getAttribute(ADMITTED_AT));
+        }
+    }
+
+    public List<AdmissionStats> stats() {
+        return limiters.values().stream().map(GradientLimiter::stats).toList();
+    }
+
+    private static Priority priorityOf(HandlerMethod method) {
+        Admission admission = method.getMethodAnnotation(Admission.class);
+        if (admission == null)
+            admission = method.getBeanType().getAnnotation(Admission.class);
+        return admission != null ? admission.value() : Priority.NORMAL;
+    }
+
+    private boolean moreImportant(Priority priority, Predicate<GradientLimiter> condition) {
+        for (Priority other : Priority.values()) {
+            if (other == priority)
+                return false;
+            if (condition.test(limiters.get(other)))
+                return true;
+        }
+        return false;
+    }
+
+    private static void reject(HttpServletResponse response, GradientLimiter limiter) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.getRetryAfterSeconds()));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Server busy, retry later");
+    }
+}
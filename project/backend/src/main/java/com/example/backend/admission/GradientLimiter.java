@@ -0,0 +1,260 @@
+package com.example.backend.admission;
+
+import com.example.backend.dto.AdmissionStats;
+import jakarta.annotation.PostConstruct;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit and wait queue for one {@link Priority} class. The limit
+ * follows latency like a gradient controller: every window's average latency
+ * is compared with a baseline that, as TCP Vegas's base RTT, drops at once to
+ * any lower window and only drifts up slowly, so it is not learned from an
+ * overloaded start. While latency stays within TOLERANCE of the baseline the
+ * limit grows by about sqrt(limit) per window, as long as the class is using
+ * at least half of it. When latency rises further (work is queueing
+ * somewhere downstream: the connection pool, the database, the CPU) the
+ * limit shrinks in proportion, at most by half per window, and the class
+ * reports itself congested.
+ *
+ * Requests past the limit wait in a bounded queue for up to max-wait-ms and
+ * are shed after that, or at once when the queue is full.
+ *
+ * Bound from app.admission.<class>: initial-limit, min-limit, max-limit,
+ * queue-capacity, max-wait-ms, retry-after-seconds.
+ */
+public class GradientLimiter {
+
+    public enum Outcome {ADMITTED, SHED, TIMED_OUT}
+
+    // Latency may reach this multiple of the baseline before the limit shrinks
+    private static final double TOLERANCE = 1.5;
+    // Weight of each window's proposed limit
+    private static final double SMOOTHING = 0.2;
+    // Upward drift of the baseline: roughly an average over the last 600 windows
+    private static final double BASELINE_WEIGHT = 2.0 / 601;
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int WINDOW_MIN_SAMPLES = 10;
+    // A congested verdict older than this no longer holds back other classes
+    private static final long CONGESTION_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Priority priority;
+    private int initialLimit;
+    private int minLimit = 1;
+    private int maxLimit;
+    private int queueCapacity;
+    private long maxWaitMs;
+    private int retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int active;
+    private int queued;
+    private long admitted;
+    private long shed;
+    private long timedOut;
+
+    private long windowStart = System.nanoTime();
+    private long windowNanos;
+    private int windowSamples;
+    private int windowPeak;
+    private double latestNanos;
+    private double baselineNanos;
+    private double gradient = 1.0;
+    private long gradientAt;
+
+    public GradientLimiter(Priority priority, int initialLimit, int maxLimit, int queueCapacity, long maxWaitMs,
+                           int retryAfterSeconds) {
+        this.priority = priority;
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitMs = maxWaitMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    // After property binding
+    @PostConstruct
+    void init() {
+        if (minLimit < 1 || minLimit > maxLimit)
+            throw new IllegalArgumentException("app.admission." + priority.tag() + ": need 1 <= min-limit <= max-limit");
+        limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a slot, waiting in the queue when mayQueue and there is room.
+     * With restricted the class only gets its min-limit (a more important
+     * class is congested). Callers that get ADMITTED must call
+     * {@link #release} exactly once.
+     */
+    public Outcome acquire(boolean mayQueue, boolean restricted) throws InterruptedException {
+        lock.lock();
+        try {
+            // No overtaking: while anyone waits, newcomers queue behind them
+            if (queued == 0 && active < allowed(restricted))
+                return admit();
+            if (!mayQueue || queued >= queueCapacity) {
+                shed++;
+                return Outcome.SHED;
+            }
+            queued++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (active >= allowed(restricted)) {
+                    if (remaining <= 0) {
+                        timedOut++;
+                        return Outcome.TIMED_OUT;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } finally {
+                queued--;
+            }
+            return admit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // latencyNanos: time from admission to the response
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            active--;
+            sample(latencyNanos);
+            // Not signal(): the one woken may be a restricted waiter that still cannot go, and the
+            // wakeup is lost for one behind it that could. The queue is bounded, so waking all is cheap
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isCongested() {
+        return gradient < 1.0 && System.nanoTime() - gradientAt < CONGESTION_TTL_NANOS;
+    }
+
+    private int allowed(boolean restricted) {
+        return restricted ? minLimit : (int) limit;
+    }
+
+    private Outcome admit() {
+        active++;
+        admitted++;
+        windowPeak = Math.max(windowPeak, active);
+        return Outcome.ADMITTED;
+    }
+
+    private void sample(long latencyNanos) {
+        windowNanos += latencyNanos;
+        windowSamples++;
+        long now = System.nanoTime();
+        if (windowSamples < WINDOW_MIN_SAMPLES || now - windowStart < WINDOW_NANOS)
+            return;
+        latestNanos = (double) windowNanos / windowSamples;
+        int peak = windowPeak;
+        windowStart = now;
+        windowNanos = 0;
+        windowSamples = 0;
+        windowPeak = active;
+
+        if (baselineNanos == 0 || latestNanos < baselineNanos)
+            baselineNanos = latestNanos;
+        else
+            baselineNanos += BASELINE_WEIGHT * (latestNanos - baselineNanos);
+
+        gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineNanos / latestNanos));
+        gradientAt = now;
+        // A class well under its limit says nothing about whether more would fit
+        if (gradient == 1.0 && peak < limit / 2)
+            return;
+        double proposed = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, (1 - SMOOTHING) * limit + SMOOTHING * proposed));
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    // The latest window, if recent, was slower than the baseline allows
+    public boolean congested() {
+        lock.lock();
+        try {
+            return isCongested();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int active() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public AdmissionStats stats() {
+        lock.lock();
+        try {
+            return new AdmissionStats(priority, (int) limit, minLimit, maxLimit, active, queued, queueCapacity,
+                    admitted, shed, timedOut, isCongested(), latestNanos / 1e6, baselineNanos / 1e6);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =========================
+    // SETTINGS (property binding)
+    // =========================
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public void setMaxWaitMs(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
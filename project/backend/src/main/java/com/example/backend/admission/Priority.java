@@ -0,0 +1,22 @@
+package com.example.backend.admission;
+
+/**
+ * Admission classes, most important first. Each has its own adaptive
+ * concurrency limit and wait queue (see {@link GradientLimiter}); a class
+ * only queues while no more important class is waiting.
+ */
+public enum Priority {
+
+    // Revenue-critical writes: booking, the ride lifecycle, wallet postings
+    CRITICAL,
+
+    // Endpoints without @Admission
+    NORMAL,
+
+    // Expensive reads and admin work, shed first
+    LOW;
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.backend.cluster;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cross-node change notifications over Postgres LISTEN/NOTIFY, so several
+ * backend instances can share one database without extra infrastructure.
+ *
+ * Writers call {@link #publish}; a publisher thread lingers briefly, dedupes
+ * and packs queued events into as few NOTIFY payloads as possible. A listener
+ * thread holds one dedicated connection with LISTEN and hands incoming events
+ * to every {@link ClusterEventListener} bean. If that connection drops it
+ * reconnects with backoff and tells listeners to reset, since anything sent
+ * in between is lost. Likewise, when this node has to drop events (the outbox
+ * is full, or NOTIFY keeps failing) it sends a RESET with its next payload,
+ * and every other node resets too.
+ *
+ * Disabled (publish is a no-op) unless app.cluster.enabled=true.
+ */
+@Component
+public class ClusterBus {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterBus.class);
+
+    static final String CHANNEL = "backend_cluster";
+
+    // Postgres caps NOTIFY payloads just under 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7500;
+
+    @Value("${app.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cluster.linger-ms:20}")
+    private long lingerMillis;
+
+    @Value("${app.cluster.max-batch:500}")
+    private int maxBatch;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ObjectProvider<ClusterEventListener> listeners;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final BlockingQueue<ClusterEvent> outbox = new LinkedBlockingQueue<>(100_000);
+
+    // Events were dropped since the last RESET went out
+    private final AtomicBoolean resetPending = new AtomicBoolean();
+
+    private volatile boolean running;
+    private Thread publisher;
+    private Thread listener;
+
+    @PostConstruct
+    void start() {
+        if (!enabled)
+            return;
+        running = true;
+        publisher = new Thread(this::publishLoop, "cluster-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+        listener = new Thread(this::listenLoop, "cluster-listener");
+        listener.setDaemon(true);
+        listener.start();
+        log.info("Cluster notifications enabled, node {}", nodeId);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (publisher != null)
+            publisher.interrupt();
+        if (listener != null)
+            listener.interrupt();
+    }
+
+    public void publish(ClusterEvent event) {
+        if (enabled && !outbox.offer(event)) {
+            log.warn("Cluster outbox full, dropping {}", event);
+            resetPending.set(true);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // =========================
+    // PUBLISHING
+    // =========================
+
+    private void publishLoop() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        List<ClusterEvent> batch = new ArrayList<>();
+        while (running) {
+            try {
+                ClusterEvent first = outbox.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    // Linger so a burst of writes goes out as one NOTIFY
+                    Thread.sleep(lingerMillis);
+                    batch.add(first);
+                    outbox.drainTo(batch, maxBatch - 1);
+                }
+                // Also tried when idle, so peers do not wait for the next write to hear of the loss
+                if (resetPending.getAndSet(false))
+                    batch.add(0, ClusterEvent.reset());
+                if (batch.isEmpty())
+                    continue;
+                for (String payload : pack(batch)) {
+                    if (!sendWithRetry(jdbc, payload))
+                        resetPending.set(true);
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<String> pack(List<ClusterEvent> batch) {
+        Set<String> lines = new LinkedHashSet<>();
+        for (ClusterEvent event : batch)
+            lines.add(event.encode());
+        List<String> payloads = new ArrayList<>();
+        StringBuilder current = new StringBuilder(nodeId);
+        for (String line : lines) {
+            if (current.length() + 1 + line.length() > MAX_PAYLOAD_BYTES) {
+                payloads.add(current.toString());
+                current = new StringBuilder(nodeId);
+            }
+            current.append('\n').append(line);
+        }
+        payloads.add(current.toString());
+        return payloads;
+    }
+
+    // False when the payload was dropped
+    private boolean sendWithRetry(JdbcTemplate jdbc, String payload) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jdbc.query("select pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= 3) {
+                    log.warn("Dropping cluster notification after {} attempts, peers will reset: {}", attempt,
+                            e.getMessage());
+                    return false;
+                }
+                Thread.sleep(200L * attempt);
+            }
+        }
+    }
+
+    // =========================
+    // LISTENING
+    // =========================
+
+    private void listenLoop() {
+        long backoff = 500;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                if (connectedBefore) {
+                    log.info("Cluster listener reconnected");
+                    listeners.orderedStream().forEach(ClusterEventListener::onClusterReset);
+                }
+                connectedBefore = true;
+                backoff = 500;
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(1000);
+                    if (notifications == null)
+                        continue;
+                    for (PGNotification notification : notifications)
+                        dispatch(notification.getParameter());
+                }
+            } catch (SQLException e) {
+                if (!running)
+                    return;
+                log.warn("Cluster listener connection lost ({}), retrying in {} ms", e.getMessage(), backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, 30_000);
+            }
+        }
+    }
+
+    void dispatch(String payload) {
+        String[] lines = payload.split("\n");
+        if (lines.length < 2 || lines[0].equals(nodeId))
+            return;  // our own writes are already applied locally
+        for (int i = 1; i < lines.length; i++) {
+            ClusterEvent event;
+            try {
+                event = ClusterEvent.decode(lines[i]);
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed cluster event '{}'", lines[i]);
+                continue;
+            }
+            if (event.type() == ClusterEvent.Type.RESET) {
+                log.info("Cluster node {} dropped events, resetting", lines[0]);
+                listeners.orderedStream().forEach(ClusterEventListener::onClusterReset);
+                continue;
+            }
+            listeners.orderedStream().forEach(l -> {
+                try {
+                    l.onClusterEvent(event);
+                } catch (RuntimeException e) {
+                    log.warn("Cluster listener {} failed on {}", l.getClass().getSimpleName(), event, e);
+                }
+            });
+        }
+    }
+}
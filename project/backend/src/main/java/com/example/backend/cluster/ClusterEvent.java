@@ -0,0 +1,66 @@
+package com.example.backend.cluster;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * A change made on one node that other nodes may have cached. Keys are
+ * plain strings so events fit the compact line format used on the wire:
+ *   RIDE        "rideId:riderId:driverId:version"
+ *   RIDE_DELETED "rideId"
+ *   DRIVER      "driverId:version"
+ *   USER        "userId:version:email" (sessions for that email are dropped; a
+ *               version moves the user's ETags on, without one it is forgotten;
+ *               userId and version may be empty)
+ *   OFFER       "rideId:expiresAtMillis:driverId,driverId" (the ride's current
+ *               offer round; no drivers: no longer offered)
+ *   OFFER_DECLINED "rideId:driverId" (for the node running the round)
+ *   RESET       "" (events were lost: every node drops what it has cached)
+ */
+public record ClusterEvent(Type type, String key) {
+
+    public enum Type {
+        RIDE,
+        RIDE_DELETED,
+        DRIVER,
+        USER,
+        OFFER,
+        OFFER_DECLINED,
+        RESET
+    }
+
+    String encode() {
+        return type.name() + " " + key;
+    }
+
+    static ClusterEvent decode(String line) {
+        int space = line.indexOf(' ');
+        return new ClusterEvent(Type.valueOf(line.substring(0, space)), line.substring(space + 1));
+    }
+
+    public static ClusterEvent ride(Long rideId, Long riderId, Long driverId, Long version) {
+        return new ClusterEvent(Type.RIDE, rideId + ":" + riderId + ":" + driverId + ":" + version);
+    }
+
+    public static ClusterEvent driver(Long driverId, Long version) {
+        return new ClusterEvent(Type.DRIVER, driverId + ":" + version);
+    }
+
+    public static ClusterEvent user(Long userId, Long version, String email) {
+        return new ClusterEvent(Type.USER, (userId == null ? "" : userId) + ":" + (version == null ? "" : version)
+                + ":" + email);
+    }
+
+    static ClusterEvent reset() {
+        return new ClusterEvent(Type.RESET, "");
+    }
+
+    public static ClusterEvent offer(Long rideId, long expiresAtMillis, Collection<Long> driverIds) {
+        return new ClusterEvent(Type.OFFER, rideId + ":" + expiresAtMillis + ":"
+                + driverIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    public static ClusterEvent offerDeclined(Long rideId, Long driverId) {
+        return new ClusterEvent(Type.OFFER_DECLINED, rideId + ":" + driverId);
+    }
+}
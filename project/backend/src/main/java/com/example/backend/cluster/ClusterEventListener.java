@@ -0,0 +1,11 @@
+package com.example.backend.cluster;
+
+// Implemented by beans that keep node-local state derived from the database
+public interface ClusterEventListener {
+
+    void onClusterEvent(ClusterEvent event);
+
+    // Notifications may have been missed (listener reconnected): drop everything cached
+    default void onClusterReset() {
+    }
+}
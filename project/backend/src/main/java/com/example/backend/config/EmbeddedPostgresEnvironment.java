@@ -0,0 +1,53 @@
+package com.example.backend.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+
+/**
+ * With the "embedded" profile, starts an in-process PostgreSQL and points
+ * spring.datasource.* at it, so the app and the tests run without a database
+ * server. It is the real PostgreSQL, not an emulation: the native queries,
+ * sequences, LISTEN/NOTIFY and the Flyway migrations behave as in
+ * production. There is one server per JVM, shared by every application
+ * context in it (the cluster tests run two nodes against it).
+ *
+ * The server is only packaged with the embedded-db Maven profile:
+ *   mvn -Pembedded-db spring-boot:run -Dspring-boot.run.profiles=embedded
+ * app.embedded-postgres.data-dir keeps the data between runs (default: a
+ * temporary directory removed at exit), app.embedded-postgres.port fixes the
+ * port (default: any free one).
+ */
+public class EmbeddedPostgresEnvironment implements EnvironmentPostProcessor, Ordered {
+
+    public static final String PROFILE = "embedded";
+
+    private static final String SERVER_CLASS = "io.zonky.test.db.postgres.embedded.EmbeddedPostgres";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.matchesProfiles(PROFILE))
+            return;
+        if (!ClassUtils.isPresent(SERVER_CLASS, getClass().getClassLoader()))
+            throw new IllegalStateException(
+                    "The embedded profile needs the embedded PostgreSQL on the classpath: build or run with -Pembedded-db");
+        String url = EmbeddedPostgresServer.start(environment.getProperty("app.embedded-postgres.data-dir", ""),
+                environment.getProperty("app.embedded-postgres.port", Integer.class, 0));
+        environment.getPropertySources().addFirst(new MapPropertySource("embeddedPostgres", Map.of(
+                "spring.datasource.url", url,
+                "spring.datasource.username", EmbeddedPostgresServer.USER,
+                "spring.datasource.password", "")));
+    }
+
+    // After application-embedded.properties has been read
+    @Override
+    public int getOrder() {
+        return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.backend.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+// The JVM's one embedded server. Only loaded once the server classes are known
+// to be on the classpath; the server stops itself at JVM exit.
+final class EmbeddedPostgresServer {
+
+    static final String USER = "postgres";
+    private static final String DATABASE = "postgres";
+
+    private static EmbeddedPostgres server;
+
+    private EmbeddedPostgresServer() {
+    }
+
+    // The JDBC url; settings only apply to the first call
+    static synchronized String start(String dataDir, int port) {
+        if (server == null) {
+            EmbeddedPostgres.Builder builder = EmbeddedPostgres.builder();
+            if (!dataDir.isBlank())
+                builder.setDataDirectory(Path.of(dataDir)).setCleanDataDirectory(false);
+            if (port > 0)
+                builder.setPort(port);
+            try {
+                server = builder.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start the embedded PostgreSQL", e);
+            }
+        }
+        return server.getJdbcUrl(USER, DATABASE);
+    }
+}
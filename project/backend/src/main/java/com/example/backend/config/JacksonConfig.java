@@ -0,0 +1,51 @@
+package com.example.backend.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * JSON stays the default body format; clients that send
+ * {@code Accept: application/cbor} or {@code application/x-jackson-smile} get
+ * the same objects in a smaller binary encoding. All three mappers come from
+ * Boot's builder, so they share its settings and modules, including
+ * Blackbird, which replaces reflective property access with generated
+ * lambdas.
+ */
+@Configuration
+public class JacksonConfig {
+
+    // Boot registers Module beans on every mapper built from its builder
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public WebMvcConfigurer binaryMessageConverters(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                // Replace Spring's defaults (plain mappers without Boot's config) and
+                // keep them after the JSON converter so */* still gets JSON
+                converters.removeIf(c -> c instanceof MappingJackson2CborHttpMessageConverter
+                        || c instanceof MappingJackson2SmileHttpMessageConverter);
+                converters.add(new MappingJackson2CborHttpMessageConverter(
+                        builders.getObject().factory(new CBORFactory()).build()));
+                converters.add(new MappingJackson2SmileHttpMessageConverter(
+                        builders.getObject().factory(new SmileFactory()).build()));
+            }
+        };
+    }
+}
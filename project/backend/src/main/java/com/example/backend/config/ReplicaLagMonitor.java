@@ -0,0 +1,68 @@
+package com.example.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the replica for its replay lag. If the replica is unreachable or
+ * further behind than maxLagMillis, reads fall back to the primary until it
+ * catches up. A reading older than a few check intervals counts as
+ * unreachable too: a stalled or hung check says nothing about the replica now.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // 0 when the replica has replayed everything it has received (or is not a standby at all)
+    private static final String LAG_QUERY = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() "
+            + "then 0 else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0) end";
+
+    // Missed checks before the last reading is no longer trusted
+    private static final int STALE_AFTER_CHECKS = 3;
+
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+    private final long staleAfterNanos;
+
+    private volatile long lagMillis = Long.MAX_VALUE;
+    private volatile boolean reachable = false;
+    private volatile long checkedAtNanos;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagMillis, long checkIntervalMillis) {
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replica.setQueryTimeout(2);
+        this.maxLagMillis = maxLagMillis;
+        // The query timeout on top, so one slow but answered check is not stale
+        this.staleAfterNanos = TimeUnit.MILLISECONDS.toNanos(STALE_AFTER_CHECKS * checkIntervalMillis)
+                + TimeUnit.SECONDS.toNanos(replica.getQueryTimeout());
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        try {
+            Number lag = replica.queryForObject(LAG_QUERY, Number.class);
+            lagMillis = lag == null ? 0 : lag.longValue();
+            checkedAtNanos = System.nanoTime();
+            if (!reachable)
+                log.info("Replica reachable, lag {} ms", lagMillis);
+            reachable = true;
+        } catch (RuntimeException e) {
+            if (reachable)
+                log.warn("Replica unreachable, routing reads to primary: {}", e.getMessage());
+            reachable = false;
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return reachable && lagMillis <= maxLagMillis && System.nanoTime() - checkedAtNanos <= staleAfterNanos;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.backend.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override that keeps a read-only transaction on the primary.
+ * Works because the routing DataSource only picks a pool when the first
+ * statement runs, so calling this at the start of a read-only service
+ * method is early enough.
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null)
+                FORCE_PRIMARY.remove();
+            else
+                FORCE_PRIMARY.set(previous);
+        }
+    }
+
+    static boolean isPrimaryForced() {
+        return Boolean.TRUE.equals(FORCE_PRIMARY.get());
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -42,8 +43,9 @@ public class SecurityConfig {
         return source;
     }
 
+    // Raising the cost re-hashes each password at its owner's next login (see PasswordHasher)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.password-hashing.bcrypt-cost:10}") int cost) {
+        return new BCryptPasswordEncoder(cost);
     }
 }
@@ -0,0 +1,43 @@
+package com.example.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Support for the prod fast-startup profile (lazy init, AOT, AppCDS training run)
+@Configuration
+public class StartupConfig {
+
+    /**
+     * With spring.main.lazy-initialization=true a bean is only created on
+     * first use, and a bean that is never created never gets its @Scheduled
+     * methods registered. Keep those beans eager so purges and lag checks run
+     * from startup.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansAreEager() {
+        return (beanName, beanDefinition, beanType) -> {
+            AtomicBoolean scheduled = new AtomicBoolean(false);
+            ReflectionUtils.doWithMethods(beanType,
+                    method -> scheduled.set(true),
+                    method -> method.isAnnotationPresent(Scheduled.class));
+            return scheduled.get();
+        };
+    }
+
+    // The CDS training run (spring.context.exit=onRefresh) has no database to migrate.
+    // Under AOT the Flyway beans are fixed at build time, so this is decided at runtime here.
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${spring.context.exit:}") String contextExit) {
+        return flyway -> {
+            if (!"onRefresh".equals(contextExit))
+                flyway.migrate();
+        };
+    }
+}
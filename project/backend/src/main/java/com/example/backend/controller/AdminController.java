@@ -1,22 +1,180 @@
 package com.example.backend.controller;
 
+import com.example.backend.admission.Admission;
+import com.example.backend.admission.AdmissionGate;
+import com.example.backend.admission.Priority;
+import com.example.backend.dto.AdmissionStats;
+import com.example.backend.dto.AnalyticsResult;
+import com.example.backend.dto.EtaReport;
+import com.example.backend.dto.Heatmap;
+import com.example.backend.dto.LedgerCheck;
+import com.example.backend.dto.PoolingStats;
+import com.example.backend.dto.RideState;
+import com.example.backend.model.RideEventSnapshot;
+import com.example.backend.service.DemandHeatmap;
+import com.example.backend.service.EtaModel;
+import com.example.backend.service.LedgerService;
+import com.example.backend.service.RideAnalytics;
+import com.example.backend.service.RideColumnStore;
+import com.example.backend.service.RideEventReplayer;
+import com.example.backend.service.RidePoolService;
+import com.example.backend.service.RideService;
 import com.example.backend.service.UserService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Admin reports are the first thing shed under overload, except the admission view itself
 @RestController
 @RequestMapping("/api/admin")
+@Admission(Priority.LOW)
 public class AdminController {
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RideEventReplayer rideEventReplayer;
+
+    @Autowired
+    private DemandHeatmap demandHeatmap;
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private RideAnalytics rideAnalytics;
+
+    @Autowired
+    private RideColumnStore rideColumnStore;
+
+    @Autowired
+    private RidePoolService ridePoolService;
+
+    @Autowired
+    private EtaModel etaModel;
+
+    // Absent when app.admission.enabled=false
+    @Autowired
+    private ObjectProvider<AdmissionGate> admissionGate;
+
     @PostMapping("/encode-passwords")
     public ResponseEntity<?> encodePasswords() {
         userService.encodeExistingPasswords();
         return ResponseEntity.ok("Passwords encoded successfully.");
     }
-} 
\ No newline at end of file
+
+    // Rebuilds ride state from snapshot + events; upTo defaults to the newest event
+    @GetMapping("/ride-events/replay")
+    public ResponseEntity<?> replayRideEvents(@RequestParam(required = false) Long upTo,
+                                              @RequestParam(required = false) Long rideId) {
+        RideEventReplayer.Replay replay = upTo == null
+                ? rideEventReplayer.rebuildLatest()
+                : rideEventReplayer.rebuild(upTo);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("snapshotSeq", replay.snapshotSeq());
+        body.put("upToSeq", replay.upToSeq());
+        body.put("eventsApplied", replay.eventsApplied());
+        body.put("rideCount", replay.rides().size());
+        if (rideId != null) {
+            RideState ride = replay.rides().get(rideId);
+            if (ride == null)
+                return ResponseEntity.notFound().build();
+            body.put("ride", ride);
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    // Place ids for rides booked before the gazetteer knew their location text
+    @PostMapping("/places/backfill")
+    public ResponseEntity<?> backfillPlaceIds() {
+        return ResponseEntity.ok(Map.of("updated", rideService.backfillPlaceIds()));
+    }
+
+    // Demand heatmap over whole hours; defaults to the last hour
+    @GetMapping("/heatmap")
+    public ResponseEntity<Heatmap> getHeatmap(@RequestParam(defaultValue = "PICKUP") DemandHeatmap.Kind kind,
+                                              @RequestParam(required = false) LocalDateTime from,
+                                              @RequestParam(required = false) LocalDateTime to) {
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime start = from == null ? end.minusHours(1) : from;
+        if (!start.isBefore(end))
+            return ResponseEntity.badRequest().build();
+        return ResponseEntity.ok(demandHeatmap.query(kind, start, end));
+    }
+
+    // e.g. ?metric=REVENUE&groupBy=DAY, ?metric=AVG_RATING&groupBy=DRIVER, ?metric=CANCELLATION_RATE&groupBy=HOUR
+    @GetMapping("/analytics")
+    public ResponseEntity<AnalyticsResult> analytics(@RequestParam(defaultValue = "COUNT") RideAnalytics.Metric metric,
+                                                     @RequestParam(defaultValue = "NONE") RideAnalytics.GroupBy groupBy,
+                                                     @RequestParam(required = false) LocalDateTime from,
+                                                     @RequestParam(required = false) LocalDateTime to,
+                                                     @RequestParam(required = false) String status,
+                                                     @RequestParam(required = false) Long driverId,
+                                                     @RequestParam(required = false) Integer pickupPlaceId) {
+        return ResponseEntity.ok(rideAnalytics.query(
+                new RideAnalytics.Query(metric, groupBy, from, to, status, driverId, pickupPlaceId)));
+    }
+
+    @GetMapping("/analytics/store")
+    public ResponseEntity<?> analyticsStore() {
+        int rides = rideColumnStore.size();
+        long bytes = rideColumnStore.memoryBytes();
+        return ResponseEntity.ok(Map.of("rides", rides, "bytes", bytes,
+                "bytesPerRide", rides == 0 ? 0 : bytes / rides, "changeCursor", rideColumnStore.cursor()));
+    }
+
+    // Shared-ride matching: pooling rate, detours and lookup cost
+    @GetMapping("/pooling")
+    public ResponseEntity<PoolingStats> pooling() {
+        return ResponseEntity.ok(ridePoolService.stats());
+    }
+
+    // ETA predictions against actual durations, and the client's estimates
+    @GetMapping("/eta/report")
+    public ResponseEntity<EtaReport> etaReport() {
+        return ResponseEntity.ok(etaModel.report());
+    }
+
+    // Same as the nightly job
+    @PostMapping("/eta/rebuild")
+    public ResponseEntity<EtaReport> rebuildEta() {
+        etaModel.rebuild();
+        return ResponseEntity.ok(etaModel.report());
+    }
+
+    // Cached account balances against the journal; also runs on a schedule
+    @GetMapping("/ledger/check")
+    public ResponseEntity<LedgerCheck> checkLedger() {
+        return ResponseEntity.ok(ledgerService.check());
+    }
+
+    // Per-class concurrency limits, queues and what was shed since startup
+    @GetMapping("/admission")
+    @Admission(Priority.NORMAL)
+    public ResponseEntity<List<AdmissionStats>> admission() {
+        AdmissionGate gate = admissionGate.getIfAvailable();
+        return ResponseEntity.ok(gate == null ? List.of() : gate.stats());
+    }
+
+    @PostMapping("/ride-events/snapshot")
+    public ResponseEntity<?> snapshotRideEvents() {
+        RideEventSnapshot snapshot = rideEventReplayer.takeSnapshot();
+        return ResponseEntity.ok(Map.of("snapshotId", snapshot.getId(), "lastSeq", snapshot.getLastSeq(),
+                "rideCount", snapshot.getRideCount()));
+    }
+}
@@ -1,24 +1,27 @@
 package com.example.backend.controller;
 
+import com.example.backend.config.ReplicaRouting;
+import com.example.backend.dto.DriverSummary;
+import com.example.backend.dto.UserSummary;
 import com.example.backend.model.User;
-import com.example.backend.model.Driver;
-import com.example.backend.model.PasswordResetToken;
-import com.example.backend.model.OtpToken;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.repository.DriverRepository;
-import com.example.backend.repository.PasswordResetTokenRepository;
-import com.example.backend.repository.OtpTokenRepository;
+import com.example.backend.service.CredentialStore;
+import com.example.backend.service.DuplicateAccountException;
+import com.example.backend.service.HashingBusyException;
 import com.example.backend.service.OtpService;
+import com.example.backend.service.SessionTokenStore;
+import com.example.backend.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpStatus;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.*;
 
 @RestController
@@ -32,13 +35,10 @@ public class AuthController {
     private DriverRepository driverRepository;
 
     @Autowired
-    private PasswordResetTokenRepository passwordResetTokenRepository;
+    private CredentialStore credentialStore;
 
     @Autowired
-    private OtpTokenRepository otpTokenRepository;
-
-    @Autowired
-    private PasswordEncoder passwordEncoder;
+    private UserService userService;
 
     @Autowired
     private JavaMailSender mailSender;
@@ -46,13 +46,14 @@ public class AuthController {
     @Autowired
     private OtpService otpService;
 
-    // Simple in-memory token storage for demo purposes
-    private static final Map<String, String> tokenStore = new java.util.concurrent.ConcurrentHashMap<>();
+    // Shared by all nodes (database-backed, cached locally)
+    @Autowired
+    private SessionTokenStore sessionTokenStore;
 
     // ================= LOGIN =================
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
-        Optional<User> userOptional = userRepository.findByEmail(loginRequest.getEmail());
+        Optional<User> userOptional = userService.authenticate(loginRequest.getEmail(), loginRequest.getPassword());
 
         if (userOptional.isEmpty()) {
             return ResponseEntity.status(401).body("Invalid credentials");
@@ -60,21 +61,7 @@ public class AuthController {
 
         User user = userOptional.get();
 
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-            return ResponseEntity.status(401).body("Invalid credentials");
-        }
-
-        String otp = otpService.generateOtp();
-        otpService.sendOtp(user.getEmail(), otp);
-
-        Optional<OtpToken> existingOtp = otpTokenRepository.findByUserEmail(user.getEmail());
-        OtpToken otpToken = existingOtp.orElse(
-                new OtpToken(user, otp, LocalDateTime.now().plusMinutes(5))
-        );
-
-        otpToken.setOtp(otp);
-        otpToken.setExpiryDate(LocalDateTime.now().plusMinutes(5));
-        otpTokenRepository.save(otpToken);
+        otpService.issueOtp(user.getEmail());
 
         return ResponseEntity.ok(Map.of("requiresTwoFactor", true));
     }
@@ -96,26 +83,33 @@ public class AuthController {
         String email = request.get("email");
         String otp = request.get("code");
 
-        Optional<OtpToken> otpTokenOpt = otpTokenRepository.findByUserEmail(email);
-        if (otpTokenOpt.isEmpty()) {
+        if (email == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("OTP not found");
         }
 
-        OtpToken otpToken = otpTokenOpt.get();
-        if (!otpToken.getOtp().equals(otp) || otpToken.getExpiryDate().isBefore(LocalDateTime.now())) {
+        CredentialStore.Result result = otpService.verifyOtp(email, otp);
+        if (result == CredentialStore.Result.LOCKED) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body("Too many attempts, please log in again");
+        }
+        if (result != CredentialStore.Result.VALID) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or expired OTP");
         }
 
-        User user = otpToken.getUser();
+        Optional<User> userOpt = userRepository.findByEmail(email);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not found");
+        }
+
+        User user = userOpt.get();
         String token = generateTokenForUser(user);
 
         Map<String, Object> response = new HashMap<>();
         response.put("token", token);
-        response.put("user", user);
+        response.put("user", UserSummary.of(user));
 
         // 🔥 CRITICAL FIX: attach DRIVER info
         if (user.getRole() == User.Role.DRIVER) {
-            driverRepository.findByPhone(user.getPhone())
+            driverRepository.findSummaryByPhone(user.getPhone())
                     .ifPresent(driver -> response.put("driver", driver));
         }
 
@@ -123,9 +117,7 @@ public class AuthController {
     }
 
     private String generateTokenForUser(User user) {
-        String token = UUID.randomUUID().toString();
-        tokenStore.put(token, user.getEmail());
-        return token;
+        return sessionTokenStore.issue(user.getEmail());
     }
 
     // ================= DRIVER PROFILE =================
@@ -141,7 +133,7 @@ public class AuthController {
             return ResponseEntity.badRequest().body("User is not a driver");
         }
 
-        return driverRepository.findByPhone(user.getPhone())
+        return driverRepository.findSummaryByPhone(user.getPhone())
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -154,7 +146,7 @@ public class AuthController {
         }
         
         String token = authHeader.substring(7);
-        String email = tokenStore.get(token);
+        String email = sessionTokenStore.lookup(token);
         
         if (email == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
@@ -174,7 +166,7 @@ public class AuthController {
         response.put("phone", user.getPhone());
         
         if (user.getRole() == User.Role.DRIVER) {
-            driverRepository.findByPhone(user.getPhone())
+            driverRepository.findSummaryByPhone(user.getPhone())
                     .ifPresent(driver -> response.put("driver", driver));
         }
         
@@ -186,24 +178,39 @@ public class AuthController {
     public ResponseEntity<?> resetPassword(@RequestBody Map<String, String> request) {
         String token = request.get("token");
         String newPassword = request.get("newPassword");
-        
-        Optional<PasswordResetToken> tokenOpt = passwordResetTokenRepository.findByToken(token);
-        
-        if (tokenOpt.isEmpty()) {
+        // Checked before the token is used up, so a bad request can be corrected and sent again
+        if (newPassword == null || newPassword.isEmpty()) {
+            return ResponseEntity.badRequest().body("Password is required");
+        }
+
+        // Tokens look like "<userId>.<secret>" so the store is keyed by user
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot <= 0) {
             return ResponseEntity.badRequest().body("Invalid token");
         }
-        
-        PasswordResetToken resetToken = tokenOpt.get();
-        if (resetToken.getExpiryDate().isBefore(LocalDateTime.now())) {
+        String userId = token.substring(0, dot);
+
+        // Verification consumes the token
+        CredentialStore.Result result = credentialStore.verify(
+                CredentialStore.Purpose.PASSWORD_RESET, userId, token.substring(dot + 1));
+        if (result == CredentialStore.Result.EXPIRED) {
             return ResponseEntity.badRequest().body("Token expired");
         }
-        
-        User user = resetToken.getUser();
-        user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
-        
-        // Clean up token
-        passwordResetTokenRepository.delete(resetToken);
+        if (result != CredentialStore.Result.VALID) {
+            return ResponseEntity.badRequest().body("Invalid token");
+        }
+
+        // Saved again right below, so not a possibly stale replica row
+        Optional<User> userOpt = ReplicaRouting.onPrimary(() -> userRepository.findById(Long.valueOf(userId)));
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.badRequest().body("Invalid token");
+        }
+
+        User user = userOpt.get();
+        userService.changePassword(user, newPassword);
+
+        // Old sessions end on every node
+        sessionTokenStore.revokeAll(user.getId(), user.getEmail());
         
         return ResponseEntity.ok(Map.of("message", "Password reset successfully"));
     }
@@ -217,32 +224,36 @@ public class AuthController {
         String phone = request.get("phone");
         String role = request.get("role");
 
-        if (userRepository.findByEmail(email).isPresent()) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body("User already exists");
-        }
-
         User user = new User();
         user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(password);
         user.setName(name);
         user.setPhone(phone);
         user.setRole(User.Role.valueOf(role));
-        userRepository.save(user);
 
-        if ("DRIVER".equalsIgnoreCase(role)) {
-            Driver driver = new Driver();
-            driver.setName(name);
-            driver.setPhone(phone);
-            driver.setAvailable(false);
-            driverRepository.save(driver);
+        UserService.Registration registration;
+        try {
+            registration = userService.register(user);
+        } catch (DuplicateAccountException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
 
+        if (registration.driver() != null) {
             return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-                    "user", user,
-                    "driver", driver
+                    "user", UserSummary.of(registration.user()),
+                    "driver", DriverSummary.of(registration.driver())
             ));
         }
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(user);
+        return ResponseEntity.status(HttpStatus.CREATED).body(UserSummary.of(registration.user()));
+    }
+
+    // Login, register and reset all wait on the password hashing pool
+    @ExceptionHandler(HashingBusyException.class)
+    public ResponseEntity<?> hashingBusy(HashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
     }
 
     // ================= PASSWORD RESET =================
@@ -256,18 +267,13 @@ public class AuthController {
         }
 
         User user = userOpt.get();
-        String token = UUID.randomUUID().toString();
-
-        PasswordResetToken resetToken = passwordResetTokenRepository
-                .findByUserId(user.getId())
-                .orElse(new PasswordResetToken());
+        String secret = UUID.randomUUID().toString();
 
-        resetToken.setToken(token);
-        resetToken.setUser(user);
-        resetToken.setExpiryDate(LocalDateTime.now().plusHours(1));
-        passwordResetTokenRepository.save(resetToken);
+        // Replaces any earlier reset token for this user
+        credentialStore.issue(CredentialStore.Purpose.PASSWORD_RESET, String.valueOf(user.getId()), secret,
+                Duration.ofHours(1));
 
-        sendResetEmail(email, token);
+        sendResetEmail(email, user.getId() + "." + secret);
         return ResponseEntity.ok("Password reset email sent");
     }
 
@@ -0,0 +1,132 @@
+package com.example.backend.controller;
+
+import com.example.backend.admission.Admission;
+import com.example.backend.admission.Priority;
+import com.example.backend.dto.TransactionPage;
+import com.example.backend.dto.WalletBalance;
+import com.example.backend.model.PaymentMethod;
+import com.example.backend.querystats.QueryBudget;
+import com.example.backend.service.IdempotencyService;
+import com.example.backend.service.InsufficientFundsException;
+import com.example.backend.service.LedgerService;
+import com.example.backend.service.PaymentMethodService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/payments")
+public class PaymentController {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private PaymentMethodService paymentMethodService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    // =========================
+    // PAYMENT METHODS
+    // =========================
+
+    @GetMapping("/methods")
+    public ResponseEntity<List<PaymentMethod>> getPaymentMethods(@RequestParam Long userId) {
+        return ResponseEntity.ok(paymentMethodService.getPaymentMethods(userId));
+    }
+
+    @PostMapping("/methods")
+    public ResponseEntity<PaymentMethod> addPaymentMethod(@RequestParam Long userId, @RequestBody PaymentMethod method) {
+        return ResponseEntity.ok(paymentMethodService.addPaymentMethod(userId, method));
+    }
+
+    @DeleteMapping("/methods/{methodId}")
+    public ResponseEntity<Void> removePaymentMethod(@RequestParam Long userId, @PathVariable Long methodId) {
+        paymentMethodService.removePaymentMethod(userId, methodId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/methods/{methodId}/default")
+    public ResponseEntity<Void> setDefaultPaymentMethod(@RequestParam Long userId, @PathVariable Long methodId) {
+        paymentMethodService.setDefaultPaymentMethod(userId, methodId);
+        return ResponseEntity.ok().build();
+    }
+
+    // =========================
+    // WALLET
+    // =========================
+
+    @GetMapping("/wallet/{userId}")
+    @QueryBudget(1)
+    public ResponseEntity<WalletBalance> getWalletBalance(@PathVariable Long userId) {
+        return ResponseEntity.ok(ledgerService.walletBalance(userId));
+    }
+
+    @PostMapping("/wallet/{userId}/top-up")
+    @Admission(Priority.CRITICAL)
+    public ResponseEntity<?> topUp(@PathVariable Long userId, @RequestBody Map<String, Long> request,
+                                   @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("wallet-top-up", idempotencyKey, List.of(userId, request), () -> posting(
+                () -> ledgerService.topUp(userId, amount(request), request.get("paymentMethodId"))));
+    }
+
+    @PostMapping("/wallet/{userId}/withdraw")
+    @Admission(Priority.CRITICAL)
+    public ResponseEntity<?> withdraw(@PathVariable Long userId, @RequestBody Map<String, Long> request,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("wallet-withdraw", idempotencyKey, List.of(userId, request), () -> posting(
+                () -> ledgerService.withdraw(userId, amount(request), request.get("paymentMethodId"))));
+    }
+
+    @GetMapping("/transactions")
+    @QueryBudget(2)
+    public ResponseEntity<TransactionPage> getTransactions(@RequestParam Long userId,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(ledgerService.transactions(userId, Math.max(page, 0), Math.min(Math.max(size, 1), 100)));
+    }
+
+    // =========================
+    // REFUNDS
+    // =========================
+
+    // Without an amount the rest of the ride charge is refunded
+    @PostMapping("/rides/{rideId}/refund")
+    @Admission(Priority.CRITICAL)
+    public ResponseEntity<?> refundRide(@PathVariable Long rideId,
+                                        @RequestBody(required = false) Map<String, Long> request,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        Long amount = request == null ? null : request.get("amount");
+        return idempotencyService.execute("refund", idempotencyKey, Arrays.asList(rideId, amount),
+                () -> posting(() -> ledgerService.refundRide(rideId, amount)));
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+
+    // Bad amounts are the client's (400); a balance too low for now is a conflict a retry may get past (409)
+    private ResponseEntity<?> posting(Supplier<?> posting) {
+        try {
+            return ResponseEntity.ok(posting.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (InsufficientFundsException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    private static long amount(Map<String, Long> request) {
+        Long amount = request.get("amount");
+        if (amount == null)
+            throw new IllegalArgumentException("Amount is required");
+        return amount;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.backend.controller;
+
+import com.example.backend.service.Gazetteer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/places")
+public class PlaceController {
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    // Booking screen autocomplete; the gazetteer only changes on deploy, so let clients cache
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Gazetteer.Place>> autocomplete(@RequestParam("q") String prefix,
+                                                              @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)))
+                .body(gazetteer.autocomplete(prefix, Math.min(Math.max(limit, 1), 50)));
+    }
+
+    @GetMapping("/{placeId}")
+    public ResponseEntity<Gazetteer.Place> getPlace(@PathVariable Integer placeId) {
+        return gazetteer.byId(placeId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,13 +1,34 @@
 package com.example.backend.controller;
 
-import com.example.backend.model.Driver;
+import com.example.backend.admission.Admission;
+import com.example.backend.admission.Priority;
+import com.example.backend.dto.DriverSummary;
+import com.example.backend.dto.EtaEstimate;
+import com.example.backend.dto.RideChanges;
+import com.example.backend.dto.RideCommand;
+import com.example.backend.dto.RideDetail;
+import com.example.backend.dto.RideListItem;
+import com.example.backend.dto.RideOffer;
 import com.example.backend.model.Ride;
-import com.example.backend.repository.DriverRepository;
+import com.example.backend.model.RideEvent;
+import com.example.backend.querystats.QueryBudget;
+import com.example.backend.service.EtaModel;
+import com.example.backend.service.IdempotencyService;
+import com.example.backend.service.InsufficientFundsException;
+import com.example.backend.service.RideEventLog;
+import com.example.backend.service.RideOfferService;
 import com.example.backend.service.RideService;
+import com.example.backend.service.RideStateException;
+import com.example.backend.service.RideVersionCache;
+import com.example.backend.service.RideWriteUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -20,37 +41,107 @@ public class RideController {
     private RideService rideService;
 
     @Autowired
-    private DriverRepository driverRepository;
+    private RideVersionCache versionCache;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private RideEventLog rideEventLog;
+
+    @Autowired
+    private RideOfferService rideOfferService;
+
+    @Autowired
+    private EtaModel etaModel;
 
     // =========================
     // BOOK & LIFECYCLE
     // =========================
 
+    // Retried bookings carry the same Idempotency-Key and get the first ride back.
+    // A pooled booking also re-prices the riders already on its shared trip.
+    // Budget: 3 solo; pooled, 3 more for its own fare and 4 per co-rider re-priced (2 at most with
+    // app.pool.max-riders=3); 2 more with an Idempotency-Key.
     @PostMapping("/book")
-    public ResponseEntity<Ride> bookRide(@RequestBody Ride ride) {
-        return ResponseEntity.ok(rideService.bookRide(ride));
+    @Admission(Priority.CRITICAL)
+    @QueryBudget(16)
+    public ResponseEntity<?> bookRide(@RequestBody Ride ride,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("book", idempotencyKey, ride,
+                () -> ResponseEntity.ok(rideService.bookRide(ride)));
     }
 
+    // Leaving a shared trip re-prices the riders still on it.
+    // Budget: 3 for the ride, 4 per co-rider re-priced (2 at most).
     @PostMapping("/cancel/{rideId}")
+    @Admission(Priority.CRITICAL)
+    @QueryBudget(11)
     public ResponseEntity<Ride> cancelRide(@PathVariable Long rideId) {
         return ResponseEntity.ok(rideService.cancelRide(rideId));
     }
 
+    // Accepting a ride of a shared trip takes its other waiting riders too.
+    // Budget: 3 for the ride; for a shared trip 1 to find it and 3 per co-rider (2 at most); 2 more with
+    // an Idempotency-Key.
     @PostMapping("/accept")
-    public ResponseEntity<Ride> acceptRide(@RequestBody Map<String, Long> request) {
+    @Admission(Priority.CRITICAL)
+    @QueryBudget(12)
+    public ResponseEntity<?> acceptRide(@RequestBody Map<String, Long> request,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         Long rideId = request.get("rideId");
         Long driverId = request.get("driverId");
-        return ResponseEntity.ok(rideService.acceptRide(rideId, driverId));
+        return idempotencyService.execute("accept", idempotencyKey, request, () -> {
+            try {
+                return ResponseEntity.ok(rideService.acceptRide(rideId, driverId));
+            } catch (RideStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+            }
+        });
     }
 
+    // Budget: read, change version and update; 2 more with an Idempotency-Key
     @PostMapping("/start/{rideId}")
-    public ResponseEntity<Ride> startRide(@PathVariable Long rideId) {
-        return ResponseEntity.ok(rideService.startRide(rideId));
+    @Admission(Priority.CRITICAL)
+    @QueryBudget(5)
+    public ResponseEntity<?> startRide(@PathVariable Long rideId,
+                                       @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("start", idempotencyKey, rideId,
+                () -> ResponseEntity.ok(rideService.startRide(rideId)));
     }
 
+    // Posts the fare to the ledger; 409 when the ride is not STARTED, or (ride stays STARTED) when a
+    // wallet ride is short of funds.
+    // Budget: ride lock; ledger transaction, 3 balances and the entries, plus 1 per account not yet cached
+    // (3 at most); change version and update; 2 more with an Idempotency-Key.
     @PostMapping("/complete/{rideId}")
-    public ResponseEntity<Ride> completeRide(@PathVariable Long rideId) {
-        return ResponseEntity.ok(rideService.completeRide(rideId));
+    @Admission(Priority.CRITICAL)
+    @QueryBudget(13)
+    public ResponseEntity<?> completeRide(@PathVariable Long rideId,
+                                          @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("complete", idempotencyKey, rideId, () -> {
+            try {
+                return ResponseEntity.ok(rideService.completeRide(rideId));
+            } catch (InsufficientFundsException | RideStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+            }
+        });
+    }
+
+    // Fleet integrations: many accept/start/complete commands in one call, one result per command in
+    // request order. 400 only when the batch itself is empty or too large. Each chunk's completions
+    // are charged with one ledger posting, in the transaction that completes them.
+    @PostMapping("/batch")
+    @Admission(Priority.CRITICAL)
+    public ResponseEntity<?> applyBatch(@RequestBody List<RideCommand> commands,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("batch", idempotencyKey, commands, () -> {
+            try {
+                return ResponseEntity.ok(rideService.applyBatch(commands));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
     }
 
     // =========================
@@ -58,6 +149,7 @@ public class RideController {
     // =========================
 
     @PostMapping("/rate")
+    @QueryBudget(3)
     public ResponseEntity<Ride> rateRide(@RequestBody Map<String, Object> request) {
         Long rideId = Long.parseLong(request.get("rideId").toString());
         int rating = Integer.parseInt(request.get("rating").toString());
@@ -71,34 +163,112 @@ public class RideController {
     // =========================
 
     @GetMapping("/{rideId}")
-    public ResponseEntity<Ride> getRideDetails(@PathVariable Long rideId) {
-        Optional<Ride> ride = rideService.getRideById(rideId);
-        return ride.map(ResponseEntity::ok)
+    @QueryBudget(2)
+    public ResponseEntity<RideDetail> getRideDetails(@PathVariable Long rideId,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Known version and the client already has it: answer without a DB read
+        String known = versionCache.rideTag(rideId);
+        if (RideVersionCache.matches(ifNoneMatch, known))
+            return notModified(known);
+
+        Optional<RideDetail> ride = rideService.getRideById(rideId);
+        return ride.map(r -> conditional(versionCache.recordRide(r), ifNoneMatch, r))
                    .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @GetMapping("/history")
-    public ResponseEntity<List<Ride>> getRideHistory(@RequestParam String role,
-                                                     @RequestParam Long userId) {
+    @Admission(Priority.LOW)
+    @QueryBudget(2)
+    public ResponseEntity<List<RideListItem>> getRideHistory(@RequestParam String role,
+                                                             @RequestParam Long userId) {
         return ResponseEntity.ok(rideService.getRideHistory(role, userId));
     }
 
     @GetMapping("/active")
-    public ResponseEntity<Ride> getActiveRide(@RequestParam String role,
-                                              @RequestParam Long userId) {
-        return ResponseEntity.ok(rideService.getActiveRide(role, userId));
+    @QueryBudget(2)
+    public ResponseEntity<RideDetail> getActiveRide(@RequestParam String role,
+                                              @RequestParam Long userId,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String known = versionCache.activeTag(role, userId);
+        if (RideVersionCache.matches(ifNoneMatch, known))
+            return notModified(known);
+
+        RideDetail ride = rideService.getActiveRide(role, userId);
+        return conditional(versionCache.recordActive(role, userId, ride), ifNoneMatch, ride);
+    }
+
+    // Learned pickup wait and trip duration; at defaults to now
+    @GetMapping("/eta")
+    @QueryBudget(0)
+    public ResponseEntity<EtaEstimate> getEta(@RequestParam String pickup, @RequestParam String dropoff,
+                                              @RequestParam(required = false) LocalDateTime at) {
+        return ResponseEntity.ok(etaModel.estimate(pickup, dropoff, at == null ? LocalDateTime.now() : at));
     }
 
     @GetMapping("/available")
-    public ResponseEntity<List<Ride>> getAvailableRides() {
-        return ResponseEntity.ok(rideService.getAvailableRides());
+    @QueryBudget(2)
+    public ResponseEntity<List<RideListItem>> getAvailableRides() {
+        // Rides still being offered to specific drivers are not up for grabs yet
+        return ResponseEntity.ok(rideService.getAvailableRides().stream()
+                .filter(ride -> !rideOfferService.isUnderOffer(ride.id()))
+                .toList());
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Ride>> searchRides(@RequestParam String query) {
+    @Admission(Priority.LOW)
+    @QueryBudget(2)
+    public ResponseEntity<List<RideListItem>> searchRides(@RequestParam String query) {
         return ResponseEntity.ok(rideService.searchRides(query));
     }
 
+    // Delta sync: only rides written or deleted after the client's cursor.
+    // Budget: horizon (sequence, snapshot), rides, tombstones.
+    @GetMapping("/changes")
+    @QueryBudget(4)
+    public ResponseEntity<RideChanges> getRideChanges(@RequestParam(defaultValue = "0") long since,
+                                                      @RequestParam(defaultValue = "200") int limit) {
+        return ResponseEntity.ok(rideService.getChanges(since, Math.min(Math.max(limit, 1), 1000)));
+    }
+
+    // Consumers keep the last seq they saw and ask for what came after it
+    @GetMapping("/events")
+    @QueryBudget(2)
+    public ResponseEntity<List<RideEvent>> getRideEvents(@RequestParam(defaultValue = "0") long after,
+                                                         @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(rideEventLog.tail(after, Math.min(Math.max(limit, 1), 5000)));
+    }
+
+    // =========================
+    // OFFERS
+    // =========================
+
+    @GetMapping("/offers")
+    @QueryBudget(2)
+    public ResponseEntity<List<RideOffer>> getOffers(@RequestParam Long driverId) {
+        return ResponseEntity.ok(rideOfferService.getOffers(driverId));
+    }
+
+    // 409 once the offer has expired, been declined or been taken by another driver
+    @PostMapping("/offers/{rideId}/accept")
+    @Admission(Priority.CRITICAL)
+    @QueryBudget(6)
+    public ResponseEntity<?> acceptOffer(@PathVariable Long rideId, @RequestParam Long driverId,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("offer-accept", idempotencyKey, List.of(rideId, driverId),
+                () -> rideOfferService.accept(rideId, driverId)
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).body("Offer is no longer open")));
+    }
+
+    @PostMapping("/offers/{rideId}/decline")
+    @Admission(Priority.CRITICAL)
+    @QueryBudget(2)
+    public ResponseEntity<Void> declineOffer(@PathVariable Long rideId, @RequestParam Long driverId) {
+        return rideOfferService.decline(rideId, driverId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
     // =========================
     // DRIVER AVAILABILITY
     // =========================
@@ -110,11 +280,18 @@ public class RideController {
         return ResponseEntity.ok().build();
     }
 
-   @GetMapping("/drivers/{driverId}")
-public ResponseEntity<?> getDriver(@PathVariable Long driverId) {
-    Optional<Driver> driverOpt = driverRepository.findById(driverId);
+    @GetMapping("/drivers/{driverId}")
+    @QueryBudget(2)
+public ResponseEntity<?> getDriver(@PathVariable Long driverId,
+                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    String known = versionCache.driverTag(driverId);
+    if (RideVersionCache.matches(ifNoneMatch, known))
+        return notModified(known);
+
+    Optional<DriverSummary> driverOpt = rideService.getDriver(driverId);
     if (driverOpt.isPresent()) {
-        return ResponseEntity.ok(driverOpt.get());
+        DriverSummary driver = driverOpt.get();
+        return conditional(versionCache.recordDriver(driver.id(), driver.version()), ifNoneMatch, driver);
     } else {
         return ResponseEntity.status(404).body(Map.of("message", "Driver not found"));
     }
@@ -126,7 +303,8 @@ public ResponseEntity<?> getDriver(@PathVariable Long driverId) {
 
 
     @GetMapping
-    public ResponseEntity<List<Ride>> getAllRides() {
+    @Admission(Priority.LOW)
+    public ResponseEntity<List<RideListItem>> getAllRides() {
         return ResponseEntity.ok(rideService.getAllRides());
     }
 
@@ -140,4 +318,27 @@ public ResponseEntity<?> getDriver(@PathVariable Long driverId) {
         rideService.deleteRide(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Lifecycle writes queued for group commit that timed out or met a stopping node
+    @ExceptionHandler(RideWriteUnavailableException.class)
+    public ResponseEntity<?> writeUnavailable(RideWriteUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    // =========================
+    // CONDITIONAL GET HELPERS
+    // =========================
+
+    // no-cache (not Spring Security's default no-store) so clients keep the body and revalidate
+    private static <T> ResponseEntity<T> notModified(String tag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    private static <T> ResponseEntity<T> conditional(String tag, String ifNoneMatch, T body) {
+        if (RideVersionCache.matches(ifNoneMatch, tag))
+            return notModified(tag);
+        return ResponseEntity.ok().eTag(tag).cacheControl(CacheControl.noCache()).body(body);
+    }
 }
@@ -1,5 +1,8 @@
 package com.example.backend.controller;
 
+import com.example.backend.admission.Admission;
+import com.example.backend.admission.Priority;
+import com.example.backend.dto.UserSummary;
 import com.example.backend.model.User;
 import com.example.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,19 +20,20 @@ public class UserController {
     private UserService userService;
 
     @GetMapping
-    public List<User> getAllUsers() {
+    @Admission(Priority.LOW)
+    public List<UserSummary> getAllUsers() {
         return userService.getAllUsers();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        Optional<User> user = userService.getUserById(id);
+    public ResponseEntity<UserSummary> getUserById(@PathVariable Long id) {
+        Optional<UserSummary> user = userService.getUserById(id);
         return user.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public User createUser(@RequestBody User user) {
-        return userService.saveUser(user);
+    public UserSummary createUser(@RequestBody User user) {
+        return UserSummary.of(userService.saveUser(user));
     }
 
     @DeleteMapping("/{id}")
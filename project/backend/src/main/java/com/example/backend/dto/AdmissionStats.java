@@ -0,0 +1,26 @@
+package com.example.backend.dto;
+
+import com.example.backend.admission.Priority;
+
+/**
+ * One admission class right now: its adaptive limit and bounds, requests
+ * running and waiting, counts since startup of requests admitted, shed
+ * without waiting and shed after waiting the longest allowed, and the latest
+ * window's average latency against the baseline the limit is steered by
+ * (congested when it is over the tolerance).
+ */
+public record AdmissionStats(
+        Priority priority,
+        int limit,
+        int minLimit,
+        int maxLimit,
+        int active,
+        int queued,
+        int queueCapacity,
+        long admitted,
+        long shed,
+        long timedOut,
+        boolean congested,
+        double latencyMs,
+        double baselineLatencyMs) {
+}
@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import java.util.List;
+
+/**
+ * One aggregation over the in-memory ride columns: a value per group, in
+ * group order. value is null for averages over no rides.
+ */
+public record AnalyticsResult(
+        String metric,
+        String groupBy,
+        long rowsScanned,
+        long rowsMatched,
+        long tookMicros,
+        List<Group> groups) {
+
+    public record Group(String key, long rides, Double value) {
+    }
+}
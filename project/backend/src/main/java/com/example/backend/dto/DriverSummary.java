@@ -0,0 +1,13 @@
+package com.example.backend.dto;
+
+import com.example.backend.model.Driver;
+
+public record DriverSummary(Long id, String name, String phone, boolean available, Long version) {
+
+    public static DriverSummary of(Driver driver) {
+        if (driver == null)
+            return null;
+        return new DriverSummary(driver.getId(), driver.getName(), driver.getPhone(), driver.isAvailable(),
+                driver.getVersion());
+    }
+}
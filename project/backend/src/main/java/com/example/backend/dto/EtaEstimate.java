@@ -0,0 +1,16 @@
+package com.example.backend.dto;
+
+/**
+ * Predicted wait until pickup and trip duration, in minutes, with the level
+ * of the model each came from (basis) and how many past rides it rests on.
+ * A part is null when the model has nothing to go on yet.
+ */
+public record EtaEstimate(
+        Double pickupMinutes,
+        String pickupBasis,
+        int pickupSamples,
+        Double tripMinutes,
+        String tripBasis,
+        int tripSamples,
+        double distanceKm) {
+}
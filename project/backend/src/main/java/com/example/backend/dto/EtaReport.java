@@ -0,0 +1,30 @@
+package com.example.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * How the ETA model's predictions compare with actual durations. backtest
+ * replays the rides of the last rebuild in completion order, predicting each
+ * before learning from it; live covers rides completed since. Both set the
+ * model against the duration the client sent at booking.
+ */
+public record EtaReport(
+        LocalDateTime rebuiltAt,
+        long ridesLearned,
+        long tableBytes,
+        Accuracy backtest,
+        Accuracy live) {
+
+    public record Accuracy(
+            long trips,
+            double meanAbsErrorMinutes,
+            double meanAbsPercentError,
+            double within20Percent,
+            double biasMinutes,
+            long clientEstimates,
+            double clientMeanAbsErrorMinutes,
+            double clientMeanAbsPercentError,
+            long pickups,
+            double pickupMeanAbsErrorMinutes) {
+    }
+}
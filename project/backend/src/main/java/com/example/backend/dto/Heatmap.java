@@ -0,0 +1,24 @@
+package com.example.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Demand counts per grid cell summed over whole hours [from, to). Only
+ * non-empty cells are listed.
+ */
+public record Heatmap(
+        String kind,
+        LocalDateTime from,
+        LocalDateTime to,
+        double minLat,
+        double minLng,
+        double cellDegrees,
+        int rows,
+        int cols,
+        long total,
+        List<Cell> cells) {
+
+    public record Cell(int row, int col, double lat, double lng, long count) {
+    }
+}
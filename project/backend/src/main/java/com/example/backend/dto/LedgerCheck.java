@@ -0,0 +1,23 @@
+package com.example.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Result of checking cached account balances against the journal. The
+ * ledger is consistent when journalTotal is zero and nothing is listed in
+ * mismatches.
+ */
+public record LedgerCheck(
+        LocalDateTime checkedAt,
+        long accounts,
+        long journalTotal,
+        List<Mismatch> mismatches) {
+
+    public record Mismatch(Long accountId, String type, Long ownerId, long balance, long journalBalance) {
+    }
+
+    public boolean consistent() {
+        return journalTotal == 0 && mismatches.isEmpty();
+    }
+}
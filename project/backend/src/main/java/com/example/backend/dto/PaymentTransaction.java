@@ -0,0 +1,23 @@
+package com.example.backend.dto;
+
+import com.example.backend.model.LedgerTransaction;
+
+import java.time.LocalDateTime;
+
+// A journal transaction as the rider sees it; everything in the ledger is posted, hence COMPLETED
+public record PaymentTransaction(
+        Long id,
+        long amount,
+        String currency,
+        LedgerTransaction.Type type,
+        String status,
+        LocalDateTime date,
+        String description,
+        String paymentMethod,
+        Long rideId) {
+
+    public static PaymentTransaction of(LedgerTransaction tx) {
+        return new PaymentTransaction(tx.getId(), tx.getAmount(), tx.getCurrency(), tx.getType(), "COMPLETED",
+                tx.getCreatedAt(), tx.getDescription(), tx.getPaymentMethod(), tx.getRideId());
+    }
+}
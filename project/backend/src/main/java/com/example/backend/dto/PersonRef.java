@@ -0,0 +1,10 @@
+package com.example.backend.dto;
+
+// Just enough of a driver or rider for list rows ("Passenger: Alice")
+public record PersonRef(Long id, String name) {
+
+    // Left joins give null ids when the ride has no driver yet
+    public static PersonRef of(Long id, String name) {
+        return id == null ? null : new PersonRef(id, name);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.backend.dto;
+
+/**
+ * Shared-ride engine counters since startup (requests, joined, unplaced and
+ * the per-request lookup cost) and figures over the trips it still holds:
+ * the share of riders travelling with someone, their average and worst
+ * detour over their direct distance and how much below the solo fares they
+ * pay.
+ */
+public record PoolingStats(
+        long openTrips,
+        long trips,
+        long requests,
+        long joined,
+        long unplaced,
+        double poolingRate,
+        double averageDetourPercent,
+        double maxDetourPercent,
+        double averageAddedKmPerJoin,
+        double fareSavingsPercent,
+        double candidatesPerRequest,
+        double matchMicros) {
+}
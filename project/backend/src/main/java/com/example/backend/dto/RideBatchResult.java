@@ -0,0 +1,34 @@
+package com.example.backend.dto;
+
+import com.example.backend.model.Ride;
+
+import java.util.List;
+
+/**
+ * Outcome of a fleet batch, one item per command in request order. Applied
+ * items carry the ride's new status and version; rejected ones say why and,
+ * when the ride was found, the status it was in.
+ */
+public record RideBatchResult(int applied, int rejected, List<Item> items) {
+
+    public enum Outcome {APPLIED, INVALID, NOT_FOUND, CONFLICT}
+
+    public record Item(int index, Long rideId, RideCommand.Action action, Outcome outcome, String message,
+                       String status, Long version) {
+
+        public static Item applied(int index, RideCommand command, Ride ride) {
+            return new Item(index, command.rideId(), command.action(), Outcome.APPLIED, null,
+                    ride.getStatus(), ride.getVersion());
+        }
+
+        public static Item rejected(int index, RideCommand command, Outcome outcome, String message, Ride ride) {
+            return new Item(index, command == null ? null : command.rideId(), command == null ? null : command.action(),
+                    outcome, message, ride == null ? null : ride.getStatus(), ride == null ? null : ride.getVersion());
+        }
+    }
+
+    public static RideBatchResult of(List<Item> items) {
+        int applied = (int) items.stream().filter(item -> item.outcome() == Outcome.APPLIED).count();
+        return new RideBatchResult(applied, items.size() - applied, items);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.backend.dto;
+
+import java.util.List;
+
+/**
+ * One page of the ride change feed. Clients apply {@code rides} as upserts and
+ * {@code deleted} as removals, then ask again with {@code cursor}. When
+ * {@code hasMore} is false the client is caught up. The cursor can move past
+ * the last row returned, but never past a change that may still commit.
+ */
+public record RideChanges(long cursor, boolean hasMore, List<RideState> rides, List<Long> deleted) {
+}
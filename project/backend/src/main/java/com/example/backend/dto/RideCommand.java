@@ -0,0 +1,27 @@
+package com.example.backend.dto;
+
+import java.util.Set;
+
+/**
+ * One lifecycle step in a fleet batch: accept (with the driver taking the
+ * ride), start or complete. Each action only applies to a ride in one of
+ * its {@code from} states.
+ */
+public record RideCommand(Action action, Long rideId, Long driverId) {
+
+    public enum Action {
+        ACCEPT("PENDING", "SCHEDULED"),
+        START("ACCEPTED"),
+        COMPLETE("STARTED");
+
+        private final Set<String> from;
+
+        Action(String... from) {
+            this.from = Set.of(from);
+        }
+
+        public boolean appliesTo(String status) {
+            return from.contains(status);
+        }
+    }
+}
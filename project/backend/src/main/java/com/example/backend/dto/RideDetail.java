@@ -0,0 +1,53 @@
+package com.example.backend.dto;
+
+import com.example.backend.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single-ride view with the assigned driver and the rider attached as
+ * summaries. Loaded by one joined query instead of three findById calls.
+ */
+public record RideDetail(
+        Long id,
+        Long riderId,
+        Long driverId,
+        String pickupLocation,
+        String dropoffLocation,
+        String status,
+        LocalDateTime bookedAt,
+        LocalDateTime scheduledPickupAt,
+        LocalDateTime startedAt,
+        LocalDateTime completedAt,
+        Integer rating,
+        String comment,
+        Double estimatedFare,
+        Double distance,
+        Integer duration,
+        String paymentMethod,
+        Long poolId,
+        Double soloFare,
+        Long version,
+        DriverSummary driver,
+        UserSummary rider) {
+
+    // Flat constructor used by the repository's "select new" queries
+    public RideDetail(Long id, Long riderId, Long driverId, String pickupLocation, String dropoffLocation,
+                      String status, LocalDateTime bookedAt, LocalDateTime scheduledPickupAt,
+                      LocalDateTime startedAt, LocalDateTime completedAt,
+                      Integer rating, String comment, Double estimatedFare, Double distance, Integer duration,
+                      String paymentMethod, Long poolId, Double soloFare, Long version,
+                      Long driverRefId, String driverName, String driverPhone, Boolean driverAvailable,
+                      Long driverVersion,
+                      Long riderRefId, String riderName, String riderEmail, String riderPhone, User.Role riderRole,
+                      Long riderVersion) {
+        this(id, riderId, driverId, pickupLocation, dropoffLocation, status, bookedAt, scheduledPickupAt,
+                startedAt, completedAt,
+                rating, comment, estimatedFare, distance, duration, paymentMethod, poolId, soloFare, version,
+                driverRefId == null ? null
+                        : new DriverSummary(driverRefId, driverName, driverPhone,
+                                Boolean.TRUE.equals(driverAvailable), driverVersion),
+                riderRefId == null ? null
+                        : new UserSummary(riderRefId, riderName, riderEmail, riderPhone, riderRole, riderVersion));
+    }
+}
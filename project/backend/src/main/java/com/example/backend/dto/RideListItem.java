@@ -0,0 +1,39 @@
+package com.example.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row shape for history, available and search lists. Filled straight from a
+ * column-limited JPQL query, so no Ride/User/Driver entities are hydrated.
+ */
+public record RideListItem(
+        Long id,
+        Long riderId,
+        Long driverId,
+        String pickupLocation,
+        String dropoffLocation,
+        String status,
+        LocalDateTime bookedAt,
+        LocalDateTime scheduledPickupAt,
+        LocalDateTime completedAt,
+        Integer rating,
+        Double estimatedFare,
+        Double distance,
+        Integer duration,
+        String paymentMethod,
+        Long poolId,
+        PersonRef driver,
+        PersonRef rider) {
+
+    // Flat constructor used by the repository's "select new" queries
+    public RideListItem(Long id, Long riderId, Long driverId, String pickupLocation, String dropoffLocation,
+                        String status, LocalDateTime bookedAt, LocalDateTime scheduledPickupAt,
+                        LocalDateTime completedAt, Integer rating,
+                        Double estimatedFare, Double distance, Integer duration, String paymentMethod,
+                        Long poolId, Long driverRefId, String driverName, Long riderRefId, String riderName) {
+        this(id, riderId, driverId, pickupLocation, dropoffLocation, status, bookedAt, scheduledPickupAt,
+                completedAt, rating,
+                estimatedFare, distance, duration, paymentMethod, poolId,
+                PersonRef.of(driverRefId, driverName), PersonRef.of(riderRefId, riderName));
+    }
+}
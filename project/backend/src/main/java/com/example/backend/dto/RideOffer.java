@@ -0,0 +1,7 @@
+package com.example.backend.dto;
+
+import java.time.LocalDateTime;
+
+// A ride offered to one driver until expiresAt
+public record RideOffer(Long rideId, Long driverId, LocalDateTime expiresAt, RideListItem ride) {
+}
@@ -0,0 +1,39 @@
+package com.example.backend.dto;
+
+import com.example.backend.model.Ride;
+
+import java.time.LocalDateTime;
+
+// Ride columns as carried by event-log payloads and snapshots; version is the ride's
+// optimistic-lock version, null in payloads written before it was recorded
+public record RideState(
+        Long id,
+        Long riderId,
+        Long driverId,
+        String pickupLocation,
+        String dropoffLocation,
+        String status,
+        LocalDateTime bookedAt,
+        LocalDateTime scheduledPickupAt,
+        LocalDateTime startedAt,
+        LocalDateTime completedAt,
+        Integer rating,
+        String comment,
+        Double estimatedFare,
+        Double distance,
+        Integer duration,
+        String paymentMethod,
+        Integer pickupPlaceId,
+        Integer dropoffPlaceId,
+        Long poolId,
+        Double soloFare,
+        Long version) {
+
+    public static RideState of(Ride ride) {
+        return new RideState(ride.getId(), ride.getRiderId(), ride.getDriverId(), ride.getPickupLocation(),
+                ride.getDropoffLocation(), ride.getStatus(), ride.getBookedAt(), ride.getScheduledPickupAt(), ride.getStartedAt(),
+                ride.getCompletedAt(), ride.getRating(), ride.getComment(), ride.getEstimatedFare(),
+                ride.getDistance(), ride.getDuration(), ride.getPaymentMethod(), ride.getPickupPlaceId(),
+                ride.getDropoffPlaceId(), ride.getPoolId(), ride.getSoloFare(), ride.getVersion());
+    }
+}
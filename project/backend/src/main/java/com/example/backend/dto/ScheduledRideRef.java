@@ -0,0 +1,7 @@
+package com.example.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Just enough of a scheduled ride to put it on the scheduling wheel
+public record ScheduledRideRef(Long id, LocalDateTime scheduledPickupAt) {
+}
@@ -0,0 +1,11 @@
+package com.example.backend.dto;
+
+import java.util.List;
+
+public record TransactionPage(
+        List<PaymentTransaction> content,
+        long totalElements,
+        int totalPages,
+        int size,
+        int number) {
+}
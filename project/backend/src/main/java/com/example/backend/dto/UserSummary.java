@@ -0,0 +1,14 @@
+package com.example.backend.dto;
+
+import com.example.backend.model.User;
+
+// Public view of a user: never carries the password hash
+public record UserSummary(Long id, String name, String email, String phone, User.Role role, Long version) {
+
+    public static UserSummary of(User user) {
+        if (user == null)
+            return null;
+        return new UserSummary(user.getId(), user.getName(), user.getEmail(), user.getPhone(), user.getRole(),
+                user.getVersion());
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.backend.dto;
+
+public record WalletBalance(Long userId, long balance, String currency) {
+}
@@ -0,0 +1,5 @@
+package com.example.backend.dto;
+
+// Result of a top-up or withdrawal: the journal transaction and the wallet balance right after it
+public record WalletPosting(boolean success, PaymentTransaction transaction, long newBalance) {
+}
@@ -16,6 +16,10 @@ public class Driver {
 
     private boolean available = false; // default offline
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     public Driver() {}
 
     public Driver(String name, String phone) {
@@ -55,4 +59,12 @@ public class Driver {
     public void setAvailable(boolean available) {
         this.available = available;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
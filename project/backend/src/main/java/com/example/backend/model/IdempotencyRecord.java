@@ -0,0 +1,71 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Stored response for an Idempotency-Key, so retries survive a restart
+@Entity
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+    // "<scope>:<client key>", e.g. "book:7f1c..."
+    @Id
+    @Column(name = "idempotency_key", length = 200)
+    private String key;
+
+    // Null while the request that claimed the key is still running
+    private Integer statusCode;
+
+    @Column(columnDefinition = "text")
+    private String responseBody;
+
+    // Null on rows older than V13, which all hold JSON
+    @Column(length = 100)
+    private String contentType;
+
+    // SHA-256 of the request the response answered; null on rows older than V10
+    @Column(length = 64)
+    private String requestHash;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String key, Integer statusCode, String responseBody, String contentType,
+                             String requestHash, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.key = key;
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.contentType = contentType;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and setters
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public Integer getStatusCode() { return statusCode; }
+    public void setStatusCode(Integer statusCode) { this.statusCode = statusCode; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
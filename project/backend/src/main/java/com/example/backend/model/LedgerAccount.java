@@ -0,0 +1,45 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+
+// One ledger account. balance is a running total of the account's entries,
+// kept in step by LedgerService and checked against the journal.
+@Entity
+@Table(name = "ledger_accounts", uniqueConstraints = @UniqueConstraint(columnNames = {"type", "owner_id"}))
+public class LedgerAccount {
+
+    public enum Type {
+        WALLET,           // rider prepaid balance, owner = user id; never negative
+        DRIVER_EARNINGS,  // owner = driver id
+        PLATFORM_REVENUE, // owner = shard number
+        EXTERNAL_FUNDS    // money outside the platform (cards, mobile money); owner = shard number
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    // Whole RWF; the franc has no minor unit in use
+    @Column(nullable = false)
+    private long balance;
+
+    public Long getId() { return id; }
+
+    public Type getType() { return type; }
+
+    public Long getOwnerId() { return ownerId; }
+
+    public String getCurrency() { return currency; }
+
+    public long getBalance() { return balance; }
+}
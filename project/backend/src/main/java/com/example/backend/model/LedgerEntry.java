@@ -0,0 +1,33 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+
+// One leg of a journal transaction; amount is signed (added to the account balance)
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_account", columnList = "account_id"),
+        @Index(name = "idx_ledger_entries_tx", columnList = "transaction_id")
+})
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private long amount;
+
+    public Long getId() { return id; }
+
+    public Long getTransactionId() { return transactionId; }
+
+    public Long getAccountId() { return accountId; }
+
+    public long getAmount() { return amount; }
+}
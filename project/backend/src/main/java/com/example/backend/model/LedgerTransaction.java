@@ -0,0 +1,72 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Journal header: one per business event. Its entries always sum to zero.
+@Entity
+@Table(name = "ledger_transactions", indexes = {
+        @Index(name = "idx_ledger_tx_user", columnList = "user_id, id"),
+        @Index(name = "idx_ledger_tx_ride", columnList = "ride_id")
+})
+public class LedgerTransaction {
+
+    public enum Type {
+        CHARGE,
+        TOP_UP,
+        WITHDRAWAL,
+        REFUND
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    // Set for postings that must happen at most once (e.g. "ride:42:charge")
+    @Column(unique = true, length = 64)
+    private String reference;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "ride_id")
+    private Long rideId;
+
+    @Column(nullable = false)
+    private long amount;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    private String paymentMethod;
+
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Getters only: the journal is append-only
+    public Long getId() { return id; }
+
+    public Type getType() { return type; }
+
+    public String getReference() { return reference; }
+
+    public Long getUserId() { return userId; }
+
+    public Long getRideId() { return rideId; }
+
+    public long getAmount() { return amount; }
+
+    public String getCurrency() { return currency; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+
+    public String getDescription() { return description; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
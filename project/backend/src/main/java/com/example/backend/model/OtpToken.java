@@ -1,42 +0,0 @@
-package com.example.backend.model;
-
-import jakarta.persistence.*;
-import java.time.LocalDateTime;
-
-@Entity
-public class OtpToken {
-
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @OneToOne
-    private User user;
-
-    private String otp;
-
-    private LocalDateTime expiryDate;
-
-    // Default constructor
-    public OtpToken() {
-    }
-
-    public OtpToken(User user, String otp, LocalDateTime expiryDate) {
-        this.user = user;
-        this.otp = otp;
-        this.expiryDate = expiryDate;
-    }
-
-    // Getters and setters
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-
-    public User getUser() { return user; }
-    public void setUser(User user) { this.user = user; }
-
-    public String getOtp() { return otp; }
-    public void setOtp(String otp) { this.otp = otp; }
-
-    public LocalDateTime getExpiryDate() { return expiryDate; }
-    public void setExpiryDate(LocalDateTime expiryDate) { this.expiryDate = expiryDate; }
-} 
\ No newline at end of file
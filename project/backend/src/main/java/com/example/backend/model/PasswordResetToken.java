@@ -1,32 +0,0 @@
-package com.example.backend.model;
-
-import jakarta.persistence.*;
-import java.time.LocalDateTime;
-
-@Entity
-public class PasswordResetToken {
-
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    private String token;
-
-    @OneToOne
-    private User user;
-
-    private LocalDateTime expiryDate;
-
-    // Getters and setters
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-
-    public String getToken() { return token; }
-    public void setToken(String token) { this.token = token; }
-
-    public User getUser() { return user; }
-    public void setUser(User user) { this.user = user; }
-
-    public LocalDateTime getExpiryDate() { return expiryDate; }
-    public void setExpiryDate(LocalDateTime expiryDate) { this.expiryDate = expiryDate; }
-}
\ No newline at end of file
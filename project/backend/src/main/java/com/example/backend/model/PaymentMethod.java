@@ -0,0 +1,73 @@
+package com.example.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+
+// A saved card or mobile money account. Only display details are stored, never card numbers.
+@Entity
+@Table(name = "payment_methods", indexes = @Index(name = "idx_payment_methods_user", columnList = "user_id"))
+public class PaymentMethod {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String type; // "CARD" or "MOBILE_MONEY"
+
+    private String brand;
+    private String last4;
+    private Integer expiryMonth;
+    private Integer expiryYear;
+
+    private String provider;
+    private String phoneNumber;
+
+    @Column(name = "is_default", nullable = false)
+    @JsonProperty("isDefault")
+    private boolean defaultMethod;
+
+    public Long getId() { return id; }
+
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getType() { return type; }
+
+    public void setType(String type) { this.type = type; }
+
+    public String getBrand() { return brand; }
+
+    public void setBrand(String brand) { this.brand = brand; }
+
+    public String getLast4() { return last4; }
+
+    public void setLast4(String last4) { this.last4 = last4; }
+
+    public Integer getExpiryMonth() { return expiryMonth; }
+
+    public void setExpiryMonth(Integer expiryMonth) { this.expiryMonth = expiryMonth; }
+
+    public Integer getExpiryYear() { return expiryYear; }
+
+    public void setExpiryYear(Integer expiryYear) { this.expiryYear = expiryYear; }
+
+    public String getProvider() { return provider; }
+
+    public void setProvider(String provider) { this.provider = provider; }
+
+    public String getPhoneNumber() { return phoneNumber; }
+
+    public void setPhoneNumber(String phoneNumber) { this.phoneNumber = phoneNumber; }
+
+    @JsonProperty("isDefault")
+    public boolean isDefaultMethod() { return defaultMethod; }
+
+    @JsonProperty("isDefault")
+    public void setDefaultMethod(boolean defaultMethod) { this.defaultMethod = defaultMethod; }
+}
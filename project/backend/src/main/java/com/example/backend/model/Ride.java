@@ -4,6 +4,12 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_ride_change_version", columnList = "change_version"),
+        @Index(name = "idx_ride_pickup_place_id", columnList = "pickup_place_id"),
+        @Index(name = "idx_ride_dropoff_place_id", columnList = "dropoff_place_id"),
+        @Index(name = "idx_ride_pool_id", columnList = "pool_id")
+})
 public class Ride {
 
     @Id
@@ -16,9 +22,15 @@ public class Ride {
     private String pickupLocation;
     private String dropoffLocation;
 
+    // Gazetteer ids for the two locations; null when the text is not a known place
+    private Integer pickupPlaceId;
+    private Integer dropoffPlaceId;
+
     private String status; // e.g., "PENDING", "ACCEPTED", "STARTED", "COMPLETED", "CANCELLED"
 
     private LocalDateTime bookedAt;
+    // Requested pickup for a ride booked ahead; null for "now" bookings
+    private LocalDateTime scheduledPickupAt;
     private LocalDateTime startedAt;
     private LocalDateTime completedAt;
 
@@ -31,11 +43,20 @@ public class Ride {
 
     private String paymentMethod;
 
-    @Transient
-    private Driver driver;
+    // Shared ride requested at booking; poolId is the id of the first ride in the
+    // shared trip, and estimatedFare is then this rider's share of soloFare
+    private Boolean pooled;
+    @Column(name = "pool_id")
+    private Long poolId;
+    private Double soloFare;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 
-    @Transient
-    private User rider;
+    // Global, increasing stamp of the last write; the change feed cursor (see RideService)
+    @Column(name = "change_version")
+    private Long changeVersion;
 
     // === Getters and Setters ===
 
@@ -79,6 +100,22 @@ public class Ride {
         this.dropoffLocation = dropoffLocation;
     }
 
+    public Integer getPickupPlaceId() {
+        return pickupPlaceId;
+    }
+
+    public void setPickupPlaceId(Integer pickupPlaceId) {
+        this.pickupPlaceId = pickupPlaceId;
+    }
+
+    public Integer getDropoffPlaceId() {
+        return dropoffPlaceId;
+    }
+
+    public void setDropoffPlaceId(Integer dropoffPlaceId) {
+        this.dropoffPlaceId = dropoffPlaceId;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -95,6 +132,14 @@ public class Ride {
         this.bookedAt = bookedAt;
     }
 
+    public LocalDateTime getScheduledPickupAt() {
+        return scheduledPickupAt;
+    }
+
+    public void setScheduledPickupAt(LocalDateTime scheduledPickupAt) {
+        this.scheduledPickupAt = scheduledPickupAt;
+    }
+
     public LocalDateTime getStartedAt() {
         return startedAt;
     }
@@ -159,19 +204,43 @@ public class Ride {
         this.paymentMethod = paymentMethod;
     }
 
-    public Driver getDriver() {
-        return driver;
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getChangeVersion() {
+        return changeVersion;
+    }
+
+    public void setChangeVersion(Long changeVersion) {
+        this.changeVersion = changeVersion;
+    }
+
+    public Boolean getPooled() {
+        return pooled;
+    }
+
+    public void setPooled(Boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    public Long getPoolId() {
+        return poolId;
     }
 
-    public void setDriver(Driver driver) {
-        this.driver = driver;
+    public void setPoolId(Long poolId) {
+        this.poolId = poolId;
     }
 
-    public User getRider() {
-        return rider;
+    public Double getSoloFare() {
+        return soloFare;
     }
 
-    public void setRider(User rider) {
-        this.rider = rider;
+    public void setSoloFare(Double soloFare) {
+        this.soloFare = soloFare;
     }
 }
@@ -0,0 +1,51 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One immutable row per ride lifecycle transition; seq is the consumer cursor
+@Entity
+@Table(name = "ride_events")
+public class RideEvent {
+
+    public enum Type {
+        BOOKED,
+        ACCEPTED,
+        STARTED,
+        COMPLETED,
+        CANCELLED,
+        RATED,
+        RELEASED, // scheduled ride moved into the pending pool
+        POOLED,   // fare share changed as riders joined or left its shared trip
+        DELETED   // ride removed; the payload only holds its id
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Column(nullable = false)
+    private Long rideId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    // Ride state right after the transition (RideState as JSON)
+    @Column(columnDefinition = "text", nullable = false)
+    private String payload;
+
+    // Getters only: events are never modified after they are written
+    public Long getSeq() { return seq; }
+
+    public Long getRideId() { return rideId; }
+
+    public Type getType() { return type; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+
+    public String getPayload() { return payload; }
+}
@@ -0,0 +1,51 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// State of every ride as of event lastSeq, so replay only has to apply the tail
+@Entity
+@Table(name = "ride_event_snapshots")
+public class RideEventSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private Long lastSeq;
+
+    private LocalDateTime createdAt;
+
+    private int rideCount;
+
+    // JSON array of RideState
+    @Column(columnDefinition = "text", nullable = false)
+    private String payload;
+
+    public RideEventSnapshot() {
+    }
+
+    public RideEventSnapshot(Long lastSeq, LocalDateTime createdAt, int rideCount, String payload) {
+        this.lastSeq = lastSeq;
+        this.createdAt = createdAt;
+        this.rideCount = rideCount;
+        this.payload = payload;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getLastSeq() { return lastSeq; }
+    public void setLastSeq(Long lastSeq) { this.lastSeq = lastSeq; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public int getRideCount() { return rideCount; }
+    public void setRideCount(int rideCount) { this.rideCount = rideCount; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+}
@@ -0,0 +1,38 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Marks a deleted ride in the change feed. The id comes from the same
+// sequence as Ride.changeVersion, so deletions sort in with the updates.
+// RideService inserts these natively, taking the version the way ride
+// writes do; the generator declares the sequence for ddl-auto.
+@Entity
+@Table(name = "ride_tombstones")
+@SequenceGenerator(name = "ride_change_seq", sequenceName = "ride_change_seq", allocationSize = 1)
+public class RideTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ride_change_seq")
+    private Long changeVersion;
+
+    @Column(nullable = false)
+    private Long rideId;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    public RideTombstone() {
+    }
+
+    public RideTombstone(Long rideId, LocalDateTime deletedAt) {
+        this.rideId = rideId;
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getChangeVersion() { return changeVersion; }
+
+    public Long getRideId() { return rideId; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+}
@@ -0,0 +1,48 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Login session shared by all backend nodes; the bearer token itself is never stored
+@Entity
+@Table(name = "session_tokens",
+        indexes = {@Index(name = "idx_session_tokens_email", columnList = "email"),
+                @Index(name = "idx_session_tokens_expires_at", columnList = "expires_at")})
+public class SessionToken {
+
+    // SHA-256 of the bearer token, hex encoded
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false)
+    private String email;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public SessionToken() {
+    }
+
+    public SessionToken(String tokenHash, String email, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.email = email;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and setters
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
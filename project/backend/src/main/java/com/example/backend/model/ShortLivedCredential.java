@@ -0,0 +1,38 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One row per (purpose, subject); only used with app.credentials.store=database
+@Entity
+@Table(name = "short_lived_credentials",
+        indexes = @Index(name = "idx_short_lived_credentials_expires_at", columnList = "expires_at"))
+public class ShortLivedCredential {
+
+    // "<PURPOSE>:<subject>", e.g. "OTP:alice@example.com"
+    @Id
+    @Column(length = 320)
+    private String id;
+
+    // SHA-256 of the secret, never the secret itself
+    @Column(name = "secret_hash", nullable = false)
+    private byte[] secretHash;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    private int attempts;
+
+    // Getters and setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public byte[] getSecretHash() { return secretHash; }
+    public void setSecretHash(byte[] secretHash) { this.secretHash = secretHash; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+}
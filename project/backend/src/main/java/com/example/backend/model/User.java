@@ -1,34 +1,49 @@
 package com.example.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.UNIQUE_EMAIL, columnNames = "email"),
+        @UniqueConstraint(name = User.UNIQUE_PHONE, columnNames = "phone")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class User {
 
+    // Named by V12; registration tells a taken email from a taken phone by these
+    public static final String UNIQUE_EMAIL = "uk_users_email";
+    public static final String UNIQUE_PHONE = "uk_users_phone";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String name;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String phone;
 
+    // Accepted on input, never written out (responses use UserSummary anyway)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @ToString.Exclude
     @Column(nullable = false)
     private String password;
 
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // Ride views embed the rider, so their ETags include this
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     public enum Role {
         RIDER,
         DRIVER
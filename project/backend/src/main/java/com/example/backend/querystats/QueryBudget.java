@@ -0,0 +1,19 @@
+package com.example.backend.querystats;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most JDBC statements one call of this endpoint should need. Going over is
+ * logged; with app.query-stats.enforce-budgets=true (tests) the statement
+ * that goes over fails with {@link QueryBudgetExceededException}.
+ * Endpoints without it get app.query-stats.default-budget.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
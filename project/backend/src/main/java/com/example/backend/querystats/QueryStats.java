@@ -0,0 +1,114 @@
+package com.example.backend.querystats;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC statements issued by one HTTP request: count, total time, the slowest
+ * few and how often each distinct SQL string ran (the N+1 signal). Bound to
+ * the request thread between {@link #begin} and {@link #end}; statements on
+ * other threads are only seen by the global metrics.
+ *
+ * Also tracks which repository method is running on this thread, so each
+ * statement can be attributed to e.g. RideRepository.findListItemsByRiderId.
+ */
+public final class QueryStats {
+
+    private static final int SLOWEST_KEPT = 5;
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Deque<String>> ORIGIN = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public record Statement(String sql, String origin, long nanos) {
+    }
+
+    private final String endpoint;
+    private final int budget;
+    private int count;
+    private long nanos;
+    private final List<Statement> slowest = new ArrayList<>(SLOWEST_KEPT + 1);
+    private final Map<String, Integer> executions = new HashMap<>();
+    private final Map<String, String> origins = new HashMap<>();
+
+    private QueryStats(String endpoint, int budget) {
+        this.endpoint = endpoint;
+        this.budget = budget;
+    }
+
+    // =========================
+    // REQUEST SCOPE
+    // =========================
+
+    public static QueryStats begin(String endpoint, int budget) {
+        QueryStats stats = new QueryStats(endpoint, budget);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    // =========================
+    // REPOSITORY ORIGIN
+    // =========================
+
+    static void enterOrigin(String origin) {
+        ORIGIN.get().push(origin);
+    }
+
+    static void exitOrigin() {
+        ORIGIN.get().pop();
+    }
+
+    static String currentOrigin() {
+        String origin = ORIGIN.get().peek();
+        return origin == null ? "other" : origin;
+    }
+
+    // =========================
+    // RECORDING
+    // =========================
+
+    void record(Statement statement) {
+        count++;
+        nanos += statement.nanos();
+        executions.merge(statement.sql(), 1, Integer::sum);
+        origins.putIfAbsent(statement.sql(), statement.origin());
+        slowest.add(statement);
+        slowest.sort(Comparator.comparingLong(Statement::nanos).reversed());
+        if (slowest.size() > SLOWEST_KEPT)
+            slowest.remove(SLOWEST_KEPT);
+    }
+
+    // SQL strings run at least threshold times in this request, most repeated first
+    public List<Map.Entry<String, Integer>> repeated(int threshold) {
+        return executions.entrySet().stream()
+                .filter(e -> e.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .toList();
+    }
+
+    public String originOf(String sql) {
+        return origins.get(sql);
+    }
+
+    public String getEndpoint() { return endpoint; }
+
+    public int getBudget() { return budget; }
+
+    public int getCount() { return count; }
+
+    public long getNanos() { return nanos; }
+
+    public List<Statement> getSlowest() { return slowest; }
+}
@@ -0,0 +1,107 @@
+package com.example.backend.querystats;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+/**
+ * Wires query instrumentation: the main DataSource is wrapped, every Spring
+ * Data repository call names itself as the origin of the statements it runs,
+ * and each MVC request gets its own {@link QueryStats} with the endpoint's
+ * {@link QueryBudget}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.query-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatsConfig {
+
+    // Static and lazy: post-processors are created before the beans they touch
+    @Bean
+    public static BeanPostProcessor queryStatsPostProcessor(ObjectProvider<QueryStatsRecorder> recorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, info) -> proxyFactory.addAdvice(
+                                    originInterceptor(info.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return QueryStatsDataSource.wrap(dataSource, new QueryStatsDataSource.Listener() {
+                        @Override
+                        public void beforeStatement(String sql) {
+                            recorder.getObject().beforeStatement(sql);
+                        }
+
+                        @Override
+                        public void afterStatement(String sql, long nanos) {
+                            recorder.getObject().afterStatement(sql, nanos);
+                        }
+                    });
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static MethodInterceptor originInterceptor(String repository) {
+        return invocation -> {
+            QueryStats.enterOrigin(repository + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                QueryStats.exitOrigin();
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer queryStatsInterceptor(QueryStatsRecorder recorder,
+                                                  @Value("${app.query-stats.default-budget:50}") int defaultBudget) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new HandlerInterceptor() {
+                    @Override
+                    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                                             Object handler) {
+                        int budget = defaultBudget;
+                        if (handler instanceof HandlerMethod method && method.hasMethodAnnotation(QueryBudget.class))
+                            budget = method.getMethodAnnotation(QueryBudget.class).value();
+                        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                        QueryStats.begin(request.getMethod() + " " + (pattern != null ? pattern : "UNKNOWN"), budget);
+                        return true;
+                    }
+
+                    @Override
+                    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                                Object handler, Exception ex) {
+                        QueryStats stats = QueryStats.current();
+                        if (stats == null)
+                            return;
+                        QueryStats.end();
+                        recorder.requestFinished(stats, String.valueOf(response.getStatus()));
+                    }
+                });
+            }
+        };
+    }
+}
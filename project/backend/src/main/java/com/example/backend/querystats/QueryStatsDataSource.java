@@ -0,0 +1,91 @@
+package com.example.backend.querystats;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Wraps a DataSource in JDK proxies down to the statements it hands out and
+ * reports every execute* call with its SQL and elapsed time. unwrap() still
+ * reaches the real pool, so Hikari metrics and health checks are unaffected.
+ */
+public final class QueryStatsDataSource {
+
+    public interface Listener {
+
+        // Runs before the statement executes; may throw to stop it
+        void beforeStatement(String sql);
+
+        void afterStatement(String sql, long nanos);
+    }
+
+    private QueryStatsDataSource() {
+    }
+
+    public static DataSource wrap(DataSource target, Listener listener) {
+        return proxy(DataSource.class, target, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof Connection connection)
+                return wrapConnection(connection, listener);
+            return result;
+        });
+    }
+
+    private static Connection wrapConnection(Connection target, Listener listener) {
+        return proxy(Connection.class, target, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            if (result instanceof CallableStatement statement)
+                return wrapStatement(CallableStatement.class, statement, sql, listener);
+            if (result instanceof PreparedStatement statement)
+                return wrapStatement(PreparedStatement.class, statement, sql, listener);
+            if (result instanceof Statement statement)
+                return wrapStatement(Statement.class, statement, null, listener);
+            return result;
+        });
+    }
+
+    private static <S extends Statement> S wrapStatement(Class<S> type, S target, String preparedSql,
+                                                         Listener listener) {
+        return proxy(type, target, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute"))
+                return invoke(target, method, args);
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String s ? s : "<batch>";
+            listener.beforeStatement(sql);
+            long start = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } finally {
+                listener.afterStatement(sql, System.nanoTime() - start);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryStatsDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    // unwrap/isWrapperFor/equals/hashCode go straight to the real object
+                    return switch (method.getName()) {
+                        case "unwrap", "isWrapperFor", "hashCode", "toString" -> invoke(target, method, args);
+                        case "equals" -> proxy == args[0];
+                        default -> handler.invoke(proxy, method, args);
+                    };
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.backend.querystats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives every JDBC statement from {@link QueryStatsDataSource}: records an
+ * app.db.queries timer per repository method, writes statements over the
+ * slow threshold to the "slow-queries" logger, adds them to the current
+ * request's {@link QueryStats} and, when budgets are enforced, refuses the
+ * statement that would take a request over its budget.
+ */
+@Component
+public class QueryStatsRecorder implements QueryStatsDataSource.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatsRecorder.class);
+    private static final Logger slowLog = LoggerFactory.getLogger("slow-queries");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.query-stats.slow-ms:200}")
+    private long slowMillis;
+
+    @Value("${app.query-stats.enforce-budgets:false}")
+    private boolean enforceBudgets;
+
+    @Value("${app.query-stats.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold;
+
+    @Override
+    public void beforeStatement(String sql) {
+        QueryStats stats = QueryStats.current();
+        if (enforceBudgets && stats != null && stats.getCount() >= stats.getBudget())
+            throw new QueryBudgetExceededException(stats.getEndpoint() + " exceeded its budget of "
+                    + stats.getBudget() + " queries at: " + sql);
+    }
+
+    @Override
+    public void afterStatement(String sql, long nanos) {
+        String origin = QueryStats.currentOrigin();
+        Timer.builder("app.db.queries")
+                .description("JDBC statements by originating repository method")
+                .tag("origin", origin)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis >= slowMillis)
+            slowLog.warn("{} ms [{}] {}", millis, origin, sql);
+
+        QueryStats stats = QueryStats.current();
+        if (stats != null)
+            stats.record(new QueryStats.Statement(sql, origin, nanos));
+    }
+
+    // Called once the request is done
+    public void requestFinished(QueryStats stats, String status) {
+        meterRegistry.summary("app.http.queries", "uri", stats.getEndpoint(), "status", status)
+                .record(stats.getCount());
+
+        if (stats.getCount() > stats.getBudget())
+            log.warn("{} ran {} queries (budget {}) in {} ms; slowest: {}", stats.getEndpoint(), stats.getCount(),
+                    stats.getBudget(), TimeUnit.NANOSECONDS.toMillis(stats.getNanos()), describe(stats));
+
+        for (Map.Entry<String, Integer> repeated : stats.repeated(nPlusOneThreshold))
+            log.warn("Possible N+1 in {}: {} x [{}] {}", stats.getEndpoint(), repeated.getValue(),
+                    stats.originOf(repeated.getKey()), repeated.getKey());
+    }
+
+    private static String describe(QueryStats stats) {
+        StringBuilder out = new StringBuilder();
+        for (QueryStats.Statement s : stats.getSlowest())
+            out.append("\n  ").append(TimeUnit.NANOSECONDS.toMicros(s.nanos())).append(" us [")
+                    .append(s.origin()).append("] ").append(s.sql());
+        return out.toString();
+    }
+}
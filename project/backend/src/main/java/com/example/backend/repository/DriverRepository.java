@@ -1,13 +1,32 @@
 package com.example.backend.repository;
 
+import com.example.backend.dto.DriverSummary;
 import com.example.backend.model.Driver;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DriverRepository extends JpaRepository<Driver, Long> {
 
     Optional<Driver> findByPhone(String phone);
+
+    @Query("select new com.example.backend.dto.DriverSummary(d.id, d.name, d.phone, d.available, d.version) from Driver d where d.id = :id")
+    Optional<DriverSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("select new com.example.backend.dto.DriverSummary(d.id, d.name, d.phone, d.available, d.version) from Driver d where d.phone = :phone")
+    Optional<DriverSummary> findSummaryByPhone(@Param("phone") String phone);
+
+    // Offer candidates: online, not on a ride, not excluded; longest idle first
+    @Query(value = "select d.id from drivers d "
+            + "where d.available = true and d.id not in (:excluded) "
+            + "and not exists (select 1 from ride r where r.driver_id = d.id and r.status in ('ACCEPTED', 'STARTED')) "
+            + "order by (select max(r.completed_at) from ride r where r.driver_id = d.id) asc nulls first, d.id "
+            + "limit :limit", nativeQuery = true)
+    List<Long> findOfferCandidates(@Param("excluded") Collection<Long> excluded, @Param("limit") int limit);
 }
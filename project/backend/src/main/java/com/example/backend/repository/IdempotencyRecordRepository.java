@@ -0,0 +1,48 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Claims the key for a request about to run: a row without a status. An expired row, a stale claim
+    // or an old response, is taken over. 0 when the key is claimed or answered already
+    @Modifying
+    @Transactional
+    @Query(value = "insert into idempotency_keys (idempotency_key, request_hash, created_at, expires_at) "
+            + "values (:key, :requestHash, :claimedAt, :claimedUntil) on conflict (idempotency_key) do update "
+            + "set status_code = null, response_body = null, content_type = null, request_hash = excluded.request_hash, "
+            + "created_at = excluded.created_at, expires_at = excluded.expires_at "
+            + "where idempotency_keys.expires_at < excluded.created_at", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("requestHash") String requestHash,
+              @Param("claimedAt") LocalDateTime claimedAt, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    // Stores the response on our claim; 0 when the claim expired and was taken over
+    @Modifying
+    @Transactional
+    @Query(value = "update idempotency_keys set status_code = :status, response_body = :body, "
+            + "content_type = :contentType, expires_at = :expiresAt "
+            + "where idempotency_key = :key and created_at = :claimedAt and status_code is null", nativeQuery = true)
+    int complete(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt, @Param("status") int status,
+                 @Param("body") String body, @Param("contentType") String contentType,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Gives up our claim when there is nothing to store, so a retry runs the request again
+    @Modifying
+    @Transactional
+    @Query(value = "delete from idempotency_keys "
+            + "where idempotency_key = :key and created_at = :claimedAt and status_code is null", nativeQuery = true)
+    int release(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt);
+
+    // Range delete on the expires_at index
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,15 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.LedgerTransaction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface LedgerTransactionRepository extends JpaRepository<LedgerTransaction, Long> {
+
+    Optional<LedgerTransaction> findByReference(String reference);
+
+    Page<LedgerTransaction> findByUserIdOrderByIdDesc(Long userId, Pageable pageable);
+}
@@ -1,10 +0,0 @@
-package com.example.backend.repository;
-
-import com.example.backend.model.OtpToken;
-import org.springframework.data.jpa.repository.JpaRepository;
-
-import java.util.Optional;
-
-public interface OtpTokenRepository extends JpaRepository<OtpToken, Long> {
-    Optional<OtpToken> findByUserEmail(String email);
-} 
\ No newline at end of file
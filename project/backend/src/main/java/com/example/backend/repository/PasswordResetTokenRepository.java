@@ -1,11 +0,0 @@
-package com.example.backend.repository;
-
-import com.example.backend.model.PasswordResetToken;
-import org.springframework.data.jpa.repository.JpaRepository;
-
-import java.util.Optional;
-
-public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
-    Optional<PasswordResetToken> findByToken(String token);
-    Optional<PasswordResetToken> findByUserId(Long userId);
-}
@@ -0,0 +1,22 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.PaymentMethod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface PaymentMethodRepository extends JpaRepository<PaymentMethod, Long> {
+
+    List<PaymentMethod> findByUserIdOrderByIdAsc(Long userId);
+
+    boolean existsByUserId(Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("update PaymentMethod m set m.defaultMethod = case when m.id = :id then true else false end where m.userId = :userId")
+    int makeDefault(@Param("userId") Long userId, @Param("id") Long id);
+}
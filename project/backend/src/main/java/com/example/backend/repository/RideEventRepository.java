@@ -0,0 +1,28 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.RideEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RideEventRepository extends JpaRepository<RideEvent, Long> {
+
+    // Tail from a cursor: primary-key range scan
+    List<RideEvent> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    List<RideEvent> findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(Long afterSeq, Long upToSeq,
+            Pageable pageable);
+
+    List<RideEvent> findByRideIdOrderBySeqAsc(Long rideId);
+
+    @Query("select coalesce(max(e.seq), 0) from RideEvent e")
+    long findMaxSeq();
+
+    // First event at or after a point in time, null if there is none
+    @Query("select min(e.seq) from RideEvent e where e.occurredAt >= :since")
+    Long findMinSeqSince(@Param("since") LocalDateTime since);
+}
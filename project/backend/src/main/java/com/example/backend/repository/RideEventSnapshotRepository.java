@@ -0,0 +1,13 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.RideEventSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface RideEventSnapshotRepository extends JpaRepository<RideEventSnapshot, Long> {
+
+    Optional<RideEventSnapshot> findFirstByLastSeqLessThanEqualOrderByLastSeqDesc(Long seq);
+
+    Optional<RideEventSnapshot> findFirstByOrderByLastSeqDesc();
+}
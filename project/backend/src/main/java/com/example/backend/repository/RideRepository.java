@@ -1,14 +1,45 @@
 package com.example.backend.repository;
 
+import com.example.backend.dto.RideDetail;
+import com.example.backend.dto.RideListItem;
+import com.example.backend.dto.ScheduledRideRef;
 import com.example.backend.model.Ride;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface RideRepository extends JpaRepository<Ride, Long> {
 
-    // Ride history for rider
+    // Column lists shared by the projection queries below
+    String LIST_ITEM = "select new com.example.backend.dto.RideListItem("
+            + "r.id, r.riderId, r.driverId, r.pickupLocation, r.dropoffLocation, r.status, r.bookedAt, "
+            + "r.scheduledPickupAt, r.completedAt, r.rating, r.estimatedFare, r.distance, r.duration, "
+            + "r.paymentMethod, r.poolId, d.id, d.name, u.id, u.name) "
+            + "from Ride r left join Driver d on d.id = r.driverId left join User u on u.id = r.riderId ";
+
+    // Prefix of every statement that takes a change version: the transaction gets its id before
+    // nextval runs, which ChangeFeedHorizon relies on. Join "tx" into the statement so the CTE runs first.
+    String CLAIM_XID = "with tx as materialized (select pg_current_xact_id()) ";
+
+    String DETAIL = "select new com.example.backend.dto.RideDetail("
+            + "r.id, r.riderId, r.driverId, r.pickupLocation, r.dropoffLocation, r.status, r.bookedAt, "
+            + "r.scheduledPickupAt, r.startedAt, r.completedAt, r.rating, r.comment, r.estimatedFare, r.distance, "
+            + "r.duration, r.paymentMethod, r.poolId, r.soloFare, r.version, "
+            + "d.id, d.name, d.phone, d.available, d.version, u.id, u.name, u.email, u.phone, u.role, u.version) "
+            + "from Ride r left join Driver d on d.id = r.driverId left join User u on u.id = r.riderId ";
+
     // Ride history for rider
     List<Ride> findByRiderId(Long riderId);
 
@@ -24,8 +55,107 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
     // List of available (pending) rides for driver to pick
     List<Ride> findByStatus(String status);
 
+    // Every ride of a shared trip
+    List<Ride> findByPoolId(Long poolId);
+
+    // Row-locked for a write that also posts to the ledger: ride rows are locked before account rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Ride r where r.id = :id")
+    Optional<Ride> findForUpdate(@Param("id") Long id);
+
     List<Ride> findByPickupLocationContainingIgnoreCaseOrDropoffLocationContainingIgnoreCase(String pickupLocation,
             String dropoffLocation);
 
-    // Additional query methods can be defined here
+    // =========================
+    // CHANGE FEED
+    // =========================
+
+    // No flush first: the changed ride would otherwise be updated once before and once after it takes its version.
+    // Call it in the transaction that writes the ride.
+    @Query(value = CLAIM_XID + "select nextval('ride_change_seq') from tx", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    long nextChangeVersion();
+
+    // Ascending, for a group of rides written in one transaction
+    @Query(value = CLAIM_XID + "select nextval('ride_change_seq') from tx, generate_series(1, :count)",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    List<Long> nextChangeVersions(@Param("count") int count);
+
+    // =========================
+    // SCHEDULED RIDES
+    // =========================
+
+    // Loaded once at startup to refill the scheduling wheel
+    @Query("select new com.example.backend.dto.ScheduledRideRef(r.id, r.scheduledPickupAt) "
+            + "from Ride r where r.status = 'SCHEDULED' and r.scheduledPickupAt is not null")
+    List<ScheduledRideRef> findScheduledRefs();
+
+    // =========================
+    // PLACE IDS
+    // =========================
+
+    @Query("select distinct r.pickupLocation from Ride r where r.pickupPlaceId is null and r.pickupLocation is not null")
+    List<String> findUnresolvedPickupLocations();
+
+    @Query("select distinct r.dropoffLocation from Ride r where r.dropoffPlaceId is null and r.dropoffLocation is not null")
+    List<String> findUnresolvedDropoffLocations();
+
+    // Native so the rows also take a new change version and reach the change feed
+    @Modifying
+    @Transactional
+    @Query(value = CLAIM_XID + "update ride set pickup_place_id = :placeId, change_version = nextval('ride_change_seq') "
+            + "from tx where pickup_place_id is null and pickup_location = :location", nativeQuery = true)
+    int assignPickupPlaceId(@Param("location") String location, @Param("placeId") Integer placeId);
+
+    @Modifying
+    @Transactional
+    @Query(value = CLAIM_XID + "update ride set dropoff_place_id = :placeId, change_version = nextval('ride_change_seq') "
+            + "from tx where dropoff_place_id is null and dropoff_location = :location", nativeQuery = true)
+    int assignDropoffPlaceId(@Param("location") String location, @Param("placeId") Integer placeId);
+
+    // Range scan on idx_ride_change_version: after the cursor, up to the horizon
+    @Query("select r from Ride r where r.changeVersion > :since and r.changeVersion <= :upTo order by r.changeVersion")
+    List<Ride> findChangesBetween(@Param("since") long since, @Param("upTo") long upTo, Pageable pageable);
+
+    // =========================
+    // READ PROJECTIONS
+    // =========================
+
+    @Query(LIST_ITEM + "where r.riderId = :riderId order by r.bookedAt desc nulls last")
+    List<RideListItem> findListItemsByRiderId(@Param("riderId") Long riderId);
+
+    @Query(LIST_ITEM + "where r.driverId = :driverId order by r.bookedAt desc nulls last")
+    List<RideListItem> findListItemsByDriverId(@Param("driverId") Long driverId);
+
+    @Query(LIST_ITEM + "where r.status = :status order by r.bookedAt")
+    List<RideListItem> findListItemsByStatus(@Param("status") String status);
+
+    @Query(LIST_ITEM + "where lower(r.pickupLocation) like lower(concat('%', :query, '%')) "
+            + "or lower(r.dropoffLocation) like lower(concat('%', :query, '%'))")
+    List<RideListItem> searchListItems(@Param("query") String query);
+
+    // When the query names a known place, rides booked under any of its spellings match too
+    @Query(LIST_ITEM + "where r.pickupPlaceId = :placeId or r.dropoffPlaceId = :placeId "
+            + "or lower(r.pickupLocation) like lower(concat('%', :query, '%')) "
+            + "or lower(r.dropoffLocation) like lower(concat('%', :query, '%'))")
+    List<RideListItem> searchListItemsByPlace(@Param("query") String query, @Param("placeId") Integer placeId);
+
+    @Query(LIST_ITEM + "where r.id in :ids")
+    List<RideListItem> findListItemsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(LIST_ITEM + "order by r.id")
+    List<RideListItem> findAllListItems();
+
+    @Query(DETAIL + "where r.id = :id")
+    Optional<RideDetail> findDetailById(@Param("id") Long id);
+
+    // Pass PageRequest.of(0, 1): at most one active ride is expected
+    @Query(DETAIL + "where r.riderId = :riderId and r.status in :statuses order by r.bookedAt desc")
+    List<RideDetail> findActiveDetailsByRiderId(@Param("riderId") Long riderId,
+            @Param("statuses") List<String> statuses, Pageable pageable);
+
+    @Query(DETAIL + "where r.driverId = :driverId and r.status in :statuses order by r.bookedAt desc")
+    List<RideDetail> findActiveDetailsByDriverId(@Param("driverId") Long driverId,
+            @Param("statuses") List<String> statuses, Pageable pageable);
 }
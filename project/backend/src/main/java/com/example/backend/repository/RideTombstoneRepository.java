@@ -0,0 +1,16 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.RideTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface RideTombstoneRepository extends JpaRepository<RideTombstone, Long> {
+
+    @Query("select t from RideTombstone t where t.changeVersion > :since and t.changeVersion <= :upTo "
+            + "order by t.changeVersion")
+    List<RideTombstone> findChangesBetween(@Param("since") long since, @Param("upTo") long upTo, Pageable pageable);
+}
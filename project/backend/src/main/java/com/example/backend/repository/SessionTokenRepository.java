@@ -0,0 +1,23 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.SessionToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface SessionTokenRepository extends JpaRepository<SessionToken, String> {
+
+    @Modifying
+    @Transactional
+    @Query("delete from SessionToken t where lower(t.email) = lower(:email)")
+    int deleteByEmail(@Param("email") String email);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SessionToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,41 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.ShortLivedCredential;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface ShortLivedCredentialRepository extends JpaRepository<ShortLivedCredential, String> {
+
+    // Single-statement upsert: issuing never reads the old row first
+    @Modifying
+    @Transactional
+    @Query(value = "insert into short_lived_credentials (id, secret_hash, expires_at, attempts) "
+            + "values (:id, :secretHash, :expiresAt, 0) "
+            + "on conflict (id) do update set secret_hash = excluded.secret_hash, "
+            + "expires_at = excluded.expires_at, attempts = 0", nativeQuery = true)
+    void upsert(@Param("id") String id, @Param("secretHash") byte[] secretHash,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Counts an attempt only while one is left; 0 when locked, expired or gone
+    @Modifying
+    @Transactional
+    @Query("update ShortLivedCredential c set c.attempts = c.attempts + 1 "
+            + "where c.id = :id and c.attempts < :maxAttempts and c.expiresAt > :now")
+    int claimAttempt(@Param("id") String id, @Param("maxAttempts") int maxAttempts, @Param("now") LocalDateTime now);
+
+    // Consumes the row; returns 0 if someone else already did
+    @Modifying
+    @Transactional
+    @Query("delete from ShortLivedCredential c where c.id = :id and c.expiresAt > :now")
+    int consume(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ShortLivedCredential c where c.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
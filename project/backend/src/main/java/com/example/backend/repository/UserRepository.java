@@ -1,11 +1,32 @@
 package com.example.backend.repository;
 
+import com.example.backend.dto.UserSummary;
 import com.example.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Optional<User> findByPhone(String phone);
+
+    @Query("select new com.example.backend.dto.UserSummary(u.id, u.name, u.email, u.phone, u.role, u.version) from User u order by u.id")
+    List<UserSummary> findAllSummaries();
+
+    @Query("select new com.example.backend.dto.UserSummary(u.id, u.name, u.email, u.phone, u.role, u.version) from User u where u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Only replaces the hash it was computed from, so a reset in between wins
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newHash where u.id = :id and u.password = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
@@ -0,0 +1,67 @@
+package com.example.backend.service;
+
+import com.example.backend.config.ReplicaRouting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * How far the ride change feed can be read without passing over a write.
+ *
+ * Change versions come from ride_change_seq, which hands them out in the
+ * order they are taken, not the order they commit: a write can take version
+ * 10, a concurrent one 11, and 11 commits first. A reader that moved its
+ * cursor to 11 would never see 10. The horizon is the highest version below
+ * which nothing can still commit.
+ *
+ * Every writer takes its transaction id before its change version (see
+ * RideRepository.CLAIM_XID). A tick reads the last version taken, then the
+ * current snapshot's xmax: every version up to the first was taken by a
+ * transaction below the second. Once the oldest running transaction
+ * (snapshot xmin) has reached that xmax, all of them have committed or rolled
+ * back, and the tick's version becomes the horizon. An idle database settles
+ * a tick at once; under load the horizon trails by about one transaction.
+ *
+ * Both reads go to the primary: a replica's sequence is logged ahead of the
+ * values handed out. ride_change_seq must keep CACHE 1 for the same reason.
+ */
+@Service
+public class ChangeFeedHorizon {
+
+    private static final String LAST_TAKEN =
+            "select case when is_called then last_value else last_value - 1 end from ride_change_seq";
+
+    private static final String SNAPSHOT =
+            "select pg_snapshot_xmin(s)::text::bigint, pg_snapshot_xmax(s)::text::bigint from pg_current_snapshot() s";
+
+    // Dropping the oldest unsettled ticks only delays the horizon
+    private static final int MAX_TICKS = 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // {last version taken, xmax after it}, oldest first
+    private final Deque<long[]> ticks = new ArrayDeque<>();
+
+    private long settled;
+
+    // Every change version up to the returned one has committed or rolled back
+    public synchronized long current() {
+        ReplicaRouting.onPrimary(() -> {
+            Long taken = jdbcTemplate.queryForObject(LAST_TAKEN, Long.class);
+            long[] snapshot = jdbcTemplate.queryForObject(SNAPSHOT, (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)});
+            if (taken != null && taken > settled) {
+                if (ticks.size() == MAX_TICKS)
+                    ticks.pollFirst();
+                ticks.addLast(new long[]{taken, snapshot[1]});
+            }
+            while (!ticks.isEmpty() && ticks.peekFirst()[1] <= snapshot[0])
+                settled = Math.max(settled, ticks.pollFirst()[0]);
+            return null;
+        });
+        return settled;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Secrets are only kept as SHA-256 digests and compared with MessageDigest.isEqual
+final class CredentialHashing {
+
+    private CredentialHashing() {
+    }
+
+    static byte[] digest(String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static boolean matches(byte[] expectedDigest, String candidate) {
+        return candidate != null && MessageDigest.isEqual(expectedDigest, digest(candidate));
+    }
+}
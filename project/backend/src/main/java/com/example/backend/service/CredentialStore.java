@@ -0,0 +1,41 @@
+package com.example.backend.service;
+
+import java.time.Duration;
+
+/**
+ * Short-lived secrets (login OTPs, password reset tokens) keyed by subject.
+ * Issuing replaces any previous secret for the same subject; a successful
+ * verification consumes it. Implementations compare in constant time and,
+ * for purposes whose secrets are short enough to guess, lock a subject out
+ * after too many attempts.
+ */
+public interface CredentialStore {
+
+    enum Purpose {
+        OTP(true),
+        // Random UUID secrets cannot be guessed, and the subject (the user id) is
+        // public, so counting wrong tokens would only let anyone lock a reset
+        PASSWORD_RESET(false);
+
+        private final boolean limitsAttempts;
+
+        Purpose(boolean limitsAttempts) {
+            this.limitsAttempts = limitsAttempts;
+        }
+
+        public boolean limitsAttempts() {
+            return limitsAttempts;
+        }
+    }
+
+    enum Result {
+        VALID,
+        INVALID,
+        EXPIRED,     // never issued, already used, or past its expiry
+        LOCKED       // too many wrong attempts; a new secret must be issued
+    }
+
+    void issue(Purpose purpose, String subject, String secret, Duration ttl);
+
+    Result verify(Purpose purpose, String subject, String secret);
+}
@@ -0,0 +1,216 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.Heatmap;
+import com.example.backend.model.RideEvent;
+import com.example.backend.repository.RideEventRepository;
+import com.example.backend.util.GeoGrid;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Live pickup/dropoff demand per grid cell and hour, fed by tailing the ride
+ * event log: BOOKED events count at the pickup cell, COMPLETED events at the
+ * dropoff cell. Counts sit in a ring of hourly int arrays (one tumbling window
+ * per hour); a query over a range of hours is a sliding window that sums at
+ * most {@code retention-hours} arrays, so its cost depends on the grid, not on
+ * the number of rides. Memory is fixed at retention x cells x 2 ints.
+ *
+ * Tailing the shared log means every node sees every ride, and a restart
+ * rebuilds the retained hours from the log.
+ */
+@Service
+public class DemandHeatmap {
+
+    private static final Logger log = LoggerFactory.getLogger(DemandHeatmap.class);
+
+    public enum Kind {
+        PICKUP,
+        DROPOFF
+    }
+
+    private static final int PAGE_SIZE = 1_000;
+
+    @Autowired
+    private RideEventLog rideEventLog;
+
+    @Autowired
+    private RideEventRepository rideEventRepository;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Default box covers Kigali at ~1.1 km cells
+    @Value("${app.heatmap.min-lat:-2.05}")
+    private double minLat;
+
+    @Value("${app.heatmap.min-lng:29.95}")
+    private double minLng;
+
+    @Value("${app.heatmap.max-lat:-1.85}")
+    private double maxLat;
+
+    @Value("${app.heatmap.max-lng:30.25}")
+    private double maxLng;
+
+    @Value("${app.heatmap.cell-degrees:0.01}")
+    private double cellDegrees;
+
+    @Value("${app.heatmap.retention-hours:48}")
+    private int retentionHours;
+
+    private GeoGrid grid;
+
+    // slotHour[i] is the epoch hour slot i currently holds; counts[i][kind] its cells
+    private long[] slotHour;
+    private int[][][] counts;
+
+    private boolean started;
+    private long cursor;
+    private volatile long unlocated;
+
+    @PostConstruct
+    void init() {
+        grid = new GeoGrid(minLat, minLng, maxLat, maxLng, cellDegrees);
+        slotHour = new long[retentionHours];
+        Arrays.fill(slotHour, -1);
+        counts = new int[retentionHours][Kind.values().length][grid.cellCount()];
+        log.info("Demand heatmap: {}x{} cells, {} hours retained", grid.getRows(), grid.getCols(), retentionHours);
+    }
+
+    // =========================
+    // INGEST
+    // =========================
+
+    @Scheduled(fixedDelayString = "${app.heatmap.poll-interval-ms:2000}")
+    public void poll() {
+        if (!started) {
+            // First run: skip whatever is already older than the window
+            Long first = rideEventRepository.findMinSeqSince(
+                    LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(retentionHours - 1));
+            cursor = first == null ? rideEventRepository.findMaxSeq() : first - 1;
+            started = true;
+        }
+        List<RideEvent> page;
+        do {
+            page = rideEventLog.tail(cursor, PAGE_SIZE);
+            for (RideEvent event : page) {
+                apply(event);
+                cursor = event.getSeq();
+            }
+        } while (page.size() == PAGE_SIZE);
+    }
+
+    private void apply(RideEvent event) {
+        Kind kind = switch (event.getType()) {
+            case BOOKED -> Kind.PICKUP;
+            case COMPLETED -> Kind.DROPOFF;
+            default -> null;
+        };
+        if (kind == null)
+            return;
+        int cell = locate(event.getPayload(), kind)
+                .map(p -> grid.cellOf(p.lat(), p.lng()))
+                .orElse(-1);
+        if (cell < 0) {
+            unlocated++;
+            return;
+        }
+        increment(epochHour(event.getOccurredAt()), kind, cell);
+    }
+
+    private void increment(long hour, Kind kind, int cell) {
+        int slot = (int) (hour % retentionHours);
+        synchronized (counts[slot]) {
+            if (slotHour[slot] != hour) {
+                if (slotHour[slot] > hour)
+                    return; // older than the window
+                for (int[] cells : counts[slot])
+                    Arrays.fill(cells, 0);
+                slotHour[slot] = hour;
+            }
+            counts[slot][kind.ordinal()][cell]++;
+        }
+    }
+
+    // The place id when the ride has one, otherwise whatever the location text resolves to
+    private Optional<Gazetteer.Point> locate(String payload, Kind kind) {
+        try {
+            JsonNode ride = objectMapper.readTree(payload);
+            JsonNode placeId = ride.get(kind == Kind.PICKUP ? "pickupPlaceId" : "dropoffPlaceId");
+            if (placeId != null && placeId.isInt()) {
+                Optional<Gazetteer.Place> place = gazetteer.byId(placeId.intValue());
+                if (place.isPresent())
+                    return Optional.of(new Gazetteer.Point(place.get().lat(), place.get().lng()));
+            }
+            JsonNode text = ride.get(kind == Kind.PICKUP ? "pickupLocation" : "dropoffLocation");
+            return text == null || text.isNull() ? Optional.empty() : gazetteer.locate(text.asText());
+        } catch (JsonProcessingException e) {
+            return Optional.empty();
+        }
+    }
+
+    // =========================
+    // QUERY
+    // =========================
+
+    // Sum of whole hours in [from, to), clipped to the retained window
+    public Heatmap query(Kind kind, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime end = to.truncatedTo(ChronoUnit.HOURS);
+        if (end.isBefore(to))
+            end = end.plusHours(1);
+        long firstHour = epochHour(start);
+        long lastHour = epochHour(end);
+
+        long[] sum = new long[grid.cellCount()];
+        for (int slot = 0; slot < retentionHours; slot++) {
+            synchronized (counts[slot]) {
+                long hour = slotHour[slot];
+                if (hour < firstHour || hour >= lastHour)
+                    continue;
+                int[] cells = counts[slot][kind.ordinal()];
+                for (int c = 0; c < cells.length; c++)
+                    sum[c] += cells[c];
+            }
+        }
+
+        List<Heatmap.Cell> cells = new ArrayList<>();
+        long total = 0;
+        for (int c = 0; c < sum.length; c++) {
+            if (sum[c] == 0)
+                continue;
+            total += sum[c];
+            cells.add(new Heatmap.Cell(grid.rowOf(c), grid.colOf(c), grid.centerLat(c), grid.centerLng(c), sum[c]));
+        }
+        return new Heatmap(kind.name(), start, end, grid.getMinLat(), grid.getMinLng(), grid.getCellDegrees(),
+                grid.getRows(), grid.getCols(), total, cells);
+    }
+
+    // Events whose location could not be placed on the grid
+    public long getUnlocated() {
+        return unlocated;
+    }
+
+    private static long epochHour(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.backend.service;
+
+// Registration hit the unique email or phone constraint
+public class DuplicateAccountException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DuplicateAccountException(String message) {
+        super(message);
+    }
+}
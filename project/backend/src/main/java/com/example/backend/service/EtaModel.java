@@ -0,0 +1,413 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.EtaEstimate;
+import com.example.backend.dto.EtaReport;
+import com.example.backend.model.Ride;
+import com.example.backend.util.GeoGrid;
+import com.example.backend.util.RunningStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Trip durations and pickup waits learned from completed rides, kept as
+ * running mean/variance tables ({@link RunningStats}) so a prediction is a
+ * few array reads.
+ *
+ * Trips are learned as pace (minutes per straight-line km between the
+ * gazetteer points) per origin zone x destination zone x day type (weekday
+ * or weekend) x hour, backing off to the zone pair, then the hour of the
+ * week citywide, then the city, whenever a cell has fewer than min-samples
+ * rides. Pickup waits (booking to start, rides booked for now) use pickup
+ * zone x day type x hour with the same back-off.
+ *
+ * Each completed ride is predicted and then learned, which also feeds the
+ * live accuracy report. A nightly job rebuilds the tables from the last
+ * history-days of rides and replays them in the same way for the backtest.
+ */
+@Service
+public class EtaModel {
+
+    private static final Logger log = LoggerFactory.getLogger(EtaModel.class);
+
+    // Shorter trips are learned and predicted as this long, so pace stays finite
+    private static final double MIN_KM = 0.5;
+    // Trips outside these bounds are test rides or were never closed properly
+    private static final double MIN_TRIP_MINUTES = 1;
+    private static final double MAX_TRIP_MINUTES = 240;
+    private static final double MAX_WAIT_MINUTES = 120;
+
+    private static final int HOURS = 24;
+    private static final int DAY_TYPES = 2; // weekday, weekend
+    private static final int HOURS_OF_WEEK = 7 * HOURS;
+
+    private static final String COMPLETED_RIDES =
+            "select pickup_location, dropoff_location, booked_at, scheduled_pickup_at, started_at, completed_at, "
+                    + "duration from ride where status = 'COMPLETED' and started_at is not null "
+                    + "and completed_at >= ? and completed_at < ? order by completed_at";
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.eta.zone-degrees:0.03}")
+    private double zoneDegrees;
+
+    @Value("${app.eta.min-samples:5}")
+    private int minSamples;
+
+    @Value("${app.eta.history-days:90}")
+    private int historyDays;
+
+    @Value("${app.heatmap.min-lat:-2.05}")
+    private double minLat;
+
+    @Value("${app.heatmap.min-lng:29.95}")
+    private double minLng;
+
+    @Value("${app.heatmap.max-lat:-1.85}")
+    private double maxLat;
+
+    @Value("${app.heatmap.max-lng:30.25}")
+    private double maxLng;
+
+    private GeoGrid zones;
+
+    // Guarded by this object; a rebuild fills new tables aside and swaps them in
+    private Tables tables;
+    private Accuracy live = new Accuracy();
+    private EtaReport.Accuracy backtest = new Accuracy().report();
+    private LocalDateTime rebuiltAt;
+    // Rides completed while a rebuild runs, learned again into its tables
+    private List<Observation> duringRebuild;
+
+    @PostConstruct
+    void init() {
+        zones = new GeoGrid(minLat, minLng, maxLat, maxLng, zoneDegrees);
+        tables = new Tables(zones.cellCount());
+        rebuild();
+    }
+
+    // =========================
+    // PREDICTION
+    // =========================
+
+    public EtaEstimate estimate(String pickupLocation, String dropoffLocation, LocalDateTime at) {
+        Gazetteer.Point pickup = gazetteer.locate(pickupLocation)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown pickup location: " + pickupLocation));
+        Gazetteer.Point dropoff = gazetteer.locate(dropoffLocation)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown dropoff location: " + dropoffLocation));
+        Prediction wait;
+        Prediction trip;
+        synchronized (this) {
+            wait = predictWait(tables, pickup, at);
+            trip = predictTrip(tables, pickup, dropoff, at);
+        }
+        return new EtaEstimate(
+                wait == null ? null : round(wait.minutes), wait == null ? null : wait.basis,
+                wait == null ? 0 : wait.samples,
+                trip == null ? null : round(trip.minutes), trip == null ? null : trip.basis,
+                trip == null ? 0 : trip.samples,
+                round(pickup.kmTo(dropoff)));
+    }
+
+    // Whole minutes for a booking that did not say how long it takes
+    public Optional<Integer> tripMinutes(String pickupLocation, String dropoffLocation, LocalDateTime at) {
+        Optional<Gazetteer.Point> pickup = gazetteer.locate(pickupLocation);
+        Optional<Gazetteer.Point> dropoff = gazetteer.locate(dropoffLocation);
+        if (pickup.isEmpty() || dropoff.isEmpty())
+            return Optional.empty();
+        Prediction trip;
+        synchronized (this) {
+            trip = predictTrip(tables, pickup.get(), dropoff.get(), at);
+        }
+        return trip == null ? Optional.empty() : Optional.of((int) Math.max(1, Math.round(trip.minutes)));
+    }
+
+    private Prediction predictTrip(Tables t, Gazetteer.Point from, Gazetteer.Point to, LocalDateTime at) {
+        double km = Math.max(from.kmTo(to), MIN_KM);
+        int origin = zones.cellOf(from.lat(), from.lng());
+        int destination = zones.cellOf(to.lat(), to.lng());
+        if (origin >= 0 && destination >= 0) {
+            int pair = origin * zones.cellCount() + destination;
+            int cell = pair * DAY_TYPES * HOURS + hourOfDayType(at);
+            if (t.tripPairHour.count(cell) >= minSamples)
+                return new Prediction(t.tripPairHour.mean(cell) * km, "zone pair, day type and hour",
+                        t.tripPairHour.count(cell));
+            if (t.tripPair.count(pair) >= minSamples)
+                return new Prediction(t.tripPair.mean(pair) * km, "zone pair", t.tripPair.count(pair));
+        }
+        int hour = hourOfWeek(at);
+        if (t.tripHourOfWeek.count(hour) >= minSamples)
+            return new Prediction(t.tripHourOfWeek.mean(hour) * km, "hour of week", t.tripHourOfWeek.count(hour));
+        if (t.tripAll.count(0) > 0)
+            return new Prediction(t.tripAll.mean(0) * km, "city", t.tripAll.count(0));
+        return null;
+    }
+
+    private Prediction predictWait(Tables t, Gazetteer.Point pickup, LocalDateTime at) {
+        int zone = zones.cellOf(pickup.lat(), pickup.lng());
+        if (zone >= 0) {
+            int cell = zone * DAY_TYPES * HOURS + hourOfDayType(at);
+            if (t.waitZoneHour.count(cell) >= minSamples)
+                return new Prediction(t.waitZoneHour.mean(cell), "zone, day type and hour", t.waitZoneHour.count(cell));
+            if (t.waitZone.count(zone) >= minSamples)
+                return new Prediction(t.waitZone.mean(zone), "zone", t.waitZone.count(zone));
+        }
+        int hour = hourOfWeek(at);
+        if (t.waitHourOfWeek.count(hour) >= minSamples)
+            return new Prediction(t.waitHourOfWeek.mean(hour), "hour of week", t.waitHourOfWeek.count(hour));
+        if (t.waitAll.count(0) > 0)
+            return new Prediction(t.waitAll.mean(0), "city", t.waitAll.count(0));
+        return null;
+    }
+
+    // =========================
+    // LEARNING
+    // =========================
+
+    // Called when a ride completes
+    public void rideCompleted(Ride ride) {
+        Observation observation = observe(ride.getPickupLocation(), ride.getDropoffLocation(), ride.getBookedAt(),
+                ride.getScheduledPickupAt(), ride.getStartedAt(), ride.getCompletedAt(), ride.getDuration(),
+                new HashMap<>());
+        if (observation == null)
+            return;
+        synchronized (this) {
+            evaluate(tables, observation, live);
+            learn(tables, observation);
+            if (duringRebuild != null)
+                duringRebuild.add(observation);
+        }
+    }
+
+    // Fresh tables from history, replayed in completion order so the backtest
+    // predicts each ride only from the rides before it
+    @Scheduled(cron = "${app.eta.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        LocalDateTime until = LocalDateTime.now();
+        synchronized (this) {
+            duringRebuild = new ArrayList<>();
+        }
+        Tables fresh = new Tables(zones.cellCount());
+        Accuracy replayed = new Accuracy();
+        Map<String, Optional<Gazetteer.Point>> located = new HashMap<>();
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.query(COMPLETED_RIDES, rs -> {
+                Observation observation = observe(rs.getString(1), rs.getString(2), local(rs.getTimestamp(3)),
+                        local(rs.getTimestamp(4)), local(rs.getTimestamp(5)), local(rs.getTimestamp(6)),
+                        rs.getObject(7, Integer.class), located);
+                if (observation != null) {
+                    evaluate(fresh, observation, replayed);
+                    learn(fresh, observation);
+                }
+            }, Timestamp.valueOf(until.minusDays(historyDays)), Timestamp.valueOf(until));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                duringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (Observation observation : duringRebuild) {
+                if (!observation.completedAt.isBefore(until))
+                    learn(fresh, observation);
+            }
+            duringRebuild = null;
+            tables = fresh;
+            backtest = replayed.report();
+            live = new Accuracy();
+            rebuiltAt = until;
+        }
+        log.info("ETA model rebuilt from {} rides in {} ms", fresh.rides, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public synchronized EtaReport report() {
+        return new EtaReport(rebuiltAt, tables.rides, tables.memoryBytes(), backtest, live.report());
+    }
+
+    private void learn(Tables t, Observation o) {
+        int origin = zones.cellOf(o.pickup.lat(), o.pickup.lng());
+        int destination = zones.cellOf(o.dropoff.lat(), o.dropoff.lng());
+        int hourOfWeek = hourOfWeek(o.startedAt);
+        double pace = o.tripMinutes / Math.max(o.pickup.kmTo(o.dropoff), MIN_KM);
+        if (origin >= 0 && destination >= 0) {
+            int pair = origin * zones.cellCount() + destination;
+            t.tripPairHour.add(pair * DAY_TYPES * HOURS + hourOfDayType(o.startedAt), pace);
+            t.tripPair.add(pair, pace);
+        }
+        t.tripHourOfWeek.add(hourOfWeek, pace);
+        t.tripAll.add(0, pace);
+
+        if (o.waitMinutes != null) {
+            if (origin >= 0) {
+                t.waitZoneHour.add(origin * DAY_TYPES * HOURS + hourOfDayType(o.bookedAt), o.waitMinutes);
+                t.waitZone.add(origin, o.waitMinutes);
+            }
+            t.waitHourOfWeek.add(hourOfWeek(o.bookedAt), o.waitMinutes);
+            t.waitAll.add(0, o.waitMinutes);
+        }
+        t.rides++;
+    }
+
+    private void evaluate(Tables t, Observation o, Accuracy accuracy) {
+        Prediction trip = predictTrip(t, o.pickup, o.dropoff, o.startedAt);
+        if (trip != null)
+            accuracy.trip(trip.minutes, o.tripMinutes);
+        if (o.clientMinutes != null && o.clientMinutes > 0)
+            accuracy.client(o.clientMinutes, o.tripMinutes);
+        if (o.waitMinutes != null) {
+            Prediction wait = predictWait(t, o.pickup, o.bookedAt);
+            if (wait != null)
+                accuracy.pickup(wait.minutes, o.waitMinutes);
+        }
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+
+    // Null when the ride cannot be placed on the map or its times look wrong
+    private Observation observe(String pickupLocation, String dropoffLocation, LocalDateTime bookedAt,
+                                LocalDateTime scheduledPickupAt, LocalDateTime startedAt,
+                                LocalDateTime completedAt, Integer clientMinutes,
+                                Map<String, Optional<Gazetteer.Point>> located) {
+        if (pickupLocation == null || dropoffLocation == null || startedAt == null || completedAt == null)
+            return null;
+        Optional<Gazetteer.Point> pickup = located.computeIfAbsent(pickupLocation, gazetteer::locate);
+        Optional<Gazetteer.Point> dropoff = located.computeIfAbsent(dropoffLocation, gazetteer::locate);
+        double tripMinutes = minutes(startedAt, completedAt);
+        if (pickup.isEmpty() || dropoff.isEmpty() || tripMinutes < MIN_TRIP_MINUTES
+                || tripMinutes > MAX_TRIP_MINUTES)
+            return null;
+        // Only rides booked for now say how long pickup takes
+        Double waitMinutes = null;
+        if (scheduledPickupAt == null && bookedAt != null) {
+            double wait = minutes(bookedAt, startedAt);
+            if (wait >= 0 && wait <= MAX_WAIT_MINUTES)
+                waitMinutes = wait;
+        }
+        return new Observation(pickup.get(), dropoff.get(), bookedAt, startedAt, completedAt, tripMinutes,
+                waitMinutes, clientMinutes);
+    }
+
+    private static int hourOfDayType(LocalDateTime time) {
+        int day = time.getDayOfWeek().getValue() - 1;
+        return (day >= 5 ? 1 : 0) * HOURS + time.getHour();
+    }
+
+    private static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * HOURS + time.getHour();
+    }
+
+    private static double minutes(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMillis() / 60_000.0;
+    }
+
+    private static LocalDateTime local(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private record Observation(Gazetteer.Point pickup, Gazetteer.Point dropoff, LocalDateTime bookedAt,
+                               LocalDateTime startedAt, LocalDateTime completedAt, double tripMinutes,
+                               Double waitMinutes, Integer clientMinutes) {
+    }
+
+    private record Prediction(double minutes, String basis, int samples) {
+    }
+
+    private static final class Tables {
+        // Pace in minutes per km
+        final RunningStats tripPairHour;
+        final RunningStats tripPair;
+        final RunningStats tripHourOfWeek = new RunningStats(HOURS_OF_WEEK);
+        final RunningStats tripAll = new RunningStats(1);
+        // Wait in minutes
+        final RunningStats waitZoneHour;
+        final RunningStats waitZone;
+        final RunningStats waitHourOfWeek = new RunningStats(HOURS_OF_WEEK);
+        final RunningStats waitAll = new RunningStats(1);
+        long rides;
+
+        Tables(int zoneCount) {
+            tripPairHour = new RunningStats(zoneCount * zoneCount * DAY_TYPES * HOURS);
+            tripPair = new RunningStats(zoneCount * zoneCount);
+            waitZoneHour = new RunningStats(zoneCount * DAY_TYPES * HOURS);
+            waitZone = new RunningStats(zoneCount);
+        }
+
+        long memoryBytes() {
+            return tripPairHour.memoryBytes() + tripPair.memoryBytes() + tripHourOfWeek.memoryBytes()
+                    + tripAll.memoryBytes() + waitZoneHour.memoryBytes() + waitZone.memoryBytes()
+                    + waitHourOfWeek.memoryBytes() + waitAll.memoryBytes();
+        }
+    }
+
+    // Error sums behind one EtaReport.Accuracy
+    private static final class Accuracy {
+        long trips;
+        double absError;
+        double absPercent;
+        long within20;
+        double error;
+        long client;
+        double clientAbsError;
+        double clientAbsPercent;
+        long pickups;
+        double pickupAbsError;
+
+        void trip(double predicted, double actual) {
+            trips++;
+            absError += Math.abs(predicted - actual);
+            absPercent += Math.abs(predicted - actual) / actual;
+            if (Math.abs(predicted - actual) <= 0.2 * actual)
+                within20++;
+            error += predicted - actual;
+        }
+
+        void client(double predicted, double actual) {
+            client++;
+            clientAbsError += Math.abs(predicted - actual);
+            clientAbsPercent += Math.abs(predicted - actual) / actual;
+        }
+
+        void pickup(double predicted, double actual) {
+            pickups++;
+            pickupAbsError += Math.abs(predicted - actual);
+        }
+
+        EtaReport.Accuracy report() {
+            return new EtaReport.Accuracy(trips,
+                    trips == 0 ? 0 : absError / trips,
+                    trips == 0 ? 0 : 100 * absPercent / trips,
+                    trips == 0 ? 0 : 100.0 * within20 / trips,
+                    trips == 0 ? 0 : error / trips,
+                    client,
+                    client == 0 ? 0 : clientAbsError / client,
+                    client == 0 ? 0 : 100 * clientAbsPercent / client,
+                    pickups,
+                    pickups == 0 ? 0 : pickupAbsError / pickups);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.backend.service;
+
+import com.example.backend.util.PrefixTrie;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Named places loaded from a bundled file (places.csv). Resolves the
+ * free-text pickup/dropoff strings on a ride to a stable place id, so
+ * "Kigali Heights", "kigali heights " and "KG Heights" are one place, and
+ * serves prefix autocomplete for the booking screen from a {@link PrefixTrie}
+ * over names, aliases and every word inside them.
+ */
+@Service
+public class Gazetteer {
+
+    private static final Logger log = LoggerFactory.getLogger(Gazetteer.class);
+
+    // A "lat,lng" within this many degrees (~300 m) of a place resolves to it
+    private static final double SNAP_DEGREES = 0.003;
+
+    public record Point(double lat, double lng) {
+
+        private static final double EARTH_RADIUS_KM = 6371.0;
+
+        // Great-circle distance
+        public double kmTo(Point other) {
+            double dLat = Math.toRadians(other.lat - lat);
+            double dLng = Math.toRadians(other.lng - lng);
+            double h = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat))
+                    * Math.cos(Math.toRadians(other.lat)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+            return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+        }
+    }
+
+    public record Place(int id, String name, double lat, double lng) {
+    }
+
+    @Value("${app.places.file:classpath:places.csv}")
+    private Resource placesFile;
+
+    private final Map<Integer, Place> byId = new HashMap<>();
+    private final Map<String, Place> byName = new HashMap<>();
+    private PrefixTrie trie;
+
+    @PostConstruct
+    void load() throws IOException {
+        PrefixTrie.Builder builder = PrefixTrie.builder();
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(placesFile.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#"))
+                    continue;
+                String[] cols = line.split(",", -1);
+                Place place = new Place(Integer.parseInt(cols[0].trim()), cols[1].trim(),
+                        Double.parseDouble(cols[2].trim()), Double.parseDouble(cols[3].trim()));
+                if (byId.putIfAbsent(place.id(), place) != null)
+                    throw new IllegalStateException("Duplicate place id " + place.id() + " in " + placesFile);
+
+                List<String> names = new ArrayList<>();
+                names.add(place.name());
+                if (cols.length > 4 && !cols[4].isBlank())
+                    names.addAll(List.of(cols[4].split("\\|")));
+                for (String name : names) {
+                    String key = normalise(name);
+                    byName.putIfAbsent(key, place);
+                    // Index from every word so "heights" also finds Kigali Heights
+                    for (int i = 0; i < key.length(); i++) {
+                        if (i == 0 || key.charAt(i - 1) == ' ')
+                            builder.add(key.substring(i), place.id());
+                    }
+                }
+            }
+        }
+        trie = builder.build();
+        log.info("Gazetteer: {} places, {} names, {} trie nodes", byId.size(), byName.size(), trie.nodeCount());
+    }
+
+    // =========================
+    // LOOKUP
+    // =========================
+
+    public Optional<Place> byId(Integer id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(byId.get(id));
+    }
+
+    // Place for a ride's location text: a known name or alias, or a "lat,lng" next to a place
+    public Optional<Place> resolve(String location) {
+        if (location == null || location.isBlank())
+            return Optional.empty();
+        Place named = byName.get(normalise(location));
+        if (named != null)
+            return Optional.of(named);
+        return parseLatLng(location).flatMap(this::nearest);
+    }
+
+    // Coordinates for a ride's location text, whether or not it is a known place
+    public Optional<Point> locate(String location) {
+        Optional<Place> place = resolve(location);
+        if (place.isPresent())
+            return Optional.of(new Point(place.get().lat(), place.get().lng()));
+        return location == null ? Optional.empty() : parseLatLng(location);
+    }
+
+    public List<Place> autocomplete(String prefix, int limit) {
+        String key = normalise(prefix == null ? "" : prefix);
+        if (key.isEmpty())
+            return List.of();
+        // Over-fetch, then put places whose own name starts with the prefix first
+        List<Place> places = new ArrayList<>();
+        for (int id : trie.startingWith(key, limit * 4))
+            places.add(byId.get(id));
+        places.sort(Comparator.comparing((Place p) -> !normalise(p.name()).startsWith(key)));
+        return places.size() > limit ? places.subList(0, limit) : places;
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+
+    // Lower case, accents and punctuation dropped, single spaces
+    static String normalise(String text) {
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return plain.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private Optional<Place> nearest(Point point) {
+        Place best = null;
+        double bestDistance = SNAP_DEGREES * SNAP_DEGREES;
+        for (Place place : byId.values()) {
+            double dLat = place.lat() - point.lat();
+            double dLng = place.lng() - point.lng();
+            double distance = dLat * dLat + dLng * dLng;
+            if (distance <= bestDistance) {
+                best = place;
+                bestDistance = distance;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private static Optional<Point> parseLatLng(String value) {
+        int comma = value.indexOf(',');
+        if (comma < 0)
+            return Optional.empty();
+        try {
+            double lat = Double.parseDouble(value.substring(0, comma).trim());
+            double lng = Double.parseDouble(value.substring(comma + 1).trim());
+            if (Math.abs(lat) > 90 || Math.abs(lng) > 180)
+                return Optional.empty();
+            return Optional.of(new Point(lat, lng));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.backend.service;
+
+// The password hashing pool is full; the request can be retried shortly
+public class HashingBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public HashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.backend.service;
+
+import com.example.backend.config.ReplicaRouting;
+import com.example.backend.model.IdempotencyRecord;
+import com.example.backend.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Replays the first response for a repeated Idempotency-Key instead of
+ * running the write again. Lookups go memory first (bounded LRU with TTL),
+ * then the idempotency_keys table, so a retry after a restart is still safe.
+ *
+ * The first request claims its key in the table before it runs, so a
+ * duplicate on any node finds the claim and waits for the stored response,
+ * or gets 409 if it takes longer than app.idempotency.wait-seconds. Duplicates
+ * on the same node wait on the one in flight without polling. A claim left by
+ * a node that died lapses after app.idempotency.claim-seconds.
+ *
+ * A key belongs to one request: the stored response carries a hash of the
+ * request it answered, and reusing the key for a different request gets 422.
+ * Only outcomes a retry would get again are stored: successes and client
+ * errors, but not 5xx or state-dependent conflicts such as insufficient
+ * funds, which a retry may well get past. The response is replayed with its
+ * original content type.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final long POLL_MILLIS = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${app.idempotency.max-cached:10000}")
+    private int maxCached;
+
+    @Value("${app.idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    @Value("${app.idempotency.claim-seconds:120}")
+    private long claimSeconds;
+
+    // Client errors that depend on current state rather than on the request
+    private static final Set<Integer> TRANSIENT_STATUSES = Set.of(408, 409, 423, 425, 429);
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, StoredResponse> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > maxCached;
+        }
+    };
+
+    // requestHash is null for rows stored before requests were hashed, contentType before V13
+    private record StoredResponse(int status, String body, String contentType, String requestHash,
+                                  LocalDateTime expiresAt) {
+    }
+
+    /**
+     * Runs the action once per (scope, key); without a key it just runs it.
+     * request is what identifies the call besides the scope (path variables
+     * and body) and is hashed before the action runs.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank())
+            return action.get();
+
+        String id = scope + ":" + key.trim();
+        String requestHash = hash(request);
+        while (true) {
+            StoredResponse cached = cached(id);
+            if (cached != null)
+                return replay(cached, requestHash);
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(id, mine);
+            if (running == null) {
+                ResponseEntity<?> response = claimOrWait(id, requestHash, mine, action);
+                if (response != null)
+                    return response;
+                continue;
+            }
+
+            // Someone else on this node is executing this key: wait for their result
+            try {
+                return replay(running.get(waitSeconds, TimeUnit.SECONDS), requestHash);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting for duplicate request");
+            } catch (TimeoutException e) {
+                return inProgress();
+            } catch (ExecutionException e) {
+                // The original attempt failed and stored nothing; try again
+            }
+        }
+    }
+
+    // Null when the key turned out free again and the caller should start over
+    private ResponseEntity<?> claimOrWait(String id, String requestHash, CompletableFuture<StoredResponse> future,
+                                          Supplier<ResponseEntity<?>> action) {
+        try {
+            // Truncated to the column's precision: the claim is matched on it later
+            LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            if (recordRepository.claim(id, requestHash, claimedAt, claimedAt.plusSeconds(claimSeconds)) == 1)
+                return runAndStore(id, claimedAt, requestHash, future, action);
+
+            // Claimed on another node, or answered already
+            StoredResponse stored = awaitStored(id);
+            if (stored == null)
+                return null;
+            future.complete(stored);
+            return replay(stored, requestHash);
+        } catch (TimeoutException e) {
+            return inProgress();
+        } finally {
+            // Local waiters retry unless a response was handed to them
+            future.completeExceptionally(new IllegalStateException("Nothing stored"));
+            inFlight.remove(id, future);
+        }
+    }
+
+    private ResponseEntity<?> runAndStore(String id, LocalDateTime claimedAt, String requestHash,
+                                          CompletableFuture<StoredResponse> future, Supplier<ResponseEntity<?>> action) {
+        boolean stored = false;
+        try {
+            ResponseEntity<?> response = action.get();
+            int status = response.getStatusCode().value();
+            if (isFinal(status)) {
+                StoredResponse toStore = toStored(response, requestHash);
+                // When our claim lapsed and was taken over, the other request's answer stands
+                stored = recordRepository.complete(id, claimedAt, toStore.status(), toStore.body(),
+                        toStore.contentType(), toStore.expiresAt()) == 1;
+                if (stored) {
+                    remember(id, toStore);
+                    future.complete(toStore);
+                }
+            }
+            return response;
+        } finally {
+            if (!stored)
+                recordRepository.release(id, claimedAt);
+        }
+    }
+
+    // The response once the request holding the claim has stored it; null when it stored nothing
+    private StoredResponse awaitStored(String id) throws TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(waitSeconds);
+        while (true) {
+            // The claim and its response are written on the primary
+            Optional<IdempotencyRecord> record = ReplicaRouting.onPrimary(() -> recordRepository.findById(id));
+            if (record.isEmpty() || !record.get().getExpiresAt().isAfter(LocalDateTime.now()))
+                return null;
+            IdempotencyRecord r = record.get();
+            if (r.getStatusCode() != null) {
+                StoredResponse stored = new StoredResponse(r.getStatusCode(), r.getResponseBody(), r.getContentType(),
+                        r.getRequestHash(), r.getExpiresAt());
+                remember(id, stored);
+                return stored;
+            }
+            if (System.nanoTime() > deadline)
+                throw new TimeoutException();
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting for duplicate request");
+            }
+        }
+    }
+
+    private StoredResponse cached(String id) {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (cache) {
+            StoredResponse cached = cache.get(id);
+            if (cached == null || cached.expiresAt().isAfter(now))
+                return cached;
+            cache.remove(id);
+            return null;
+        }
+    }
+
+    private void remember(String id, StoredResponse stored) {
+        synchronized (cache) {
+            cache.put(id, stored);
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (stored.requestHash() != null && !stored.requestHash().equals(requestHash))
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body("Idempotency-Key was already used for a different request");
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null)
+            response.contentType(MediaType.parseMediaType(stored.contentType()));
+        else if (stored.body() != null)
+            response.contentType(MediaType.APPLICATION_JSON);
+        return response.body(stored.body());
+    }
+
+    private static ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(409).body("Request with this Idempotency-Key is still in progress");
+    }
+
+    // A retry would get the same answer: successes and request-determined client errors
+    private static boolean isFinal(int status) {
+        return status < 500 && !TRANSIENT_STATUSES.contains(status);
+    }
+
+    // Map entries sorted so the same body always hashes the same
+    private String hash(Object request) {
+        try {
+            String json = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsString(request);
+            return HexFormat.of().formatHex(CredentialHashing.digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not read the request", e);
+        }
+    }
+
+    // Text bodies are kept as they are; anything else is stored as the JSON it was rendered as
+    private StoredResponse toStored(ResponseEntity<?> response, String requestHash) {
+        Object body = response.getBody();
+        MediaType contentType = response.getHeaders().getContentType();
+        String text = null;
+        if (body instanceof String string) {
+            text = string;
+            if (contentType == null)
+                contentType = MediaType.TEXT_PLAIN;
+        } else if (body != null) {
+            try {
+                text = objectMapper.writeValueAsString(body);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Could not store idempotent response", e);
+            }
+            if (contentType == null)
+                contentType = MediaType.APPLICATION_JSON;
+        }
+        return new StoredResponse(response.getStatusCode().value(), text,
+                contentType == null ? null : contentType.toString(), requestHash,
+                LocalDateTime.now().plusMinutes(ttlMinutes));
+    }
+
+    // Expired rows are never read again; drop them in one range delete
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        recordRepository.deleteExpired(LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (cache) {
+            cache.values().removeIf(r -> !r.expiresAt().isAfter(now));
+        }
+    }
+}
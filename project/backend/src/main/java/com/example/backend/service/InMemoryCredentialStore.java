@@ -0,0 +1,96 @@
+package com.example.backend.service;
+
+import com.example.backend.util.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default store: no database round trip on login or verification. Entries
+ * are dropped by a hashed timing wheel ticking once a second, so memory is
+ * bounded by the number of live secrets. Secrets do not survive a restart,
+ * which for five-minute OTPs is acceptable; use app.credentials.store=database
+ * when they must. Used when app.credentials.store is memory, or unset on a
+ * single node. A secret issued on one node cannot be verified on another, so
+ * startup fails when memory is asked for together with app.cluster.enabled.
+ */
+@Service
+@ConditionalOnExpression("'${app.credentials.store:}' == 'memory' "
+        + "or ('${app.credentials.store:}' == '' and !${app.cluster.enabled:false})")
+public class InMemoryCredentialStore implements CredentialStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final HashedTimingWheel<String> wheel =
+            new HashedTimingWheel<>(1000, 4096, System.currentTimeMillis());
+
+    @Value("${app.credentials.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    private static final class Entry {
+        final byte[] digest;
+        final long expiresAtMillis;
+        final AtomicInteger attempts = new AtomicInteger();
+        HashedTimingWheel.Timeout<String> timeout;
+
+        Entry(byte[] digest, long expiresAtMillis) {
+            this.digest = digest;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    @PostConstruct
+    void checkSingleNode() {
+        if (clusterEnabled)
+            throw new IllegalStateException("app.credentials.store=memory keeps OTPs on one node, so logins fail "
+                    + "across nodes: use app.credentials.store=database (the default) with app.cluster.enabled");
+    }
+
+    @Override
+    public void issue(Purpose purpose, String subject, String secret, Duration ttl) {
+        String key = key(purpose, subject);
+        Entry entry = new Entry(CredentialHashing.digest(secret), System.currentTimeMillis() + ttl.toMillis());
+        entry.timeout = wheel.schedule(key, entry.expiresAtMillis);
+        Entry previous = entries.put(key, entry);
+        if (previous != null)
+            previous.timeout.cancel();
+    }
+
+    @Override
+    public Result verify(Purpose purpose, String subject, String secret) {
+        String key = key(purpose, subject);
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAtMillis <= System.currentTimeMillis())
+            return Result.EXPIRED;
+        if (purpose.limitsAttempts() && entry.attempts.incrementAndGet() > maxAttempts)
+            return Result.LOCKED;
+        if (!CredentialHashing.matches(entry.digest, secret))
+            return Result.INVALID;
+        // Single use: only the caller that actually removes it wins
+        if (!entries.remove(key, entry))
+            return Result.EXPIRED;
+        entry.timeout.cancel();
+        return Result.VALID;
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void expire() {
+        long now = System.currentTimeMillis();
+        wheel.advance(now, key -> entries.computeIfPresent(key,
+                (k, entry) -> entry.expiresAtMillis <= now ? null : entry));
+    }
+
+    private static String key(Purpose purpose, String subject) {
+        return purpose.name() + ":" + subject.toLowerCase();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.backend.service;
+
+import com.example.backend.config.ReplicaRouting;
+import com.example.backend.model.ShortLivedCredential;
+import com.example.backend.repository.ShortLivedCredentialRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Persistent store for multi-node or restart-tolerant setups. Issue is one
+ * upsert. Verify first claims an attempt with one conditional update (only
+ * while attempts are left), so concurrent guesses can never exceed the
+ * limit, then reads the row on the primary and consumes it with one
+ * conditional delete. Expired rows are purged in bulk on the expires_at
+ * index instead of piling up. Used when app.credentials.store is database,
+ * or unset with app.cluster.enabled.
+ */
+@Service
+@ConditionalOnExpression("'${app.credentials.store:}' == 'database' "
+        + "or ('${app.credentials.store:}' == '' and ${app.cluster.enabled:false})")
+public class JpaCredentialStore implements CredentialStore {
+
+    @Autowired
+    private ShortLivedCredentialRepository credentialRepository;
+
+    @Value("${app.credentials.max-attempts:5}")
+    private int maxAttempts;
+
+    @Override
+    public void issue(Purpose purpose, String subject, String secret, Duration ttl) {
+        credentialRepository.upsert(key(purpose, subject), CredentialHashing.digest(secret),
+                LocalDateTime.now().plus(ttl));
+    }
+
+    @Override
+    public Result verify(Purpose purpose, String subject, String secret) {
+        String key = key(purpose, subject);
+        LocalDateTime now = LocalDateTime.now();
+        if (purpose.limitsAttempts() && credentialRepository.claimAttempt(key, maxAttempts, now) == 0)
+            return find(key).filter(c -> c.getExpiresAt().isAfter(now)).isPresent() ? Result.LOCKED : Result.EXPIRED;
+        Optional<ShortLivedCredential> stored = find(key);
+        if (stored.isEmpty() || !stored.get().getExpiresAt().isAfter(now))
+            return Result.EXPIRED;
+        if (!CredentialHashing.matches(stored.get().getSecretHash(), secret))
+            return Result.INVALID;
+        return credentialRepository.consume(key, now) == 1 ? Result.VALID : Result.EXPIRED;
+    }
+
+    @Scheduled(fixedDelayString = "${app.credentials.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        credentialRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    // Not on a replica: the row may have been issued or claimed a moment ago
+    private Optional<ShortLivedCredential> find(String key) {
+        return ReplicaRouting.onPrimary(() -> credentialRepository.findById(key));
+    }
+
+    private static String key(Purpose purpose, String subject) {
+        return purpose.name() + ":" + subject.toLowerCase();
+    }
+}
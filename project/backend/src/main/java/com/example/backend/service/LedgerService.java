@@ -0,0 +1,485 @@
+package com.example.backend.service;
+
+import com.example.backend.config.ReplicaRouting;
+import com.example.backend.dto.LedgerCheck;
+import com.example.backend.dto.PaymentTransaction;
+import com.example.backend.dto.TransactionPage;
+import com.example.backend.dto.WalletBalance;
+import com.example.backend.dto.WalletPosting;
+import com.example.backend.model.LedgerAccount;
+import com.example.backend.model.LedgerTransaction;
+import com.example.backend.model.Ride;
+import com.example.backend.repository.LedgerTransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Double-entry ledger behind wallets and ride payments. Every posting is a
+ * journal transaction whose entries sum to zero; each account keeps its
+ * balance as a running total that {@link #check()} compares to the journal.
+ *
+ * Postings lock only the accounts they touch: account ids hash onto a fixed
+ * set of lock stripes, taken in stripe order, so unrelated riders and
+ * drivers post in parallel. The platform revenue and external funds
+ * accounts appear in almost every posting, so each is split into shards
+ * (separate rows) picked by ride or user id; their totals are the sum of the
+ * shards. Balance rows are updated in ascending id order, so concurrent
+ * postings on other nodes cannot deadlock in the database either. Waiting
+ * happens on the stripe, before a connection is taken from the pool.
+ *
+ * A posting made inside a caller's transaction (a ride completion) joins
+ * it, so it commits or rolls back with the caller's write. Such callers lock
+ * their own rows before posting, so the order is always ride rows, stripes,
+ * account rows.
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    private static final String INSERT_TRANSACTION =
+            "insert into ledger_transactions (type, reference, user_id, ride_id, amount, currency, payment_method, "
+                    + "description, created_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "on conflict (reference) do nothing returning id";
+
+    // Wallets may not go below zero; every other account type may
+    private static final String APPLY_ENTRY =
+            "update ledger_accounts set balance = balance + ? "
+                    + "where id = ? and (? >= 0 or type <> 'WALLET' or balance + ? >= 0) returning balance";
+
+    private static final String LOCK_ACCOUNTS =
+            "select id, type, balance from ledger_accounts where id = any(?::bigint[]) order by id for update";
+
+    // The new account's id, or the existing one's: the outer select runs on the statement's snapshot, which
+    // has no row yet when the insert made one. Empty when a concurrent insert committed after that snapshot.
+    private static final String ENSURE_ACCOUNT =
+            "with created as (insert into ledger_accounts (type, owner_id, currency, balance) values (?, ?, ?, 0) "
+                    + "on conflict (type, owner_id) do nothing returning id) "
+                    + "select id from created union all select id from ledger_accounts where type = ? and owner_id = ?";
+
+    private static final String INSERT_ENTRY =
+            "insert into ledger_entries (transaction_id, account_id, amount) values (?, ?, ?)";
+
+    private static final int MAX_CACHED_ACCOUNTS = 100_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Account creation commits on its own, even inside a ride transition's transaction
+    private TransactionTemplate accountTransaction;
+
+    @Autowired
+    private LedgerTransactionRepository transactionRepository;
+
+    @Autowired
+    private PaymentMethodService paymentMethodService;
+
+    @Value("${app.ledger.currency:RWF}")
+    private String currency;
+
+    @Value("${app.ledger.commission-percent:20}")
+    private int commissionPercent;
+
+    @Value("${app.ledger.shards:16}")
+    private int shards;
+
+    // A posted journal transaction and the new balance of every account it touched
+    private record Posted(PaymentTransaction transaction, Map<Long, Long> balances) {
+    }
+
+    // A ride's fare split into legs, ready to post
+    private record Charge(Ride ride, String reference, long fare, String description, Map<Long, Long> legs) {
+    }
+
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+
+    // "TYPE:owner" -> account id; accounts are never deleted
+    private final Map<String, Long> accountIds = new ConcurrentHashMap<>();
+
+    public LedgerService(@Value("${app.ledger.lock-stripes:256}") int stripeCount) {
+        if (Integer.bitCount(stripeCount) != 1)
+            throw new IllegalArgumentException("app.ledger.lock-stripes must be a power of two");
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+            stripes[i] = new ReentrantLock();
+        stripeMask = stripeCount - 1;
+    }
+
+    @PostConstruct
+    void init() {
+        accountTransaction = new TransactionTemplate(transactionManager);
+        accountTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // =========================
+    // POSTINGS
+    // =========================
+
+    // Charges the fare on completion; a second call for the same ride posts nothing
+    public boolean chargeRide(Ride ride) {
+        Charge charge = rideCharge(ride);
+        if (charge == null)
+            return false;
+        return post(LedgerTransaction.Type.CHARGE, charge.reference(), ride.getRiderId(), ride.getId(),
+                charge.fare(), ride.getPaymentMethod(), charge.description(), charge.legs(), null) != null;
+    }
+
+    /**
+     * Charges many rides in one transaction (fleet batches). Every account
+     * row the charges touch is locked up front in ascending id order, as
+     * single postings take them, wallets are checked against the locked
+     * balances, and each account then gets one update for the whole set
+     * instead of one per ride. A rider who cannot pay fails only their own
+     * ride. Returns ride id to reason for the rides not charged; rides
+     * already charged count as charged.
+     */
+    public Map<Long, String> chargeRides(List<Ride> rides) {
+        List<Charge> charges = new ArrayList<>();
+        for (Ride ride : rides) {
+            Charge charge = rideCharge(ride);
+            if (charge != null)
+                charges.add(charge);
+        }
+        Map<Long, String> failed = new HashMap<>();
+        if (charges.isEmpty())
+            return failed;
+
+        TreeSet<Long> accounts = new TreeSet<>();
+        for (Charge charge : charges)
+            accounts.addAll(charge.legs().keySet());
+        TreeSet<Integer> held = new TreeSet<>();
+        for (Long accountId : accounts)
+            held.add(stripe(accountId));
+        for (int stripe : held)
+            stripes[stripe].lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, Long> balances = new HashMap<>();
+                Set<Long> wallets = new HashSet<>();
+                jdbcTemplate.query(LOCK_ACCOUNTS, rs -> {
+                    balances.put(rs.getLong("id"), rs.getLong("balance"));
+                    if (LedgerAccount.Type.WALLET.name().equals(rs.getString("type")))
+                        wallets.add(rs.getLong("id"));
+                }, new Object[]{accounts.toArray(Long[]::new)});
+
+                Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+                Map<Long, Long> deltas = new TreeMap<>();
+                List<Object[]> entries = new ArrayList<>();
+                for (Charge charge : charges) {
+                    Ride ride = charge.ride();
+                    List<Long> ids = jdbcTemplate.queryForList(INSERT_TRANSACTION, Long.class,
+                            LedgerTransaction.Type.CHARGE.name(), charge.reference(), ride.getRiderId(), ride.getId(),
+                            charge.fare(), currency, ride.getPaymentMethod(), charge.description(), createdAt);
+                    if (ids.isEmpty())
+                        continue;
+                    boolean covered = charge.legs().entrySet().stream().allMatch(leg -> leg.getValue() >= 0
+                            || !wallets.contains(leg.getKey()) || balances.get(leg.getKey()) + leg.getValue() >= 0);
+                    if (!covered) {
+                        jdbcTemplate.update("delete from ledger_transactions where id = ?", ids.get(0));
+                        failed.put(ride.getId(), "Insufficient wallet balance");
+                        continue;
+                    }
+                    charge.legs().forEach((accountId, delta) -> {
+                        balances.merge(accountId, delta, Long::sum);
+                        deltas.merge(accountId, delta, Long::sum);
+                        entries.add(new Object[]{ids.get(0), accountId, delta});
+                    });
+                }
+                deltas.forEach((accountId, delta) -> {
+                    if (jdbcTemplate.queryForList(APPLY_ENTRY, Long.class, delta, accountId, delta, delta).isEmpty())
+                        throw new InsufficientFundsException("Insufficient wallet balance");
+                });
+                if (!entries.isEmpty())
+                    jdbcTemplate.batchUpdate(INSERT_ENTRY, entries);
+            });
+        } finally {
+            for (int stripe : held.descendingSet())
+                stripes[stripe].unlock();
+        }
+        return failed;
+    }
+
+    // Null when there is no fare to charge
+    private Charge rideCharge(Ride ride) {
+        long fare = ride.getEstimatedFare() == null ? 0 : Math.round(ride.getEstimatedFare());
+        if (fare <= 0)
+            return null;
+        long commission = ride.getDriverId() == null ? fare : fare * commissionPercent / 100;
+
+        Map<Long, Long> legs = new TreeMap<>();
+        if (isWallet(ride.getPaymentMethod()))
+            add(legs, walletAccount(ride.getRiderId()), -fare);
+        else
+            add(legs, shardAccount(LedgerAccount.Type.EXTERNAL_FUNDS, ride.getId()), -fare);
+        if (ride.getDriverId() != null)
+            add(legs, accountId(LedgerAccount.Type.DRIVER_EARNINGS, ride.getDriverId()), fare - commission);
+        add(legs, shardAccount(LedgerAccount.Type.PLATFORM_REVENUE, ride.getId()), commission);
+
+        String description = "Ride payment - " + ride.getPickupLocation() + " to " + ride.getDropoffLocation();
+        return new Charge(ride, "ride:" + ride.getId() + ":charge", fare, description, legs);
+    }
+
+    public WalletPosting topUp(Long userId, long amount, Long paymentMethodId) {
+        requirePositive(amount);
+        String method = paymentMethodService.describe(userId, paymentMethodId);
+        long wallet = walletAccount(userId);
+        Map<Long, Long> legs = new TreeMap<>();
+        add(legs, shardAccount(LedgerAccount.Type.EXTERNAL_FUNDS, userId), -amount);
+        add(legs, wallet, amount);
+        Posted posted = post(LedgerTransaction.Type.TOP_UP, null, userId, null, amount, method,
+                "Wallet top-up", legs, null);
+        return new WalletPosting(true, posted.transaction(), posted.balances().get(wallet));
+    }
+
+    public WalletPosting withdraw(Long userId, long amount, Long paymentMethodId) {
+        requirePositive(amount);
+        String method = paymentMethodService.describe(userId, paymentMethodId);
+        long wallet = walletAccount(userId);
+        Map<Long, Long> legs = new TreeMap<>();
+        add(legs, wallet, -amount);
+        add(legs, shardAccount(LedgerAccount.Type.EXTERNAL_FUNDS, userId), amount);
+        Posted posted = post(LedgerTransaction.Type.WITHDRAWAL, null, userId, null, amount, method,
+                "Wallet withdrawal", legs, null);
+        return new WalletPosting(true, posted.transaction(), posted.balances().get(wallet));
+    }
+
+    /**
+     * Refunds go to the rider's wallet and reverse the charge's credit legs in
+     * proportion: the driver gives back their share and the platform its
+     * commission. Shares are taken on the running total refunded, so partial
+     * refunds that add up to the charge reverse it exactly; rounding is left
+     * with the platform. Driver earnings may go below zero when the driver has
+     * already been paid out. amount null = what is left.
+     */
+    public PaymentTransaction refundRide(Long rideId, Long amount) {
+        // On the primary: the charge may have been posted a moment ago
+        LedgerTransaction charge = ReplicaRouting.onPrimary(
+                        () -> transactionRepository.findByReference("ride:" + rideId + ":charge"))
+                .orElseThrow(() -> new RuntimeException("Ride charge not found"));
+        long before = refunded(rideId);
+        long refund = amount != null ? amount : charge.getAmount() - before;
+        requirePositive(refund);
+        if (before + refund > charge.getAmount())
+            throw new IllegalArgumentException("Refunds exceed the ride charge");
+
+        long platform = shardAccount(LedgerAccount.Type.PLATFORM_REVENUE, rideId);
+        Map<Long, Long> legs = new TreeMap<>();
+        long reversed = 0;
+        for (Map.Entry<Long, Long> credit : chargeCredits(charge.getId()).entrySet()) {
+            long share = share(before + refund, credit.getValue(), charge.getAmount())
+                    - share(before, credit.getValue(), charge.getAmount());
+            add(legs, credit.getKey(), -share);
+            reversed += share;
+        }
+        add(legs, platform, reversed - refund);
+        add(legs, walletAccount(charge.getUserId()), refund);
+        // Runs after the platform shard row is locked, so refunds of one ride are serialised everywhere
+        Runnable limit = () -> {
+            if (refunded(rideId) > charge.getAmount())
+                throw new IllegalArgumentException("Refunds exceed the ride charge");
+        };
+        return post(LedgerTransaction.Type.REFUND, null, charge.getUserId(), rideId, refund,
+                charge.getPaymentMethod(), "Refund - ride " + rideId, legs, limit).transaction();
+    }
+
+    // Account -> amount credited by the charge (driver earnings, platform revenue)
+    private Map<Long, Long> chargeCredits(Long transactionId) {
+        Map<Long, Long> credits = new TreeMap<>();
+        jdbcTemplate.query("select account_id, amount from ledger_entries where transaction_id = ? and amount > 0",
+                rs -> {
+                    credits.merge(rs.getLong("account_id"), rs.getLong("amount"), Long::sum);
+                }, transactionId);
+        return credits;
+    }
+
+    // The part of a leg that refunding total out of fare reverses
+    private static long share(long total, long leg, long fare) {
+        return Math.floorDiv(Math.multiplyExact(total, leg), fare);
+    }
+
+    /**
+     * Posts one balanced transaction: journal row, balance updates, entries.
+     * legs maps account id to signed amount and is sorted by account id.
+     * Returns null when reference was already posted.
+     */
+    private Posted post(LedgerTransaction.Type type, String reference, Long userId, Long rideId, long amount,
+                      String paymentMethod, String description, Map<Long, Long> legs, Runnable check) {
+        TreeSet<Integer> held = new TreeSet<>();
+        for (Long accountId : legs.keySet())
+            held.add(stripe(accountId));
+        for (int stripe : held)
+            stripes[stripe].lock();
+        try {
+            return transactionTemplate.execute(status -> write(type, reference, userId, rideId, amount,
+                    paymentMethod, description, legs, check));
+        } finally {
+            for (int stripe : held.descendingSet())
+                stripes[stripe].unlock();
+        }
+    }
+
+    // The statements of one posting; the caller holds the stripes and the transaction
+    private Posted write(LedgerTransaction.Type type, String reference, Long userId, Long rideId, long amount,
+                         String paymentMethod, String description, Map<Long, Long> legs, Runnable check) {
+        if (legs.values().stream().mapToLong(Long::longValue).sum() != 0)
+            throw new IllegalStateException("Unbalanced ledger posting");
+
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<Long> ids = jdbcTemplate.queryForList(INSERT_TRANSACTION, Long.class, type.name(), reference,
+                userId, rideId, amount, currency, paymentMethod, description, Timestamp.valueOf(createdAt));
+        if (ids.isEmpty())
+            return null;
+        Long transactionId = ids.get(0);
+
+        Map<Long, Long> balances = new TreeMap<>();
+        List<Object[]> entries = new ArrayList<>(legs.size());
+        legs.forEach((accountId, delta) -> {
+            List<Long> balance = jdbcTemplate.queryForList(APPLY_ENTRY, Long.class, delta, accountId, delta, delta);
+            if (balance.isEmpty())
+                throw new InsufficientFundsException("Insufficient wallet balance");
+            balances.put(accountId, balance.get(0));
+            entries.add(new Object[]{transactionId, accountId, delta});
+        });
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, entries);
+        if (check != null)
+            check.run();
+        return new Posted(new PaymentTransaction(transactionId, amount, currency, type, "COMPLETED",
+                createdAt, description, paymentMethod, rideId), balances);
+    }
+
+    // =========================
+    // READS
+    // =========================
+
+    public WalletBalance walletBalance(Long userId) {
+        List<Long> balance = jdbcTemplate.queryForList(
+                "select balance from ledger_accounts where type = 'WALLET' and owner_id = ?", Long.class, userId);
+        return new WalletBalance(userId, balance.isEmpty() ? 0 : balance.get(0), currency);
+    }
+
+    public TransactionPage transactions(Long userId, int page, int size) {
+        Page<LedgerTransaction> result = transactionRepository.findByUserIdOrderByIdDesc(userId,
+                PageRequest.of(page, size));
+        return new TransactionPage(result.getContent().stream().map(PaymentTransaction::of).toList(),
+                result.getTotalElements(), result.getTotalPages(), size, page);
+    }
+
+    // =========================
+    // RECONCILIATION
+    // =========================
+
+    // Each query reads one snapshot, and a posting updates balance and entries together
+    public LedgerCheck check() {
+        List<LedgerCheck.Mismatch> mismatches = jdbcTemplate.query(
+                "select a.id, a.type, a.owner_id, a.balance, coalesce(e.total, 0) as journal "
+                        + "from ledger_accounts a left join "
+                        + "(select account_id, sum(amount) as total from ledger_entries group by account_id) e "
+                        + "on e.account_id = a.id where a.balance <> coalesce(e.total, 0) order by a.id",
+                (rs, i) -> new LedgerCheck.Mismatch(rs.getLong("id"), rs.getString("type"),
+                        rs.getLong("owner_id"), rs.getLong("balance"), rs.getLong("journal")));
+        Long accounts = jdbcTemplate.queryForObject("select count(*) from ledger_accounts", Long.class);
+        Long journalTotal = jdbcTemplate.queryForObject("select coalesce(sum(amount), 0) from ledger_entries",
+                Long.class);
+        return new LedgerCheck(LocalDateTime.now(), accounts, journalTotal, mismatches);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.check-interval-ms:3600000}",
+            initialDelayString = "${app.ledger.check-interval-ms:3600000}")
+    public void scheduledCheck() {
+        LedgerCheck result = check();
+        if (!result.consistent())
+            log.error("Ledger out of balance: journal total {}, {} account(s) differ from their entries: {}",
+                    result.journalTotal(), result.mismatches().size(), result.mismatches());
+    }
+
+    // =========================
+    // ACCOUNTS
+    // =========================
+
+    private long walletAccount(Long userId) {
+        if (userId == null)
+            throw new IllegalArgumentException("Rider ID is required");
+        return accountId(LedgerAccount.Type.WALLET, userId);
+    }
+
+    private long shardAccount(LedgerAccount.Type type, Long key) {
+        return accountId(type, Math.floorMod(key == null ? 0 : key, shards));
+    }
+
+    // Created on first use in a transaction of its own: completions charge inside the ride's
+    // transaction, and a rollback there must not leave a cached id for an account that is gone
+    private long accountId(LedgerAccount.Type type, long ownerId) {
+        String key = type + ":" + ownerId;
+        Long id = accountIds.get(key);
+        if (id != null)
+            return id;
+        id = accountTransaction.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(ENSURE_ACCOUNT, Long.class, type.name(), ownerId, currency,
+                    type.name(), ownerId);
+            return !ids.isEmpty() ? ids.get(0) : jdbcTemplate.queryForObject(
+                    "select id from ledger_accounts where type = ? and owner_id = ?", Long.class, type.name(), ownerId);
+        });
+        if (accountIds.size() >= MAX_CACHED_ACCOUNTS)
+            accountIds.clear();
+        accountIds.put(key, id);
+        return id;
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+
+    private int stripe(long accountId) {
+        return (int) ((accountId * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+    }
+
+    private long refunded(Long rideId) {
+        return jdbcTemplate.queryForObject("select coalesce(sum(amount), 0) from ledger_transactions "
+                + "where ride_id = ? and type = 'REFUND'", Long.class, rideId);
+    }
+
+    private static void add(Map<Long, Long> legs, long accountId, long amount) {
+        legs.merge(accountId, amount, Long::sum);
+    }
+
+    private static void requirePositive(long amount) {
+        if (amount <= 0)
+            throw new IllegalArgumentException("Amount must be greater than 0");
+    }
+
+    // Ride.paymentMethod holds a saved method id, or "wallet" for the in-app balance
+    private static boolean isWallet(String paymentMethod) {
+        return "wallet".equalsIgnoreCase(paymentMethod);
+    }
+}
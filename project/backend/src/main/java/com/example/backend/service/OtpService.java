@@ -1,6 +1,7 @@
 package com.example.backend.service;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -9,9 +10,14 @@ import org.springframework.stereotype.Service;
 @Service
 public class OtpService {
 
+    private static final Duration OTP_TTL = Duration.ofMinutes(5);
+
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private CredentialStore credentialStore;
+
     private final SecureRandom random = new SecureRandom();
 
     public String generateOtp() {
@@ -19,6 +25,17 @@ public class OtpService {
         return String.valueOf(otp);
     }
 
+    // Generate, remember and mail a fresh OTP (replaces any earlier one)
+    public void issueOtp(String email) {
+        String otp = generateOtp();
+        credentialStore.issue(CredentialStore.Purpose.OTP, email, otp, OTP_TTL);
+        sendOtp(email, otp);
+    }
+
+    public CredentialStore.Result verifyOtp(String email, String otp) {
+        return credentialStore.verify(CredentialStore.Purpose.OTP, email, otp);
+    }
+
     public void sendOtp(String email, String otp) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setTo(email);
@@ -26,4 +43,4 @@ public class OtpService {
         message.setText("Your OTP code is: " + otp);
         mailSender.send(message);
     }
-} 
\ No newline at end of file
+}
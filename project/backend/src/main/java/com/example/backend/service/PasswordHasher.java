@@ -0,0 +1,141 @@
+package com.example.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * BCrypt hashing and verification on a small dedicated pool instead of the
+ * request threads, so a burst of registrations or logins uses at most
+ * {@code threads} cores and every other endpoint keeps the rest. Work beyond
+ * {@code queue-capacity} is turned away with {@link HashingBusyException}
+ * rather than piling up; callers answer 503.
+ *
+ * Metrics: app.password.hashing.queued and .active (gauges), .wait (time
+ * spent queued) and .time (time hashing), tagged by operation.
+ */
+@Service
+public class PasswordHasher {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 = half the available cores, at least one
+    @Value("${app.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${app.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.password-hashing.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger n = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "password-hashing-" + n.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("app.password.hashing.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("app.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        log.info("Password hashing: {} threads, queue of {}", size, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String hash(String rawPassword) {
+        return run("hash", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run("verify", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // True when the hash was made at a lower cost than the one configured now
+    public boolean needsUpgrade(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    // Re-hashes in the background and hands the new hash to store; skipped
+    // when the pool is busy, the next login will try again
+    public void upgradeLater(String rawPassword, Consumer<String> store) {
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                timer("upgrade", "wait").record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    store.accept(timer("upgrade", "time").record(() -> passwordEncoder.encode(rawPassword)));
+                } catch (RuntimeException e) {
+                    log.warn("Password hash upgrade failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Password hash upgrade skipped, pool busy");
+        }
+    }
+
+    private <T> T run(String operation, Callable<T> work) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                timer(operation, "wait").record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer(operation, "time").recordCallable(work);
+            });
+        } catch (RejectedExecutionException e) {
+            throw new HashingBusyException("Password hashing is at capacity");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new HashingBusyException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HashingBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime)
+                throw runtime;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Timer timer(String operation, String phase) {
+        return meterRegistry.timer("app.password.hashing." + phase, "operation", operation);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.backend.service;
+
+import com.example.backend.config.ReplicaRouting;
+import com.example.backend.model.PaymentMethod;
+import com.example.backend.repository.PaymentMethodRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class PaymentMethodService {
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    public List<PaymentMethod> getPaymentMethods(Long userId) {
+        return paymentMethodRepository.findByUserIdOrderByIdAsc(userId);
+    }
+
+    // The first method a user adds becomes the default
+    public PaymentMethod addPaymentMethod(Long userId, PaymentMethod method) {
+        if (method.getType() == null)
+            throw new IllegalArgumentException("Payment method type is required");
+        if (method.getLast4() != null && !method.getLast4().matches("\\d{4}"))
+            throw new IllegalArgumentException("last4 must be four digits");
+        method.setId(null);
+        method.setUserId(userId);
+        method.setDefaultMethod(!paymentMethodRepository.existsByUserId(userId));
+        return paymentMethodRepository.save(method);
+    }
+
+    public void removePaymentMethod(Long userId, Long methodId) {
+        paymentMethodRepository.delete(find(userId, methodId));
+    }
+
+    public void setDefaultPaymentMethod(Long userId, Long methodId) {
+        find(userId, methodId);
+        paymentMethodRepository.makeDefault(userId, methodId);
+    }
+
+    // Stored on journal rows the same way Ride.paymentMethod holds it; null when no method was given
+    public String describe(Long userId, Long methodId) {
+        if (methodId == null)
+            return null;
+        PaymentMethod method = find(userId, methodId);
+        return String.valueOf(method.getId());
+    }
+
+    private PaymentMethod find(Long userId, Long methodId) {
+        // Ledger postings check the method right after it may have been added
+        return ReplicaRouting.onPrimary(() -> paymentMethodRepository.findById(methodId))
+                .filter(method -> method.getUserId().equals(userId))
+                .orElseThrow(() -> new RuntimeException("Payment method not found"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.backend.service;
+
+import com.example.backend.cluster.ClusterEvent;
+import com.example.backend.cluster.ClusterEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers who was written recently (e.g. "rider:12", "ride:40") so that
+ * their next reads can be pinned to the primary instead of a replica that
+ * may not have replayed the write yet. Writes on other nodes count too.
+ */
+@Component
+public class ReadYourWritesTracker implements ClusterEventListener {
+
+    @Value("${app.datasource.replica.read-your-writes-ms:5000}")
+    private long windowMillis;
+
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+
+    public void markWritten(String... keys) {
+        long now = System.currentTimeMillis();
+        for (String key : keys)
+            lastWrite.put(key, now);
+    }
+
+    public boolean recentlyWritten(String key) {
+        Long at = lastWrite.get(key);
+        return at != null && System.currentTimeMillis() - at < windowMillis;
+    }
+
+    @Override
+    public void onClusterEvent(ClusterEvent event) {
+        if (event.type() == ClusterEvent.Type.RIDE) {
+            String[] ids = event.key().split(":");
+            markWritten("ride:" + ids[0], "rider:" + ids[1], "driver:" + ids[2]);
+        } else if (event.type() == ClusterEvent.Type.DRIVER) {
+            markWritten("driver:" + event.key().split(":")[0]);
+        }
+    }
+
+    @Scheduled(fixedDelay = 10_000)
+    public void forgetOld() {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        lastWrite.values().removeIf(at -> at < cutoff);
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.AnalyticsResult;
+import com.example.backend.util.LongIntHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Filter + group-by aggregations over the {@link RideColumnStore}. The row
+ * range is split into segments scanned in parallel on the common fork/join
+ * pool; each segment accumulates into its own groups and the partial results
+ * are merged on the way back up, so the scan shares nothing and allocates
+ * nothing per row.
+ *
+ * Filtering and DAY/HOUR/WEEKDAY grouping use bookedAt; deleted rides and
+ * rides without bookedAt are never counted.
+ */
+@Service
+public class RideAnalytics {
+
+    public enum Metric {
+        COUNT,             // rides
+        REVENUE,           // sum of fares of completed rides
+        AVG_FARE,
+        AVG_RATING,        // over rated rides
+        AVG_DISTANCE_KM,
+        CANCELLATION_RATE  // cancelled / rides
+    }
+
+    public enum GroupBy {
+        NONE,
+        DAY,
+        HOUR,
+        WEEKDAY,
+        DRIVER,
+        STATUS,
+        PICKUP_PLACE
+    }
+
+    public record Query(Metric metric, GroupBy groupBy, LocalDateTime from, LocalDateTime to, String status,
+                        Long driverId, Integer pickupPlaceId) {
+    }
+
+    @Autowired
+    private RideColumnStore store;
+
+    @Value("${app.analytics.segment-rows:65536}")
+    private int segmentRows;
+
+    public AnalyticsResult query(Query query) {
+        byte statusCode = -1;
+        if (query.status() != null) {
+            statusCode = (byte) RideColumnStore.STATUSES.indexOf(query.status());
+            if (statusCode <= 0)
+                throw new IllegalArgumentException("Unknown status: " + query.status());
+        }
+        Filter filter = new Filter(
+                query.from() == null ? RideColumnStore.NO_TIME + 1 : RideColumnStore.seconds(query.from()),
+                query.to() == null ? Long.MAX_VALUE : RideColumnStore.seconds(query.to()),
+                statusCode,
+                query.driverId() == null ? -1 : query.driverId(),
+                query.pickupPlaceId() == null ? -1 : query.pickupPlaceId());
+
+        long start = System.nanoTime();
+        int[] scanned = new int[1];
+        Groups groups = store.read(rows -> {
+            scanned[0] = rows;
+            return ForkJoinPool.commonPool().invoke(new Scan(query.metric(), query.groupBy(), filter, 0, rows));
+        });
+        long micros = (System.nanoTime() - start) / 1000;
+
+        List<AnalyticsResult.Group> result = new ArrayList<>(groups.index.size());
+        long matched = 0;
+        long[] keys = groups.index.keys();
+        Arrays.sort(keys);
+        for (long key : keys) {
+            int slot = groups.index.get(key);
+            matched += groups.count[slot];
+            result.add(new AnalyticsResult.Group(label(query.groupBy(), key), groups.count[slot],
+                    value(query.metric(), groups.count[slot], groups.sum[slot], groups.n[slot])));
+        }
+        return new AnalyticsResult(query.metric().name(), query.groupBy().name(), scanned[0], matched, micros,
+                result);
+    }
+
+    // =========================
+    // SCAN
+    // =========================
+
+    private record Filter(long from, long to, byte status, long driverId, int pickupPlaceId) {
+    }
+
+    private final class Scan extends RecursiveTask<Groups> {
+
+        // Never serialized; RecursiveTask just happens to be Serializable
+        private static final long serialVersionUID = 1L;
+
+        private final Metric metric;
+        private final GroupBy groupBy;
+        private final Filter filter;
+        private final int from;
+        private final int to;
+
+        Scan(Metric metric, GroupBy groupBy, Filter filter, int from, int to) {
+            this.metric = metric;
+            this.groupBy = groupBy;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Groups compute() {
+            if (to - from > segmentRows) {
+                int mid = (from + to) >>> 1;
+                Scan left = new Scan(metric, groupBy, filter, from, mid);
+                left.fork();
+                Groups right = new Scan(metric, groupBy, filter, mid, to).compute();
+                return left.join().merge(right);
+            }
+            return scan();
+        }
+
+        private Groups scan() {
+            RideColumnStore s = store;
+            Groups groups = new Groups();
+            for (int row = from; row < to; row++) {
+                byte status = s.status[row];
+                long bookedAt = s.bookedAt[row];
+                if (status == RideColumnStore.DELETED
+                        || bookedAt < filter.from() || bookedAt >= filter.to()
+                        || (filter.status() >= 0 && status != filter.status())
+                        || (filter.driverId() >= 0 && s.driverId[row] != filter.driverId())
+                        || (filter.pickupPlaceId() >= 0 && s.pickupPlaceId[row] != filter.pickupPlaceId()))
+                    continue;
+
+                int slot = groups.slot(key(s, row, bookedAt));
+                groups.count[slot]++;
+                switch (metric) {
+                    case REVENUE -> {
+                        if (status == RideColumnStore.COMPLETED)
+                            groups.sum[slot] += s.fareMinor[row];
+                    }
+                    case AVG_FARE -> {
+                        groups.sum[slot] += s.fareMinor[row];
+                        groups.n[slot]++;
+                    }
+                    case AVG_RATING -> {
+                        if (s.rating[row] > 0) {
+                            groups.sum[slot] += s.rating[row];
+                            groups.n[slot]++;
+                        }
+                    }
+                    case AVG_DISTANCE_KM -> {
+                        groups.sum[slot] += s.distanceMeters[row];
+                        groups.n[slot]++;
+                    }
+                    case CANCELLATION_RATE -> {
+                        if (status == RideColumnStore.CANCELLED)
+                            groups.n[slot]++;
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return groups;
+        }
+
+        private long key(RideColumnStore s, int row, long bookedAt) {
+            return switch (groupBy) {
+                case NONE -> 0;
+                case DAY -> Math.floorDiv(bookedAt, 86_400);
+                case HOUR -> Math.floorMod(bookedAt, 86_400) / 3600;
+                // 1970-01-01 was a Thursday; 0 = Monday
+                case WEEKDAY -> Math.floorMod(Math.floorDiv(bookedAt, 86_400) + 3, 7);
+                case DRIVER -> s.driverId[row];
+                case STATUS -> s.status[row];
+                case PICKUP_PLACE -> s.pickupPlaceId[row];
+            };
+        }
+    }
+
+    // Accumulators per group key, in parallel arrays indexed by slot
+    private static final class Groups {
+        final LongIntHashMap index = new LongIntHashMap(16);
+        long[] count = new long[16];
+        long[] sum = new long[16];
+        long[] n = new long[16];
+
+        int slot(long key) {
+            int slot = index.get(key);
+            if (slot >= 0)
+                return slot;
+            slot = index.size();
+            if (slot == count.length) {
+                count = Arrays.copyOf(count, slot * 2);
+                sum = Arrays.copyOf(sum, slot * 2);
+                n = Arrays.copyOf(n, slot * 2);
+            }
+            index.put(key, slot);
+            return slot;
+        }
+
+        Groups merge(Groups other) {
+            for (long key : other.index.keys()) {
+                int from = other.index.get(key);
+                int to = slot(key);
+                count[to] += other.count[from];
+                sum[to] += other.sum[from];
+                n[to] += other.n[from];
+            }
+            return this;
+        }
+    }
+
+    // =========================
+    // RESULTS
+    // =========================
+
+    private static Double value(Metric metric, long count, long sum, long n) {
+        return switch (metric) {
+            case COUNT -> (double) count;
+            case REVENUE -> sum / 100.0;
+            case AVG_FARE -> n == 0 ? null : sum / 100.0 / n;
+            case AVG_RATING -> n == 0 ? null : (double) sum / n;
+            case AVG_DISTANCE_KM -> n == 0 ? null : sum / 1000.0 / n;
+            case CANCELLATION_RATE -> count == 0 ? null : (double) n / count;
+        };
+    }
+
+    private static String label(GroupBy groupBy, long key) {
+        return switch (groupBy) {
+            case NONE -> "all";
+            case DAY -> LocalDate.ofEpochDay(key).toString();
+            case HOUR -> String.format("%02d:00", key);
+            case WEEKDAY -> DayOfWeek.of((int) key + 1).name();
+            case DRIVER -> key == 0 ? "unassigned" : String.valueOf(key);
+            case STATUS -> RideColumnStore.STATUSES.get((int) key);
+            case PICKUP_PLACE -> key == 0 ? "unresolved" : String.valueOf(key);
+        };
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Ride;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Every ride as one row across primitive column arrays, for analytics
+ * queries that would otherwise load and box whole Ride entities. A row takes
+ * 38 bytes plus 4 for its id index entry; a Ride entity with its
+ * boxed numbers, LocalDateTimes and strings takes about 550 bytes before
+ * Hibernate's per-entity bookkeeping.
+ *
+ * Ride writes on this node are applied directly from RideService. A poller
+ * follows the ride change feed (change_version and tombstones), which loads
+ * the existing rides after startup and picks up writes made on other nodes.
+ * Each row keeps its change version, so an older copy never overwrites a
+ * newer one. Deleted rides stay as DELETED rows.
+ *
+ * Times are stored as seconds of the stored local timestamp read as UTC, so
+ * day and hour buckets come straight from division with no zone rules.
+ * Queries hold the read lock while they scan; writes take the write lock.
+ */
+@Service
+public class RideColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RideColumnStore.class);
+
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    // Status codes; index = code
+    public static final List<String> STATUSES =
+            List.of("DELETED", "SCHEDULED", "PENDING", "ACCEPTED", "STARTED", "COMPLETED", "CANCELLED", "OTHER");
+    public static final byte DELETED = 0;
+    public static final byte COMPLETED = 5;
+    public static final byte CANCELLED = 6;
+    private static final byte OTHER = 7;
+
+    private static final String CHANGED_RIDES =
+            "select id, driver_id, status, booked_at, estimated_fare, distance, rating, "
+                    + "pickup_place_id, change_version from ride where change_version > ? and change_version <= ? "
+                    + "order by change_version limit ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChangeFeedHorizon changeFeedHorizon;
+
+    @Value("${app.analytics.poll-batch:5000}")
+    private int pollBatch;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Columns; rows [0, size) are in use
+    long[] version = new long[0];
+    long[] driverId = new long[0];      // 0 = none
+    long[] bookedAt = new long[0];      // seconds, or NO_TIME
+    int[] fareMinor = new int[0];       // estimated fare x 100
+    int[] distanceMeters = new int[0];
+    int[] pickupPlaceId = new int[0];   // 0 = unresolved
+    byte[] status = new byte[0];
+    byte[] rating = new byte[0];        // 0 = not rated
+    int size;
+
+    // Ride ids come from an identity column, so a flat array indexed by id is
+    // dense: row + 1 per id, 0 when the ride is not loaded
+    private int[] rowById = new int[0];
+
+    // The feed has been read up to this change version
+    private long cursor;
+
+    // =========================
+    // WRITES
+    // =========================
+
+    public void rideChanged(Ride ride) {
+        if (ride.getChangeVersion() == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            int row = rowFor(ride.getId(), ride.getChangeVersion());
+            if (row < 0)
+                return;
+            driverId[row] = orZero(ride.getDriverId());
+            status[row] = statusCode(ride.getStatus());
+            bookedAt[row] = seconds(ride.getBookedAt());
+            fareMinor[row] = ride.getEstimatedFare() == null ? 0 : (int) Math.round(ride.getEstimatedFare() * 100);
+            distanceMeters[row] = ride.getDistance() == null ? 0 : (int) Math.round(ride.getDistance() * 1000);
+            pickupPlaceId[row] = ride.getPickupPlaceId() == null ? 0 : ride.getPickupPlaceId();
+            rating[row] = ride.getRating() == null ? 0 : ride.getRating().byteValue();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rideDeleted(Long id, long changeVersion) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row >= 0 && version[row] < changeVersion) {
+                version[row] = changeVersion;
+                status[row] = DELETED;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Follows the change feed up to its horizon (see ChangeFeedHorizon); the first run loads every ride
+    @Scheduled(fixedDelayString = "${app.analytics.poll-interval-ms:5000}")
+    public void poll() {
+        long start = cursor;
+        long horizon = changeFeedHorizon.current();
+        while (cursor < horizon) {
+            long since = cursor;
+            List<Ride> rides = jdbcTemplate.query(CHANGED_RIDES, (rs, i) -> read(rs), since, horizon, pollBatch);
+            // Tombstones share the sequence; when the page is full only take those it covers
+            long upTo = rides.size() == pollBatch ? rides.get(rides.size() - 1).getChangeVersion() : horizon;
+            List<long[]> tombstones = jdbcTemplate.query(
+                    "select ride_id, change_version from ride_tombstones where change_version > ? "
+                            + "and change_version <= ? order by change_version",
+                    (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)}, since, upTo);
+
+            long next = since;
+            for (Ride ride : rides) {
+                rideChanged(ride);
+                next = Math.max(next, ride.getChangeVersion());
+            }
+            for (long[] tombstone : tombstones) {
+                rideDeleted(tombstone[0], tombstone[1]);
+                next = Math.max(next, tombstone[1]);
+            }
+            // A short page read everything up to the horizon
+            cursor = rides.size() < pollBatch ? horizon : next;
+        }
+        if (start == 0 && cursor > 0)
+            log.info("Analytics store loaded {} rides ({} bytes)", size, memoryBytes());
+    }
+
+    // =========================
+    // READS
+    // =========================
+
+    // Runs the scan with writes held off; rows beyond the returned size are not visible to it
+    public <T> T read(Function<Integer, T> scan) {
+        lock.readLock().lock();
+        try {
+            return scan.apply(size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return read(rows -> rows);
+    }
+
+    public long memoryBytes() {
+        return read(rows -> {
+            long perRow = 3L * Long.BYTES + 3L * Integer.BYTES + 2;
+            return perRow * version.length + (long) Integer.BYTES * rowById.length;
+        });
+    }
+
+    public long cursor() {
+        return cursor;
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+
+    // Row for the ride, appended if new; -1 when the stored copy is already as new
+    private int rowFor(long id, long changeVersion) {
+        int row = rowOf(id);
+        if (row >= 0) {
+            if (version[row] >= changeVersion)
+                return -1;
+        } else {
+            if (id <= 0 || id >= Integer.MAX_VALUE - 8)
+                throw new IllegalStateException("Ride id out of range for the analytics store: " + id);
+            if (id >= rowById.length)
+                rowById = Arrays.copyOf(rowById, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(id + 1, rowById.length * 2L)));
+            if (size == version.length)
+                grow();
+            row = size++;
+            rowById[(int) id] = row + 1;
+        }
+        version[row] = changeVersion;
+        return row;
+    }
+
+    private int rowOf(long id) {
+        return id > 0 && id < rowById.length ? rowById[(int) id] - 1 : -1;
+    }
+
+    private void grow() {
+        int capacity = Math.max(1024, version.length * 2);
+        version = Arrays.copyOf(version, capacity);
+        driverId = Arrays.copyOf(driverId, capacity);
+        bookedAt = Arrays.copyOf(bookedAt, capacity);
+        fareMinor = Arrays.copyOf(fareMinor, capacity);
+        distanceMeters = Arrays.copyOf(distanceMeters, capacity);
+        pickupPlaceId = Arrays.copyOf(pickupPlaceId, capacity);
+        status = Arrays.copyOf(status, capacity);
+        rating = Arrays.copyOf(rating, capacity);
+    }
+
+    // Only the columns the store keeps are filled in
+    private static Ride read(ResultSet rs) throws SQLException {
+        Ride ride = new Ride();
+        ride.setId(rs.getLong("id"));
+        ride.setDriverId(rs.getObject("driver_id", Long.class));
+        ride.setStatus(rs.getString("status"));
+        ride.setBookedAt(toLocal(rs.getTimestamp("booked_at")));
+        ride.setEstimatedFare(rs.getObject("estimated_fare", Double.class));
+        ride.setDistance(rs.getObject("distance", Double.class));
+        ride.setRating(rs.getObject("rating", Integer.class));
+        ride.setPickupPlaceId(rs.getObject("pickup_place_id", Integer.class));
+        ride.setChangeVersion(rs.getLong("change_version"));
+        return ride;
+    }
+
+    private static LocalDateTime toLocal(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    public static long seconds(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static byte statusCode(String value) {
+        int code = value == null ? -1 : STATUSES.indexOf(value);
+        return code > 0 ? (byte) code : OTHER;
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+}
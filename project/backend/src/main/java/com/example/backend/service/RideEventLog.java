@@ -0,0 +1,227 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.RideState;
+import com.example.backend.model.Ride;
+import com.example.backend.model.RideEvent;
+import com.example.backend.repository.RideEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of ride lifecycle transitions in the ride_events table.
+ *
+ * Appends are handed to a single writer thread that inserts them with JDBC
+ * batches, so the lifecycle call only pays for a queue offer. The one writer
+ * keeps this node's seq order equal to append order; across nodes it is not,
+ * so each payload carries the ride version for replay to order by. When the database is
+ * unavailable the writer retries the same batch with backoff and the queue
+ * fills up; once it is full, append blocks, so producers slow down instead
+ * of events being dropped or written around the writer. Only an event the
+ * database rejects outright (a constraint violation) is logged and skipped.
+ * Events still queued when the process dies are lost; the ride row itself
+ * is always committed.
+ *
+ * seq is taken when a row is inserted, not when it commits, so with several
+ * nodes appending (or a rolled-back insert) a reader can see seq 12 before
+ * seq 11 is visible. {@link #tail} therefore stops at a gap until it fills,
+ * or until it has stayed open for gap-timeout-ms and is taken to be a seq
+ * that will never commit.
+ */
+@Service
+public class RideEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(RideEventLog.class);
+
+    private static final String INSERT =
+            "insert into ride_events (ride_id, type, occurred_at, payload) values (?, ?, ?, ?)";
+
+    private static final long MAX_BACKOFF_MS = 5000;
+
+    private static final int MAX_TRACKED_GAPS = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RideEventRepository rideEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.ride-events.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.ride-events.gap-timeout-ms:5000}")
+    private long gapTimeoutMs;
+
+    private record Pending(Long rideId, RideEvent.Type type, LocalDateTime occurredAt, String payload) {
+    }
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>(50_000);
+    private volatile boolean running;
+    private Thread writer;
+
+    // First missing seq of a gap -> when a reader first ran into it (nanoTime); kept
+    // after it settles so every reader that reaches the gap later passes it at once
+    private final Map<Long, Long> openGaps = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "ride-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // The writer drains the queue before it exits; it keeps no backoff going once stopped
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(10_000);
+        if (!queue.isEmpty())
+            log.warn("Stopped with {} ride events not written", queue.size());
+    }
+
+    public void append(RideEvent.Type type, Ride ride) {
+        enqueue(new Pending(ride.getId(), type, LocalDateTime.now(), toJson(RideState.of(ride))));
+    }
+
+    // Replay drops the ride; the payload only names it
+    public void appendDeleted(Long rideId) {
+        enqueue(new Pending(rideId, RideEvent.Type.DELETED, LocalDateTime.now(), toJson(Map.of("id", rideId))));
+    }
+
+    private void enqueue(Pending event) {
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a ride event");
+        }
+    }
+
+    // =========================
+    // READS
+    // =========================
+
+    // Events with seq > afterSeq, oldest first, up to the first gap that may still fill
+    public List<RideEvent> tail(long afterSeq, int limit) {
+        return contiguous(afterSeq,
+                rideEventRepository.findBySeqGreaterThanOrderBySeqAsc(afterSeq, PageRequest.of(0, limit)));
+    }
+
+    /**
+     * The leading events of page (ordered by seq, all after afterSeq) that
+     * follow afterSeq without an open gap. A gap is open from the first time
+     * a reader sees it until gap-timeout-ms later; events committed past it
+     * are returned once it fills or times out.
+     */
+    public List<RideEvent> contiguous(long afterSeq, List<RideEvent> page) {
+        long expected = afterSeq + 1;
+        long now = System.nanoTime();
+        for (int i = 0; i < page.size(); i++) {
+            long seq = page.get(i).getSeq();
+            if (seq > expected && !settled(expected, now))
+                return page.subList(0, i);
+            expected = seq + 1;
+        }
+        return page;
+    }
+
+    private boolean settled(long missingSeq, long now) {
+        if (openGaps.size() >= MAX_TRACKED_GAPS && !openGaps.containsKey(missingSeq))
+            openGaps.clear();
+        long firstSeen = openGaps.computeIfAbsent(missingSeq, seq -> now);
+        return now - firstSeen >= TimeUnit.MILLISECONDS.toNanos(gapTimeoutMs);
+    }
+
+    // =========================
+    // WRITER
+    // =========================
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Retries the batch until it is written; nothing behind it goes first
+    private void write(List<Pending> batch) throws InterruptedException {
+        long backoffMs = 100;
+        while (true) {
+            try {
+                insert(batch);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // The database rejected the contents: find the bad event, the rest still go in order
+                if (batch.size() == 1) {
+                    log.error("Dropping ride event {} for ride {}: rejected by the database",
+                            batch.get(0).type(), batch.get(0).rideId(), e);
+                    return;
+                }
+                for (Pending event : batch)
+                    write(List.of(event));
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("Gave up on {} ride events at shutdown", batch.size(), e);
+                    return;
+                }
+                log.warn("Could not append {} ride events, retrying in {} ms: {}", batch.size(), backoffMs,
+                        e.getMessage());
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void insert(List<Pending> events) {
+        jdbcTemplate.batchUpdate(INSERT, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.rideId());
+            ps.setString(2, event.type().name());
+            ps.setTimestamp(3, Timestamp.valueOf(event.occurredAt()));
+            ps.setString(4, event.payload());
+        });
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialise ride event", e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.RideState;
+import com.example.backend.model.RideEvent;
+import com.example.backend.model.RideEventSnapshot;
+import com.example.backend.repository.RideEventRepository;
+import com.example.backend.repository.RideEventSnapshotRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rebuilds ride state from the event log alone: start from the newest
+ * snapshot at or before the requested position, then apply the events after
+ * it. A scheduled job writes a new snapshot when enough events have piled up,
+ * which keeps replay cost bounded by the tail rather than the whole history.
+ * Replay stops at a gap in seq that may still fill (see RideEventLog), so a
+ * snapshot never skips an event that commits after it was taken.
+ *
+ * seq order is only append order per node: with several nodes, the event for
+ * a ride's version 4 can land before the one for version 3. Each payload
+ * carries the ride version, and replay skips an event older than the state it
+ * already holds. A deletion is final, since ride ids are never reused.
+ */
+@Service
+public class RideEventReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(RideEventReplayer.class);
+
+    private static final int PAGE_SIZE = 5_000;
+
+    @Autowired
+    private RideEventRepository rideEventRepository;
+
+    @Autowired
+    private RideEventSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private RideEventLog rideEventLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.ride-events.snapshot-min-events:1000}")
+    private long snapshotMinEvents;
+
+    public record Replay(long snapshotSeq, long upToSeq, int eventsApplied, Map<Long, RideState> rides) {
+    }
+
+    // State of every ride as of event upToSeq (inclusive)
+    public Replay rebuild(long upToSeq) {
+        Map<Long, RideState> rides = new LinkedHashMap<>();
+        // Rides deleted since the snapshot, so an older event arriving later cannot bring one back
+        Set<Long> deleted = new HashSet<>();
+        long position = 0;
+        RideEventSnapshot snapshot = snapshotRepository.findFirstByLastSeqLessThanEqualOrderByLastSeqDesc(upToSeq)
+                .orElse(null);
+        if (snapshot != null) {
+            for (RideState state : readSnapshot(snapshot))
+                rides.put(state.id(), state);
+            position = snapshot.getLastSeq();
+        }
+        long snapshotSeq = position;
+
+        int applied = 0;
+        while (true) {
+            List<RideEvent> read = rideEventRepository.findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(
+                    position, upToSeq, PageRequest.of(0, PAGE_SIZE));
+            List<RideEvent> page = rideEventLog.contiguous(position, read);
+            for (RideEvent event : page) {
+                // Each payload is the full state after the transition, so applying is a put
+                if (event.getType() == RideEvent.Type.DELETED) {
+                    rides.remove(event.getRideId());
+                    deleted.add(event.getRideId());
+                } else if (!deleted.contains(event.getRideId())) {
+                    RideState state = readState(event.getPayload());
+                    if (!isOlder(state, rides.get(event.getRideId())))
+                        rides.put(event.getRideId(), state);
+                }
+                position = event.getSeq();
+            }
+            applied += page.size();
+            if (read.size() < PAGE_SIZE || page.size() < read.size())
+                break;
+        }
+        return new Replay(snapshotSeq, position, applied, rides);
+    }
+
+    // Without a version on either side (payloads from before it was recorded) seq order decides
+    private static boolean isOlder(RideState state, RideState current) {
+        return current != null && state.version() != null && current.version() != null
+                && state.version() < current.version();
+    }
+
+    public Replay rebuildLatest() {
+        return rebuild(rideEventRepository.findMaxSeq());
+    }
+
+    // Snapshot once enough events have arrived since the last one
+    @Scheduled(fixedDelayString = "${app.ride-events.snapshot-interval-ms:600000}")
+    public void snapshotIfDue() {
+        long last = snapshotRepository.findFirstByOrderByLastSeqDesc().map(RideEventSnapshot::getLastSeq).orElse(0L);
+        if (rideEventRepository.findMaxSeq() - last >= snapshotMinEvents)
+            takeSnapshot();
+    }
+
+    public RideEventSnapshot takeSnapshot() {
+        Replay replay = rebuildLatest();
+        RideEventSnapshot snapshot = new RideEventSnapshot(replay.upToSeq(), LocalDateTime.now(),
+                replay.rides().size(), toJson(new ArrayList<>(replay.rides().values())));
+        snapshot = snapshotRepository.save(snapshot);
+        log.info("Ride event snapshot at seq {} ({} rides, {} events since previous)",
+                replay.upToSeq(), replay.rides().size(), replay.eventsApplied());
+        return snapshot;
+    }
+
+    private List<RideState> readSnapshot(RideEventSnapshot snapshot) {
+        try {
+            return objectMapper.readValue(snapshot.getPayload(), new TypeReference<List<RideState>>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Corrupt ride event snapshot " + snapshot.getId(), e);
+        }
+    }
+
+    private RideState readState(String payload) {
+        try {
+            return objectMapper.readValue(payload, RideState.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Corrupt ride event payload", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not write ride event snapshot", e);
+        }
+    }
+}
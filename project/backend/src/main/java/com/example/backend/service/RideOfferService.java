@@ -0,0 +1,411 @@
+package com.example.backend.service;
+
+import com.example.backend.cluster.ClusterBus;
+import com.example.backend.cluster.ClusterEvent;
+import com.example.backend.cluster.ClusterEventListener;
+import com.example.backend.dto.RideListItem;
+import com.example.backend.dto.RideOffer;
+import com.example.backend.model.Ride;
+import com.example.backend.repository.DriverRepository;
+import com.example.backend.repository.RideRepository;
+import com.example.backend.util.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Offers each new PENDING ride to a few ranked drivers at a time instead of
+ * broadcasting it. An offer round expires after timeout-seconds; on expiry,
+ * or once every driver in the round has declined, the ride cascades to the
+ * next candidates. When nobody is left the ride is released to the shared
+ * /available list, which also serves as the fallback after a restart.
+ *
+ * State is in memory and guarded by this object; expiry is one timing wheel
+ * advanced by a thread of its own every 500 ms, so outstanding offers cost no
+ * threads and long scheduled jobs cannot hold expiry back. A round is run by
+ * the node whose write opened the ride. With app.cluster.enabled it announces
+ * every round over the cluster bus, and the other nodes keep a copy: they
+ * list the offers, hide the ride from /available and take accepts and
+ * declines for it (declines are passed on to the running node). A copy is
+ * dropped a round's length after it was due to end, so rides offered by a
+ * node that went away come back to /available. Whichever node takes an
+ * accept, the ride is only accepted while it is still open.
+ */
+@Service
+public class RideOfferService implements ClusterEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RideOfferService.class);
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    // RideService also calls us from every ride write
+    @Autowired
+    @Lazy
+    private RideService rideService;
+
+    @Autowired
+    private ClusterBus clusterBus;
+
+    @Value("${app.offers.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.offers.batch-size:3}")
+    private int batchSize;
+
+    @Value("${app.offers.timeout-seconds:15}")
+    private long timeoutSeconds;
+
+    @Value("${app.offers.max-rounds:5}")
+    private int maxRounds;
+
+    @Value("${app.offers.max-per-driver:2}")
+    private int maxPerDriver;
+
+    private static final class Round {
+        final Set<Long> offeredTo = new HashSet<>();   // every driver asked so far
+        final Set<Long> outstanding = new HashSet<>(); // this round, not yet declined
+        long expiresAtMillis;
+        int number;
+        HashedTimingWheel.Timeout<Long> timeout;
+    }
+
+    // A round another node runs, as it last announced it
+    private record Mirror(Set<Long> outstanding, long expiresAtMillis) {
+    }
+
+    private final Map<Long, Round> rounds = new HashMap<>();
+    private final Map<Long, Set<Long>> offersByDriver = new HashMap<>();
+    private final Map<Long, Mirror> mirrors = new HashMap<>();
+
+    private final HashedTimingWheel<Long> wheel = new HashedTimingWheel<>(500, 1024, System.currentTimeMillis());
+
+    private ScheduledExecutorService expiry;
+
+    @PostConstruct
+    void start() {
+        if (!enabled)
+            return;
+        expiry = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ride-offer-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiry.scheduleAtFixedRate(this::expire, 500, 500, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (expiry != null)
+            expiry.shutdownNow();
+    }
+
+    // =========================
+    // RIDE WRITES
+    // =========================
+
+    // Called after every ride write: new open rides start offering, anything else stops it
+    public void rideChanged(Ride ride) {
+        if (!enabled)
+            return;
+        boolean open = "PENDING".equals(ride.getStatus()) && ride.getDriverId() == null;
+        synchronized (this) {
+            if (!open) {
+                withdraw(ride.getId());
+                return;
+            }
+            if (rounds.containsKey(ride.getId()) || mirrored(ride.getId(), System.currentTimeMillis()))
+                return;
+            rounds.put(ride.getId(), new Round());
+        }
+        nextRound(ride.getId());
+    }
+
+    public synchronized void rideDeleted(Long rideId) {
+        withdraw(rideId);
+    }
+
+    // Rides currently held back from /available because they are being offered, here or on another node
+    public synchronized boolean isUnderOffer(Long rideId) {
+        return rounds.containsKey(rideId) || mirrored(rideId, System.currentTimeMillis());
+    }
+
+    // =========================
+    // DRIVER SIDE
+    // =========================
+
+    public List<RideOffer> getOffers(Long driverId) {
+        Map<Long, Long> expiries = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (Long rideId : offersByDriver.getOrDefault(driverId, Set.of()))
+                expiries.put(rideId, rounds.get(rideId).expiresAtMillis);
+            mirrors.forEach((rideId, mirror) -> {
+                if (mirror.outstanding().contains(driverId) && now < mirror.expiresAtMillis())
+                    expiries.put(rideId, mirror.expiresAtMillis());
+            });
+        }
+        if (expiries.isEmpty())
+            return List.of();
+        Map<Long, RideListItem> rides = rideRepository.findListItemsByIds(expiries.keySet()).stream()
+                .collect(Collectors.toMap(RideListItem::id, Function.identity()));
+        List<RideOffer> offers = new ArrayList<>();
+        expiries.forEach((rideId, expiresAt) -> {
+            RideListItem ride = rides.get(rideId);
+            if (ride != null)
+                offers.add(new RideOffer(rideId, driverId, toLocal(expiresAt), ride));
+        });
+        return offers;
+    }
+
+    // Empty when the offer is gone (expired, declined, taken); the ride otherwise
+    public Optional<Ride> accept(Long rideId, Long driverId) {
+        synchronized (this) {
+            Round round = rounds.get(rideId);
+            Mirror mirror = mirrors.get(rideId);
+            boolean offered = round != null ? round.outstanding.contains(driverId)
+                    : mirror != null && mirror.outstanding().contains(driverId)
+                    && System.currentTimeMillis() < mirror.expiresAtMillis();
+            if (!offered)
+                return Optional.empty();
+            // Claim it here so a second accept on this node cannot get through; the
+            // withdrawal also ends the round where it runs
+            withdraw(rideId);
+        }
+        try {
+            return Optional.of(rideService.acceptRide(rideId, driverId));
+        } catch (RideStateException e) {
+            // Accepted on another node in the meantime
+            return Optional.empty();
+        }
+    }
+
+    public boolean decline(Long rideId, Long driverId) {
+        boolean roundOver;
+        synchronized (this) {
+            Round round = rounds.get(rideId);
+            if (round == null)
+                return declineMirrored(rideId, driverId);
+            if (!round.outstanding.remove(driverId))
+                return false;
+            removeDriverOffer(driverId, rideId);
+            roundOver = round.outstanding.isEmpty();
+            if (!roundOver)
+                announce(rideId, round);
+        }
+        if (roundOver)
+            nextRound(rideId);
+        return true;
+    }
+
+    // The node running the round moves it on; the copy here forgets the driver at once
+    private boolean declineMirrored(Long rideId, Long driverId) {
+        Mirror mirror = mirrors.get(rideId);
+        if (mirror == null || !mirror.outstanding().contains(driverId))
+            return false;
+        Set<Long> outstanding = new HashSet<>(mirror.outstanding());
+        outstanding.remove(driverId);
+        mirrors.put(rideId, new Mirror(outstanding, mirror.expiresAtMillis()));
+        clusterBus.publish(ClusterEvent.offerDeclined(rideId, driverId));
+        return true;
+    }
+
+    // =========================
+    // OTHER NODES
+    // =========================
+
+    @Override
+    public void onClusterEvent(ClusterEvent event) {
+        if (!enabled)
+            return;
+        String[] parts = event.key().split(":", -1);
+        switch (event.type()) {
+            case OFFER -> {
+                Long rideId = Long.valueOf(parts[0]);
+                Set<Long> drivers = parts[2].isEmpty() ? Set.of()
+                        : Arrays.stream(parts[2].split(",")).map(Long::valueOf).collect(Collectors.toSet());
+                synchronized (this) {
+                    if (drivers.isEmpty())
+                        drop(rideId);
+                    else if (!rounds.containsKey(rideId))
+                        mirrors.put(rideId, new Mirror(drivers, Long.parseLong(parts[1])));
+                }
+            }
+            case OFFER_DECLINED -> {
+                Long rideId = Long.valueOf(parts[0]);
+                synchronized (this) {
+                    if (!rounds.containsKey(rideId))
+                        return;
+                }
+                decline(rideId, Long.valueOf(parts[1]));
+            }
+            // Taken by a driver on another node
+            case RIDE -> {
+                if ("null".equals(parts[2]))
+                    return;
+                synchronized (this) {
+                    drop(Long.valueOf(parts[0]));
+                }
+            }
+            case RIDE_DELETED -> {
+                synchronized (this) {
+                    drop(Long.valueOf(parts[0]));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // Announcements may have been missed both ways: forget the copies, announce our own rounds again
+    @Override
+    public synchronized void onClusterReset() {
+        mirrors.clear();
+        rounds.forEach(this::announce);
+    }
+
+    // =========================
+    // ROUNDS
+    // =========================
+
+    // Runs on the expiry thread; a failure must not end it
+    void expire() {
+        try {
+            long now = System.currentTimeMillis();
+            List<Long> expired = new ArrayList<>();
+            wheel.advance(now, expired::add);
+            for (Long rideId : expired)
+                nextRound(rideId);
+            synchronized (this) {
+                mirrors.values().removeIf(mirror -> !live(mirror, now));
+            }
+        } catch (RuntimeException e) {
+            log.error("Ride offer expiry failed", e);
+        }
+    }
+
+    // Ends the current round (if any) and offers the ride to the next candidates
+    private void nextRound(Long rideId) {
+        Set<Long> excluded;
+        synchronized (this) {
+            Round round = rounds.get(rideId);
+            if (round == null)
+                return;
+            endRound(rideId, round);
+            if (round.number >= maxRounds) {
+                release(rideId);
+                return;
+            }
+            excluded = new HashSet<>(round.offeredTo);
+            Map<Long, Integer> offers = new HashMap<>();
+            offersByDriver.forEach((driverId, rides) -> offers.merge(driverId, rides.size(), Integer::sum));
+            for (Mirror mirror : mirrors.values())
+                mirror.outstanding().forEach(driverId -> offers.merge(driverId, 1, Integer::sum));
+            offers.forEach((driverId, count) -> {
+                if (count >= maxPerDriver)
+                    excluded.add(driverId);
+            });
+            excluded.add(-1L); // "not in ()" is not valid SQL
+        }
+
+        List<Long> candidates = driverRepository.findOfferCandidates(excluded, batchSize);
+
+        synchronized (this) {
+            Round round = rounds.get(rideId);
+            if (round == null || !round.outstanding.isEmpty())
+                return; // withdrawn or another round started meanwhile
+            if (candidates.isEmpty()) {
+                release(rideId);
+                return;
+            }
+            round.number++;
+            round.expiresAtMillis = System.currentTimeMillis() + timeoutSeconds * 1000;
+            for (Long driverId : candidates) {
+                round.offeredTo.add(driverId);
+                round.outstanding.add(driverId);
+                offersByDriver.computeIfAbsent(driverId, id -> new HashSet<>()).add(rideId);
+            }
+            round.timeout = wheel.schedule(rideId, round.expiresAtMillis);
+            announce(rideId, round);
+        }
+    }
+
+    private void endRound(Long rideId, Round round) {
+        if (round.timeout != null)
+            round.timeout.cancel();
+        for (Long driverId : round.outstanding)
+            removeDriverOffer(driverId, rideId);
+        round.outstanding.clear();
+    }
+
+    // Nobody (else) to ask: the ride goes back to the shared list
+    private void release(Long rideId) {
+        withdraw(rideId);
+        log.debug("Ride {} released to the available list", rideId);
+    }
+
+    // Ends the ride's offers here and on every other node
+    private void withdraw(Long rideId) {
+        if (drop(rideId))
+            clusterBus.publish(ClusterEvent.offer(rideId, 0, Set.of()));
+    }
+
+    // Forgets the ride's round or copy here; true when there was one
+    private boolean drop(Long rideId) {
+        boolean mirrored = mirrors.remove(rideId) != null;
+        Round round = rounds.remove(rideId);
+        if (round != null)
+            endRound(rideId, round);
+        return round != null || mirrored;
+    }
+
+    private void announce(Long rideId, Round round) {
+        clusterBus.publish(ClusterEvent.offer(rideId, round.expiresAtMillis, round.outstanding));
+    }
+
+    private boolean mirrored(Long rideId, long now) {
+        Mirror mirror = mirrors.get(rideId);
+        return mirror != null && live(mirror, now);
+    }
+
+    // The running node announces the next round before this; past it, that node is gone
+    private boolean live(Mirror mirror, long now) {
+        return now < mirror.expiresAtMillis() + timeoutSeconds * 1000;
+    }
+
+    private void removeDriverOffer(Long driverId, Long rideId) {
+        Set<Long> rides = offersByDriver.get(driverId);
+        if (rides != null && rides.remove(rideId) && rides.isEmpty())
+            offersByDriver.remove(driverId);
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
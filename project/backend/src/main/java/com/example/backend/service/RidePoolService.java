@@ -0,0 +1,459 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.PoolingStats;
+import com.example.backend.model.Ride;
+import com.example.backend.util.GeoGrid;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Shared trips for rides booked with pooled=true. A trip is an ordered list of
+ * pickup and dropoff stops; a new request joins the open trip where inserting
+ * its two stops adds the least distance without taking any rider more than
+ * max-detour over their direct distance, or opens a trip of its own.
+ *
+ * Open trips are indexed by the grid cell of their first pickup and a time
+ * bucket of window-minutes, so a lookup reads the cells within
+ * pickup-radius-km and the neighbouring buckets, not every open trip. A trip
+ * stops taking riders when a driver accepts it, when it is full, or once its
+ * pickup time is more than window-minutes past.
+ *
+ * Fares are split by segment: on each leg of the route the riders aboard share
+ * its length equally, and a rider pays their solo fare scaled by their shared
+ * distance over their direct distance, never more than the solo fare.
+ * Distances are straight lines between the points the {@link Gazetteer}
+ * gives for the locations.
+ *
+ * State is in memory and guarded by this object, like ride offers; a trip
+ * lives on the node that opened it, and after a restart the rides already
+ * pooled keep their fares but take no new riders.
+ */
+@Service
+public class RidePoolService {
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    @Value("${app.pool.max-riders:3}")
+    private int maxRiders;
+
+    @Value("${app.pool.window-minutes:10}")
+    private long windowMinutes;
+
+    // Longest a rider's distance aboard may be, as a fraction over their direct distance
+    @Value("${app.pool.max-detour:0.5}")
+    private double maxDetour;
+
+    @Value("${app.pool.pickup-radius-km:1.5}")
+    private double pickupRadiusKm;
+
+    @Value("${app.pool.dropoff-radius-km:3.0}")
+    private double dropoffRadiusKm;
+
+    // Closed trips are kept this long after pickup so a cancellation can still re-split fares
+    @Value("${app.pool.retain-minutes:180}")
+    private long retainMinutes;
+
+    @Value("${app.heatmap.min-lat:-2.05}")
+    private double minLat;
+
+    @Value("${app.heatmap.min-lng:29.95}")
+    private double minLng;
+
+    @Value("${app.heatmap.max-lat:-1.85}")
+    private double maxLat;
+
+    @Value("${app.heatmap.max-lng:30.25}")
+    private double maxLng;
+
+    @Value("${app.pool.cell-degrees:0.01}")
+    private double cellDegrees;
+
+    private GeoGrid grid;
+    private int ring;
+
+    private final Map<Long, Trip> trips = new HashMap<>();
+    private final Map<Long, Trip> tripByRide = new HashMap<>();
+    // (time bucket, cell) -> open trips whose first pickup is there
+    private final Map<Long, List<Trip>> index = new HashMap<>();
+
+    private long requests;
+    private long joined;
+    private long unplaced;
+    private long candidatesChecked;
+    private long matchNanos;
+    private double addedKm;
+
+    @PostConstruct
+    void init() {
+        grid = new GeoGrid(minLat, minLng, maxLat, maxLng, cellDegrees);
+        // Cells are narrowest east-west, at the latitude furthest from the equator
+        double lat = Math.abs(minLat) > Math.abs(maxLat) ? minLat : maxLat;
+        double cellKm = new Gazetteer.Point(lat, 0).kmTo(new Gazetteer.Point(lat, cellDegrees));
+        ring = (int) Math.ceil(pickupRadiusKm / cellKm);
+    }
+
+    // =========================
+    // MATCHING
+    // =========================
+
+    // Puts a saved pooled ride on a trip and returns the trip's id; empty when
+    // its locations are not on the map, in which case it travels alone
+    public synchronized Optional<Long> place(Ride ride) {
+        long start = System.nanoTime();
+        requests++;
+        Optional<Gazetteer.Point> pickup = gazetteer.locate(ride.getPickupLocation());
+        Optional<Gazetteer.Point> dropoff = gazetteer.locate(ride.getDropoffLocation());
+        int cell = pickup.map(p -> grid.cellOf(p.lat(), p.lng())).orElse(-1);
+        if (dropoff.isEmpty() || cell < 0) {
+            unplaced++;
+            return Optional.empty();
+        }
+        Member member = new Member(ride.getId(), pickup.get(), dropoff.get(),
+                ride.getSoloFare() == null ? 0 : ride.getSoloFare());
+        long pickupAt = seconds(ride.getScheduledPickupAt() != null ? ride.getScheduledPickupAt() : ride.getBookedAt());
+
+        Insertion best = null;
+        long bucket = pickupAt / windowSeconds();
+        for (long b = bucket - 1; b <= bucket + 1; b++) {
+            for (int dr = -ring; dr <= ring; dr++) {
+                for (int dc = -ring; dc <= ring; dc++) {
+                    int row = grid.rowOf(cell) + dr;
+                    int col = grid.colOf(cell) + dc;
+                    if (row < 0 || row >= grid.getRows() || col < 0 || col >= grid.getCols())
+                        continue;
+                    for (Trip trip : index.getOrDefault(key(b, row * grid.getCols() + col), List.of())) {
+                        if (!compatible(trip, member, pickupAt))
+                            continue;
+                        Insertion insertion = bestInsertion(trip, member);
+                        if (insertion != null && (best == null || insertion.addedKm < best.addedKm))
+                            best = insertion;
+                    }
+                }
+            }
+        }
+
+        Trip trip;
+        if (best != null) {
+            trip = best.trip;
+            trip.route = best.route;
+            trip.members.put(member.rideId, member);
+            if (trip.members.size() >= maxRiders)
+                close(trip);
+            joined++;
+            addedKm += best.addedKm;
+        } else {
+            trip = new Trip(ride.getId(), pickupAt, key(bucket, cell));
+            trip.route.add(new Stop(member, true));
+            trip.route.add(new Stop(member, false));
+            trip.members.put(member.rideId, member);
+            trips.put(trip.id, trip);
+            index.computeIfAbsent(trip.indexKey, k -> new ArrayList<>()).add(trip);
+        }
+        tripByRide.put(member.rideId, trip);
+        matchNanos += System.nanoTime() - start;
+        return Optional.of(trip.id);
+    }
+
+    // Takes a rider off their trip (cancelled or deleted); returns the trip
+    // when others are still on it and their fares need writing again
+    public synchronized Optional<Long> leave(Long rideId) {
+        Trip trip = tripByRide.remove(rideId);
+        if (trip == null)
+            return Optional.empty();
+        trip.members.remove(rideId);
+        trip.route.removeIf(stop -> stop.member.rideId == rideId);
+        if (trip.members.isEmpty()) {
+            forget(trip);
+            return Optional.empty();
+        }
+        return Optional.of(trip.id);
+    }
+
+    // Called from every ride write: a driver on the trip closes it to new riders
+    public synchronized void rideChanged(Ride ride) {
+        Trip trip = ride.getPoolId() == null ? null : trips.get(ride.getPoolId());
+        if (trip == null)
+            return;
+        switch (ride.getStatus()) {
+            case "ACCEPTED", "STARTED" -> close(trip);
+            case "COMPLETED" -> {
+                Member member = trip.members.get(ride.getId());
+                if (member != null)
+                    member.done = true;
+                if (trip.members.values().stream().allMatch(m -> m.done))
+                    forget(trip);
+            }
+            default -> {
+            }
+        }
+    }
+
+    // Hands the trip's current fares (ride id -> fare) to write, one writer per
+    // trip at a time, so concurrent joins cannot leave an older split behind
+    public void writeFares(Long poolId, Consumer<Map<Long, Double>> write) {
+        Trip trip;
+        synchronized (this) {
+            trip = trips.get(poolId);
+        }
+        if (trip == null)
+            return;
+        synchronized (trip.writeLock) {
+            Map<Long, Double> fares;
+            synchronized (this) {
+                fares = fares(trip);
+            }
+            write.accept(fares);
+        }
+    }
+
+    @Scheduled(fixedRate = 30_000)
+    public synchronized void expire() {
+        long now = seconds(LocalDateTime.now());
+        Iterator<Trip> it = trips.values().iterator();
+        while (it.hasNext()) {
+            Trip trip = it.next();
+            if (trip.open && now > trip.pickupAt + windowSeconds())
+                close(trip);
+            if (now > trip.pickupAt + retainMinutes * 60) {
+                unindex(trip);
+                trip.members.keySet().forEach(tripByRide::remove);
+                it.remove();
+            }
+        }
+    }
+
+    // =========================
+    // STATS
+    // =========================
+
+    // Counters since startup; rates and detours over the trips still held
+    public synchronized PoolingStats stats() {
+        long open = trips.values().stream().filter(t -> t.open).count();
+        long riders = 0;
+        long shared = 0;
+        double detour = 0;
+        double maxDetourSeen = 0;
+        double solo = 0;
+        double paid = 0;
+        for (Trip trip : trips.values()) {
+            riders += trip.members.size();
+            if (trip.members.size() < 2)
+                continue;
+            Map<Long, Double> aboard = aboardKm(trip.route);
+            Map<Long, Double> fares = fares(trip);
+            for (Member member : trip.members.values()) {
+                double d = member.directKm == 0 ? 0 : aboard.get(member.rideId) / member.directKm - 1;
+                detour += d;
+                maxDetourSeen = Math.max(maxDetourSeen, d);
+                solo += member.soloFare;
+                paid += fares.get(member.rideId);
+                shared++;
+            }
+        }
+        return new PoolingStats(open, trips.size(), requests, joined, unplaced,
+                riders == 0 ? 0 : (double) shared / riders,
+                shared == 0 ? 0 : 100 * detour / shared,
+                100 * maxDetourSeen,
+                joined == 0 ? 0 : addedKm / joined,
+                solo == 0 ? 0 : 100 * (1 - paid / solo),
+                requests == 0 ? 0 : (double) candidatesChecked / requests,
+                requests == 0 ? 0 : matchNanos / 1000.0 / requests);
+    }
+
+    // =========================
+    // ROUTES AND FARES
+    // =========================
+
+    private boolean compatible(Trip trip, Member member, long pickupAt) {
+        if (!trip.open || trip.members.size() >= maxRiders || Math.abs(trip.pickupAt - pickupAt) > windowSeconds())
+            return false;
+        candidatesChecked++;
+        if (trip.route.get(0).point().kmTo(member.pickup) > pickupRadiusKm)
+            return false;
+        for (Stop stop : trip.route) {
+            if (!stop.pickup && stop.point().kmTo(member.dropoff) <= dropoffRadiusKm)
+                return true;
+        }
+        return false;
+    }
+
+    // Cheapest place for the member's pickup and dropoff that keeps everyone within the detour limit
+    private Insertion bestInsertion(Trip trip, Member member) {
+        double base = length(trip.route);
+        Insertion best = null;
+        int n = trip.route.size();
+        for (int i = 0; i <= n; i++) {
+            for (int j = i; j <= n; j++) {
+                List<Stop> route = new ArrayList<>(n + 2);
+                route.addAll(trip.route);
+                route.add(i, new Stop(member, true));
+                route.add(j + 1, new Stop(member, false));
+                double added = length(route) - base;
+                if (best != null && added >= best.addedKm)
+                    continue;
+                if (withinDetour(route))
+                    best = new Insertion(trip, route, added);
+            }
+        }
+        return best;
+    }
+
+    private boolean withinDetour(List<Stop> route) {
+        for (Map.Entry<Long, Double> aboard : aboardKm(route).entrySet()) {
+            Member member = memberOf(route, aboard.getKey());
+            if (aboard.getValue() > member.directKm * (1 + maxDetour) + 1e-9)
+                return false;
+        }
+        return true;
+    }
+
+    // Distance each rider spends aboard along the route
+    private static Map<Long, Double> aboardKm(List<Stop> route) {
+        Map<Long, Double> boardedAt = new HashMap<>();
+        Map<Long, Double> aboard = new HashMap<>();
+        double odometer = 0;
+        for (int i = 0; i < route.size(); i++) {
+            if (i > 0)
+                odometer += route.get(i - 1).point().kmTo(route.get(i).point());
+            Stop stop = route.get(i);
+            if (stop.pickup)
+                boardedAt.put(stop.member.rideId, odometer);
+            else
+                aboard.put(stop.member.rideId, odometer - boardedAt.get(stop.member.rideId));
+        }
+        return aboard;
+    }
+
+    // Each leg's length split among the riders aboard it
+    private static Map<Long, Double> fares(Trip trip) {
+        Map<Long, Double> sharedKm = new HashMap<>();
+        List<Long> aboard = new ArrayList<>();
+        List<Stop> route = trip.route;
+        for (int i = 0; i < route.size(); i++) {
+            if (i > 0 && !aboard.isEmpty()) {
+                double share = route.get(i - 1).point().kmTo(route.get(i).point()) / aboard.size();
+                for (Long rideId : aboard)
+                    sharedKm.merge(rideId, share, Double::sum);
+            }
+            Stop stop = route.get(i);
+            if (stop.pickup)
+                aboard.add(stop.member.rideId);
+            else
+                aboard.remove(Long.valueOf(stop.member.rideId));
+        }
+        Map<Long, Double> fares = new LinkedHashMap<>();
+        for (Member member : trip.members.values()) {
+            double ratio = member.directKm == 0 ? 1
+                    : Math.min(1, sharedKm.getOrDefault(member.rideId, 0.0) / member.directKm);
+            fares.put(member.rideId, Math.round(member.soloFare * ratio * 100) / 100.0);
+        }
+        return fares;
+    }
+
+    private static Member memberOf(List<Stop> route, long rideId) {
+        for (Stop stop : route) {
+            if (stop.member.rideId == rideId)
+                return stop.member;
+        }
+        throw new IllegalStateException("Ride " + rideId + " is not on the route");
+    }
+
+    private static double length(List<Stop> route) {
+        double total = 0;
+        for (int i = 1; i < route.size(); i++)
+            total += route.get(i - 1).point().kmTo(route.get(i).point());
+        return total;
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+
+    private void close(Trip trip) {
+        if (trip.open) {
+            trip.open = false;
+            unindex(trip);
+        }
+    }
+
+    private void forget(Trip trip) {
+        unindex(trip);
+        trips.remove(trip.id);
+        trip.members.keySet().forEach(tripByRide::remove);
+    }
+
+    private void unindex(Trip trip) {
+        List<Trip> bucket = index.get(trip.indexKey);
+        if (bucket != null && bucket.remove(trip) && bucket.isEmpty())
+            index.remove(trip.indexKey);
+    }
+
+    private long key(long bucket, int cell) {
+        return bucket * grid.cellCount() + cell;
+    }
+
+    private long windowSeconds() {
+        return windowMinutes * 60;
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Member {
+        final long rideId;
+        final Gazetteer.Point pickup;
+        final Gazetteer.Point dropoff;
+        final double directKm;
+        final double soloFare;
+        boolean done;
+
+        Member(long rideId, Gazetteer.Point pickup, Gazetteer.Point dropoff, double soloFare) {
+            this.rideId = rideId;
+            this.pickup = pickup;
+            this.dropoff = dropoff;
+            this.directKm = pickup.kmTo(dropoff);
+            this.soloFare = soloFare;
+        }
+    }
+
+    private record Stop(Member member, boolean pickup) {
+        Gazetteer.Point point() {
+            return pickup ? member.pickup : member.dropoff;
+        }
+    }
+
+    private record Insertion(Trip trip, List<Stop> route, double addedKm) {
+    }
+
+    private static final class Trip {
+        final long id;
+        final long pickupAt;
+        final long indexKey;
+        final Map<Long, Member> members = new LinkedHashMap<>();
+        final Object writeLock = new Object();
+        List<Stop> route = new ArrayList<>();
+        boolean open = true;
+
+        Trip(long id, long pickupAt, long indexKey) {
+            this.id = id;
+            this.pickupAt = pickupAt;
+            this.indexKey = indexKey;
+        }
+    }
+}
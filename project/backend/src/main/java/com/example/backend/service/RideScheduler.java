@@ -0,0 +1,120 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ScheduledRideRef;
+import com.example.backend.repository.RideRepository;
+import com.example.backend.util.HierarchicalTimingWheel;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds every SCHEDULED ride on a hierarchical timing wheel keyed by its
+ * release time (pickup minus the lead time) and hands it to RideService when
+ * that time comes, which moves it into the pending pool. Scheduling and
+ * cancelling are O(1); nothing polls the table per ride. The wheel is
+ * rebuilt from the table at startup. A release that fails (database down)
+ * goes back on the wheel with a backoff instead of being dropped.
+ */
+@Service
+public class RideScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(RideScheduler.class);
+
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    // RideService also calls us on book/cancel
+    @Autowired
+    @Lazy
+    private RideService rideService;
+
+    @Value("${app.scheduled-rides.lead-minutes:15}")
+    private long leadMinutes;
+
+    // 1 s ticks, 64 buckets, 4 levels: ~194 days before entries start recirculating
+    private final HierarchicalTimingWheel<Long> wheel =
+            new HierarchicalTimingWheel<>(1000, 64, 4, System.currentTimeMillis());
+
+    private final Map<Long, HierarchicalTimingWheel<Long>.Timeout> timeouts = new HashMap<>();
+
+    // Ride id -> releases that failed in a row
+    private final Map<Long, Integer> failures = new HashMap<>();
+
+    @PostConstruct
+    void load() {
+        List<ScheduledRideRef> rides = rideRepository.findScheduledRefs();
+        for (ScheduledRideRef ride : rides)
+            schedule(ride.id(), ride.scheduledPickupAt());
+        log.info("Loaded {} scheduled rides", rides.size());
+    }
+
+    public Duration getLeadTime() {
+        return Duration.ofMinutes(leadMinutes);
+    }
+
+    // Replaces any earlier schedule for the ride
+    public synchronized void schedule(Long rideId, LocalDateTime pickupAt) {
+        cancel(rideId);
+        long releaseAt = pickupAt.minus(getLeadTime()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        timeouts.put(rideId, wheel.schedule(rideId, releaseAt));
+    }
+
+    public synchronized void cancel(Long rideId) {
+        failures.remove(rideId);
+        HierarchicalTimingWheel<Long>.Timeout timeout = timeouts.remove(rideId);
+        if (timeout != null)
+            timeout.cancel();
+    }
+
+    public int size() {
+        return wheel.size();
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void tick() {
+        wheel.advance(System.currentTimeMillis(), this::release);
+    }
+
+    private void release(Long rideId) {
+        synchronized (this) {
+            timeouts.remove(rideId);
+        }
+        try {
+            rideService.releaseScheduledRide(rideId);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Another node released (or someone changed) it first
+        } catch (RuntimeException e) {
+            retry(rideId, e);
+            return;
+        }
+        synchronized (this) {
+            failures.remove(rideId);
+        }
+    }
+
+    // 1 s after the first failure, doubling up to a minute
+    private synchronized void retry(Long rideId, RuntimeException e) {
+        // Rescheduled while the release ran; a retry of a cancelled ride finds it no longer SCHEDULED
+        if (timeouts.containsKey(rideId))
+            return;
+        int failed = failures.merge(rideId, 1, Integer::sum);
+        long delayMs = Math.min(1000L << Math.min(failed - 1, 6), MAX_RETRY_DELAY_MS);
+        log.error("Could not release scheduled ride {} (attempt {}), retrying in {} ms", rideId, failed, delayMs, e);
+        timeouts.put(rideId, wheel.schedule(rideId, System.currentTimeMillis() + delayMs));
+    }
+}
@@ -1,33 +1,152 @@
 package com.example.backend.service;
 
+import com.example.backend.cluster.ClusterBus;
+import com.example.backend.cluster.ClusterEvent;
+import com.example.backend.config.ReplicaRouting;
+import com.example.backend.dto.DriverSummary;
+import com.example.backend.dto.RideBatchResult;
+import com.example.backend.dto.RideCommand;
+import com.example.backend.dto.RideDetail;
+import com.example.backend.dto.RideChanges;
+import com.example.backend.dto.RideListItem;
+import com.example.backend.dto.RideState;
 import com.example.backend.model.Driver;
 import com.example.backend.model.Ride;
+import com.example.backend.model.RideEvent;
+import com.example.backend.model.RideTombstone;
 import com.example.backend.repository.DriverRepository;
 import com.example.backend.repository.RideRepository;
+import com.example.backend.repository.RideTombstoneRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class RideService {
 
+    // Set-based lifecycle updates for fleet batches. Each is conditional on the state the
+    // command applies to, bumps the optimistic-lock version and takes a change version
+    // (transaction id first, see RideRepository.CLAIM_XID), and returns the ids it changed.
+    private static final String BATCH_ACCEPT = RideRepository.CLAIM_XID
+            + "update ride r set driver_id = c.driver_id, status = 'ACCEPTED', version = r.version + 1, "
+                    + "change_version = nextval('ride_change_seq') "
+                    + "from tx, unnest(?::bigint[], ?::bigint[]) as c(id, driver_id) "
+                    + "where r.id = c.id and r.status in ('PENDING', 'SCHEDULED') returning r.id";
+
+    // Riders still waiting on the shared trips just accepted go to the same driver
+    private static final String BATCH_ACCEPT_CO_RIDERS = RideRepository.CLAIM_XID
+            + "update ride r set driver_id = a.driver_id, status = 'ACCEPTED', version = r.version + 1, "
+                    + "change_version = nextval('ride_change_seq') "
+                    + "from tx, ride a where a.id = any(?::bigint[]) and a.pool_id is not null and r.pool_id = a.pool_id "
+                    + "and r.driver_id is null and r.status in ('PENDING', 'SCHEDULED') returning r.id";
+
+    private static final String BATCH_START = RideRepository.CLAIM_XID
+            + "update ride set status = 'STARTED', started_at = ?, version = version + 1, "
+                    + "change_version = nextval('ride_change_seq') "
+                    + "from tx where id = any(?::bigint[]) and status = 'ACCEPTED' returning id";
+
+    // Completions of a chunk, locked before they are charged
+    private static final String LOCK_STARTED =
+            "select id from ride where id = any(?::bigint[]) and status = 'STARTED' order by id for update";
+
+    // A deletion takes its change version like any ride write
+    private static final String INSERT_TOMBSTONE = RideRepository.CLAIM_XID
+            + "insert into ride_tombstones (change_version, ride_id, deleted_at) "
+            + "select nextval('ride_change_seq'), ?, ? from tx returning change_version";
+
+    private static final String BATCH_COMPLETE = RideRepository.CLAIM_XID
+            + "update ride set status = 'COMPLETED', completed_at = ?, version = version + 1, "
+                    + "change_version = nextval('ride_change_seq') "
+                    + "from tx where id = any(?::bigint[]) and status = 'STARTED' returning id";
+
     @Autowired
     private RideRepository rideRepository;
 
+    @Autowired
+    private RideWritePipeline writePipeline;
+
     @Autowired
     private DriverRepository driverRepository;
 
     @Autowired
-    private com.example.backend.repository.UserRepository userRepository;
+    private RideVersionCache versionCache;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWrites;
+
+    @Autowired
+    private ClusterBus clusterBus;
+
+    @Autowired
+    private RideEventLog rideEventLog;
+
+    @Autowired
+    private RideTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private ChangeFeedHorizon changeFeedHorizon;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    @Autowired
+    private RideScheduler rideScheduler;
+
+    @Autowired
+    private RideOfferService rideOfferService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private RideColumnStore rideColumnStore;
+
+    @Autowired
+    private RidePoolService ridePoolService;
+
+    @Autowired
+    private EtaModel etaModel;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.scheduled-rides.max-days-ahead:30}")
+    private long maxDaysAhead;
+
+    @Value("${app.ride-batch.max-commands:1000}")
+    private int batchMaxCommands;
+
+    @Value("${app.ride-batch.chunk-size:200}")
+    private int batchChunkSize;
 
     // RIDE LIFECYCLE
 
     public Ride bookRide(Ride ride) {
         if (ride.getRiderId() == null)
             throw new IllegalArgumentException("Rider ID is required");
+        if (ride.getScheduledPickupAt() != null)
+            ride.setStatus(scheduledStatus(ride.getScheduledPickupAt()));
         if (ride.getStatus() == null)
             ride.setStatus("PENDING");
         if (ride.getBookedAt() == null)
@@ -36,134 +155,530 @@ public class RideService {
             throw new IllegalArgumentException("Estimated fare is required");
         if (ride.getDistance() == null)
             throw new IllegalArgumentException("Distance is required");
+        // Without the client's estimate the ETA model's is used
         if (ride.getDuration() == null)
-            throw new IllegalArgumentException("Duration is required");
-        return rideRepository.save(ride);
+            ride.setDuration(etaModel.tripMinutes(ride.getPickupLocation(), ride.getDropoffLocation(),
+                            ride.getScheduledPickupAt() != null ? ride.getScheduledPickupAt() : LocalDateTime.now())
+                    .orElseThrow(() -> new IllegalArgumentException("Duration is required")));
+        boolean pooled = Boolean.TRUE.equals(ride.getPooled());
+        ride.setPoolId(null);
+        ride.setSoloFare(pooled ? ride.getEstimatedFare() : null);
+        assignPlaces(ride);
+        Ride saved = save(ride);
+        if (pooled)
+            saved = joinPool(saved);
+        saved = track(saved, RideEvent.Type.BOOKED);
+        if ("SCHEDULED".equals(saved.getStatus()))
+            rideScheduler.schedule(saved.getId(), saved.getScheduledPickupAt());
+        return saved;
     }
 
     public Ride cancelRide(Long rideId) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
-        ride.setStatus("CANCELLED");
-        return rideRepository.save(ride);
+        Ride saved = mutate(rideId, ride -> {
+            ride.setStatus("CANCELLED");
+            return RideEvent.Type.CANCELLED;
+        });
+        rideScheduler.cancel(rideId);
+        ridePoolService.leave(rideId).ifPresent(this::writePoolFares);
+        return saved;
     }
 
+    // A driver accepting any ride of a shared trip takes every rider still waiting on it.
+    // Only a ride nobody has taken can be accepted: offers on different nodes race here.
     public Ride acceptRide(Long rideId, Long driverId) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
-        ride.setDriverId(driverId);
-        ride.setStatus("ACCEPTED");
-        return rideRepository.save(ride);
+        Ride saved = mutate(rideId, ride -> {
+            if (ride.getDriverId() != null || !waiting(ride))
+                throw new RideStateException("Only a waiting ride can be accepted; ride is " + ride.getStatus());
+            ride.setDriverId(driverId);
+            ride.setStatus("ACCEPTED");
+            return RideEvent.Type.ACCEPTED;
+        });
+        if (saved.getPoolId() != null) {
+            for (Ride coRider : ReplicaRouting.onPrimary(() -> rideRepository.findByPoolId(saved.getPoolId()))) {
+                if (coRider.getDriverId() == null && waiting(coRider)) {
+                    // Checked again by the change: the rider may have cancelled meanwhile
+                    mutate(coRider.getId(), ride -> {
+                        if (ride.getDriverId() != null || !waiting(ride))
+                            return null;
+                        ride.setDriverId(driverId);
+                        ride.setStatus("ACCEPTED");
+                        return RideEvent.Type.ACCEPTED;
+                    });
+                }
+            }
+        }
+        return saved;
     }
 
     public Ride startRide(Long rideId) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
-        ride.setStatus("STARTED");
-        ride.setStartedAt(LocalDateTime.now());
-        return rideRepository.save(ride);
+        return mutate(rideId, ride -> {
+            ride.setStatus("STARTED");
+            ride.setStartedAt(LocalDateTime.now());
+            return RideEvent.Type.STARTED;
+        });
     }
 
+    // Only a STARTED ride is completed and charged. The charge and the transition
+    // commit together: if the wallet cannot cover the fare the ride stays STARTED,
+    // and a transition that fails takes its charge with it. Completions post to
+    // the ledger, so they commit here even with group commit on.
     public Ride completeRide(Long rideId) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
-        ride.setStatus("COMPLETED");
-        ride.setCompletedAt(LocalDateTime.now());
-        return rideRepository.save(ride);
+        Ride saved = tracked(transactionTemplate.execute(status -> {
+            Ride ride = rideRepository.findForUpdate(rideId)
+                    .orElseThrow(() -> new RuntimeException("Ride not found"));
+            if (!"STARTED".equals(ride.getStatus()))
+                throw new RideStateException("Only a started ride can be completed; ride is " + ride.getStatus());
+            ledgerService.chargeRide(ride);
+            ride.setStatus("COMPLETED");
+            ride.setCompletedAt(LocalDateTime.now());
+            return new RideWritePipeline.Committed(save(ride), RideEvent.Type.COMPLETED);
+        }));
+        etaModel.rideCompleted(saved);
+        return saved;
     }
 
     public Ride rateRide(Long rideId, int rating, String comment) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
-        ride.setRating(rating);
-        ride.setComment(comment);
-        return rideRepository.save(ride);
+        return mutate(rideId, ride -> {
+            ride.setRating(rating);
+            ride.setComment(comment);
+            return RideEvent.Type.RATED;
+        });
+    }
+
+    private static boolean waiting(Ride ride) {
+        return "PENDING".equals(ride.getStatus()) || "SCHEDULED".equals(ride.getStatus());
+    }
+
+    // Lifecycle writes go through the group-commit pipeline when it is enabled,
+    // otherwise each reads, changes and saves the ride in one read-write
+    // transaction here, so the read is on the primary. The pipeline tracks
+    // the write on its writer, so a caller that timed out leaves nothing behind.
+    private Ride mutate(Long rideId, Function<Ride, RideEvent.Type> change) {
+        if (writePipeline.isEnabled())
+            return writePipeline.submit(rideId, change, this::tracked).ride();
+        return tracked(transactionTemplate.execute(status -> {
+            Ride ride = rideRepository.findById(rideId)
+                    .orElseThrow(() -> new RuntimeException("Ride not found"));
+            RideEvent.Type event = change.apply(ride);
+            return new RideWritePipeline.Committed(event == null ? ride : save(ride), event);
+        }));
+    }
+
+    private Ride tracked(RideWritePipeline.Committed committed) {
+        return committed.event() == null ? committed.ride() : track(committed.ride(), committed.event());
+    }
+
+    // FLEET BATCHES
+
+    /**
+     * Applies a fleet operator's accept/start/complete commands and reports on
+     * each one. Commands are checked together first (one driver lookup for
+     * the whole batch), then applied chunk by chunk: one read of the chunk's
+     * rides, then one conditional update per action in a single transaction.
+     * Unlike the single-ride endpoints a command only applies from its
+     * expected state, so a replayed or stale command is a CONFLICT rather than
+     * a second transition. A ride may appear once per batch.
+     */
+    public RideBatchResult applyBatch(List<RideCommand> commands) {
+        if (commands == null || commands.isEmpty())
+            throw new IllegalArgumentException("At least one command is required");
+        if (commands.size() > batchMaxCommands)
+            throw new IllegalArgumentException("At most " + batchMaxCommands + " commands per batch");
+
+        RideBatchResult.Item[] items = new RideBatchResult.Item[commands.size()];
+        Set<Long> driverIds = commands.stream()
+                .filter(c -> c != null && c.action() == RideCommand.Action.ACCEPT && c.driverId() != null)
+                .map(RideCommand::driverId).collect(Collectors.toSet());
+        Set<Long> knownDrivers = new HashSet<>();
+        if (!driverIds.isEmpty())
+            driverRepository.findAllById(driverIds).forEach(driver -> knownDrivers.add(driver.getId()));
+
+        Set<Long> seen = new HashSet<>();
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            RideCommand command = commands.get(i);
+            String problem = command == null || command.action() == null ? "Action is required"
+                    : command.rideId() == null ? "Ride ID is required"
+                    : !seen.add(command.rideId()) ? "Ride appears more than once in the batch"
+                    : command.action() != RideCommand.Action.ACCEPT ? null
+                    : command.driverId() == null ? "Driver ID is required"
+                    : !knownDrivers.contains(command.driverId()) ? "Driver not found"
+                    : null;
+            if (problem != null)
+                items[i] = RideBatchResult.Item.rejected(i, command, RideBatchResult.Outcome.INVALID, problem, null);
+            else
+                valid.add(i);
+        }
+        for (int from = 0; from < valid.size(); from += batchChunkSize)
+            applyChunk(commands, valid.subList(from, Math.min(valid.size(), from + batchChunkSize)), items);
+        return RideBatchResult.of(Arrays.asList(items));
+    }
+
+    private void applyChunk(List<RideCommand> commands, List<Integer> chunk, RideBatchResult.Item[] items) {
+        Map<Long, Ride> rides = new HashMap<>();
+        List<Long> rideIds = chunk.stream().map(i -> commands.get(i).rideId()).toList();
+        ReplicaRouting.onPrimary(() -> rideRepository.findAllById(rideIds)).forEach(ride -> rides.put(ride.getId(), ride));
+
+        List<Long> accepts = new ArrayList<>();
+        List<Long> acceptDrivers = new ArrayList<>();
+        List<Long> starts = new ArrayList<>();
+        List<Long> completes = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>();
+        for (int i : chunk) {
+            RideCommand command = commands.get(i);
+            Ride ride = rides.get(command.rideId());
+            if (ride == null) {
+                items[i] = RideBatchResult.Item.rejected(i, command, RideBatchResult.Outcome.NOT_FOUND,
+                        "Ride not found", null);
+                continue;
+            }
+            if (!command.action().appliesTo(ride.getStatus())) {
+                items[i] = RideBatchResult.Item.rejected(i, command, RideBatchResult.Outcome.CONFLICT,
+                        "Ride is " + ride.getStatus(), ride);
+                continue;
+            }
+            switch (command.action()) {
+                case ACCEPT -> {
+                    accepts.add(ride.getId());
+                    acceptDrivers.add(command.driverId());
+                }
+                case START -> starts.add(ride.getId());
+                case COMPLETE -> completes.add(ride.getId());
+            }
+            pending.add(i);
+        }
+
+        if (pending.isEmpty())
+            return;
+
+        // Ride id -> event, in the order the updates ran. Completions are charged in the same
+        // transaction, as a single completion is, with one ledger posting for the chunk: only rides
+        // still STARTED once locked are charged, and a rider who cannot pay keeps the ride STARTED.
+        Map<Long, String> unpaid = new HashMap<>();
+        Map<Long, RideEvent.Type> changed = transactionTemplate.execute(status -> {
+            Map<Long, RideEvent.Type> updated = new LinkedHashMap<>();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            if (!accepts.isEmpty()) {
+                List<Long> accepted = jdbcTemplate.queryForList(BATCH_ACCEPT, Long.class,
+                        accepts.toArray(Long[]::new), acceptDrivers.toArray(Long[]::new));
+                accepted.forEach(id -> updated.put(id, RideEvent.Type.ACCEPTED));
+                if (!accepted.isEmpty())
+                    jdbcTemplate.queryForList(BATCH_ACCEPT_CO_RIDERS, Long.class,
+                                    new Object[]{accepted.toArray(Long[]::new)})
+                            .forEach(id -> updated.put(id, RideEvent.Type.ACCEPTED));
+            }
+            if (!starts.isEmpty())
+                jdbcTemplate.queryForList(BATCH_START, Long.class, now, starts.toArray(Long[]::new))
+                        .forEach(id -> updated.put(id, RideEvent.Type.STARTED));
+            if (!completes.isEmpty()) {
+                List<Long> started = jdbcTemplate.queryForList(LOCK_STARTED, Long.class,
+                        new Object[]{completes.toArray(Long[]::new)});
+                unpaid.putAll(ledgerService.chargeRides(rideRepository.findAllById(started)));
+                List<Long> paid = started.stream().filter(id -> !unpaid.containsKey(id)).toList();
+                if (!paid.isEmpty())
+                    jdbcTemplate.queryForList(BATCH_COMPLETE, Long.class, now, paid.toArray(Long[]::new))
+                            .forEach(id -> updated.put(id, RideEvent.Type.COMPLETED));
+            }
+            return updated;
+        });
+
+        // Caches, feeds and models see the rows as committed
+        Map<Long, Ride> saved = new HashMap<>();
+        ReplicaRouting.onPrimary(() -> rideRepository.findAllById(changed.keySet()))
+                .forEach(ride -> saved.put(ride.getId(), ride));
+        changed.forEach((id, event) -> {
+            Ride ride = saved.get(id);
+            if (ride == null)
+                return;
+            track(ride, event);
+            if (event == RideEvent.Type.COMPLETED)
+                etaModel.rideCompleted(ride);
+        });
+        for (int i : pending) {
+            RideCommand command = commands.get(i);
+            Ride ride = saved.get(command.rideId());
+            String reason = unpaid.get(command.rideId());
+            items[i] = reason != null
+                    ? RideBatchResult.Item.rejected(i, command, RideBatchResult.Outcome.CONFLICT, reason,
+                            rides.get(command.rideId()))
+                    : ride != null && changed.containsKey(command.rideId())
+                    ? RideBatchResult.Item.applied(i, command, ride)
+                    : RideBatchResult.Item.rejected(i, command, RideBatchResult.Outcome.CONFLICT,
+                            "Ride changed while the batch was applied", null);
+        }
+    }
+
+    // SHARED RIDES
+
+    // Puts a saved pooled ride on a shared trip and writes the trip's fares,
+    // this ride's included; it stays a trip of its own when it cannot be placed
+    private Ride joinPool(Ride ride) {
+        Optional<Long> poolId = ridePoolService.place(ride);
+        if (poolId.isEmpty())
+            return ride;
+        ride.setPoolId(poolId.get());
+        Ride[] saved = {ride};
+        ridePoolService.writeFares(poolId.get(), fares -> {
+            // Read again, in the write's transaction: a rider who joined meanwhile may already have re-priced this one
+            saved[0] = transactionTemplate.execute(status -> {
+                Ride current = rideRepository.findById(ride.getId()).orElse(ride);
+                current.setPoolId(poolId.get());
+                current.setEstimatedFare(fares.getOrDefault(ride.getId(), ride.getEstimatedFare()));
+                return save(current);
+            });
+            fares.remove(ride.getId());
+            repriceCoRiders(fares);
+        });
+        return saved[0];
+    }
+
+    private void writePoolFares(Long poolId) {
+        ridePoolService.writeFares(poolId, this::repriceCoRiders);
+    }
+
+    // Rides already on the trip whose share moved; finished rides keep what they were charged
+    private void repriceCoRiders(Map<Long, Double> fares) {
+        for (Map.Entry<Long, Double> fare : fares.entrySet()) {
+            // Read and written in one transaction, so the read is on the primary and the row is not merged back
+            Ride saved = transactionTemplate.execute(status -> {
+                Ride coRider = rideRepository.findById(fare.getKey()).orElse(null);
+                if (coRider == null || fare.getValue().equals(coRider.getEstimatedFare())
+                        || "COMPLETED".equals(coRider.getStatus()) || "CANCELLED".equals(coRider.getStatus()))
+                    return null;
+                coRider.setEstimatedFare(fare.getValue());
+                return save(coRider);
+            });
+            if (saved != null)
+                track(saved, RideEvent.Type.POOLED);
+        }
+    }
+
+    // SCHEDULED RIDES
+
+    // SCHEDULED until the wheel releases it; a pickup already inside the lead time is booked as usual
+    private String scheduledStatus(LocalDateTime pickupAt) {
+        LocalDateTime now = LocalDateTime.now();
+        if (pickupAt.isBefore(now))
+            throw new IllegalArgumentException("Scheduled pickup time is in the past");
+        if (pickupAt.isAfter(now.plusDays(maxDaysAhead)))
+            throw new IllegalArgumentException("Rides can be scheduled at most " + maxDaysAhead + " days ahead");
+        return pickupAt.minus(rideScheduler.getLeadTime()).isAfter(now) ? "SCHEDULED" : "PENDING";
+    }
+
+    // Called by RideScheduler at pickup minus lead time
+    public void releaseScheduledRide(Long rideId) {
+        Ride ride = latest(rideId).orElse(null);
+        if (ride == null || !"SCHEDULED".equals(ride.getStatus()))
+            return;
+        // The pickup time may have moved since this was queued
+        if (ride.getScheduledPickupAt().minus(rideScheduler.getLeadTime()).isAfter(LocalDateTime.now())) {
+            rideScheduler.schedule(rideId, ride.getScheduledPickupAt());
+            return;
+        }
+        ride.setStatus("PENDING");
+        track(save(ride), RideEvent.Type.RELEASED);
     }
 
     // RIDE FETCHING
+    // Read-only transactions may be served by the replica (see ReplicaRoutingConfig);
+    // a user who just wrote reads their own rides from the primary.
+
+    @Transactional(readOnly = true)
+    public List<RideListItem> getRideHistory(String role, Long userId) {
+        if (readYourWrites.recentlyWritten(role.toLowerCase() + ":" + userId))
+            return ReplicaRouting.onPrimary(() -> findRideHistory(role, userId));
+        return findRideHistory(role, userId);
+    }
 
-    public List<Ride> getRideHistory(String role, Long userId) {
-        List<Ride> rides;
+    private List<RideListItem> findRideHistory(String role, Long userId) {
+        // Most recent first; ordering is done by the query
         if ("rider".equalsIgnoreCase(role))
-            rides = rideRepository.findByRiderId(userId);
+            return rideRepository.findListItemsByRiderId(userId);
         else if ("driver".equalsIgnoreCase(role))
-            rides = rideRepository.findByDriverId(userId);
+            return rideRepository.findListItemsByDriverId(userId);
         else
             throw new RuntimeException("Invalid role");
+    }
 
-        rides.forEach(this::populateRideDetails);
-        // Sort by BookedAt Descending (Most Recent First)
-        rides.sort((r1, r2) -> {
-            if (r1.getBookedAt() == null)
-                return 1;
-            if (r2.getBookedAt() == null)
-                return -1;
-            return r2.getBookedAt().compareTo(r1.getBookedAt());
-        });
-
-        return rides;
+    @Transactional(readOnly = true)
+    public RideDetail getActiveRide(String role, Long userId) {
+        if (readYourWrites.recentlyWritten(role.toLowerCase() + ":" + userId))
+            return ReplicaRouting.onPrimary(() -> findActiveRide(role, userId));
+        return findActiveRide(role, userId);
     }
 
-    public Ride getActiveRide(String role, Long userId) {
-        Ride ride = null;
+    private RideDetail findActiveRide(String role, Long userId) {
+        List<RideDetail> rides;
         if ("rider".equalsIgnoreCase(role)) {
-            ride = rideRepository.findFirstByRiderIdAndStatusIn(userId, List.of("PENDING", "ACCEPTED", "STARTED"))
-                    .orElse(null);
+            rides = rideRepository.findActiveDetailsByRiderId(userId, List.of("PENDING", "ACCEPTED", "STARTED"),
+                    PageRequest.of(0, 1));
         } else if ("driver".equalsIgnoreCase(role)) {
-            ride = rideRepository.findFirstByDriverIdAndStatusIn(userId, List.of("ACCEPTED", "STARTED"))
-                    .orElse(null);
+            rides = rideRepository.findActiveDetailsByDriverId(userId, List.of("ACCEPTED", "STARTED"),
+                    PageRequest.of(0, 1));
         } else {
             throw new RuntimeException("Invalid role");
         }
+        return rides.isEmpty() ? null : rides.get(0);
+    }
 
-        if (ride != null)
-            populateRideDetails(ride);
-        return ride;
+    @Transactional(readOnly = true)
+    public List<RideListItem> getAvailableRides() {
+        return rideRepository.findListItemsByStatus("PENDING");
     }
 
-    // Helper to populate transient fields
-    private void populateRideDetails(Ride ride) {
-        if (ride.getDriverId() != null) {
-            driverRepository.findById(ride.getDriverId()).ifPresent(ride::setDriver);
-        }
-        if (ride.getRiderId() != null) {
-            userRepository.findById(ride.getRiderId()).ifPresent(ride::setRider);
-        }
+    @Transactional(readOnly = true)
+    public List<RideListItem> searchRides(String query) {
+        Optional<Gazetteer.Place> place = gazetteer.resolve(query);
+        if (place.isPresent())
+            return rideRepository.searchListItemsByPlace(query, place.get().id());
+        return rideRepository.searchListItems(query);
     }
 
-    public List<Ride> getAvailableRides() {
-        List<Ride> rides = rideRepository.findByStatus("PENDING");
-        rides.forEach(this::populateRideDetails);
-        return rides;
+    @Transactional(readOnly = true)
+    public List<RideListItem> getAllRides() {
+        return rideRepository.findAllListItems();
     }
 
-    public List<Ride> searchRides(String query) {
-        return rideRepository.findByPickupLocationContainingIgnoreCaseOrDropoffLocationContainingIgnoreCase(query,
-                query);
+    // Rides and deletions after the cursor, merged in change-version order, up
+    // to the horizon: a version that may still commit is never passed, so a
+    // client that follows the cursor sees every write. Read on the primary,
+    // where the horizon is taken; a lagging replica could miss rows below it.
+    @Transactional(readOnly = true)
+    public RideChanges getChanges(long since, int limit) {
+        return ReplicaRouting.onPrimary(() -> readChanges(since, limit));
     }
 
-    public List<Ride> getAllRides() {
-        return rideRepository.findAll();
+    private RideChanges readChanges(long since, int limit) {
+        long horizon = changeFeedHorizon.current();
+        if (horizon <= since)
+            return new RideChanges(since, false, List.of(), List.of());
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<Ride> rides = rideRepository.findChangesBetween(since, horizon, page);
+        List<RideTombstone> tombstones = tombstoneRepository.findChangesBetween(since, horizon, page);
+
+        List<RideState> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long cursor = since;
+        int r = 0, t = 0;
+        while (changed.size() + deleted.size() < limit && (r < rides.size() || t < tombstones.size())) {
+            boolean takeRide = t >= tombstones.size()
+                    || (r < rides.size() && rides.get(r).getChangeVersion() < tombstones.get(t).getChangeVersion());
+            if (takeRide) {
+                Ride ride = rides.get(r++);
+                changed.add(RideState.of(ride));
+                cursor = ride.getChangeVersion();
+            } else {
+                RideTombstone tombstone = tombstones.get(t++);
+                deleted.add(tombstone.getRideId());
+                cursor = tombstone.getChangeVersion();
+            }
+        }
+        boolean hasMore = r < rides.size() || t < tombstones.size();
+        // Everything up to the horizon was read: versions left unused or overwritten need not be asked for again
+        return new RideChanges(hasMore ? cursor : horizon, hasMore, changed, deleted);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<RideDetail> getRideById(Long id) {
+        if (readYourWrites.recentlyWritten("ride:" + id))
+            return ReplicaRouting.onPrimary(() -> rideRepository.findDetailById(id));
+        return rideRepository.findDetailById(id);
     }
 
-    public Optional<Ride> getRideById(Long id) {
-        return rideRepository.findById(id);
+    @Transactional(readOnly = true)
+    public Optional<DriverSummary> getDriver(Long driverId) {
+        if (readYourWrites.recentlyWritten("driver:" + driverId))
+            return ReplicaRouting.onPrimary(() -> driverRepository.findSummaryById(driverId));
+        return driverRepository.findSummaryById(driverId);
     }
 
     public Ride saveRide(Ride ride) {
-        return rideRepository.save(ride);
+        assignPlaces(ride);
+        Ride saved = track(save(ride), null);
+        if ("SCHEDULED".equals(saved.getStatus()) && saved.getScheduledPickupAt() != null)
+            rideScheduler.schedule(saved.getId(), saved.getScheduledPickupAt());
+        else
+            rideScheduler.cancel(saved.getId());
+        return saved;
     }
 
     public void deleteRide(Long id) {
-        rideRepository.deleteById(id);
+        Long changeVersion = transactionTemplate.execute(status -> {
+            rideRepository.deleteById(id);
+            return jdbcTemplate.queryForObject(INSERT_TOMBSTONE, Long.class, id, Timestamp.valueOf(LocalDateTime.now()));
+        });
+        rideScheduler.cancel(id);
+        rideOfferService.rideDeleted(id);
+        ridePoolService.leave(id).ifPresent(this::writePoolFares);
+        rideColumnStore.rideDeleted(id, changeVersion);
+        versionCache.rideDeleted(id);
+        rideEventLog.appendDeleted(id);
+        clusterBus.publish(new ClusterEvent(ClusterEvent.Type.RIDE_DELETED, String.valueOf(id)));
+    }
+
+    // PLACE IDS
+
+    private void assignPlaces(Ride ride) {
+        ride.setPickupPlaceId(gazetteer.resolve(ride.getPickupLocation()).map(Gazetteer.Place::id).orElse(null));
+        ride.setDropoffPlaceId(gazetteer.resolve(ride.getDropoffLocation()).map(Gazetteer.Place::id).orElse(null));
+    }
+
+    // Fills place ids on rides booked before the gazetteer (or before a place was added
+    // to it), one bulk update per distinct location text. Returns the rows updated.
+    public int backfillPlaceIds() {
+        int updated = 0;
+        for (String location : rideRepository.findUnresolvedPickupLocations()) {
+            Optional<Gazetteer.Place> place = gazetteer.resolve(location);
+            if (place.isPresent())
+                updated += rideRepository.assignPickupPlaceId(location, place.get().id());
+        }
+        for (String location : rideRepository.findUnresolvedDropoffLocations()) {
+            Optional<Gazetteer.Place> place = gazetteer.resolve(location);
+            if (place.isPresent())
+                updated += rideRepository.assignDropoffPlaceId(location, place.get().id());
+        }
+        return updated;
+    }
+
+    // Read-then-write paths read the primary: a lagging replica would hand back
+    // a row the write then overwrites or rejects on its version
+    private Optional<Ride> latest(Long rideId) {
+        return ReplicaRouting.onPrimary(() -> rideRepository.findById(rideId));
+    }
+
+    // Every ride write takes the next change version so the change feed sees it, in
+    // the transaction that writes the row: ChangeFeedHorizon waits for that transaction
+    private Ride save(Ride ride) {
+        return transactionTemplate.execute(status -> {
+            ride.setChangeVersion(rideRepository.nextChangeVersion());
+            return rideRepository.save(ride);
+        });
+    }
+
+    // Keep the ETag cache, read-your-writes pinning, other nodes and the event log in step with every write
+    private Ride track(Ride saved, RideEvent.Type event) {
+        versionCache.rideChanged(saved);
+        readYourWrites.markWritten("ride:" + saved.getId(), "rider:" + saved.getRiderId(),
+                "driver:" + saved.getDriverId());
+        clusterBus.publish(ClusterEvent.ride(saved.getId(), saved.getRiderId(), saved.getDriverId(),
+                saved.getVersion()));
+        if (event != null)
+            rideEventLog.append(event, saved);
+        rideOfferService.rideChanged(saved);
+        rideColumnStore.rideChanged(saved);
+        ridePoolService.rideChanged(saved);
+        return saved;
     }
 
     // DRIVER AVAILABILITY
 
     public void setDriverAvailability(Long driverId, boolean available) {
-        Driver driver = driverRepository.findById(driverId)
+        Driver driver = ReplicaRouting.onPrimary(() -> driverRepository.findById(driverId))
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
         driver.setAvailable(available); // toggle on/off
-        driverRepository.save(driver);
+        Driver saved = driverRepository.save(driver);
+        versionCache.recordDriver(saved.getId(), saved.getVersion());
+        readYourWrites.markWritten("driver:" + driverId);
+        clusterBus.publish(ClusterEvent.driver(driverId, saved.getVersion()));
     }
 }
@@ -0,0 +1,11 @@
+package com.example.backend.service;
+
+// A lifecycle step asked of a ride in the wrong status, e.g. completing a ride that never started
+public class RideStateException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RideStateException(String message) {
+        super(message);
+    }
+}
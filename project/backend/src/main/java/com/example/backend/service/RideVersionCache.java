@@ -0,0 +1,247 @@
+package com.example.backend.service;
+
+import com.example.backend.cluster.ClusterEvent;
+import com.example.backend.cluster.ClusterEventListener;
+import com.example.backend.dto.RideDetail;
+import com.example.backend.model.Ride;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the last known ETag of rides, drivers and active-ride lookups so that
+ * conditional GETs can be answered with 304 without touching the database.
+ *
+ * A ride view embeds its driver and rider, so its tag is made from all three
+ * versions, and a cached tag only counts while each of them is still the
+ * newest version known here. Known versions only move forward: writes here,
+ * other nodes' events and reads all report what they saw, and a read of an
+ * older row (a lagging replica) cannot bring back an older tag. Whenever a
+ * version is unknown the controller falls back to a normal read.
+ */
+@Service
+public class RideVersionCache implements ClusterEventListener {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    // A deleted ride or user: no tag that embeds it is current any more
+    private static final long DELETED = Long.MAX_VALUE;
+
+    // A tag and the versions it was made from; rideId is null for "no active ride"
+    private record Tag(String value, Long rideId, Long rideVersion, Long driverId, Long driverVersion,
+                       Long riderId, Long riderVersion) {
+    }
+
+    private static final Tag NO_ACTIVE_RIDE = new Tag("\"active-none\"", null, null, null, null, null, null);
+
+    private final Map<Long, Long> rideVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> driverVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> userVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Tag> rideTags = new ConcurrentHashMap<>();
+    private final Map<String, Tag> activeTags = new ConcurrentHashMap<>();
+
+    // =========================
+    // RIDES
+    // =========================
+
+    public String rideTag(Long rideId) {
+        return current(rideTags.get(rideId));
+    }
+
+    // Tag of a ride view just read; only cached when nothing newer is known
+    public String recordRide(RideDetail ride) {
+        Tag tag = tagOf("ride", ride);
+        if (saw(tag))
+            put(rideTags, ride.id(), tag);
+        return tag.value();
+    }
+
+    // Called after every lifecycle write: the ride's cached tag is outdated and
+    // any cached active-ride lookup for the rider or driver is dropped.
+    public void rideChanged(Ride ride) {
+        advance(rideVersions, ride.getId(), ride.getVersion());
+        evictActive(ride.getRiderId(), ride.getDriverId());
+    }
+
+    public void rideDeleted(Long rideId) {
+        rideTags.remove(rideId);
+        rideVersions.put(rideId, DELETED);
+        // We no longer know who the ride belonged to, so drop all active lookups
+        activeTags.clear();
+    }
+
+    // =========================
+    // ACTIVE RIDE
+    // =========================
+
+    public String activeTag(String role, Long userId) {
+        return current(activeTags.get(activeKey(role, userId)));
+    }
+
+    // ride is null when the user has no active ride
+    public String recordActive(String role, Long userId, RideDetail ride) {
+        Tag tag = ride == null ? NO_ACTIVE_RIDE : tagOf("active", ride);
+        if (saw(tag))
+            put(activeTags, activeKey(role, userId), tag);
+        return tag.value();
+    }
+
+    public void evictActive(Long riderId, Long driverId) {
+        if (riderId != null)
+            activeTags.remove(activeKey("rider", riderId));
+        if (driverId != null)
+            activeTags.remove(activeKey("driver", driverId));
+    }
+
+    // =========================
+    // DRIVERS AND USERS
+    // =========================
+
+    public String driverTag(Long driverId) {
+        Long version = driverVersions.get(driverId);
+        return version == null ? null : driverTag(driverId, version);
+    }
+
+    // Tag of the driver version just read or written
+    public String recordDriver(Long driverId, Long version) {
+        advance(driverVersions, driverId, version);
+        return driverTag(driverId, version);
+    }
+
+    // Ride views embed the rider, so their tags move with the user's version
+    public void userChanged(Long userId, Long version) {
+        advance(userVersions, userId, version);
+    }
+
+    public void userDeleted(Long userId) {
+        userVersions.put(userId, DELETED);
+    }
+
+    // =========================
+    // OTHER NODES
+    // =========================
+
+    @Override
+    public void onClusterEvent(ClusterEvent event) {
+        switch (event.type()) {
+            case RIDE -> {
+                String[] parts = event.key().split(":");
+                Long rideId = Long.valueOf(parts[0]);
+                if (parts.length > 3)
+                    advance(rideVersions, rideId, Long.valueOf(parts[3]));
+                else
+                    rideTags.remove(rideId);
+                evictActive(parseId(parts[1]), parseId(parts[2]));
+            }
+            case RIDE_DELETED -> rideDeleted(Long.valueOf(event.key()));
+            case DRIVER -> {
+                String[] parts = event.key().split(":");
+                if (parts.length > 1)
+                    advance(driverVersions, Long.valueOf(parts[0]), Long.valueOf(parts[1]));
+                else
+                    driverVersions.remove(Long.valueOf(parts[0]));
+            }
+            case USER -> {
+                // Without an id only the user's sessions changed
+                String[] parts = event.key().split(":", 3);
+                if (!parts[0].isEmpty() && parts[1].isEmpty())
+                    userVersions.remove(Long.valueOf(parts[0]));
+                else if (!parts[0].isEmpty())
+                    advance(userVersions, Long.valueOf(parts[0]), Long.valueOf(parts[1]));
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onClusterReset() {
+        rideVersions.clear();
+        driverVersions.clear();
+        userVersions.clear();
+        rideTags.clear();
+        activeTags.clear();
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+
+    private static Tag tagOf(String kind, RideDetail ride) {
+        Long driverId = ride.driver() == null ? null : ride.driver().id();
+        Long driverVersion = ride.driver() == null ? null : ride.driver().version();
+        Long riderId = ride.rider() == null ? null : ride.rider().id();
+        Long riderVersion = ride.rider() == null ? null : ride.rider().version();
+        String value = "\"" + kind + "-" + ride.id() + "-" + ride.version()
+                + "-" + (driverId == null ? "n" : driverId + "." + driverVersion)
+                + "-" + (riderId == null ? "n" : riderId + "." + riderVersion) + "\"";
+        return new Tag(value, ride.id(), ride.version(), driverId, driverVersion, riderId, riderVersion);
+    }
+
+    private static String driverTag(Long driverId, Long version) {
+        return "\"driver-" + driverId + "-" + version + "\"";
+    }
+
+    // Reports the versions a read saw; true when they are all the newest known
+    private boolean saw(Tag tag) {
+        advance(rideVersions, tag.rideId(), tag.rideVersion());
+        advance(driverVersions, tag.driverId(), tag.driverVersion());
+        advance(userVersions, tag.riderId(), tag.riderVersion());
+        return isCurrent(tag);
+    }
+
+    private String current(Tag tag) {
+        return tag != null && isCurrent(tag) ? tag.value() : null;
+    }
+
+    private boolean isCurrent(Tag tag) {
+        return tag.rideId() == null
+                || newest(rideVersions, tag.rideId(), tag.rideVersion())
+                && newest(driverVersions, tag.driverId(), tag.driverVersion())
+                && newest(userVersions, tag.riderId(), tag.riderVersion());
+    }
+
+    // No id: nothing embedded that could go stale
+    private static boolean newest(Map<Long, Long> versions, Long id, Long version) {
+        return id == null || version != null && version.equals(versions.get(id));
+    }
+
+    private static void advance(Map<Long, Long> versions, Long id, Long version) {
+        if (id == null || version == null)
+            return;
+        // Forgetting versions only costs reads: tags that need them stop counting
+        if (versions.size() >= MAX_ENTRIES && !versions.containsKey(id))
+            versions.clear();
+        versions.merge(id, version, Math::max);
+    }
+
+    private static Long parseId(String value) {
+        return "null".equals(value) ? null : Long.valueOf(value);
+    }
+
+    // True when the If-None-Match header lists the given tag (or "*")
+    public static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null || tag == null)
+            return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/"))
+                value = value.substring(2);
+            if (value.equals("*") || value.equals(tag))
+                return true;
+        }
+        return false;
+    }
+
+    private static String activeKey(String role, Long userId) {
+        return role.toLowerCase() + ":" + userId;
+    }
+
+    // Crude bound: the maps only hold hot keys, so starting over is cheap
+    private static <K> void put(Map<K, Tag> map, K key, Tag tag) {
+        if (map.size() >= MAX_ENTRIES && !map.containsKey(key))
+            map.clear();
+        map.put(key, tag);
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Ride;
+import com.example.backend.model.RideEvent;
+import com.example.backend.repository.RideRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Group commit for ride lifecycle writes (accept, start, rate, cancel),
+ * enabled with app.group-commit.enabled. Completions also post to the ledger
+ * and commit on their own. Every ride id maps to one
+ * of {@code partitions} queues, each drained by a single writer thread. The
+ * writer takes up to {@code batch-size} changes, waiting at most
+ * {@code linger-ms} for a batch to fill, reads their rides with one query,
+ * applies the changes in queue order and commits them all in one
+ * transaction, so a burst of transitions costs one commit (one WAL flush)
+ * instead of one each. Callers block until the batch holding their change
+ * has committed, for at most {@code timeout-ms}; after that (or once the
+ * pipeline is stopping) they get {@link RideWriteUnavailableException},
+ * and a write that timed out may still commit. What has to follow a commit
+ * (event log, caches, other nodes) is passed in with the change and runs on
+ * the writer right after the commit, whether or not the caller still waits.
+ *
+ * A ride always lands on the same writer, so its changes commit in the order
+ * they were submitted. A ride changed twice in one batch is written once,
+ * with its final state, and both callers see that state. A change that
+ * throws fails only its own caller: its ride is reloaded and the batch's
+ * earlier changes to it applied again, so nothing the failed change set is
+ * written. When the commit itself fails the batch
+ * is retried one change per transaction so one bad row does not fail the
+ * rest.
+ *
+ * Metrics: app.ride.group-commit.queued (gauge), .batch (changes per
+ * commit) and .commit (time to read, apply and commit a batch).
+ */
+@Service
+public class RideWritePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(RideWritePipeline.class);
+
+    // A change reports the event to log, or null when it left the ride as it was
+    public record Committed(Ride ride, RideEvent.Type event) {
+    }
+
+    private record Pending(Long rideId, Function<Ride, RideEvent.Type> change, CompletableFuture<Committed> result) {
+    }
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${app.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.group-commit.partitions:4}")
+    private int partitions;
+
+    @Value("${app.group-commit.batch-size:64}")
+    private int batchSize;
+
+    @Value("${app.group-commit.linger-ms:2}")
+    private long lingerMs;
+
+    @Value("${app.group-commit.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.group-commit.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private List<BlockingQueue<Pending>> queues;
+    private Thread[] writers;
+    private volatile boolean running;
+    private DistributionSummary batchSizes;
+    private Timer commitTime;
+
+    @PostConstruct
+    void start() {
+        if (!enabled)
+            return;
+        if (partitions < 1 || batchSize < 1 || lingerMs < 0)
+            throw new IllegalArgumentException("app.group-commit: need partitions >= 1, batch-size >= 1, linger-ms >= 0");
+        batchSizes = DistributionSummary.builder("app.ride.group-commit.batch").register(meterRegistry);
+        commitTime = meterRegistry.timer("app.ride.group-commit.commit");
+        queues = new ArrayList<>(partitions);
+        writers = new Thread[partitions];
+        running = true;
+        for (int i = 0; i < partitions; i++) {
+            BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            writers[i] = new Thread(() -> drain(queue), "ride-group-commit-" + i);
+            writers[i].setDaemon(true);
+            writers[i].start();
+        }
+        Gauge.builder("app.ride.group-commit.queued", this,
+                pipeline -> pipeline.queues.stream().mapToInt(BlockingQueue::size).sum()).register(meterRegistry);
+        log.info("Ride group commit: {} partitions, batches of up to {}, linger {} ms", partitions, batchSize,
+                lingerMs);
+    }
+
+    // Writers finish what is already queued before they stop; new submits are refused
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!running)
+            return;
+        running = false;
+        for (Thread writer : writers)
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues change for the ride and waits until it has committed. The change
+     * runs on a writer thread inside the batch's transaction, against the
+     * ride as left by the changes queued before it; it must only set fields,
+     * and may run again when the batch is retried. afterCommit runs once on
+     * the writer after the change committed, also when this caller has
+     * already given up. Waits up to timeout-ms in all, including while the
+     * partition's queue is full.
+     */
+    public Committed submit(Long rideId, Function<Ride, RideEvent.Type> change, Consumer<Committed> afterCommit) {
+        if (!running)
+            throw new RideWriteUnavailableException("Ride writes are shutting down");
+        Pending pending = new Pending(rideId, change, new CompletableFuture<>());
+        // Completed by the writer, so this stage runs there and does not need the caller
+        CompletableFuture<Committed> tracked = pending.result().thenApply(committed -> {
+            try {
+                afterCommit.accept(committed);
+            } catch (RuntimeException e) {
+                log.error("Ride {} committed but could not be tracked", rideId, e);
+                throw e;
+            }
+            return committed;
+        });
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            if (!queues.get(Math.floorMod(rideId.hashCode(), partitions))
+                    .offer(pending, timeoutMs, TimeUnit.MILLISECONDS))
+                throw new RideWriteUnavailableException("Ride write queue is full");
+            return tracked.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ride write");
+        } catch (TimeoutException e) {
+            throw new RideWriteUnavailableException("Ride write did not commit within " + timeoutMs + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime)
+                throw runtime;
+            throw new IllegalStateException("Ride write failed", e.getCause());
+        }
+    }
+
+    // =========================
+    // WRITER
+    // =========================
+
+    // Whatever is left when the writer ends (stopped, or killed by an Error) fails instead of waiting
+    private void drain(BlockingQueue<Pending> queue) {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            drain(queue, batch);
+        } finally {
+            queue.drainTo(batch);
+            RideWriteUnavailableException stopped = new RideWriteUnavailableException("Ride writer stopped");
+            batch.forEach(pending -> pending.result().completeExceptionally(stopped));
+        }
+    }
+
+    private void drain(BlockingQueue<Pending> queue, List<Pending> batch) {
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                long lingerUntil = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = lingerUntil - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0)
+                        break;
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Only stop() ends the loop; whatever was taken is still written
+            }
+            if (batch.isEmpty())
+                continue;
+            try {
+                batchSizes.record(batch.size());
+                commitTime.record(() -> write(batch));
+            } catch (Throwable e) {
+                // Not even an Error may stop the writer: every later change of its rides would wait on it
+                log.error("Ride group commit failed", e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        Map<Pending, Committed> done = new HashMap<>();
+        Map<Pending, RuntimeException> failed = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch, done, failed));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            log.warn("Ride group commit of {} changes failed, retrying them one by one: {}", batch.size(),
+                    e.getMessage());
+            for (Pending pending : batch)
+                write(List.of(pending));
+            return;
+        }
+        for (Pending pending : batch) {
+            RuntimeException error = failed.get(pending);
+            if (error != null)
+                pending.result().completeExceptionally(error);
+            else
+                pending.result().complete(done.get(pending));
+        }
+    }
+
+    // One read for the batch's rides, each ride's changes in queue order, then one change version per changed ride
+    private void apply(List<Pending> batch, Map<Pending, Committed> done, Map<Pending, RuntimeException> failed) {
+        done.clear();
+        failed.clear();
+        Map<Long, Ride> rides = new HashMap<>();
+        for (Ride ride : rideRepository.findAllById(batch.stream().map(Pending::rideId).distinct().toList()))
+            rides.put(ride.getId(), ride);
+        Map<Long, List<Pending>> byRide = new LinkedHashMap<>();
+        for (Pending pending : batch)
+            byRide.computeIfAbsent(pending.rideId(), id -> new ArrayList<>()).add(pending);
+
+        Set<Ride> changed = new LinkedHashSet<>();
+        byRide.forEach((rideId, changes) -> {
+            Ride ride = rides.get(rideId);
+            if (ride == null) {
+                changes.forEach(pending -> failed.put(pending, new RuntimeException("Ride not found")));
+                return;
+            }
+            List<Pending> applied = new ArrayList<>();
+            for (Pending pending : changes) {
+                try {
+                    done.put(pending, new Committed(ride, pending.change().apply(ride)));
+                    applied.add(pending);
+                } catch (RuntimeException e) {
+                    failed.put(pending, e);
+                    restore(ride, applied, done, failed);
+                }
+            }
+            if (applied.stream().anyMatch(pending -> done.get(pending).event() != null))
+                changed.add(ride);
+        });
+        if (changed.isEmpty())
+            return;
+        List<Long> versions = rideRepository.nextChangeVersions(changed.size());
+        int i = 0;
+        for (Ride ride : changed)
+            ride.setChangeVersion(versions.get(i++));
+        rideRepository.saveAll(changed);
+    }
+
+    // Drops whatever a throwing change set on the ride: reloads it and applies the changes that succeeded before it again
+    private void restore(Ride ride, List<Pending> applied, Map<Pending, Committed> done,
+                         Map<Pending, RuntimeException> failed) {
+        entityManager.refresh(ride);
+        for (Pending pending : List.copyOf(applied)) {
+            try {
+                done.put(pending, new Committed(ride, pending.change().apply(ride)));
+            } catch (RuntimeException e) {
+                applied.remove(pending);
+                done.remove(pending);
+                failed.put(pending, e);
+                restore(ride, applied, done, failed);
+                return;
+            }
+        }
+    }
+}
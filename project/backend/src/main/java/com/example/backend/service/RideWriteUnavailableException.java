@@ -0,0 +1,11 @@
+package com.example.backend.service;
+
+// The group-commit pipeline could not take or finish a ride write in time; the write may still commit
+public class RideWriteUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RideWriteUnavailableException(String message) {
+        super(message);
+    }
+}
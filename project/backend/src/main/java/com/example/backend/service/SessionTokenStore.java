@@ -0,0 +1,121 @@
+package com.example.backend.service;
+
+import com.example.backend.cluster.ClusterBus;
+import com.example.backend.cluster.ClusterEvent;
+import com.example.backend.cluster.ClusterEventListener;
+import com.example.backend.config.ReplicaRouting;
+import com.example.backend.model.SessionToken;
+import com.example.backend.repository.SessionTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bearer tokens issued after 2FA. The session_tokens table is the shared
+ * source of truth so a token works on every node; each node keeps a local
+ * token -> email cache in front of it, evicted through cluster events when
+ * a user's sessions change elsewhere. Tokens expire app.sessions.ttl-hours
+ * after they are issued; expired rows are purged in bulk on the expires_at
+ * index.
+ */
+@Service
+public class SessionTokenStore implements ClusterEventListener {
+
+    private static final int MAX_CACHED = 50_000;
+
+    @Autowired
+    private SessionTokenRepository sessionTokenRepository;
+
+    @Autowired
+    private ClusterBus clusterBus;
+
+    @Value("${app.sessions.ttl-hours:720}")
+    private long ttlHours;
+
+    private record Session(String email, LocalDateTime expiresAt) {
+    }
+
+    private final Map<String, Session> cache = new ConcurrentHashMap<>();
+
+    public String issue(String email) {
+        String token = UUID.randomUUID().toString();
+        String hash = hash(token);
+        LocalDateTime now = LocalDateTime.now();
+        SessionToken saved = sessionTokenRepository.save(new SessionToken(hash, email, now, now.plusHours(ttlHours)));
+        cacheEntry(hash, new Session(email, saved.getExpiresAt()));
+        return token;
+    }
+
+    // Email of the token's owner, or null if the token is unknown, revoked or expired
+    public String lookup(String token) {
+        String hash = hash(token);
+        LocalDateTime now = LocalDateTime.now();
+        Session session = cache.get(hash);
+        if (session == null) {
+            // On the primary: a lagging replica would not know a token just issued on another
+            // node, and could hand back one revoked there, which would then be cached again
+            session = ReplicaRouting.onPrimary(() -> sessionTokenRepository.findById(hash))
+                    .map(t -> new Session(t.getEmail(), t.getExpiresAt()))
+                    .orElse(null);
+            if (session == null)
+                return null;
+            cacheEntry(hash, session);
+        }
+        if (!session.expiresAt().isAfter(now)) {
+            cache.remove(hash);
+            return null;
+        }
+        return session.email();
+    }
+
+    // Logs the user out everywhere (e.g. after a password reset)
+    public void revokeAll(String email) {
+        revokeAll(null, email);
+    }
+
+    // With the user's id, other nodes also forget the version they know for it
+    public void revokeAll(Long userId, String email) {
+        sessionTokenRepository.deleteByEmail(email);
+        evict(email);
+        clusterBus.publish(ClusterEvent.user(userId, null, email));
+    }
+
+    @Scheduled(fixedDelayString = "${app.sessions.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        sessionTokenRepository.deleteExpired(now);
+        cache.values().removeIf(session -> !session.expiresAt().isAfter(now));
+    }
+
+    @Override
+    public void onClusterEvent(ClusterEvent event) {
+        if (event.type() == ClusterEvent.Type.USER)
+            evict(event.key().split(":", 3)[2]);
+    }
+
+    @Override
+    public void onClusterReset() {
+        cache.clear();
+    }
+
+    private void evict(String email) {
+        cache.values().removeIf(session -> email.equalsIgnoreCase(session.email()));
+    }
+
+    private void cacheEntry(String hash, Session session) {
+        if (cache.size() >= MAX_CACHED)
+            cache.clear();
+        cache.put(hash, session);
+    }
+
+    private static String hash(String token) {
+        return HexFormat.of().formatHex(CredentialHashing.digest(token));
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.backend.service;
 
+import com.example.backend.cluster.ClusterBus;
+import com.example.backend.cluster.ClusterEvent;
+import com.example.backend.config.ReplicaRouting;
+import com.example.backend.dto.UserSummary;
+import com.example.backend.model.Driver;
 import com.example.backend.model.User;
+import com.example.backend.repository.DriverRepository;
 import com.example.backend.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -16,34 +26,101 @@ public class UserService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private DriverRepository driverRepository;
 
-    public User register(User user) throws Exception {
-        if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-            throw new Exception("Email is already registered.");
-        }
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ClusterBus clusterBus;
+
+    @Autowired
+    private SessionTokenStore sessionTokenStore;
+
+    @Autowired
+    private RideVersionCache versionCache;
+
+    public record Registration(User user, Driver driver) {
+    }
 
-        if (userRepository.findByPhone(user.getPhone()).isPresent()) {
-            throw new Exception("Phone number is already registered.");
+    // The password is hashed first, on the hashing pool, then the account is one
+    // insert (plus the driver row for drivers, in the same transaction). A taken
+    // email or phone is caught by the unique constraints, not looked up first.
+    public Registration register(User user) {
+        if (user.getPassword() == null || user.getPassword().isEmpty())
+            throw new IllegalArgumentException("Password is required");
+        user.setPassword(passwordHasher.hash(user.getPassword()));
+
+        Registration registration;
+        try {
+            registration = transactionTemplate.execute(status -> {
+                User saved = userRepository.save(user);
+                Driver driver = null;
+                if (saved.getRole() == User.Role.DRIVER) {
+                    driver = driverRepository.save(new Driver(saved.getName(), saved.getPhone()));
+                }
+                return new Registration(saved, driver);
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateAccountException(duplicateMessage(e));
         }
+        // A new account has no sessions or versions cached anywhere; only the driver row is announced
+        if (registration.driver() != null)
+            clusterBus.publish(ClusterEvent.driver(registration.driver().getId(), registration.driver().getVersion()));
+        return registration;
+    }
 
-        // Encode the password before saving
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+    // The user when the password matches. A hash made at a lower cost than the
+    // configured one is replaced in the background.
+    public Optional<User> authenticate(String email, String password) {
+        Optional<User> user = email == null ? Optional.empty() : userRepository.findByEmail(email);
+        if (user.isEmpty() || password == null || !passwordHasher.matches(password, user.get().getPassword()))
+            return Optional.empty();
+        String oldHash = user.get().getPassword();
+        if (passwordHasher.needsUpgrade(oldHash))
+            passwordHasher.upgradeLater(password,
+                    newHash -> userRepository.replacePasswordHash(user.get().getId(), oldHash, newHash));
+        return user;
+    }
 
-        return userRepository.save(user);
+    public void changePassword(User user, String newPassword) {
+        if (newPassword == null || newPassword.isEmpty())
+            throw new IllegalArgumentException("Password is required");
+        user.setPassword(passwordHasher.hash(newPassword));
+        User saved = userRepository.save(user);
+        versionCache.userChanged(saved.getId(), saved.getVersion());
+    }
+
+    // Told apart by the violated constraint's name, which does not depend on the driver's message text
+    private static String duplicateMessage(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                String constraint = violation.getConstraintName().toLowerCase(Locale.ROOT);
+                if (constraint.equals(User.UNIQUE_EMAIL))
+                    return "Email is already registered.";
+                if (constraint.equals(User.UNIQUE_PHONE))
+                    return "Phone number is already registered.";
+            }
+        }
+        return "User already exists";
     }
 
     
+    @Transactional(readOnly = true)
     public User findByEmail(String email) {
         return userRepository.findByEmail(email).orElse(null);
     }
 
     public void encodeExistingPasswords() {
-        List<User> users = userRepository.findAll();
+        List<User> users = ReplicaRouting.onPrimary(() -> userRepository.findAll());
         for (User user : users) {
             if (!isEncoded(user.getPassword())) {
-                user.setPassword(passwordEncoder.encode(user.getPassword()));
-                userRepository.save(user);
+                user.setPassword(passwordHasher.hash(user.getPassword()));
+                User saved = userRepository.save(user);
+                versionCache.userChanged(saved.getId(), saved.getVersion());
             }
         }
     }
@@ -53,19 +130,31 @@ public class UserService {
         return password.startsWith("$2a$");
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<UserSummary> getAllUsers() {
+        return userRepository.findAllSummaries();
     }
 
-    public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+    @Transactional(readOnly = true)
+    public Optional<UserSummary> getUserById(Long id) {
+        return userRepository.findSummaryById(id);
     }
 
+    // A body without a version overwrites whatever is stored, as before users had one
     public User saveUser(User user) {
-        return userRepository.save(user);
+        if (user.getId() != null && user.getVersion() == null)
+            ReplicaRouting.onPrimary(() -> userRepository.findVersionById(user.getId())).ifPresent(user::setVersion);
+        User saved = userRepository.save(user);
+        versionCache.userChanged(saved.getId(), saved.getVersion());
+        clusterBus.publish(ClusterEvent.user(saved.getId(), saved.getVersion(), saved.getEmail()));
+        return saved;
     }
 
     public void deleteUser(Long id) {
+        Optional<User> user = ReplicaRouting.onPrimary(() -> userRepository.findById(id));
         userRepository.deleteById(id);
+        versionCache.userDeleted(id);
+        // Also publishes the USER event to the other nodes
+        user.ifPresent(u -> sessionTokenStore.revokeAll(id, u.getEmail()));
     }
 }
@@ -0,0 +1,63 @@
+package com.example.backend.util;
+
+/**
+ * Fixed lat/lng grid over a bounding box. Cells are numbered row-major from
+ * the south-west corner, so a cell index can address a plain int array.
+ */
+public final class GeoGrid {
+
+    private final double minLat;
+    private final double minLng;
+    private final double cellDegrees;
+    private final int rows;
+    private final int cols;
+
+    public GeoGrid(double minLat, double minLng, double maxLat, double maxLng, double cellDegrees) {
+        if (maxLat <= minLat || maxLng <= minLng || cellDegrees <= 0)
+            throw new IllegalArgumentException("Empty grid");
+        this.minLat = minLat;
+        this.minLng = minLng;
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil((maxLat - minLat) / cellDegrees);
+        this.cols = (int) Math.ceil((maxLng - minLng) / cellDegrees);
+    }
+
+    public int cellCount() {
+        return rows * cols;
+    }
+
+    // Cell index for a point, or -1 when it falls outside the box
+    public int cellOf(double lat, double lng) {
+        int row = (int) Math.floor((lat - minLat) / cellDegrees);
+        int col = (int) Math.floor((lng - minLng) / cellDegrees);
+        if (row < 0 || row >= rows || col < 0 || col >= cols)
+            return -1;
+        return row * cols + col;
+    }
+
+    public int rowOf(int cell) {
+        return cell / cols;
+    }
+
+    public int colOf(int cell) {
+        return cell % cols;
+    }
+
+    public double centerLat(int cell) {
+        return minLat + (rowOf(cell) + 0.5) * cellDegrees;
+    }
+
+    public double centerLng(int cell) {
+        return minLng + (colOf(cell) + 0.5) * cellDegrees;
+    }
+
+    public double getMinLat() { return minLat; }
+
+    public double getMinLng() { return minLng; }
+
+    public double getCellDegrees() { return cellDegrees; }
+
+    public int getRows() { return rows; }
+
+    public int getCols() { return cols; }
+}
@@ -0,0 +1,100 @@
+package com.example.backend.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel (Varghese &amp; Lauck): deadlines are hashed into
+ * {@code wheelSize} buckets of {@code tickMillis} each; an entry further out
+ * than one revolution keeps its deadline tick and is passed over each time
+ * its bucket comes round until that tick is reached. Scheduling is O(1)
+ * and each tick only looks at one bucket, so expiring a large number of
+ * short-lived entries never needs a scan or a query.
+ *
+ * {@link #schedule} may be called from any thread; {@link #advance} must be
+ * driven by a single thread (a scheduled task). An entry fires at most once.
+ */
+public class HashedTimingWheel<K> {
+
+    private final long tickMillis;
+    private final List<ConcurrentLinkedQueue<Timeout<K>>> buckets;
+    private final int mask;
+
+    // Tick that advance() will process next
+    private volatile long nextTick;
+
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (Integer.bitCount(wheelSize) != 1)
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++)
+            buckets.add(new ConcurrentLinkedQueue<>());
+        this.mask = wheelSize - 1;
+        this.nextTick = startMillis / tickMillis;
+    }
+
+    public static final class Timeout<K> {
+        private final K key;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+        // Only written by advance(); a copy left in an older bucket is dropped once this is set
+        private volatile boolean fired;
+
+        private Timeout(K key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public K key() {
+            return key;
+        }
+
+        // O(1): the entry is skipped (and dropped) when its bucket comes round
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    public Timeout<K> schedule(K key, long deadlineMillis) {
+        Timeout<K> timeout = new Timeout<>(key, ceilDiv(deadlineMillis, tickMillis));
+        long tick;
+        do {
+            // Never place an entry behind the cursor, or it would wait a full turn
+            tick = Math.max(timeout.deadlineTick, nextTick);
+            buckets.get((int) (tick & mask)).add(timeout);
+            // advance() may have been scanning that bucket while the entry went in; unless it fired, add it again
+            // at the cursor (a copy left behind is dropped once this one fires)
+        } while (tick < nextTick && !timeout.fired);
+        return timeout;
+    }
+
+    // Fires every entry whose deadline is at or before nowMillis
+    public void advance(long nowMillis, Consumer<K> onExpired) {
+        long currentTick = nowMillis / tickMillis;
+        // After a long pause one full revolution already covers every bucket
+        long from = Math.max(nextTick, currentTick - mask);
+        for (long tick = from; tick <= currentTick; tick++) {
+            // Moved before the scan, so a schedule() racing it sees the bucket may be behind the cursor already
+            nextTick = tick + 1;
+            Iterator<Timeout<K>> it = buckets.get((int) (tick & mask)).iterator();
+            while (it.hasNext()) {
+                Timeout<K> timeout = it.next();
+                if (timeout.cancelled || timeout.fired) {
+                    it.remove();
+                } else if (timeout.deadlineTick <= currentTick) {
+                    it.remove();
+                    timeout.fired = true;
+                    onExpired.accept(timeout.key);
+                }
+            }
+        }
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for deadlines that may be months away. Level 0
+ * has {@code wheelSize} buckets of one tick; each level above covers
+ * {@code wheelSize} times the span of the one below. An entry goes into the
+ * lowest level whose span reaches its deadline, and when time reaches the
+ * start of a higher-level bucket its entries are cascaded down. With 1 s
+ * ticks, 64 buckets and 4 levels the wheel reaches about 194 days; anything
+ * further out waits in the top level and is re-placed each time its bucket
+ * comes round.
+ *
+ * Buckets are intrusive doubly linked lists, so schedule and cancel are O(1)
+ * and a cancelled entry is released immediately instead of waiting for its
+ * bucket. All operations lock the wheel; callbacks from {@link #advance} run
+ * after the lock is released.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    // Sentinels of each level's buckets
+    private final List<List<Timeout>> buckets;
+
+    // Tick that advance() will process next
+    private long nextTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (Integer.bitCount(wheelSize) != 1)
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        if (bits * levels >= 62)
+            throw new IllegalArgumentException("Too many levels for wheelSize");
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<Timeout> sentinels = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++)
+                sentinels.add(new Timeout(null, 0));
+            buckets.add(sentinels);
+        }
+        this.nextTick = startMillis / tickMillis;
+    }
+
+    public final class Timeout {
+        private final K key;
+        private final long deadlineTick;
+        // A bucket's sentinel links to itself; entries are linked while scheduled
+        private Timeout prev = this;
+        private Timeout next = this;
+        private boolean linked;
+
+        private Timeout(K key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public K key() {
+            return key;
+        }
+
+        // O(1); false when the entry already fired or was cancelled
+        public boolean cancel() {
+            synchronized (HierarchicalTimingWheel.this) {
+                if (!linked)
+                    return false;
+                unlink(this);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    public synchronized Timeout schedule(K key, long deadlineMillis) {
+        // Never place an entry behind the cursor, or it would wait a full turn
+        long tick = Math.max(ceilDiv(deadlineMillis, tickMillis), nextTick);
+        Timeout timeout = new Timeout(key, tick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Fires every entry whose deadline is at or before nowMillis
+    public void advance(long nowMillis, Consumer<K> onExpired) {
+        List<K> expired = new ArrayList<>();
+        synchronized (this) {
+            long currentTick = nowMillis / tickMillis;
+            if (size == 0 && currentTick >= nextTick)
+                nextTick = currentTick + 1;
+            while (nextTick <= currentTick) {
+                long tick = nextTick;
+                // Higher levels first: a cascade can land in a lower bucket that also starts now
+                for (int level = buckets.size() - 1; level >= 1; level--) {
+                    if ((tick & ((1L << (bits * level)) - 1)) == 0)
+                        cascade(bucket(level, tick >>> (bits * level)), tick, expired);
+                }
+                cascade(bucket(0, tick), tick, expired);
+                nextTick = tick + 1;
+            }
+        }
+        expired.forEach(onExpired);
+    }
+
+    // Empties a bucket: due entries fire, the rest move to the level that now fits them
+    private void cascade(Timeout bucket, long tick, List<K> expired) {
+        if (bucket.next == bucket)
+            return;
+        // Detach first: an entry beyond the top level can be re-placed into this same bucket
+        List<Timeout> entries = new ArrayList<>();
+        for (Timeout timeout = bucket.next; timeout != bucket; timeout = timeout.next)
+            entries.add(timeout);
+        for (Timeout timeout : entries) {
+            unlink(timeout);
+            if (timeout.deadlineTick <= tick) {
+                size--;
+                expired.add(timeout.key);
+            } else {
+                place(timeout);
+            }
+        }
+    }
+
+    // Lowest level whose higher digits match the cursor's; the top level takes the rest
+    private void place(Timeout timeout) {
+        int top = buckets.size() - 1;
+        for (int level = 0; level <= top; level++) {
+            int shift = bits * (level + 1);
+            if (level == top || (timeout.deadlineTick >>> shift) == (nextTick >>> shift)) {
+                link(bucket(level, timeout.deadlineTick >>> (bits * level)), timeout);
+                return;
+            }
+        }
+    }
+
+    private Timeout bucket(int level, long slot) {
+        return buckets.get(level).get((int) (slot & mask));
+    }
+
+    private void link(Timeout bucket, Timeout timeout) {
+        timeout.prev = bucket.prev;
+        timeout.next = bucket;
+        bucket.prev.next = timeout;
+        bucket.prev = timeout;
+        timeout.linked = true;
+    }
+
+    private void unlink(Timeout timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = timeout;
+        timeout.next = timeout;
+        timeout.linked = false;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
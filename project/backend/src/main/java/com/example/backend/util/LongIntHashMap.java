@@ -0,0 +1,98 @@
+package com.example.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long keys to non-negative int values, stored in
+ * two flat arrays (linear probing, load factor at most 1/2). About 24 bytes
+ * per entry against roughly 60 for a HashMap<Long, Integer> entry, and no
+ * boxing on lookup. There is no remove. Not thread-safe.
+ */
+public final class LongIntHashMap {
+
+    private static final int FREE = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    // The value for key, or -1 when absent
+    public int get(long key) {
+        int slot = slot(key);
+        while (values[slot] != FREE) {
+            if (keys[slot] == key)
+                return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return FREE;
+    }
+
+    public void put(long key, int value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Values must be non-negative");
+        int slot = slot(key);
+        while (values[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length)
+            rehash();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Keys in no particular order
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != FREE)
+                result[n++] = keys[slot];
+        }
+        return result;
+    }
+
+    public long memoryBytes() {
+        return (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, FREE);
+        mask = capacity - 1;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != FREE)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Read-only prefix index from strings to int values, flattened into parallel
+ * arrays after building. Nodes are laid out depth-first with sorted
+ * children, so the values under any node form one contiguous slice of
+ * {@code values}: a prefix lookup is a walk of prefix.length() steps plus a
+ * copy of that slice, with no per-query allocation beyond the result.
+ */
+public final class PrefixTrie {
+
+    private final char[] label;
+    private final int[] firstChild;   // -1 when a leaf
+    private final int[] nextSibling;  // -1 for the last child
+    private final int[] valuesFrom;   // slice of values under this node
+    private final int[] valuesTo;
+    private final int[] values;
+
+    private PrefixTrie(char[] label, int[] firstChild, int[] nextSibling, int[] valuesFrom, int[] valuesTo,
+                       int[] values) {
+        this.label = label;
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.valuesFrom = valuesFrom;
+        this.valuesTo = valuesTo;
+        this.values = values;
+    }
+
+    // Values of every key starting with prefix, in key order; a value added
+    // under several keys is returned once
+    public List<Integer> startingWith(String prefix, int limit) {
+        int node = 0;
+        for (int i = 0; i < prefix.length() && node >= 0; i++)
+            node = child(node, prefix.charAt(i));
+        List<Integer> result = new ArrayList<>();
+        if (node < 0)
+            return result;
+        for (int i = valuesFrom[node]; i < valuesTo[node] && result.size() < limit; i++) {
+            if (!result.contains(values[i]))
+                result.add(values[i]);
+        }
+        return result;
+    }
+
+    public int nodeCount() {
+        return label.length;
+    }
+
+    private int child(int node, char c) {
+        for (int n = firstChild[node]; n >= 0; n = nextSibling[n]) {
+            if (label[n] == c)
+                return n;
+            if (label[n] > c)
+                return -1;
+        }
+        return -1;
+    }
+
+    // =========================
+    // BUILDING
+    // =========================
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        private static final class Node {
+            final TreeMap<Character, Node> children = new TreeMap<>();
+            final List<Integer> values = new ArrayList<>(1);
+        }
+
+        private final Node root = new Node();
+        private int nodes = 1;
+
+        public Builder add(String key, int value) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                Node next = node.children.get(key.charAt(i));
+                if (next == null) {
+                    next = new Node();
+                    node.children.put(key.charAt(i), next);
+                    nodes++;
+                }
+                node = next;
+            }
+            if (!node.values.contains(value))
+                node.values.add(value);
+            return this;
+        }
+
+        public PrefixTrie build() {
+            Flattener f = new Flattener(nodes);
+            f.visit(root, '\0');
+            return new PrefixTrie(f.label, f.firstChild, f.nextSibling, f.valuesFrom, f.valuesTo,
+                    f.values.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private static final class Flattener {
+            final char[] label;
+            final int[] firstChild;
+            final int[] nextSibling;
+            final int[] valuesFrom;
+            final int[] valuesTo;
+            final List<Integer> values = new ArrayList<>();
+            int next;
+
+            Flattener(int size) {
+                label = new char[size];
+                firstChild = new int[size];
+                nextSibling = new int[size];
+                valuesFrom = new int[size];
+                valuesTo = new int[size];
+            }
+
+            int visit(Node node, char c) {
+                int id = next++;
+                label[id] = c;
+                firstChild[id] = -1;
+                nextSibling[id] = -1;
+                valuesFrom[id] = values.size();
+                values.addAll(node.values);
+                int previous = -1;
+                for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                    int childId = visit(child.getValue(), child.getKey());
+                    if (previous < 0)
+                        firstChild[id] = childId;
+                    else
+                        nextSibling[previous] = childId;
+                    previous = childId;
+                }
+                valuesTo[id] = values.size();
+                return id;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.backend.util;
+
+/**
+ * Running count, mean and variance for each cell of a fixed-size table,
+ * updated one observation at a time (Welford's method) in three flat
+ * primitive arrays: 12 bytes per cell, no objects. Not thread-safe.
+ */
+public final class RunningStats {
+
+    private final int[] count;
+    private final float[] mean;
+    private final float[] m2;
+
+    public RunningStats(int cells) {
+        count = new int[cells];
+        mean = new float[cells];
+        m2 = new float[cells];
+    }
+
+    public void add(int cell, double value) {
+        int n = ++count[cell];
+        double delta = value - mean[cell];
+        double updated = mean[cell] + delta / n;
+        mean[cell] = (float) updated;
+        m2[cell] += (float) (delta * (value - updated));
+    }
+
+    public int count(int cell) {
+        return count[cell];
+    }
+
+    public double mean(int cell) {
+        return mean[cell];
+    }
+
+    public double stdDev(int cell) {
+        int n = count[cell];
+        return n < 2 ? 0 : Math.sqrt(m2[cell] / (n - 1));
+    }
+
+    public int cells() {
+        return count.length;
+    }
+
+    public long memoryBytes() {
+        return (long) count.length * (Integer.BYTES + 2 * Float.BYTES);
+    }
+}
@@ -0,0 +1,2 @@
+-- A key is bound to the request it first answered; existing rows stay unchecked
+alter table idempotency_keys add column if not exists request_hash varchar(64);
@@ -0,0 +1,6 @@
+-- Sessions expire; rows issued before this get the default lifetime from their creation time
+alter table session_tokens add column if not exists expires_at timestamp(6);
+update session_tokens set expires_at = coalesce(created_at, now()) + interval '30 days' where expires_at is null;
+alter table session_tokens alter column expires_at set not null;
+
+create index if not exists idx_session_tokens_expires_at on session_tokens (expires_at);
@@ -0,0 +1,19 @@
+-- Registration maps a violated constraint to its message by name. V1 left the names to the database
+-- (users_email_key), and databases adopted from ddl-auto have generated ones (uk...), so give the
+-- single-column unique constraints on users.email and users.phone fixed names.
+do $$
+declare
+    c record;
+begin
+    for c in
+        select con.conname, att.attname
+        from pg_constraint con
+        join pg_attribute att on att.attrelid = con.conrelid and att.attnum = con.conkey[1]
+        where con.conrelid = 'users'::regclass and con.contype = 'u' and cardinality(con.conkey) = 1
+          and att.attname in ('email', 'phone')
+    loop
+        if c.conname <> 'uk_users_' || c.attname then
+            execute format('alter table users rename constraint %I to %I', c.conname, 'uk_users_' || c.attname);
+        end if;
+    end loop;
+end $$;
@@ -0,0 +1,4 @@
+-- A key is claimed (a row without a status) before its request runs, so a duplicate on another
+-- node waits for the stored response; the response keeps its content type for the replay
+alter table idempotency_keys alter column status_code drop not null;
+alter table idempotency_keys add column if not exists content_type varchar(100);
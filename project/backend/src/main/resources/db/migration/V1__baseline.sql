@@ -0,0 +1,72 @@
+-- Baseline schema (matches what ddl-auto=update produced). Written with
+-- IF NOT EXISTS so databases that were created by Hibernate can be adopted
+-- with baseline-on-migrate and still pick up anything they are missing.
+
+create table if not exists users (
+    id bigint generated by default as identity,
+    email varchar(255) not null unique,
+    name varchar(255),
+    password varchar(255) not null,
+    phone varchar(255) not null unique,
+    role varchar(255) check (role in ('RIDER', 'DRIVER')),
+    primary key (id)
+);
+
+create table if not exists drivers (
+    id bigint generated by default as identity,
+    name varchar(255),
+    phone varchar(255),
+    available boolean not null,
+    version bigint default 0 not null,
+    primary key (id)
+);
+
+create table if not exists ride (
+    id bigint generated by default as identity,
+    rider_id bigint,
+    driver_id bigint,
+    pickup_location varchar(255),
+    dropoff_location varchar(255),
+    status varchar(255),
+    booked_at timestamp(6),
+    started_at timestamp(6),
+    completed_at timestamp(6),
+    rating integer,
+    comment varchar(255),
+    estimated_fare float(53),
+    distance float(53),
+    duration integer,
+    payment_method varchar(255),
+    version bigint default 0 not null,
+    primary key (id)
+);
+
+-- Pre-ETag databases
+alter table drivers add column if not exists version bigint default 0 not null;
+alter table ride add column if not exists version bigint default 0 not null;
+
+create table if not exists idempotency_keys (
+    idempotency_key varchar(200) not null,
+    status_code integer not null,
+    response_body text,
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    primary key (idempotency_key)
+);
+
+create index if not exists idx_idempotency_keys_expires_at on idempotency_keys (expires_at);
+
+create table if not exists short_lived_credentials (
+    id varchar(320) not null,
+    secret_hash bytea not null,
+    expires_at timestamp(6) not null,
+    attempts integer not null,
+    primary key (id)
+);
+
+create index if not exists idx_short_lived_credentials_expires_at on short_lived_credentials (expires_at);
+
+-- Lookups behind history and active-ride queries
+create index if not exists idx_ride_rider_id on ride (rider_id);
+create index if not exists idx_ride_driver_id on ride (driver_id);
+create index if not exists idx_ride_status on ride (status);
@@ -0,0 +1,9 @@
+-- Login sessions shared across backend nodes (previously a static in-memory map)
+create table if not exists session_tokens (
+    token_hash varchar(64) not null,
+    email varchar(255) not null,
+    created_at timestamp(6),
+    primary key (token_hash)
+);
+
+create index if not exists idx_session_tokens_email on session_tokens (email);
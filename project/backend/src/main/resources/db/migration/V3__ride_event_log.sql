@@ -0,0 +1,20 @@
+-- Append-only ride lifecycle log; seq is the cursor consumers tail from
+create table if not exists ride_events (
+    seq bigint generated by default as identity,
+    ride_id bigint not null,
+    type varchar(16) not null,
+    occurred_at timestamp(6) not null,
+    payload text not null,
+    primary key (seq)
+);
+
+create index if not exists idx_ride_events_ride_id on ride_events (ride_id);
+
+create table if not exists ride_event_snapshots (
+    id bigint generated by default as identity,
+    last_seq bigint not null unique,
+    created_at timestamp(6),
+    ride_count integer not null,
+    payload text not null,
+    primary key (id)
+);
@@ -0,0 +1,16 @@
+-- Change feed: every ride write takes the next value of ride_change_seq
+create sequence if not exists ride_change_seq start with 1 increment by 1;
+
+alter table ride add column if not exists change_version bigint;
+
+update ride set change_version = nextval('ride_change_seq')
+where change_version is null;
+
+create index if not exists idx_ride_change_version on ride (change_version);
+
+create table if not exists ride_tombstones (
+    change_version bigint not null,
+    ride_id bigint not null,
+    deleted_at timestamp(6) not null,
+    primary key (change_version)
+);
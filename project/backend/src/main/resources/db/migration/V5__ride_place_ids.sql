@@ -0,0 +1,7 @@
+-- Gazetteer place ids next to the free-text locations (see places.csv).
+-- Existing rides are filled in by POST /api/admin/places/backfill.
+alter table ride add column if not exists pickup_place_id integer;
+alter table ride add column if not exists dropoff_place_id integer;
+
+create index if not exists idx_ride_pickup_place_id on ride (pickup_place_id);
+create index if not exists idx_ride_dropoff_place_id on ride (dropoff_place_id);
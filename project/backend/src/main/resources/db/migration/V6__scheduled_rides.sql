@@ -0,0 +1,8 @@
+-- Rides booked ahead: status SCHEDULED until released into the pending pool
+alter table ride add column if not exists scheduled_pickup_at timestamp(6);
+
+-- Only read at startup to refill the scheduling wheel
+create index if not exists idx_ride_scheduled on ride (scheduled_pickup_at) where status = 'SCHEDULED';
+
+-- New event type RELEASED; drop the enum check Hibernate adds when it creates the table
+alter table ride_events drop constraint if exists ride_events_type_check;
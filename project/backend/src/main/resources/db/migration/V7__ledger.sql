@@ -0,0 +1,54 @@
+-- Double-entry ledger: accounts with running balances, journal transactions and their entries
+create table if not exists ledger_accounts (
+    id bigint generated by default as identity,
+    type varchar(20) not null,
+    owner_id bigint not null,
+    currency varchar(3) not null,
+    balance bigint not null,
+    primary key (id),
+    unique (type, owner_id)
+);
+
+create table if not exists ledger_transactions (
+    id bigint generated by default as identity,
+    type varchar(16) not null,
+    reference varchar(64) unique,
+    user_id bigint,
+    ride_id bigint,
+    amount bigint not null,
+    currency varchar(3) not null,
+    payment_method varchar(255),
+    description varchar(255),
+    created_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index if not exists idx_ledger_tx_user on ledger_transactions (user_id, id);
+create index if not exists idx_ledger_tx_ride on ledger_transactions (ride_id);
+
+create table if not exists ledger_entries (
+    id bigint generated by default as identity,
+    transaction_id bigint not null,
+    account_id bigint not null,
+    amount bigint not null,
+    primary key (id)
+);
+
+create index if not exists idx_ledger_entries_account on ledger_entries (account_id);
+create index if not exists idx_ledger_entries_tx on ledger_entries (transaction_id);
+
+create table if not exists payment_methods (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    type varchar(255),
+    brand varchar(255),
+    last4 varchar(255),
+    expiry_month integer,
+    expiry_year integer,
+    provider varchar(255),
+    phone_number varchar(255),
+    is_default boolean not null,
+    primary key (id)
+);
+
+create index if not exists idx_payment_methods_user on payment_methods (user_id);
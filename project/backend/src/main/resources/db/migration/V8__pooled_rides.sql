@@ -0,0 +1,7 @@
+-- Shared rides: pool_id is the id of the first ride in the shared trip, and
+-- estimated_fare is the rider's share of solo_fare
+alter table ride add column if not exists pooled boolean;
+alter table ride add column if not exists pool_id bigint;
+alter table ride add column if not exists solo_fare double precision;
+
+create index if not exists idx_ride_pool_id on ride (pool_id);
@@ -0,0 +1,2 @@
+-- Optimistic-lock version for users; ride views embed the rider, so their ETags include it
+alter table users add column if not exists version bigint not null default 0;
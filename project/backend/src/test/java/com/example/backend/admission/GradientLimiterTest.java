@@ -0,0 +1,129 @@
+package com.example.backend.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GradientLimiterTest {
+
+    private static GradientLimiter limiter(int initialLimit, int maxLimit, int queueCapacity, long maxWaitMs) {
+        GradientLimiter limiter = new GradientLimiter(Priority.NORMAL, initialLimit, maxLimit, queueCapacity,
+                maxWaitMs, 1);
+        limiter.init();
+        return limiter;
+    }
+
+    @Test
+    void admitsUpToTheLimitThenSheds() throws InterruptedException {
+        GradientLimiter limiter = limiter(2, 10, 0, 0);
+
+        assertThat(limiter.acquire(true, false)).isEqualTo(GradientLimiter.Outcome.ADMITTED);
+        assertThat(limiter.acquire(true, false)).isEqualTo(GradientLimiter.Outcome.ADMITTED);
+        assertThat(limiter.acquire(true, false)).isEqualTo(GradientLimiter.Outcome.SHED);
+        assertThat(limiter.active()).isEqualTo(2);
+    }
+
+    @Test
+    void aQueuedRequestTimesOutAfterMaxWait() throws InterruptedException {
+        GradientLimiter limiter = limiter(1, 10, 5, 50);
+        limiter.acquire(true, false);
+
+        long start = System.nanoTime();
+        assertThat(limiter.acquire(true, false)).isEqualTo(GradientLimiter.Outcome.TIMED_OUT);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    void aReleaseAdmitsTheNextQueuedRequest() throws Exception {
+        GradientLimiter limiter = limiter(1, 10, 5, 5000);
+        limiter.acquire(true, false);
+
+        CompletableFuture<GradientLimiter.Outcome> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire(true, false);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (limiter.queued() == 0)
+            Thread.sleep(1);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo(GradientLimiter.Outcome.ADMITTED);
+    }
+
+    @Test
+    void aReleaseReachesAWaiterQueuedBehindOneThatCannotGo() throws Exception {
+        GradientLimiter limiter = limiter(2, 10, 5, 5000);
+        limiter.acquire(true, false);
+        limiter.acquire(true, false);
+
+        // Restricted to the min limit, so a single release does not let it in
+        CompletableFuture<GradientLimiter.Outcome> restricted = queue(limiter, true);
+        while (limiter.queued() < 1)
+            Thread.sleep(1);
+        CompletableFuture<GradientLimiter.Outcome> unrestricted = queue(limiter, false);
+        while (limiter.queued() < 2)
+            Thread.sleep(1);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertThat(unrestricted.get(1, TimeUnit.SECONDS)).isEqualTo(GradientLimiter.Outcome.ADMITTED);
+        assertThat(restricted).isNotDone();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(restricted.get(1, TimeUnit.SECONDS)).isEqualTo(GradientLimiter.Outcome.ADMITTED);
+    }
+
+    private static CompletableFuture<GradientLimiter.Outcome> queue(GradientLimiter limiter, boolean restricted) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire(true, restricted);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void aRestrictedClassOnlyGetsItsMinLimit() throws InterruptedException {
+        GradientLimiter limiter = limiter(5, 10, 0, 0);
+
+        assertThat(limiter.acquire(false, true)).isEqualTo(GradientLimiter.Outcome.ADMITTED);
+        assertThat(limiter.acquire(false, true)).isEqualTo(GradientLimiter.Outcome.SHED);
+        assertThat(limiter.acquire(false, false)).isEqualTo(GradientLimiter.Outcome.ADMITTED);
+    }
+
+    @Test
+    void slowerWindowsShrinkTheLimitAndReportCongestion() throws InterruptedException {
+        GradientLimiter limiter = limiter(100, 200, 0, 0);
+        for (int i = 0; i < 100; i++)
+            limiter.acquire(false, false);
+
+        // A full window at 1 ms: the baseline, and the limit grows
+        Thread.sleep(260);
+        for (int i = 0; i < 10; i++)
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(limiter.limit()).isGreaterThan(100);
+        assertThat(limiter.congested()).isFalse();
+
+        // Ten times slower: well past the tolerance
+        Thread.sleep(260);
+        for (int i = 0; i < 10; i++)
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(limiter.limit()).isLessThan(100);
+        assertThat(limiter.congested()).isTrue();
+    }
+
+    @Test
+    void minLimitMustNotExceedMaxLimit() {
+        GradientLimiter limiter = new GradientLimiter(Priority.NORMAL, 5, 10, 0, 0, 1);
+        limiter.setMinLimit(20);
+
+        assertThatThrownBy(limiter::init).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.backend.cluster;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import com.example.backend.model.Driver;
+import com.example.backend.model.Ride;
+import com.example.backend.repository.DriverRepository;
+import com.example.backend.service.CredentialStore;
+import com.example.backend.service.JpaCredentialStore;
+import com.example.backend.service.RideOfferService;
+import com.example.backend.service.RideService;
+import com.example.backend.service.RideVersionCache;
+import com.example.backend.service.SessionTokenStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Two backend nodes in one JVM, sharing the embedded database and talking over LISTEN/NOTIFY
+class ClusterNodesTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = node();
+        nodeB = node();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null)
+            nodeB.close();
+        if (nodeA != null)
+            nodeA.close();
+    }
+
+    @Test
+    void aRevokedSessionIsRejectedOnTheOtherNode() throws InterruptedException {
+        SessionTokenStore a = nodeA.getBean(SessionTokenStore.class);
+        SessionTokenStore b = nodeB.getBean(SessionTokenStore.class);
+        String token = a.issue("cluster-rider@example.com");
+        // B now has the session cached
+        assertThat(b.lookup(token)).isEqualTo("cluster-rider@example.com");
+
+        a.revokeAll("cluster-rider@example.com");
+
+        await(() -> b.lookup(token) == null);
+    }
+
+    @Test
+    void aCodeIssuedOnOneNodeVerifiesOnTheOther() {
+        CredentialStore a = nodeA.getBean(CredentialStore.class);
+        CredentialStore b = nodeB.getBean(CredentialStore.class);
+        assertThat(a).isInstanceOf(JpaCredentialStore.class);
+
+        a.issue(CredentialStore.Purpose.OTP, "cluster-login@example.com", "246810", Duration.ofMinutes(5));
+
+        assertThat(b.verify(CredentialStore.Purpose.OTP, "cluster-login@example.com", "246810"))
+                .isEqualTo(CredentialStore.Result.VALID);
+    }
+
+    @Test
+    void aRideWriteOutdatesTheOtherNodesETag() throws InterruptedException {
+        Long id = nodeA.getBean(RideService.class).bookRide(ride()).getId();
+
+        RideVersionCache cacheB = nodeB.getBean(RideVersionCache.class);
+        String tag = cacheB.recordRide(nodeB.getBean(RideService.class).getRideById(id).orElseThrow());
+        assertThat(cacheB.rideTag(id)).isEqualTo(tag);
+
+        nodeA.getBean(RideService.class).acceptRide(id, 900_000L);
+
+        await(() -> cacheB.rideTag(id) == null);
+    }
+
+    @Test
+    void aRideOfferedOnOneNodeCanBeTakenOnTheOther() throws InterruptedException {
+        nodeA.getBean(JdbcTemplate.class).update("update drivers set available = false");
+        Driver driver = new Driver("Cluster Driver", "0780000001");
+        driver.setAvailable(true);
+        Long driverId = nodeA.getBean(DriverRepository.class).save(driver).getId();
+        Long id = nodeA.getBean(RideService.class).bookRide(ride()).getId();
+
+        RideOfferService offersA = nodeA.getBean(RideOfferService.class);
+        RideOfferService offersB = nodeB.getBean(RideOfferService.class);
+        assertThat(offersA.isUnderOffer(id)).isTrue();
+        await(() -> offersB.getOffers(driverId).stream().anyMatch(offer -> offer.rideId().equals(id)));
+        assertThat(offersB.isUnderOffer(id)).isTrue();
+
+        assertThat(offersB.accept(id, driverId)).get().extracting(Ride::getDriverId).isEqualTo(driverId);
+
+        await(() -> !offersA.isUnderOffer(id));
+        assertThat(offersA.accept(id, driverId)).isEmpty();
+    }
+
+    // What a node sends after it had to drop events
+    @Test
+    void aResetFromOneNodeClearsTheOtherNodesCaches() throws InterruptedException {
+        RideVersionCache b = nodeB.getBean(RideVersionCache.class);
+        b.recordDriver(990_001L, 1L);
+        assertThat(b.driverTag(990_001L)).isNotNull();
+
+        nodeA.getBean(ClusterBus.class).publish(ClusterEvent.reset());
+
+        await(() -> b.driverTag(990_001L) == null);
+    }
+
+    @Test
+    void anInMemoryCredentialStoreIsRefusedWhenClustered() {
+        assertThatThrownBy(() -> node("app.credentials.store=memory").close())
+                .hasStackTraceContaining("app.credentials.store=memory keeps OTPs on one node");
+    }
+
+    private static Ride ride() {
+        Ride ride = new Ride();
+        ride.setRiderId(3000L);
+        ride.setPickupLocation("Remera");
+        ride.setDropoffLocation("Kacyiru");
+        ride.setEstimatedFare(1500.0);
+        ride.setDistance(4.0);
+        ride.setDuration(12);
+        ride.setPaymentMethod("cash");
+        return ride;
+    }
+
+    // Arguments, so they override application.properties
+    private static ConfigurableApplicationContext node(String... properties) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0", "--app.cluster.enabled=true"));
+        for (String property : properties)
+            args.add("--" + property);
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .profiles(EmbeddedPostgresEnvironment.PROFILE)
+                .run(args.toArray(String[]::new));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (condition.getAsBoolean())
+                return;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Not seen on the other node within 10 s");
+    }
+}
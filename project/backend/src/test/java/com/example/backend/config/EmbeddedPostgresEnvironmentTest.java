@@ -0,0 +1,54 @@
+package com.example.backend.config;
+
+import com.example.backend.model.Ride;
+import com.example.backend.service.LedgerService;
+import com.example.backend.service.RideEventReplayer;
+import com.example.backend.service.RideService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The Postgres-specific paths (sequences, ledger SQL, event log) on the in-process server
+@SpringBootTest
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class EmbeddedPostgresEnvironmentTest {
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private RideEventReplayer rideEventReplayer;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Test
+    void runsTheRideLifecycleWithoutADatabaseServer() {
+        assertThat(url).startsWith("jdbc:postgresql://localhost:");
+
+        Ride ride = new Ride();
+        ride.setRiderId(3L);
+        ride.setPickupLocation("Remera");
+        ride.setDropoffLocation("Kacyiru");
+        ride.setEstimatedFare(1500.0);
+        ride.setDistance(4.0);
+        ride.setDuration(12);
+        ride.setPaymentMethod("cash");
+        Long id = rideService.bookRide(ride).getId();
+        rideService.acceptRide(id, 900_000L);
+        rideService.startRide(id);
+        Ride completed = rideService.completeRide(id);
+
+        assertThat(completed.getStatus()).isEqualTo("COMPLETED");
+        assertThat(completed.getChangeVersion()).isNotNull();
+        assertThat(ledgerService.check().consistent()).isTrue();
+        assertThat(rideEventReplayer.rebuildLatest().rides().get(id).status()).isEqualTo("COMPLETED");
+    }
+}
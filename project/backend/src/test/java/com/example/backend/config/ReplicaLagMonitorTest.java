@@ -0,0 +1,36 @@
+package com.example.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The primary stands in for a replica that is fully replayed
+@SpringBootTest
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class ReplicaLagMonitorTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void aReadingThatIsNoLongerRefreshedStopsCounting() throws InterruptedException {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(dataSource, 2000, 10);
+        assertThat(monitor.isReplicaUsable()).isFalse();
+
+        monitor.check();
+        assertThat(monitor.getLagMillis()).isZero();
+        assertThat(monitor.isReplicaUsable()).isTrue();
+
+        // Three missed checks plus the query timeout
+        Thread.sleep(2100);
+        assertThat(monitor.isReplicaUsable()).isFalse();
+
+        monitor.check();
+        assertThat(monitor.isReplicaUsable()).isTrue();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.backend.controller;
+
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import com.example.backend.service.IdempotencyService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Lifecycle endpoints at their most expensive (Idempotency-Key, new ledger accounts, full shared trips) with
+// budgets enforced: a statement over an endpoint's @QueryBudget fails the request
+@SpringBootTest(properties = "app.query-stats.enforce-budgets=true")
+@AutoConfigureMockMvc
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class RideControllerQueryBudgetTest {
+
+    private static final AtomicLong IDS = new AtomicLong(4000);
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void aRideLifecycleStaysWithinItsBudgets() throws Exception {
+        long driverId = IDS.incrementAndGet();
+        long rideId = book("Remera", "Kacyiru", false).path("id").asLong();
+
+        send("/api/rides/accept", Map.of("rideId", rideId, "driverId", driverId));
+        send("/api/rides/start/" + rideId, null);
+        send("/api/rides/complete/" + rideId, null);
+        JsonNode rated = send("/api/rides/rate", Map.of("rideId", rideId, "rating", 5, "comment", "on time"));
+
+        assertThat(rated.path("status").asText()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void aFullSharedTripStaysWithinItsBudgets() throws Exception {
+        long first = book("Nyamirambo", "Downtown Kigali", true).path("id").asLong();
+        book("Nyamirambo", "Downtown Kigali", true);
+        JsonNode third = book("Nyamirambo", "Downtown Kigali", true);
+        assertThat(third.path("poolId").asLong()).isEqualTo(first);
+
+        send("/api/rides/accept", Map.of("rideId", third.path("id").asLong(), "driverId", IDS.incrementAndGet()));
+    }
+
+    @Test
+    void leavingAFullSharedTripStaysWithinItsBudget() throws Exception {
+        long first = book("Kimironko Market", "Kacyiru", true).path("id").asLong();
+        book("Kimironko Market", "Kacyiru", true);
+        assertThat(book("Kimironko Market", "Kacyiru", true).path("poolId").asLong()).isEqualTo(first);
+
+        JsonNode cancelled = send("/api/rides/cancel/" + first, null);
+
+        assertThat(cancelled.path("status").asText()).isEqualTo("CANCELLED");
+    }
+
+    private JsonNode book(String pickup, String dropoff, boolean pooled) throws Exception {
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("riderId", IDS.incrementAndGet());
+        ride.put("pickupLocation", pickup);
+        ride.put("dropoffLocation", dropoff);
+        ride.put("estimatedFare", 2000);
+        ride.put("distance", 5.0);
+        ride.put("duration", 15);
+        ride.put("paymentMethod", "cash");
+        ride.put("pooled", pooled);
+        return send("/api/rides/book", ride);
+    }
+
+    // Every call carries an Idempotency-Key, which costs a claim and storing the response
+    private JsonNode send(String path, Object body) throws Exception {
+        String response = mvc.perform(post(path)
+                        .header(IdempotencyService.HEADER, UUID.randomUUID().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body == null ? "" : objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+}
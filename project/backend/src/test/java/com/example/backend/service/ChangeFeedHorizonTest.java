@@ -0,0 +1,100 @@
+package com.example.backend.service;
+
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import com.example.backend.dto.RideChanges;
+import com.example.backend.dto.RideState;
+import com.example.backend.model.Ride;
+import com.example.backend.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A client following the change feed sees a write that took its version before a concurrent one but committed after it
+@SpringBootTest
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class ChangeFeedHorizonTest {
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void theCursorStaysBelowAWriteThatHasNotCommitted() throws Exception {
+        CountDownLatch versionTaken = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        AtomicLong slowVersion = new AtomicLong();
+        CompletableFuture<Ride> slow = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Ride ride = ride();
+            ride.setChangeVersion(rideRepository.nextChangeVersion());
+            slowVersion.set(ride.getChangeVersion());
+            Ride saved = rideRepository.saveAndFlush(ride);
+            versionTaken.countDown();
+            await(commit);
+            return saved;
+        }));
+        assertThat(versionTaken.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Takes a later version and commits first
+        Ride fast = rideService.bookRide(ride());
+
+        assertThat(fast.getChangeVersion()).isGreaterThan(slowVersion.get());
+
+        RideChanges early = rideService.getChanges(slowVersion.get() - 1, 100);
+        assertThat(early.rides()).extracting(RideState::id).doesNotContain(fast.getId());
+        assertThat(early.cursor()).isLessThan(slowVersion.get());
+
+        commit.countDown();
+        Ride slowRide = slow.get(10, TimeUnit.SECONDS);
+
+        // Follow the cursor the way a client does
+        Set<Long> seen = new HashSet<>();
+        long cursor = early.cursor();
+        for (int i = 0; i < 100 && !seen.containsAll(Set.of(slowRide.getId(), fast.getId())); i++) {
+            RideChanges page = rideService.getChanges(cursor, 100);
+            page.rides().forEach(ride -> seen.add(ride.id()));
+            cursor = page.cursor();
+            if (!page.hasMore())
+                Thread.sleep(50);
+        }
+        assertThat(seen).contains(slowRide.getId(), fast.getId());
+    }
+
+    private static Ride ride() {
+        Ride ride = new Ride();
+        ride.setRiderId(4000L);
+        ride.setPickupLocation("Remera");
+        ride.setDropoffLocation("Kacyiru");
+        ride.setStatus("PENDING");
+        ride.setBookedAt(LocalDateTime.now());
+        ride.setEstimatedFare(1500.0);
+        ride.setDistance(4.0);
+        ride.setDuration(12);
+        ride.setPaymentMethod("cash");
+        return ride;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
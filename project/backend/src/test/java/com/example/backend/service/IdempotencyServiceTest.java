@@ -0,0 +1,131 @@
+package com.example.backend.service;
+
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aRetryGetsTheFirstResponseBack() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<?> first = idempotencyService.execute("test", key, Map.of("a", 1, "b", 2),
+                () -> ResponseEntity.ok(Map.of("run", runs.incrementAndGet())));
+        // Same body, other key order
+        ResponseEntity<?> retry = idempotencyService.execute("test", key, Map.of("b", 2, "a", 1),
+                () -> ResponseEntity.ok(Map.of("run", runs.incrementAndGet())));
+
+        assertThat(first.getStatusCode().value()).isEqualTo(200);
+        assertThat(retry.getStatusCode().value()).isEqualTo(200);
+        assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retry.getBody()).isEqualTo("{\"run\":1}");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void aKeyReusedForAnotherRequestIsRejected() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+
+        idempotencyService.execute("test", key, List.of(1L, 100L), () -> ResponseEntity.ok(runs.incrementAndGet()));
+        ResponseEntity<?> other = idempotencyService.execute("test", key, List.of(1L, 200L),
+                () -> ResponseEntity.ok(runs.incrementAndGet()));
+
+        assertThat(other.getStatusCode().value()).isEqualTo(422);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void conflictsAreNotStored() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<?> shortOfFunds = idempotencyService.execute("test", key, 7L, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(409).body("Insufficient funds");
+        });
+        ResponseEntity<?> afterTopUp = idempotencyService.execute("test", key, 7L,
+                () -> ResponseEntity.ok(runs.incrementAndGet()));
+
+        assertThat(shortOfFunds.getStatusCode().value()).isEqualTo(409);
+        assertThat(afterTopUp.getStatusCode().value()).isEqualTo(200);
+        assertThat(afterTopUp.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void requestErrorsAreStored() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++)
+            idempotencyService.execute("test", key, List.of(), () -> {
+                runs.incrementAndGet();
+                return ResponseEntity.badRequest().body("Batch is empty");
+            });
+
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void aTextResponseIsReplayedAsText() {
+        String key = UUID.randomUUID().toString();
+        ResponseEntity<?> replayed = null;
+        for (int i = 0; i < 2; i++)
+            replayed = idempotencyService.execute("test", key, 9L,
+                    () -> ResponseEntity.badRequest().body("Batch is empty"));
+
+        assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(replayed.getHeaders().getContentType()).isEqualTo(MediaType.TEXT_PLAIN);
+        assertThat(replayed.getBody()).isEqualTo("Batch is empty");
+        assertThat(jdbcTemplate.queryForObject("select content_type from idempotency_keys where idempotency_key = ?",
+                String.class, "test:" + key)).isEqualTo("text/plain");
+    }
+
+    @Test
+    void aDuplicateOfARequestRunningOnAnotherNodeWaitsForItsResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+
+        // The other node has claimed the key and is still running
+        jdbcTemplate.update("insert into idempotency_keys (idempotency_key, created_at, expires_at) "
+                + "values (?, now(), now() + interval '1 minute')", "test:" + key);
+        CompletableFuture<ResponseEntity<?>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("test", key, 5L, () -> ResponseEntity.ok(runs.incrementAndGet())));
+
+        Thread.sleep(300);
+        assertThat(duplicate).isNotDone();
+        jdbcTemplate.update("update idempotency_keys set status_code = 201, response_body = '{\"id\":42}', "
+                + "content_type = 'application/json' where idempotency_key = ?", "test:" + key);
+
+        ResponseEntity<?> response = duplicate.get(10, TimeUnit.SECONDS);
+        assertThat(response.getStatusCode().value()).isEqualTo(201);
+        assertThat(response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(response.getBody()).isEqualTo("{\"id\":42}");
+        assertThat(runs).hasValue(0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.backend.service;
+
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import com.example.backend.repository.ShortLivedCredentialRepository;
+import com.example.backend.service.CredentialStore.Purpose;
+import com.example.backend.service.CredentialStore.Result;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"app.credentials.store=database", "app.credentials.max-attempts=5"})
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class JpaCredentialStoreTest {
+
+    @Autowired
+    private CredentialStore credentialStore;
+
+    @Autowired
+    private ShortLivedCredentialRepository credentialRepository;
+
+    @Test
+    void concurrentGuessesNeverGetPastTheLimit() throws Exception {
+        credentialStore.issue(Purpose.OTP, "race@example.com", "123456", Duration.ofMinutes(5));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Result>> guesses = new ArrayList<>();
+            for (int i = 0; i < 40; i++)
+                guesses.add(pool.submit(() -> credentialStore.verify(Purpose.OTP, "race@example.com", "000000")));
+            long invalid = 0;
+            for (Future<Result> guess : guesses)
+                if (guess.get() == Result.INVALID)
+                    invalid++;
+            assertThat(invalid).isEqualTo(5);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(credentialRepository.findById("OTP:race@example.com").orElseThrow().getAttempts()).isEqualTo(5);
+        assertThat(credentialStore.verify(Purpose.OTP, "race@example.com", "123456")).isEqualTo(Result.LOCKED);
+    }
+
+    @Test
+    void theRightSecretIsAcceptedOnce() {
+        credentialStore.issue(Purpose.OTP, "once@example.com", "654321", Duration.ofMinutes(5));
+
+        assertThat(credentialStore.verify(Purpose.OTP, "once@example.com", "000000")).isEqualTo(Result.INVALID);
+        assertThat(credentialStore.verify(Purpose.OTP, "once@example.com", "654321")).isEqualTo(Result.VALID);
+        assertThat(credentialStore.verify(Purpose.OTP, "once@example.com", "654321")).isEqualTo(Result.EXPIRED);
+    }
+
+    @Test
+    void wrongResetTokensDoNotLockTheUsersReset() {
+        credentialStore.issue(Purpose.PASSWORD_RESET, "42", "the-real-secret", Duration.ofHours(1));
+
+        for (int i = 0; i < 20; i++)
+            assertThat(credentialStore.verify(Purpose.PASSWORD_RESET, "42", "guess-" + i)).isEqualTo(Result.INVALID);
+        assertThat(credentialStore.verify(Purpose.PASSWORD_RESET, "42", "the-real-secret")).isEqualTo(Result.VALID);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.backend.service;
+
+import com.example.backend.model.RideEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RideEventLogTest {
+
+    private final RideEventLog log = new RideEventLog();
+
+    @Test
+    void returnsEverythingWithoutGaps() {
+        ReflectionTestUtils.setField(log, "gapTimeoutMs", 60_000L);
+
+        assertThat(seqs(log.contiguous(10, events(11, 12, 13)))).containsExactly(11L, 12L, 13L);
+    }
+
+    @Test
+    void stopsAtAGapThatMayStillFill() {
+        ReflectionTestUtils.setField(log, "gapTimeoutMs", 60_000L);
+
+        // 12 is taken by another node but not committed yet
+        assertThat(seqs(log.contiguous(10, events(11, 13, 14)))).containsExactly(11L);
+        assertThat(seqs(log.contiguous(10, events(13, 14)))).isEmpty();
+        // It committed
+        assertThat(seqs(log.contiguous(11, events(12, 13, 14)))).containsExactly(12L, 13L, 14L);
+    }
+
+    @Test
+    void passesAGapOnceItHasTimedOut() throws InterruptedException {
+        ReflectionTestUtils.setField(log, "gapTimeoutMs", 20L);
+
+        assertThat(seqs(log.contiguous(10, events(12, 13)))).isEmpty();
+        Thread.sleep(30);
+        assertThat(seqs(log.contiguous(10, events(12, 13)))).containsExactly(12L, 13L);
+        // Later readers reaching the same gap do not wait again
+        assertThat(seqs(log.contiguous(10, events(12)))).containsExactly(12L);
+    }
+
+    private static List<RideEvent> events(long... seqs) {
+        return Arrays.stream(seqs).mapToObj(seq -> {
+            RideEvent event = new RideEvent();
+            ReflectionTestUtils.setField(event, "seq", seq);
+            return event;
+        }).toList();
+    }
+
+    private static List<Long> seqs(List<RideEvent> events) {
+        return events.stream().map(RideEvent::getSeq).toList();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.backend.service;
+
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import com.example.backend.model.Ride;
+import com.example.backend.model.RideEvent;
+import com.example.backend.repository.RideEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class RideEventReplayerTest {
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private RideEventReplayer rideEventReplayer;
+
+    @Autowired
+    private RideEventRepository rideEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void replayDropsDeletedRides() throws InterruptedException {
+        Ride ride = new Ride();
+        ride.setRiderId(2000L);
+        ride.setPickupLocation("Remera");
+        ride.setDropoffLocation("Kacyiru");
+        ride.setEstimatedFare(1500.0);
+        ride.setDistance(4.0);
+        ride.setDuration(12);
+        ride.setPaymentMethod("cash");
+        Long kept = rideService.bookRide(ride).getId();
+        ride = new Ride();
+        ride.setRiderId(2001L);
+        ride.setPickupLocation("Remera");
+        ride.setDropoffLocation("Nyamirambo");
+        ride.setEstimatedFare(2500.0);
+        ride.setDistance(7.0);
+        ride.setDuration(20);
+        ride.setPaymentMethod("cash");
+        Long deleted = rideService.bookRide(ride).getId();
+        rideService.deleteRide(deleted);
+
+        awaitEvent(deleted, RideEvent.Type.DELETED);
+        RideEventReplayer.Replay replay = rideEventReplayer.rebuildLatest();
+
+        assertThat(replay.rides()).containsKey(kept).doesNotContainKey(deleted);
+        // A snapshot keeps it out too
+        rideEventReplayer.takeSnapshot();
+        assertThat(rideEventReplayer.rebuildLatest().rides()).containsKey(kept).doesNotContainKey(deleted);
+    }
+
+    @Test
+    void anOlderVersionLoggedLaterByAnotherNodeIsSkipped() throws InterruptedException {
+        Ride ride = new Ride();
+        ride.setRiderId(2002L);
+        ride.setPickupLocation("Remera");
+        ride.setDropoffLocation("Kacyiru");
+        ride.setEstimatedFare(1500.0);
+        ride.setDistance(4.0);
+        ride.setDuration(12);
+        ride.setPaymentMethod("cash");
+        Long id = rideService.bookRide(ride).getId();
+        rideService.acceptRide(id, 900_000L);
+        awaitEvent(id, RideEvent.Type.ACCEPTED);
+
+        // The booking event again, as if a slower node's writer got to it after the accept
+        jdbcTemplate.update("insert into ride_events (ride_id, type, occurred_at, payload) "
+                + "select ride_id, type, occurred_at, payload from ride_events where ride_id = ? and type = 'BOOKED'", id);
+
+        assertThat(rideEventReplayer.rebuildLatest().rides().get(id).status()).isEqualTo("ACCEPTED");
+    }
+
+    // Appends are written by the log's writer thread
+    private void awaitEvent(Long rideId, RideEvent.Type type) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (rideEventRepository.findByRideIdOrderBySeqAsc(rideId).stream().anyMatch(e -> e.getType() == type))
+                return;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("No " + type + " event for ride " + rideId);
+    }
+}
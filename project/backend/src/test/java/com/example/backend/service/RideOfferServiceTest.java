@@ -0,0 +1,110 @@
+package com.example.backend.service;
+
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import com.example.backend.dto.RideOffer;
+import com.example.backend.model.Driver;
+import com.example.backend.model.Ride;
+import com.example.backend.repository.DriverRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Offers go to one driver at a time here, cascade on decline or expiry and end on the available list
+@SpringBootTest(properties = {
+        "app.offers.batch-size=1",
+        "app.offers.timeout-seconds=1",
+        "app.offers.max-rounds=2"})
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class RideOfferServiceTest {
+
+    @Autowired
+    private RideOfferService offers;
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long first;
+    private Long second;
+
+    // Only this test's drivers are online, the first longest idle
+    @BeforeEach
+    void drivers() {
+        jdbcTemplate.update("update drivers set available = false");
+        first = online("First");
+        second = online("Second");
+    }
+
+    @Test
+    void aDeclinedOfferCascadesToTheNextDriver() {
+        Long rideId = book();
+        assertThat(offeredTo(first, rideId)).isTrue();
+        assertThat(offeredTo(second, rideId)).isFalse();
+        assertThat(offers.isUnderOffer(rideId)).isTrue();
+
+        assertThat(offers.decline(rideId, first)).isTrue();
+
+        assertThat(offeredTo(second, rideId)).isTrue();
+        assertThat(offers.accept(rideId, first)).isEmpty();
+        assertThat(offers.accept(rideId, second)).get().extracting(Ride::getDriverId).isEqualTo(second);
+        assertThat(offers.isUnderOffer(rideId)).isFalse();
+        assertThat(offers.accept(rideId, second)).isEmpty();
+    }
+
+    @Test
+    void anUnansweredOfferExpiresToTheNextDriverThenToTheAvailableList() throws InterruptedException {
+        Long rideId = book();
+        assertThat(offeredTo(first, rideId)).isTrue();
+
+        await(() -> offeredTo(second, rideId));
+        assertThat(offeredTo(first, rideId)).isFalse();
+
+        // Out of rounds
+        await(() -> !offers.isUnderOffer(rideId));
+        assertThat(offeredTo(second, rideId)).isFalse();
+        assertThat(rideService.getAvailableRides()).anyMatch(ride -> ride.id().equals(rideId));
+    }
+
+    private boolean offeredTo(Long driverId, Long rideId) {
+        return offers.getOffers(driverId).stream().map(RideOffer::rideId).anyMatch(rideId::equals);
+    }
+
+    private Long online(String name) {
+        Driver driver = new Driver(name, "0780000000");
+        driver.setAvailable(true);
+        return driverRepository.save(driver).getId();
+    }
+
+    private Long book() {
+        Ride ride = new Ride();
+        ride.setRiderId(5000L);
+        ride.setPickupLocation("Remera");
+        ride.setDropoffLocation("Kacyiru");
+        ride.setEstimatedFare(1500.0);
+        ride.setDistance(4.0);
+        ride.setDuration(12);
+        ride.setPaymentMethod("cash");
+        return rideService.bookRide(ride).getId();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (condition.getAsBoolean())
+                return;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Not reached within 5 s");
+    }
+}
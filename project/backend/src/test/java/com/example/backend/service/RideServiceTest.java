@@ -0,0 +1,160 @@
+package com.example.backend.service;
+
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import com.example.backend.dto.RideBatchResult;
+import com.example.backend.dto.RideCommand;
+import com.example.backend.model.Ride;
+import com.example.backend.repository.LedgerTransactionRepository;
+import com.example.backend.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Completions and their ledger charges commit together
+@SpringBootTest
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class RideServiceTest {
+
+    private static final AtomicLong RIDERS = new AtomicLong(1000);
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private LedgerTransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aRideThatNeverStartedIsNotChargedOrCompleted() {
+        Long id = book(RIDERS.incrementAndGet(), "cash").getId();
+
+        assertThatThrownBy(() -> rideService.completeRide(id)).isInstanceOf(RideStateException.class);
+
+        assertThat(status(id)).isEqualTo("PENDING");
+        assertThat(charged(id)).isFalse();
+    }
+
+    @Test
+    void aCancelledRideIsNotCharged() {
+        Long id = book(RIDERS.incrementAndGet(), "cash").getId();
+        rideService.cancelRide(id);
+
+        assertThatThrownBy(() -> rideService.completeRide(id)).isInstanceOf(RideStateException.class);
+
+        assertThat(status(id)).isEqualTo("CANCELLED");
+        assertThat(charged(id)).isFalse();
+    }
+
+    @Test
+    void aWalletRideShortOfFundsStaysStartedAndUncharged() {
+        Long id = started(book(RIDERS.incrementAndGet(), "wallet").getId());
+
+        assertThatThrownBy(() -> rideService.completeRide(id)).isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(status(id)).isEqualTo("STARTED");
+        assertThat(charged(id)).isFalse();
+        assertThat(ledgerService.check().consistent()).isTrue();
+    }
+
+    @Test
+    void aStartedRideIsChargedOnceAndCompleted() {
+        long rider = RIDERS.incrementAndGet();
+        ledgerService.topUp(rider, 5000, null);
+        Long id = started(book(rider, "wallet").getId());
+
+        rideService.completeRide(id);
+        assertThatThrownBy(() -> rideService.completeRide(id)).isInstanceOf(RideStateException.class);
+
+        assertThat(status(id)).isEqualTo("COMPLETED");
+        assertThat(charged(id)).isTrue();
+        assertThat(ledgerService.walletBalance(rider).balance()).isEqualTo(3500);
+        assertThat(ledgerService.check().consistent()).isTrue();
+    }
+
+    @Test
+    void batchCompletionsOnlyChargeStartedRides() {
+        Long pending = book(RIDERS.incrementAndGet(), "cash").getId();
+        Long started = started(book(RIDERS.incrementAndGet(), "cash").getId());
+
+        RideBatchResult result = rideService.applyBatch(List.of(
+                new RideCommand(RideCommand.Action.COMPLETE, pending, null),
+                new RideCommand(RideCommand.Action.COMPLETE, started, null)));
+
+        assertThat(result.items().get(0).outcome()).isEqualTo(RideBatchResult.Outcome.CONFLICT);
+        assertThat(result.items().get(1).outcome()).isEqualTo(RideBatchResult.Outcome.APPLIED);
+        assertThat(charged(pending)).isFalse();
+        assertThat(charged(started)).isTrue();
+        assertThat(status(started)).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void refundsReverseTheDriverAndPlatformSharesInProportion() {
+        long rider = RIDERS.incrementAndGet();
+        ledgerService.topUp(rider, 5000, null);
+        Long id = started(book(rider, "wallet").getId());
+        rideService.completeRide(id);
+
+        ledgerService.refundRide(id, 501L);
+        assertThat(net(id, "DRIVER_EARNINGS") + net(id, "PLATFORM_REVENUE")).isEqualTo(999);
+        assertThat(net(id, "DRIVER_EARNINGS")).isBetween(799L, 800L);
+
+        // The rest
+        ledgerService.refundRide(id, null);
+        assertThatThrownBy(() -> ledgerService.refundRide(id, 1L)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(net(id, "DRIVER_EARNINGS")).isZero();
+        assertThat(net(id, "PLATFORM_REVENUE")).isZero();
+        assertThat(ledgerService.walletBalance(rider).balance()).isEqualTo(5000);
+        assertThat(ledgerService.check().consistent()).isTrue();
+    }
+
+    private Ride book(long riderId, String paymentMethod) {
+        Ride ride = new Ride();
+        ride.setRiderId(riderId);
+        ride.setPickupLocation("Remera");
+        ride.setDropoffLocation("Kacyiru");
+        ride.setEstimatedFare(1500.0);
+        ride.setDistance(4.0);
+        ride.setDuration(12);
+        ride.setPaymentMethod(paymentMethod);
+        return rideService.bookRide(ride);
+    }
+
+    private Long started(Long rideId) {
+        // A driver id no test creates: offer tests count on their own drivers being idle
+        rideService.acceptRide(rideId, 900_000L);
+        rideService.startRide(rideId);
+        return rideId;
+    }
+
+    private String status(Long rideId) {
+        return rideRepository.findById(rideId).orElseThrow().getStatus();
+    }
+
+    // What the ride's charge and refunds left on accounts of a type
+    private long net(Long rideId, String accountType) {
+        return jdbcTemplate.queryForObject("select coalesce(sum(e.amount), 0) from ledger_entries e "
+                + "join ledger_transactions t on t.id = e.transaction_id join ledger_accounts a on a.id = e.account_id "
+                + "where t.ride_id = ? and a.type = ?", Long.class, rideId, accountType);
+    }
+
+    private boolean charged(Long rideId) {
+        return transactionRepository.findByReference("ride:" + rideId + ":charge").isPresent();
+    }
+}
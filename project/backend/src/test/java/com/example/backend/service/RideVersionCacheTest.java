@@ -0,0 +1,117 @@
+package com.example.backend.service;
+
+import com.example.backend.cluster.ClusterEvent;
+import com.example.backend.dto.DriverSummary;
+import com.example.backend.dto.RideDetail;
+import com.example.backend.dto.UserSummary;
+import com.example.backend.model.Ride;
+import com.example.backend.model.User;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RideVersionCacheTest {
+
+    private final RideVersionCache cache = new RideVersionCache();
+
+    @Test
+    void aStaleReadDoesNotReplaceANewerTag() {
+        String newer = cache.recordRide(detail(3, 1, 1));
+        String older = cache.recordRide(detail(2, 1, 1));
+
+        assertThat(older).isNotEqualTo(newer);
+        assertThat(cache.rideTag(7L)).isEqualTo(newer);
+    }
+
+    @Test
+    void aWriteOutdatesTheTagUntilTheNextRead() {
+        cache.recordRide(detail(3, 1, 1));
+        cache.rideChanged(ride(4));
+        assertThat(cache.rideTag(7L)).isNull();
+
+        // A lagging replica still returns version 3: not cached
+        cache.recordRide(detail(3, 1, 1));
+        assertThat(cache.rideTag(7L)).isNull();
+
+        String current = cache.recordRide(detail(4, 1, 1));
+        assertThat(cache.rideTag(7L)).isEqualTo(current);
+    }
+
+    @Test
+    void driverAndRiderChangesChangeTheTag() {
+        String first = cache.recordRide(detail(3, 1, 1));
+
+        cache.recordDriver(20L, 2L);
+        assertThat(cache.rideTag(7L)).isNull();
+        String withDriver = cache.recordRide(detail(3, 2, 1));
+        assertThat(withDriver).isNotEqualTo(first);
+        assertThat(cache.rideTag(7L)).isEqualTo(withDriver);
+
+        cache.userChanged(10L, 5L);
+        assertThat(cache.rideTag(7L)).isNull();
+        assertThat(cache.recordRide(detail(3, 2, 5))).isNotEqualTo(withDriver);
+    }
+
+    @Test
+    void otherNodesMoveVersionsForward() {
+        cache.recordRide(detail(3, 1, 1));
+        cache.onClusterEvent(ClusterEvent.ride(7L, 10L, 20L, 4L));
+        assertThat(cache.rideTag(7L)).isNull();
+
+        cache.recordDriver(20L, 1L);
+        cache.onClusterEvent(ClusterEvent.driver(20L, 2L));
+        assertThat(cache.driverTag(20L)).isEqualTo("\"driver-20-2\"");
+        cache.recordDriver(20L, 1L);
+        assertThat(cache.driverTag(20L)).isEqualTo("\"driver-20-2\"");
+    }
+
+    @Test
+    void userEventsOnlyMoveThatUser() {
+        String tag = cache.recordRide(detail(3, 1, 1));
+        cache.onClusterEvent(ClusterEvent.user(11L, 4L, "other@example.com"));
+        cache.onClusterEvent(ClusterEvent.user(null, null, "rider@example.com"));
+        assertThat(cache.rideTag(7L)).isEqualTo(tag);
+
+        cache.onClusterEvent(ClusterEvent.user(10L, 2L, "rider@example.com"));
+        assertThat(cache.rideTag(7L)).isNull();
+    }
+
+    @Test
+    void activeLookupsFollowTheSameRules() {
+        String tag = cache.recordActive("rider", 10L, detail(3, 1, 1));
+        assertThat(cache.activeTag("rider", 10L)).isEqualTo(tag);
+
+        cache.recordDriver(20L, 2L);
+        assertThat(cache.activeTag("rider", 10L)).isNull();
+
+        cache.recordActive("rider", 10L, null);
+        assertThat(cache.activeTag("rider", 10L)).isEqualTo("\"active-none\"");
+        cache.rideChanged(ride(4));
+        assertThat(cache.activeTag("rider", 10L)).isNull();
+    }
+
+    @Test
+    void deletedRidesAreNeverCachedAgain() {
+        cache.recordRide(detail(3, 1, 1));
+        cache.rideDeleted(7L);
+        cache.recordRide(detail(3, 1, 1));
+        assertThat(cache.rideTag(7L)).isNull();
+    }
+
+    // Ride 7 of rider 10 with driver 20
+    private static RideDetail detail(long version, long driverVersion, long riderVersion) {
+        return new RideDetail(7L, 10L, 20L, "Remera", "Kacyiru", "ACCEPTED", null, null, null, null, null, null,
+                1500.0, 4.0, 12, "cash", null, null, version,
+                new DriverSummary(20L, "Driver", "0788000000", true, driverVersion),
+                new UserSummary(10L, "Rider", "rider@example.com", "0788000001", User.Role.RIDER, riderVersion));
+    }
+
+    private static Ride ride(long version) {
+        Ride ride = new Ride();
+        ride.setId(7L);
+        ride.setRiderId(10L);
+        ride.setDriverId(20L);
+        ride.setVersion(version);
+        return ride;
+    }
+}
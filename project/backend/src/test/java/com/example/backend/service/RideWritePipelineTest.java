@@ -0,0 +1,139 @@
+package com.example.backend.service;
+
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import com.example.backend.model.Ride;
+import com.example.backend.model.RideEvent;
+import com.example.backend.repository.RideRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Group commit: failed changes leave nothing behind, callers never wait forever and every commit is tracked
+@SpringBootTest(properties = {
+        "app.group-commit.enabled=true",
+        "app.group-commit.linger-ms=50",
+        "app.group-commit.timeout-ms=1000"})
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class RideWritePipelineTest {
+
+    private static final Consumer<RideWritePipeline.Committed> NOT_TRACKED = committed -> {
+    };
+
+    @Autowired
+    private RideWritePipeline pipeline;
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Test
+    void aChangeThatThrowsLeavesNothingOfItsOwnButKeepsTheOnesBeforeIt() {
+        Long id = book();
+
+        CompletableFuture<RideWritePipeline.Committed> first = CompletableFuture.supplyAsync(() ->
+                pipeline.submit(id, ride -> {
+                    ride.setComment("kept");
+                    return RideEvent.Type.RATED;
+                }, NOT_TRACKED));
+        CompletableFuture<RideWritePipeline.Committed> second = CompletableFuture.supplyAsync(() ->
+                pipeline.submit(id, ride -> {
+                    ride.setRating(1);
+                    ride.setComment("half done");
+                    throw new IllegalStateException("changed its mind");
+                }, NOT_TRACKED));
+
+        assertThat(first.join().ride().getComment()).isEqualTo("kept");
+        assertThatThrownBy(second::join).hasCauseInstanceOf(IllegalStateException.class);
+        Ride stored = rideRepository.findById(id).orElseThrow();
+        assertThat(stored.getComment()).isEqualTo("kept");
+        assertThat(stored.getRating()).isNull();
+    }
+
+    @Test
+    void anErrorFailsItsCallerAndTheWriterKeepsGoing() {
+        Long id = book();
+
+        assertThatThrownBy(() -> pipeline.submit(id, ride -> {
+            throw new AssertionError("boom");
+        }, NOT_TRACKED)).isInstanceOf(IllegalStateException.class).hasCauseInstanceOf(AssertionError.class);
+
+        RideWritePipeline.Committed next = pipeline.submit(id, ride -> {
+            ride.setComment("after the error");
+            return RideEvent.Type.RATED;
+        }, NOT_TRACKED);
+        assertThat(next.ride().getComment()).isEqualTo("after the error");
+    }
+
+    @Test
+    void aCallerStopsWaitingAfterTheTimeout() {
+        Long id = book();
+
+        assertThatThrownBy(() -> pipeline.submit(id, ride -> {
+            sleep(1500);
+            return null;
+        }, NOT_TRACKED)).isInstanceOf(RideWriteUnavailableException.class);
+    }
+
+    @Test
+    void aWriteWhoseCallerTimedOutIsStillTracked() throws Exception {
+        Long id = book();
+        CompletableFuture<RideWritePipeline.Committed> tracked = new CompletableFuture<>();
+
+        assertThatThrownBy(() -> pipeline.submit(id, ride -> {
+            sleep(1500);
+            ride.setComment("late");
+            return RideEvent.Type.RATED;
+        }, tracked::complete)).isInstanceOf(RideWriteUnavailableException.class);
+
+        RideWritePipeline.Committed committed = tracked.get(5, TimeUnit.SECONDS);
+        assertThat(committed.event()).isEqualTo(RideEvent.Type.RATED);
+        assertThat(rideRepository.findById(id).orElseThrow().getComment()).isEqualTo("late");
+    }
+
+    @Test
+    void submitsAfterStopAreRefused() throws InterruptedException {
+        RideWritePipeline stopped = new RideWritePipeline();
+        ReflectionTestUtils.setField(stopped, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(stopped, "enabled", true);
+        ReflectionTestUtils.setField(stopped, "partitions", 1);
+        ReflectionTestUtils.setField(stopped, "batchSize", 1);
+        ReflectionTestUtils.setField(stopped, "queueCapacity", 1);
+        ReflectionTestUtils.setField(stopped, "timeoutMs", 1000L);
+        stopped.start();
+        stopped.stop();
+
+        assertThatThrownBy(() -> stopped.submit(1L, ride -> null, NOT_TRACKED)).isInstanceOf(RideWriteUnavailableException.class);
+    }
+
+    private Long book() {
+        Ride ride = new Ride();
+        ride.setRiderId(2000L);
+        ride.setPickupLocation("Remera");
+        ride.setDropoffLocation("Kacyiru");
+        ride.setEstimatedFare(1500.0);
+        ride.setDistance(4.0);
+        ride.setDuration(12);
+        ride.setPaymentMethod("cash");
+        return rideService.bookRide(ride).getId();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
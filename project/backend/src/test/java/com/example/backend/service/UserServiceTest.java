@@ -0,0 +1,55 @@
+package com.example.backend.service;
+
+import com.example.backend.config.EmbeddedPostgresEnvironment;
+import com.example.backend.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// A taken email or phone is told apart by the violated constraint's name
+@SpringBootTest
+@ActiveProfiles(EmbeddedPostgresEnvironment.PROFILE)
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void aTakenEmailIsReportedAsSuch() {
+        String email = unique() + "@example.com";
+        userService.register(user(email, unique()));
+
+        assertThatThrownBy(() -> userService.register(user(email, unique())))
+                .isInstanceOf(DuplicateAccountException.class)
+                .hasMessage("Email is already registered.");
+    }
+
+    @Test
+    void aTakenPhoneIsReportedAsSuch() {
+        String phone = unique();
+        userService.register(user(unique() + "@example.com", phone));
+
+        assertThatThrownBy(() -> userService.register(user(unique() + "@example.com", phone)))
+                .isInstanceOf(DuplicateAccountException.class)
+                .hasMessage("Phone number is already registered.");
+    }
+
+    private static User user(String email, String phone) {
+        return User.builder()
+                .name("Test Rider")
+                .email(email)
+                .phone(phone)
+                .password("secret-password")
+                .role(User.Role.RIDER)
+                .build();
+    }
+
+    private static String unique() {
+        return UUID.randomUUID().toString().substring(0, 12);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void firesAtItsDeadlineAndNotBefore() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("a", 35);
+
+        wheel.advance(30, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advance(40, fired::add);
+        assertThat(fired).containsExactly("a");
+    }
+
+    @Test
+    void anEntryMoreThanOneRevolutionOutWaitsForItsRound() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("later", 250);
+
+        for (long now = 0; now < 250; now += 10)
+            wheel.advance(now, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advance(250, fired::add);
+        assertThat(fired).containsExactly("later");
+    }
+
+    @Test
+    void aPastDeadlineFiresOnTheNextAdvance() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.advance(100, fired::add);
+        wheel.schedule("late", 20);
+
+        wheel.advance(110, fired::add);
+        assertThat(fired).containsExactly("late");
+    }
+
+    @Test
+    void aCancelledEntryNeverFires() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("kept", 20);
+        wheel.schedule("cancelled", 20).cancel();
+
+        wheel.advance(20, fired::add);
+        assertThat(fired).containsExactly("kept");
+    }
+
+    @Test
+    void aLongPauseFiresEverythingDueOnce() {
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(10, 8, 0);
+        List<Integer> fired = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+            wheel.schedule(i, i * 10L);
+
+        wheel.advance(10_000, fired::add);
+        assertThat(fired).hasSize(50).doesNotHaveDuplicates();
+    }
+
+    // Entries scheduled for "now" while the cursor moves fire by the tick after schedule() returns, never a
+    // revolution later
+    @Test
+    void schedulingWhileAdvancingNeverWaitsAnExtraRevolution() throws InterruptedException {
+        int wheelSize = 16;
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(1, wheelSize, 0);
+        AtomicLong now = new AtomicLong();
+        Map<Integer, Long> returnedAt = new ConcurrentHashMap<>();
+        Map<Integer, Long> firedAt = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        int perThread = 20_000;
+
+        Thread advancer = new Thread(() -> {
+            while (!done.get() || firedAt.size() < returnedAt.size()) {
+                long tick = now.incrementAndGet();
+                wheel.advance(tick, key -> {
+                    if (firedAt.putIfAbsent(key, tick) != null)
+                        duplicates.incrementAndGet();
+                });
+                if (tick > 10_000_000)
+                    return;
+            }
+        });
+        advancer.start();
+        List<Thread> schedulers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int base = t * perThread;
+            Thread scheduler = new Thread(() -> {
+                for (int i = base; i < base + perThread; i++) {
+                    wheel.schedule(i, now.get());
+                    returnedAt.put(i, now.get());
+                }
+            });
+            schedulers.add(scheduler);
+            scheduler.start();
+        }
+        for (Thread scheduler : schedulers)
+            scheduler.join();
+        done.set(true);
+        advancer.join();
+
+        assertThat(firedAt).hasSize(4 * perThread);
+        assertThat(duplicates).hasValue(0);
+        long worst = returnedAt.entrySet().stream()
+                .mapToLong(e -> firedAt.get(e.getKey()) - e.getValue()).max().orElse(0);
+        assertThat(worst).isLessThanOrEqualTo(1);
+    }
+}
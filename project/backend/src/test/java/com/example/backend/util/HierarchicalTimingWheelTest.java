@@ -0,0 +1,103 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HierarchicalTimingWheelTest {
+
+    // 1 ms ticks, 4 buckets, 3 levels: level 0 spans 4 ticks, level 1 16, level 2 64
+    private final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 4, 3, 0);
+    private final List<String> fired = new ArrayList<>();
+
+    @Test
+    void firesAtItsDeadlineAndNotBefore() {
+        wheel.schedule("a", 3);
+
+        wheel.advance(2, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advance(3, fired::add);
+        assertThat(fired).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void higherLevelEntriesCascadeDownAndFireOnTime() {
+        wheel.schedule("level1", 13);
+        wheel.schedule("level2", 50);
+
+        for (long now = 1; now <= 60; now++) {
+            long tick = now;
+            wheel.advance(now, key -> fired.add(key + "@" + tick));
+        }
+        assertThat(fired).containsExactly("level1@13", "level2@50");
+    }
+
+    @Test
+    void anEntryBeyondTheTopLevelIsReplacedUntilItIsDue() {
+        wheel.schedule("far", 1000);
+
+        wheel.advance(999, fired::add);
+        assertThat(fired).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        wheel.advance(1000, fired::add);
+        assertThat(fired).containsExactly("far");
+    }
+
+    @Test
+    void aPastDeadlineFiresOnTheNextAdvance() {
+        wheel.advance(100, fired::add);
+        wheel.schedule("late", 20);
+
+        wheel.advance(101, fired::add);
+        assertThat(fired).containsExactly("late");
+    }
+
+    @Test
+    void cancelReleasesTheEntryAtOnce() {
+        HierarchicalTimingWheel<String>.Timeout timeout = wheel.schedule("cancelled", 500);
+        wheel.schedule("kept", 500);
+
+        assertThat(timeout.cancel()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+        assertThat(wheel.size()).isEqualTo(1);
+        wheel.advance(500, fired::add);
+        assertThat(fired).containsExactly("kept");
+    }
+
+    @Test
+    void randomDeadlinesFireExactlyOnceAtTheirTick() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, 8, 3, 0);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = 1 + random.nextInt(2000);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> late = new ArrayList<>();
+        int[] count = {0};
+        for (long now = 1; now <= 2000; now++) {
+            long tick = now;
+            wheel.advance(now, deadline -> {
+                count[0]++;
+                if (deadline != tick)
+                    late.add(deadline);
+            });
+        }
+        assertThat(late).isEmpty();
+        assertThat(count[0]).isEqualTo(deadlines.size());
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void wheelSizeMustBeAPowerOfTwo() {
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<String>(1, 6, 2, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongIntHashMapTest {
+
+    @Test
+    void getsWhatWasPutAndMinusOneOtherwise() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        map.put(7, 70);
+        map.put(-3, 0);
+        map.put(0, 5);
+
+        assertThat(map.get(7)).isEqualTo(70);
+        assertThat(map.get(-3)).isZero();
+        assertThat(map.get(0)).isEqualTo(5);
+        assertThat(map.get(8)).isEqualTo(-1);
+        assertThat(map.size()).isEqualTo(3);
+    }
+
+    @Test
+    void putOverwritesWithoutGrowing() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        map.put(1, 1);
+        map.put(1, 2);
+
+        assertThat(map.get(1)).isEqualTo(2);
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void growsPastItsExpectedSizeAndKeepsEveryEntry() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            long key = random.nextLong();
+            map.put(key, i);
+            expected.put(key, i);
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+        assertThat(map.keys()).hasSize(expected.size())
+                .containsExactlyInAnyOrder(expected.keySet().stream().mapToLong(Long::longValue).toArray());
+    }
+
+    @Test
+    void rejectsNegativeValues() {
+        LongIntHashMap map = new LongIntHashMap(4);
+
+        assertThatThrownBy(() -> map.put(1, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixTrieTest {
+
+    private final PrefixTrie trie = PrefixTrie.builder()
+            .add("kigali heights", 3)
+            .add("kigali convention center", 1)
+            .add("kcc", 1)
+            .add("kimironko", 5)
+            .add("kigali city tower", 11)
+            .add("remera", 8)
+            .build();
+
+    @Test
+    void returnsEveryValueUnderThePrefixInKeyOrder() {
+        assertThat(trie.startingWith("kigali ", 10)).containsExactly(11, 1, 3);
+        assertThat(trie.startingWith("ki", 10)).containsExactly(11, 1, 3, 5);
+    }
+
+    @Test
+    void aValueUnderSeveralKeysComesBackOnce() {
+        assertThat(trie.startingWith("k", 10)).containsExactly(1, 11, 3, 5);
+    }
+
+    @Test
+    void stopsAtTheLimit() {
+        assertThat(trie.startingWith("k", 2)).containsExactly(1, 11);
+    }
+
+    @Test
+    void anUnknownPrefixFindsNothing() {
+        assertThat(trie.startingWith("kx", 10)).isEmpty();
+        assertThat(trie.startingWith("remeras", 10)).isEmpty();
+    }
+
+    @Test
+    void theEmptyPrefixMatchesEverything() {
+        assertThat(trie.startingWith("", 10)).containsExactlyInAnyOrder(1, 3, 5, 8, 11);
+    }
+
+    @Test
+    void sharesNodesBetweenKeys() {
+        PrefixTrie small = PrefixTrie.builder().add("ab", 1).add("ac", 2).build();
+        // root, a, b, c
+        assertThat(small.nodeCount()).isEqualTo(4);
+    }
+}
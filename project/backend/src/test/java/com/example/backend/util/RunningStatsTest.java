@@ -0,0 +1,58 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RunningStatsTest {
+
+    @Test
+    void matchesTheTwoPassMeanAndSampleStdDev() {
+        RunningStats stats = new RunningStats(2);
+        double[] values = {12, 15, 9, 20, 14, 11};
+        for (double value : values)
+            stats.add(1, value);
+
+        double mean = 0;
+        for (double value : values)
+            mean += value / values.length;
+        double squares = 0;
+        for (double value : values)
+            squares += (value - mean) * (value - mean);
+
+        assertThat(stats.count(1)).isEqualTo(values.length);
+        assertThat(stats.mean(1)).isCloseTo(mean, within(1e-4));
+        assertThat(stats.stdDev(1)).isCloseTo(Math.sqrt(squares / (values.length - 1)), within(1e-4));
+    }
+
+    @Test
+    void cellsAreIndependent() {
+        RunningStats stats = new RunningStats(3);
+        stats.add(0, 5);
+        stats.add(2, 100);
+
+        assertThat(stats.mean(0)).isEqualTo(5);
+        assertThat(stats.count(1)).isZero();
+        assertThat(stats.mean(2)).isEqualTo(100);
+    }
+
+    @Test
+    void oneObservationHasNoSpread() {
+        RunningStats stats = new RunningStats(1);
+        stats.add(0, 42);
+
+        assertThat(stats.stdDev(0)).isZero();
+    }
+
+    @Test
+    void staysAccurateOverManyObservations() {
+        RunningStats stats = new RunningStats(1);
+        for (int i = 0; i < 100_000; i++)
+            stats.add(0, 600 + (i % 2 == 0 ? 30 : -30));
+
+        assertThat(stats.mean(0)).isCloseTo(600, within(0.5));
+        assertThat(stats.stdDev(0)).isCloseTo(30, within(0.5));
+        assertThat(stats.memoryBytes()).isEqualTo(12);
+    }
+}
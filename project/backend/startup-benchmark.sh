@@ -0,0 +1,38 @@
+#!/usr/bin/env bash
+# Time-to-first-request for the three startup modes. Needs Postgres reachable
+# with the usual SPRING_DATASOURCE_* settings and a prior
+#   ./mvnw -Pfast-startup package -DskipTests
+# Usage: ./startup-benchmark.sh [runs-per-mode]
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${SERVER_PORT:-8081}
+URL="http://localhost:${PORT}/api/rides/available"
+JAR=target/backend-0.0.1-SNAPSHOT.jar
+EXTRACTED=target/extracted/backend-0.0.1-SNAPSHOT.jar
+
+now_ms() { date +%s%3N; }
+
+measure() {
+    local label=$1; shift
+    local times=()
+    for _ in $(seq "$RUNS"); do
+        local start; start=$(now_ms)
+        "$@" > /dev/null 2>&1 &
+        local pid=$!
+        until curl -sf -o /dev/null "$URL"; do
+            if ! kill -0 "$pid" 2>/dev/null; then echo "$label: backend exited during startup" >&2; exit 1; fi
+            sleep 0.05
+        done
+        times+=($(( $(now_ms) - start )))
+        kill "$pid"; wait "$pid" 2>/dev/null || true
+    done
+    local sorted; sorted=$(printf '%s\n' "${times[@]}" | sort -n)
+    printf '%-28s median %6d ms   (runs: %s)\n' "$label" \
+        "$(echo "$sorted" | sed -n "$(( (RUNS + 1) / 2 ))p")" "$(echo "${times[@]}")"
+}
+
+measure "default (ddl-auto=update)" java -jar "$JAR"
+measure "prod profile" java -Dspring.profiles.active=prod -jar "$JAR"
+measure "prod + AOT + AppCDS" java -XX:SharedArchiveFile=target/extracted/application.jsa \
+    -Dspring.aot.enabled=true -Dspring.profiles.active=prod -jar "$EXTRACTED"
@@ -0,0 +1,91 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Thin async wrapper over the backend's REST API. Every call is timed and
+ * recorded under a stable endpoint label (path variables collapsed), so the
+ * report groups e.g. all /api/rides/start/{id} calls together.
+ */
+public class ApiClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final LatencyStats stats;
+
+    // retryAfterSeconds: the Retry-After header of a 503 or 429, 0 without one
+    public record Response(int status, JsonNode body, String etag, long retryAfterSeconds) {
+        public boolean ok() {
+            return status >= 200 && status < 300;
+        }
+    }
+
+    public ApiClient(String baseUrl, LatencyStats stats) {
+        this.baseUrl = baseUrl;
+        this.stats = stats;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public CompletableFuture<Response> get(String label, String path, String ifNoneMatch) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+        if (ifNoneMatch != null)
+            request.header("If-None-Match", ifNoneMatch);
+        return send(label, request);
+    }
+
+    public CompletableFuture<Response> post(String label, String path, Map<String, ?> body) {
+        String json;
+        try {
+            json = body == null ? "" : MAPPER.writeValueAsString(body);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        return send(label, request);
+    }
+
+    private CompletableFuture<Response> send(String label, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        return http.sendAsync(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    long micros = (System.nanoTime() - start) / 1000;
+                    if (failure != null) {
+                        stats.record(label, micros, true);
+                        return new Response(0, null, null, 0);
+                    }
+                    int status = response.statusCode();
+                    stats.record(label, micros, status >= 400);
+                    return new Response(status, parse(response.body()),
+                            response.headers().firstValue("ETag").orElse(null),
+                            response.headers().firstValue("Retry-After").map(Long::parseLong).orElse(0L));
+                });
+    }
+
+    private static JsonNode parse(String body) {
+        if (body == null || body.isBlank())
+            return null;
+        try {
+            return MAPPER.readTree(body);
+        } catch (Exception e) {
+            return null; // plain-text error bodies
+        }
+    }
+}
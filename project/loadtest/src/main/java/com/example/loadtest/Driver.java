@@ -0,0 +1,92 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+// A simulated driver: goes online, takes a ride offered to it (or else one from the available
+// list), and drives it to completion. New rides are offered to a few drivers before they are listed.
+public class Driver {
+
+    private final long driverId;
+    private final ApiClient api;
+    private final WeightedChoice choice;
+
+    private boolean available;
+    private Long tripId;
+    private boolean tripStarted;
+
+    public Driver(long driverId, ApiClient api, WeightedChoice choice) {
+        this.driverId = driverId;
+        this.api = api;
+        this.choice = choice;
+    }
+
+    public CompletableFuture<?> step() {
+        if (!available)
+            return setAvailability(true);
+        if (tripId != null)
+            return tripStarted ? complete() : start();
+        return switch (choice.next()) {
+            case "toggleAvailability" -> setAvailability(false);
+            case "history" -> api.get("GET /api/rides/history", "/api/rides/history?role=driver&userId=" + driverId, null);
+            default -> acceptOffer();
+        };
+    }
+
+    private CompletableFuture<Void> acceptOffer() {
+        return api.get("GET /api/rides/offers", "/api/rides/offers?driverId=" + driverId, null).thenCompose(response -> {
+            JsonNode offers = response.body();
+            if (!response.ok() || offers == null || !offers.isArray() || offers.isEmpty())
+                return listAndAccept();
+            long rideId = offers.get(0).path("rideId").asLong();
+            return api.post("POST /api/rides/offers/{id}/accept",
+                            "/api/rides/offers/" + rideId + "/accept?driverId=" + driverId, null)
+                    .thenAccept(accepted -> took(rideId, accepted));
+        });
+    }
+
+    private CompletableFuture<?> setAvailability(boolean value) {
+        return api.post("POST /api/rides/drivers/{id}/availability",
+                "/api/rides/drivers/" + driverId + "/availability?available=" + value, null)
+                .thenAccept(response -> {
+                    if (response.ok())
+                        available = value;
+                });
+    }
+
+    private CompletableFuture<Void> listAndAccept() {
+        return api.get("GET /api/rides/available", "/api/rides/available", null).thenCompose(response -> {
+            JsonNode rides = response.body();
+            if (!response.ok() || rides == null || !rides.isArray() || rides.isEmpty())
+                return CompletableFuture.completedFuture(null);
+            long rideId = rides.get(ThreadLocalRandom.current().nextInt(rides.size())).path("id").asLong();
+            return api.post("POST /api/rides/accept", "/api/rides/accept", Map.of("rideId", rideId, "driverId", driverId))
+                    .thenAccept(accepted -> took(rideId, accepted));
+        });
+    }
+
+    // 409 when another driver was faster
+    private void took(long rideId, ApiClient.Response accepted) {
+        if (accepted.ok() && accepted.body() != null && accepted.body().path("driverId").asLong() == driverId) {
+            tripId = rideId;
+            tripStarted = false;
+        }
+    }
+
+    private CompletableFuture<?> start() {
+        return api.post("POST /api/rides/start/{id}", "/api/rides/start/" + tripId, null).thenAccept(response -> {
+            if (response.ok())
+                tripStarted = true;
+            else
+                tripId = null;
+        });
+    }
+
+    private CompletableFuture<?> complete() {
+        return api.post("POST /api/rides/complete/{id}", "/api/rides/complete/" + tripId, null)
+                .thenAccept(response -> tripId = null);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ride lifecycle write throughput against a running backend. Books
+ * benchmark.rides cash rides up front (not timed), then takes each one
+ * through accept, start, complete and rate with benchmark.concurrency rides
+ * in flight, checking that every ride ends COMPLETED with its rating. A call
+ * shed with 503 is sent again after its Retry-After. Prints transitions per
+ * second, latency percentiles and sheds per endpoint, and the backend's
+ * group-commit batch sizes when the pipeline is on. Run it against a backend
+ * started with --app.group-commit.enabled=false and again with =true to
+ * compare per-call commits with group commit. Exits non-zero when a
+ * transition fails.
+ *
+ *   mvn -q compile exec:java -Dloadtest.main=com.example.loadtest.GroupCommitBenchmark \
+ *       [-Dloadtest.baseUrl=http://localhost:8081] [-Dbenchmark.rides=2000] \
+ *       [-Dbenchmark.concurrency=64] [-Dbenchmark.driverId=1] [-Dbenchmark.riderId=1]
+ */
+public class GroupCommitBenchmark {
+
+    private static final String[] STEPS = {"accept", "start", "complete", "rate"};
+
+    private static final Map<String, AtomicLong> SHED = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:8081");
+        int rides = Integer.getInteger("benchmark.rides", 2000);
+        int concurrency = Integer.getInteger("benchmark.concurrency", 64);
+        long driverId = Long.getLong("benchmark.driverId", 1L);
+        long riderId = Long.getLong("benchmark.riderId", 1L);
+
+        LatencyStats setupStats = new LatencyStats();
+        List<Long> rideIds = book(new ApiClient(baseUrl, setupStats), rides, concurrency, riderId);
+
+        LatencyStats stats = new LatencyStats();
+        ApiClient api = new ApiClient(baseUrl, stats);
+        AtomicLong failed = new AtomicLong();
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        long start = System.nanoTime();
+        for (Long rideId : rideIds) {
+            inFlight.acquire();
+            lifecycle(api, rideId, driverId, 0)
+                    .whenComplete((ok, error) -> {
+                        if (error != null || !ok)
+                            failed.incrementAndGet();
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long transitions = (long) rideIds.size() * STEPS.length;
+
+        System.out.printf(Locale.ROOT, "%d rides x %d transitions, %d rides in flight: %.1f s, %.0f transitions/s%n",
+                rideIds.size(), STEPS.length, concurrency, seconds, transitions / seconds);
+        stats.endpoints().forEach((label, endpoint) -> System.out.printf(Locale.ROOT,
+                "  %-8s n=%-6d shed=%-5d p50=%.1f ms p99=%.1f ms%n", label, endpoint.count(),
+                SHED.getOrDefault(label, new AtomicLong()).get(), endpoint.percentileMillis(0.50),
+                endpoint.percentileMillis(0.99)));
+
+        int wrong = 0;
+        for (Long rideId : rideIds) {
+            JsonNode ride = api.get("check", "/api/rides/" + rideId, null).join().body();
+            if (ride == null || !"COMPLETED".equals(ride.path("status").asText()) || ride.path("rating").asInt() != 5) {
+                if (wrong++ < 5)
+                    System.out.printf("  ride %d ended as %s%n", rideId, ride);
+            }
+        }
+        System.out.printf("Rides completed and rated: %d/%d, %d lifecycles failed%n", rideIds.size() - wrong,
+                rideIds.size(), failed.get());
+
+        JsonNode batches = api.get("metrics", "/actuator/metrics/app.ride.group-commit.batch", null).join().body();
+        if (batches != null && batches.has("measurements")) {
+            double count = 0, total = 0, max = 0;
+            for (JsonNode measurement : batches.path("measurements")) {
+                switch (measurement.path("statistic").asText()) {
+                    case "COUNT" -> count = measurement.path("value").asDouble();
+                    case "TOTAL" -> total = measurement.path("value").asDouble();
+                    case "MAX" -> max = measurement.path("value").asDouble();
+                    default -> {
+                    }
+                }
+            }
+            System.out.printf(Locale.ROOT, "Group commit: %.0f commits since startup, %.1f changes per commit (max %.0f recently)%n",
+                    count, count == 0 ? 0 : total / count, max);
+        } else {
+            System.out.println("Group commit: off (one commit per transition)");
+        }
+        System.exit(wrong == 0 && failed.get() == 0 ? 0 : 1);
+    }
+
+    // One ride's transitions in order, each sent when the previous one answered
+    private static CompletableFuture<Boolean> lifecycle(ApiClient api, long rideId, long driverId, int step) {
+        if (step == STEPS.length)
+            return CompletableFuture.completedFuture(true);
+        String label = STEPS[step];
+        CompletableFuture<ApiClient.Response> call = switch (label) {
+            case "accept" -> api.post(label, "/api/rides/accept", Map.of("rideId", rideId, "driverId", driverId));
+            case "start" -> api.post(label, "/api/rides/start/" + rideId, null);
+            case "complete" -> api.post(label, "/api/rides/complete/" + rideId, null);
+            default -> api.post(label, "/api/rides/rate", Map.of("rideId", rideId, "rating", 5, "comment", "benchmark"));
+        };
+        return call.thenCompose(response -> {
+            if (response.ok())
+                return lifecycle(api, rideId, driverId, step + 1);
+            if (response.status() != 503)
+                return CompletableFuture.completedFuture(false);
+            SHED.computeIfAbsent(label, key -> new AtomicLong()).incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> null, after(response))
+                    .thenCompose(ignored -> lifecycle(api, rideId, driverId, step));
+        });
+    }
+
+    private static Executor after(ApiClient.Response shed) {
+        return CompletableFuture.delayedExecutor(Math.max(1, shed.retryAfterSeconds()), TimeUnit.SECONDS);
+    }
+
+    private static List<Long> book(ApiClient api, int rides, int concurrency, long riderId) throws InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(concurrency);
+        for (int i = 0; i < rides; i++) {
+            inFlight.acquire();
+            bookOne(api, riderId).whenComplete((id, error) -> {
+                if (id != null)
+                    synchronized (ids) {
+                        ids.add(id);
+                    }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        if (ids.size() < rides)
+            System.out.printf("Booked %d of %d rides%n", ids.size(), rides);
+        return ids;
+    }
+
+    private static CompletableFuture<Long> bookOne(ApiClient api, long riderId) {
+        return api.post("book", "/api/rides/book", Map.of(
+                        "riderId", riderId,
+                        "pickupLocation", "Kimironko Market",
+                        "dropoffLocation", "Kigali Convention Center",
+                        "estimatedFare", 2500,
+                        "distance", 6.5,
+                        "duration", 18,
+                        "paymentMethod", "cash"))
+                .thenCompose(response -> {
+                    if (response.ok())
+                        return CompletableFuture.completedFuture(response.body().path("id").asLong());
+                    if (response.status() != 503)
+                        return CompletableFuture.completedFuture(null);
+                    return CompletableFuture.supplyAsync(() -> null, after(response))
+                            .thenCompose(ignored -> bookOne(api, riderId));
+                });
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency histograms. Buckets are log-linear in microseconds
+ * (32 sub-buckets per power of two, about 3% precision), so recording is a
+ * lock-free increment and memory does not grow with the request count.
+ */
+public class LatencyStats {
+
+    private static final int SUB_BUCKETS = 32;
+    private static final int BUCKETS = 2 * SUB_BUCKETS + 40 * SUB_BUCKETS;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+
+    public static class Endpoint {
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long micros, boolean error) {
+            histogram.incrementAndGet(index(micros));
+            count.increment();
+            if (error)
+                errors.increment();
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long errors() {
+            return errors.sum();
+        }
+
+        // Upper bound of the bucket holding the given quantile, in milliseconds
+        public double percentileMillis(double quantile) {
+            long total = count();
+            if (total == 0)
+                return 0;
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram.get(i);
+                if (seen >= rank)
+                    return upperBound(i) / 1000.0;
+            }
+            return upperBound(BUCKETS - 1) / 1000.0;
+        }
+    }
+
+    public void record(String endpoint, long micros, boolean error) {
+        endpoints.computeIfAbsent(endpoint, e -> new Endpoint()).record(micros, error);
+    }
+
+    public Map<String, Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    static int index(long micros) {
+        long v = Math.max(0, micros);
+        if (v < 2 * SUB_BUCKETS)
+            return (int) v;
+        int exponent = 63 - Long.numberOfLeadingZeros(v);   // >= 6
+        int shift = exponent - 5;
+        int index = shift * SUB_BUCKETS + (int) (v >> shift);
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    static long upperBound(int index) {
+        if (index < 2 * SUB_BUCKETS)
+            return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index - shift * SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.loadtest;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent wallet postings against a running backend. Keeps
+ * benchmark.concurrency top-ups and withdrawals in flight over
+ * benchmark.users wallets, then checks that every wallet balance moved by
+ * exactly the sum of its accepted postings and that /api/admin/ledger/check reports the
+ * journal consistent. Prints postings per second and latency percentiles.
+ * Exits non-zero when the throughput target or a consistency check fails.
+ *
+ *   mvn -q compile exec:java -Dloadtest.main=com.example.loadtest.LedgerBenchmark \
+ *       [-Dloadtest.baseUrl=http://localhost:8081] [-Dbenchmark.postings=20000] \
+ *       [-Dbenchmark.users=1000] [-Dbenchmark.concurrency=64] [-Dbenchmark.target=500]
+ *
+ * User ids start at benchmark.firstUser (default 1000000) so they do not
+ * collide with real riders' wallets. Re-running with the same ids measures
+ * a warm system (accounts already exist).
+ */
+public class LedgerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:8081");
+        int postings = Integer.getInteger("benchmark.postings", 20_000);
+        int users = Integer.getInteger("benchmark.users", 1000);
+        int concurrency = Integer.getInteger("benchmark.concurrency", 64);
+        long firstUser = Long.getLong("benchmark.firstUser", 1_000_000L);
+        double target = Double.parseDouble(System.getProperty("benchmark.target", "500"));
+
+        LatencyStats stats = new LatencyStats();
+        ApiClient api = new ApiClient(baseUrl, stats);
+        AtomicLongArray expected = new AtomicLongArray(users);
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        Semaphore inFlight = new Semaphore(concurrency);
+        Random random = new Random(42);
+        long[] before = balances(api, firstUser, users);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < postings; i++) {
+            int user = random.nextInt(users);
+            long amount = 100 + random.nextInt(900);
+            // Two top-ups per withdrawal keeps most wallets funded, but some withdrawals still bounce
+            boolean topUp = random.nextInt(3) != 0;
+            String path = "/api/payments/wallet/" + (firstUser + user) + (topUp ? "/top-up" : "/withdraw");
+
+            inFlight.acquire();
+            api.post(topUp ? "top-up" : "withdraw", path, Map.of("amount", amount))
+                    .whenComplete((response, error) -> {
+                        if (response != null && response.ok())
+                            expected.addAndGet(user, topUp ? amount : -amount);
+                        else if (response != null && response.status() == 409)
+                            rejected.incrementAndGet();
+                        else
+                            failed.incrementAndGet();
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double rate = postings / seconds;
+
+        System.out.printf("%d postings over %d wallets, %d in flight: %.1f s, %.0f postings/s%n",
+                postings, users, concurrency, seconds, rate);
+        System.out.printf("  %d withdrawals rejected for funds, %d failed%n", rejected.get(), failed.get());
+        stats.endpoints().forEach((label, endpoint) -> System.out.printf("  %-8s n=%d p50=%.1f ms p99=%.1f ms%n",
+                label, endpoint.count(), endpoint.percentileMillis(0.50), endpoint.percentileMillis(0.99)));
+
+        int wrong = 0;
+        long[] after = balances(api, firstUser, users);
+        for (int user = 0; user < users; user++) {
+            if (after[user] - before[user] != expected.get(user)) {
+                if (wrong++ < 5)
+                    System.out.printf("  wallet %d: moved %d, expected %d%n", firstUser + user,
+                            after[user] - before[user], expected.get(user));
+            }
+        }
+        ApiClient.Response check = api.get("check", "/api/admin/ledger/check", null).join();
+        boolean consistent = check.ok() && check.body().path("journalTotal").asLong() == 0
+                && check.body().path("mismatches").isEmpty();
+        System.out.printf("Wallets matching their postings: %d/%d; ledger check: %s%n", users - wrong, users,
+                consistent ? "consistent" : check.body());
+
+        boolean pass = wrong == 0 && consistent && failed.get() == 0 && rate >= target;
+        System.out.printf("Target %.0f postings/s: %s%n", target, pass ? "PASS" : "FAIL");
+        System.exit(pass ? 0 : 1);
+    }
+
+    private static long[] balances(ApiClient api, long firstUser, int users) {
+        long[] balances = new long[users];
+        CompletableFuture<?>[] reads = new CompletableFuture<?>[users];
+        for (int user = 0; user < users; user++) {
+            int index = user;
+            reads[user] = api.get("wallet", "/api/payments/wallet/" + (firstUser + user), null)
+                    .thenAccept(response -> balances[index] = response.body().path("balance").asLong());
+        }
+        CompletableFuture.allOf(reads).join();
+        return balances;
+    }
+}
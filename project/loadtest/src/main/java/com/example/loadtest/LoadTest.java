@@ -0,0 +1,139 @@
+package com.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Morning-rush load generator. Registers the configured number of riders and
+ * drivers through /api/auth/register, then runs them concurrently against
+ * /api/rides for durationSeconds and prints p50/p95/p99 latency, error rate
+ * and throughput per endpoint.
+ *
+ * Users are small state machines driven by a scheduler and the JDK's async
+ * HttpClient, so thousands of them need only a handful of threads.
+ *
+ * Start the backend (and its Postgres) locally, then:
+ *   mvn -q compile exec:java -Dloadtest.riders=2000 -Dloadtest.drivers=500
+ * See scenario.properties for the scenario mix.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        ScenarioConfig config = new ScenarioConfig();
+        System.out.println("Scenario: " + config);
+
+        LatencyStats setupStats = new LatencyStats();
+        LatencyStats runStats = new LatencyStats();
+        String baseUrl = config.getString("baseUrl");
+        ApiClient setupApi = new ApiClient(baseUrl, setupStats);
+        ApiClient api = new ApiClient(baseUrl, runStats);
+
+        WeightedChoice riderMix = new WeightedChoice(config, "rider", "book", "pollActive", "cancel", "history");
+        WeightedChoice driverMix = new WeightedChoice(config, "driver", "listAvailable", "toggleAvailability", "history");
+
+        // ---- setup ----
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        List<Supplier<CompletableFuture<?>>> users = new ArrayList<>();
+        Semaphore permits = new Semaphore(64);
+        List<CompletableFuture<?>> registrations = new ArrayList<>();
+        int riderCount = config.getInt("riders");
+        int driverCount = config.getInt("drivers");
+        long setupStart = System.nanoTime();
+        for (int i = 0; i < riderCount + driverCount; i++) {
+            boolean rider = i < riderCount;
+            String handle = "lt" + runId + (rider ? "r" : "d") + i;
+            permits.acquire();
+            registrations.add(setupApi.post("POST /api/auth/register", "/api/auth/register", Map.of(
+                            "email", handle + "@load.test",
+                            "password", "load-test",
+                            "name", handle,
+                            "phone", handle,
+                            "role", rider ? "RIDER" : "DRIVER"))
+                    .whenComplete((r, e) -> permits.release())
+                    .thenAccept(response -> {
+                        if (!response.ok() || response.body() == null)
+                            return;
+                        synchronized (users) {
+                            if (rider) {
+                                users.add(new Rider(response.body().path("id").asLong(), api, riderMix)::step);
+                            } else {
+                                long driverId = response.body().path("driver").path("id").asLong();
+                                users.add(new Driver(driverId, api, driverMix)::step);
+                            }
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(registrations.toArray(new CompletableFuture[0])).join();
+        System.out.printf("Registered %d of %d users in %.1f s%n", users.size(), riderCount + driverCount,
+                (System.nanoTime() - setupStart) / 1e9);
+        printReport("Setup", setupStats, (System.nanoTime() - setupStart) / 1e9);
+
+        // ---- run ----
+        int durationSeconds = config.getInt("durationSeconds");
+        long rampUpMillis = config.getInt("rampUpSeconds") * 1000L;
+        long thinkMillis = config.getInt("thinkTimeMillis");
+        ScheduledExecutorService scheduler =
+                Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        long runStart = System.nanoTime();
+        for (int i = 0; i < users.size(); i++) {
+            Supplier<CompletableFuture<?>> user = users.get(i);
+            long delay = users.size() <= 1 ? 0 : rampUpMillis * i / (users.size() - 1);
+            scheduler.schedule(() -> loop(user, scheduler, running, thinkMillis), delay, TimeUnit.MILLISECONDS);
+        }
+
+        Thread.sleep(durationSeconds * 1000L);
+        running.set(false);
+        double elapsed = (System.nanoTime() - runStart) / 1e9;
+        scheduler.shutdown();
+        scheduler.awaitTermination(30, TimeUnit.SECONDS);
+
+        printReport("Run", runStats, elapsed);
+        System.exit(0);
+    }
+
+    // One step, then reschedule after a jittered think time until the run ends
+    private static void loop(Supplier<CompletableFuture<?>> user, ScheduledExecutorService scheduler,
+                             AtomicBoolean running, long thinkMillis) {
+        if (!running.get())
+            return;
+        user.get().whenComplete((r, e) -> {
+            if (!running.get())
+                return;
+            long pause = thinkMillis / 2 + ThreadLocalRandom.current().nextLong(thinkMillis + 1);
+            try {
+                scheduler.schedule(() -> loop(user, scheduler, running, thinkMillis), pause, TimeUnit.MILLISECONDS);
+            } catch (java.util.concurrent.RejectedExecutionException ignored) {
+                // shutting down
+            }
+        });
+    }
+
+    private static void printReport(String phase, LatencyStats stats, double seconds) {
+        System.out.printf("%n== %s (%.1f s) ==%n", phase, seconds);
+        System.out.printf("%-44s %9s %8s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms");
+        long total = 0;
+        long errors = 0;
+        for (Map.Entry<String, LatencyStats.Endpoint> entry : stats.endpoints().entrySet()) {
+            LatencyStats.Endpoint e = entry.getValue();
+            total += e.count();
+            errors += e.errors();
+            System.out.printf("%-44s %9d %7.2f%% %9.1f %9.1f %9.1f %9.1f%n", entry.getKey(), e.count(),
+                    e.count() == 0 ? 0 : 100.0 * e.errors() / e.count(), e.count() / seconds,
+                    e.percentileMillis(0.50), e.percentileMillis(0.95), e.percentileMillis(0.99));
+        }
+        System.out.printf("%-44s %9d %7.2f%% %9.1f%n", "TOTAL", total,
+                total == 0 ? 0 : 100.0 * errors / total, total / seconds);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Overloads a running backend with expensive reads (ride search, ride
+ * history, the full ride list) from simulation.readers closed-loop clients
+ * while simulation.bookers clients book and accept rides, for
+ * simulation.seconds. Shed clients wait out the Retry-After they are given,
+ * as well-behaved clients would. Prints, per endpoint, how many calls succeeded, how
+ * many were shed with 503 and the latency percentiles, then the admission
+ * classes from /api/admin/admission. Run it once with admission control on
+ * and once with --app.admission.enabled=false to compare what the bookings
+ * get. Exits non-zero when a booking fails with anything but a 503.
+ *
+ *   mvn -q compile exec:java -Dloadtest.main=com.example.loadtest.OverloadSimulation \
+ *       [-Dloadtest.baseUrl=http://localhost:8081] [-Dsimulation.seconds=30] \
+ *       [-Dsimulation.readers=64] [-Dsimulation.bookers=8] [-Dsimulation.riders=1000]
+ *
+ * The reads are only expensive on a database with plenty of rides in it;
+ * history and search pick riders 1..simulation.riders.
+ */
+public class OverloadSimulation {
+
+    private static final String[] SEARCHES = {"Kigali", "Remera", "Airport", "Market", "Station", "Centre"};
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:8081");
+        int seconds = Integer.getInteger("simulation.seconds", 30);
+        int readers = Integer.getInteger("simulation.readers", 64);
+        int bookers = Integer.getInteger("simulation.bookers", 8);
+        int riders = Integer.getInteger("simulation.riders", 1000);
+        long driverId = Long.getLong("simulation.driverId", 1L);
+
+        LatencyStats stats = new LatencyStats();
+        ApiClient api = new ApiClient(baseUrl, stats);
+        Map<String, AtomicLong> shed = new ConcurrentHashMap<>();
+        AtomicLong failedBookings = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            Random random = new Random(i);
+            clients.add(start(() -> {
+                while (System.nanoTime() < deadline) {
+                    int pick = random.nextInt(10);
+                    String label = pick < 5 ? "search" : pick < 9 ? "history" : "all";
+                    String path = switch (label) {
+                        case "search" -> "/api/rides/search?query=" + SEARCHES[random.nextInt(SEARCHES.length)];
+                        case "history" -> "/api/rides/history?role=rider&userId=" + (1 + random.nextInt(riders));
+                        default -> "/api/rides";
+                    };
+                    ApiClient.Response response = api.get(label, path, null).join();
+                    count(shed, label, response);
+                    backOff(response, deadline);
+                }
+            }));
+        }
+        for (int i = 0; i < bookers; i++) {
+            Random random = new Random(1000 + i);
+            clients.add(start(() -> {
+                while (System.nanoTime() < deadline) {
+                    ApiClient.Response booked = api.post("book", "/api/rides/book", Map.of(
+                            "riderId", 1 + random.nextInt(riders),
+                            "pickupLocation", "Kimironko Market",
+                            "dropoffLocation", "Kigali Convention Center",
+                            "estimatedFare", 2500,
+                            "distance", 6.5,
+                            "duration", 18,
+                            "paymentMethod", "cash")).join();
+                    if (!count(shed, "book", booked)) {
+                        failedBookings.incrementAndGet();
+                        continue;
+                    }
+                    if (booked.status() == 503 || booked.body() == null) {
+                        backOff(booked, deadline);
+                        continue;
+                    }
+                    count(shed, "accept", api.post("accept", "/api/rides/accept",
+                            Map.of("rideId", booked.body().path("id").asLong(), "driverId", driverId)).join());
+                }
+            }));
+        }
+        for (Thread client : clients)
+            client.join();
+
+        System.out.printf("%d s, %d readers, %d bookers%n", seconds, readers, bookers);
+        stats.endpoints().forEach((label, endpoint) -> {
+            long rejected = shed.getOrDefault(label, new AtomicLong()).get();
+            System.out.printf(Locale.ROOT, "  %-8s n=%-6d ok=%-6d shed=%-6d p50=%.1f ms p99=%.1f ms%n", label,
+                    endpoint.count(), endpoint.count() - endpoint.errors(), rejected,
+                    endpoint.percentileMillis(0.50), endpoint.percentileMillis(0.99));
+        });
+        JsonNode admission = api.get("admission", "/api/admin/admission", null).join().body();
+        if (admission != null)
+            for (JsonNode priority : admission)
+                System.out.printf(Locale.ROOT, "  %-8s limit=%d admitted=%d shed=%d timedOut=%d latency=%.1f ms (baseline %.1f)%n",
+                        priority.path("priority").asText(), priority.path("limit").asInt(),
+                        priority.path("admitted").asLong(), priority.path("shed").asLong(),
+                        priority.path("timedOut").asLong(), priority.path("latencyMs").asDouble(),
+                        priority.path("baselineLatencyMs").asDouble());
+        System.exit(failedBookings.get() == 0 ? 0 : 1);
+    }
+
+    private static Thread start(Runnable client) {
+        Thread thread = new Thread(client);
+        thread.start();
+        return thread;
+    }
+
+    // Sleeps out a 503's Retry-After, but not past the end of the run
+    private static void backOff(ApiClient.Response response, long deadline) {
+        if (response.status() != 503 || response.retryAfterSeconds() <= 0)
+            return;
+        long millis = Math.min(response.retryAfterSeconds() * 1000, (deadline - System.nanoTime()) / 1_000_000);
+        try {
+            if (millis > 0)
+                Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // False for a failure other than being shed
+    private static boolean count(Map<String, AtomicLong> shed, String label, ApiClient.Response response) {
+        if (response.status() == 503)
+            shed.computeIfAbsent(label, key -> new AtomicLong()).incrementAndGet();
+        return response.ok() || response.status() == 503;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares JSON, CBOR and Smile for the ride lists drivers download
+ * (/api/rides/available, history). Encodes lists shaped like the backend's
+ * RideListItem and prints bytes (raw and gzipped) and serialisation time per
+ * list, with and without Blackbird. With -Dloadtest.baseUrl set it also asks
+ * a running backend for /api/rides/available in each format and prints the
+ * wire sizes.
+ *
+ *   mvn -q compile exec:java -Dloadtest.main=com.example.loadtest.PayloadBenchmark \
+ *       [-Dbenchmark.rows=50] [-Dloadtest.baseUrl=http://localhost:8081]
+ */
+public class PayloadBenchmark {
+
+    // Same fields as com.example.backend.dto.RideListItem
+    public record PersonRef(Long id, String name) {
+    }
+
+    public record RideListItem(Long id, Long riderId, Long driverId, String pickupLocation,
+                               String dropoffLocation, String status, LocalDateTime bookedAt,
+                               LocalDateTime completedAt, Integer rating, Double estimatedFare, Double distance,
+                               Integer duration, String paymentMethod, PersonRef driver, PersonRef rider) {
+    }
+
+    private static final String[] PLACES = {"Kigali Convention Center", "Kigali International Airport",
+            "Kigali Heights", "Nyabugogo Bus Station", "Kimironko Market", "Downtown Kigali", "Gikondo", "Remera",
+            "Nyamirambo", "Kacyiru"};
+
+    public static void main(String[] args) throws Exception {
+        int rows = Integer.getInteger("benchmark.rows", 50);
+        List<RideListItem> rides = sampleRides(rows);
+
+        System.out.printf("%d rides per list%n", rows);
+        System.out.printf("%-18s %8s %8s %12s%n", "format", "bytes", "gzip", "us/list");
+        measure("json", mapper(new JsonMapper(), false), rides);
+        measure("json+blackbird", mapper(new JsonMapper(), true), rides);
+        measure("cbor+blackbird", mapper(new ObjectMapper(new CBORFactory()), true), rides);
+        measure("smile+blackbird", mapper(new ObjectMapper(new SmileFactory()), true), rides);
+
+        String baseUrl = System.getProperty("loadtest.baseUrl");
+        if (baseUrl != null)
+            wireSizes(baseUrl);
+    }
+
+    private static ObjectMapper mapper(ObjectMapper mapper, boolean blackbird) {
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (blackbird)
+            mapper.registerModule(new BlackbirdModule());
+        return mapper;
+    }
+
+    private static void measure(String label, ObjectMapper mapper, List<RideListItem> rides) throws Exception {
+        byte[] bytes = mapper.writeValueAsBytes(rides);
+        // Warm up until the JIT has settled, then time a fixed number of lists
+        long sink = 0;
+        for (int i = 0; i < 20_000; i++)
+            sink += mapper.writeValueAsBytes(rides).length;
+        int iterations = 20_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            sink += mapper.writeValueAsBytes(rides).length;
+        double micros = (System.nanoTime() - start) / 1000.0 / iterations;
+        System.out.printf("%-18s %8d %8d %12.1f%s%n", label, bytes.length, gzip(bytes), micros,
+                sink == 0 ? "!" : "");
+    }
+
+    private static int gzip(byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        }
+        return out.size();
+    }
+
+    private static void wireSizes(String baseUrl) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        System.out.println();
+        System.out.println("GET /api/rides/available from " + baseUrl);
+        for (String accept : List.of("application/json", "application/cbor", "application/x-jackson-smile")) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/rides/available"))
+                    .header("Accept", accept)
+                    .build();
+            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            System.out.printf("%-30s %4d %8d bytes%n", accept, response.statusCode(), response.body().length);
+        }
+    }
+
+    private static List<RideListItem> sampleRides(int rows) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<RideListItem> rides = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            boolean done = random.nextBoolean();
+            long driverId = 1 + random.nextInt(200);
+            long riderId = 1 + random.nextInt(5000);
+            rides.add(new RideListItem((long) i + 1, riderId, done ? driverId : null,
+                    PLACES[random.nextInt(PLACES.length)], PLACES[random.nextInt(PLACES.length)],
+                    done ? "COMPLETED" : "PENDING", now.minusMinutes(random.nextInt(10_000)),
+                    done ? now.minusMinutes(random.nextInt(100)) : null, done ? 1 + random.nextInt(5) : null,
+                    1500 + random.nextInt(8000) * 1.0, 1 + random.nextDouble() * 20, 5 + random.nextInt(50),
+                    random.nextBoolean() ? "CASH" : "MOBILE_MONEY",
+                    done ? new PersonRef(driverId, "Driver " + driverId) : null,
+                    new PersonRef(riderId, "Rider " + riderId)));
+        }
+        return rides;
+    }
+}
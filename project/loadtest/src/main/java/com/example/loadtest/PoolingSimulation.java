@@ -0,0 +1,120 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Books simulation.rides shared rides against a running backend and reports
+ * how well they pool. Pickups and dropoffs are scattered around a few busy
+ * places in Kigali, with pickup times spread over simulation.spreadMinutes
+ * (scheduled ahead when the spread is over zero), so thousands of trips are
+ * open at once. Prints the share of riders that ended up sharing, the detour
+ * and fare savings from /api/admin/pooling, and the engine's lookup cost.
+ * Exits non-zero when a booking fails.
+ *
+ *   mvn -q compile exec:java -Dloadtest.main=com.example.loadtest.PoolingSimulation \
+ *       [-Dloadtest.baseUrl=http://localhost:8081] [-Dsimulation.rides=5000] \
+ *       [-Dsimulation.spreadMinutes=0] [-Dsimulation.jitterKm=0.8] [-Dsimulation.concurrency=16]
+ *
+ * Run it against a freshly started backend: the pooling figures cover every
+ * trip the engine holds, not just this run's.
+ */
+public class PoolingSimulation {
+
+    // Busy places from places.csv as lat,lng
+    private static final double[][] HOTSPOTS = {
+            {-1.9536, 30.0634}, // Kigali Convention Center
+            {-1.9631, 30.1347}, // Kigali International Airport
+            {-1.9335, 30.0464}, // Nyabugogo Bus Station
+            {-1.9340, 30.1130}, // Kimironko Market
+            {-1.9474, 30.0618}, // Downtown Kigali
+            {-1.9557, 30.1121}, // Remera
+            {-1.9779, 30.0381}, // Nyamirambo
+            {-1.9390, 30.0763}, // Kacyiru
+            {-1.9813, 30.1024}, // Kicukiro Centre
+            {-1.9200, 30.0900}, // Gacuriro
+    };
+
+    private static final double KM_PER_DEGREE = 111.2;
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:8081");
+        int rides = Integer.getInteger("simulation.rides", 5000);
+        int spreadMinutes = Integer.getInteger("simulation.spreadMinutes", 0);
+        double jitterKm = Double.parseDouble(System.getProperty("simulation.jitterKm", "0.8"));
+        int concurrency = Integer.getInteger("simulation.concurrency", 16);
+        long firstRider = Long.getLong("simulation.firstRider", 2_000_000L);
+
+        LatencyStats stats = new LatencyStats();
+        ApiClient api = new ApiClient(baseUrl, stats);
+        Random random = new Random(7);
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicLong joinedOnBooking = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rides; i++) {
+            double[] from = scatter(HOTSPOTS[random.nextInt(HOTSPOTS.length)], jitterKm, random);
+            double[] to = scatter(HOTSPOTS[random.nextInt(HOTSPOTS.length)], jitterKm, random);
+            double km = Math.hypot(from[0] - to[0], from[1] - to[1]) * KM_PER_DEGREE;
+            Map<String, Object> ride = new HashMap<>(Map.of(
+                    "riderId", firstRider + i,
+                    "pickupLocation", point(from),
+                    "dropoffLocation", point(to),
+                    "estimatedFare", Math.round(500 + km * 300),
+                    "distance", km,
+                    "duration", (int) (km * 3) + 1,
+                    "paymentMethod", "cash",
+                    "pooled", true));
+            if (spreadMinutes > 0)
+                ride.put("scheduledPickupAt", LocalDateTime.now()
+                        .plusMinutes(30 + random.nextInt(spreadMinutes)).withNano(0).toString());
+
+            inFlight.acquire();
+            api.post("book", "/api/rides/book", ride).whenComplete((response, error) -> {
+                if (response == null || !response.ok())
+                    failed.incrementAndGet();
+                else if (response.body().path("poolId").asLong() != response.body().path("id").asLong())
+                    joinedOnBooking.incrementAndGet();
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d pooled bookings in %.1f s (%.0f/s), %d joined an open trip, %d failed%n",
+                rides, seconds, rides / seconds, joinedOnBooking.get(), failed.get());
+        stats.endpoints().forEach((label, endpoint) -> System.out.printf("  %-6s n=%d p50=%.1f ms p99=%.1f ms%n",
+                label, endpoint.count(), endpoint.percentileMillis(0.50), endpoint.percentileMillis(0.99)));
+
+        JsonNode pooling = api.get("pooling", "/api/admin/pooling", null).join().body();
+        System.out.printf(Locale.ROOT, "Trips: %d (%d still open); riders sharing: %.1f%%%n",
+                pooling.path("trips").asLong(), pooling.path("openTrips").asLong(),
+                100 * pooling.path("poolingRate").asDouble());
+        System.out.printf(Locale.ROOT, "Detour over direct distance: average %.1f%%, worst %.1f%%; %.2f km added per join%n",
+                pooling.path("averageDetourPercent").asDouble(), pooling.path("maxDetourPercent").asDouble(),
+                pooling.path("averageAddedKmPerJoin").asDouble());
+        System.out.printf(Locale.ROOT, "Shared riders pay %.1f%% below solo fares%n",
+                pooling.path("fareSavingsPercent").asDouble());
+        System.out.printf(Locale.ROOT, "Matching: %.1f candidate trips checked, %.0f us per request%n",
+                pooling.path("candidatesPerRequest").asDouble(), pooling.path("matchMicros").asDouble());
+        System.exit(failed.get() == 0 ? 0 : 1);
+    }
+
+    // A point around the centre, normally distributed with jitterKm standard deviation
+    private static double[] scatter(double[] centre, double jitterKm, Random random) {
+        double degrees = jitterKm / KM_PER_DEGREE;
+        return new double[]{centre[0] + random.nextGaussian() * degrees, centre[1] + random.nextGaussian() * degrees};
+    }
+
+    private static String point(double[] latLng) {
+        return String.format(Locale.ROOT, "%.5f,%.5f", latLng[0], latLng[1]);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+// A simulated rider: books, polls the active ride (with If-None-Match), sometimes cancels
+public class Rider {
+
+    private static final String[] PLACES = {
+            "Kigali Heights", "Kimironko Market", "Nyabugogo Bus Park", "Kigali Convention Centre",
+            "Remera", "Kacyiru", "Nyamirambo", "Kicukiro Centre", "Gikondo", "Kigali International Airport"
+    };
+
+    private final long userId;
+    private final ApiClient api;
+    private final WeightedChoice choice;
+
+    private Long activeRideId;
+    private String activeEtag;
+
+    public Rider(long userId, ApiClient api, WeightedChoice choice) {
+        this.userId = userId;
+        this.api = api;
+        this.choice = choice;
+    }
+
+    public CompletableFuture<?> step() {
+        String action = choice.next();
+        if (activeRideId == null && (action.equals("pollActive") || action.equals("cancel")))
+            action = "book";
+        return switch (action) {
+            case "book" -> activeRideId == null ? book() : pollActive();
+            case "cancel" -> cancel();
+            case "history" -> api.get("GET /api/rides/history", "/api/rides/history?role=rider&userId=" + userId, null);
+            default -> pollActive();
+        };
+    }
+
+    private CompletableFuture<?> book() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double distance = 1 + random.nextDouble(15);
+        Map<String, Object> ride = Map.of(
+                "riderId", userId,
+                "pickupLocation", PLACES[random.nextInt(PLACES.length)],
+                "dropoffLocation", PLACES[random.nextInt(PLACES.length)],
+                "estimatedFare", Math.round(500 + distance * 300),
+                "distance", distance,
+                "duration", (int) (distance * 3),
+                "paymentMethod", "cash");
+        return api.post("POST /api/rides/book", "/api/rides/book", ride).thenAccept(response -> {
+            if (response.ok() && response.body() != null)
+                activeRideId = response.body().path("id").asLong();
+        });
+    }
+
+    private CompletableFuture<?> pollActive() {
+        return api.get("GET /api/rides/active", "/api/rides/active?role=rider&userId=" + userId, activeEtag)
+                .thenAccept(response -> {
+                    if (response.status() == 304)
+                        return;
+                    activeEtag = response.etag();
+                    JsonNode body = response.body();
+                    activeRideId = response.ok() && body != null && body.hasNonNull("id") ? body.get("id").asLong() : null;
+                });
+    }
+
+    private CompletableFuture<?> cancel() {
+        Long rideId = activeRideId;
+        return api.post("POST /api/rides/cancel/{id}", "/api/rides/cancel/" + rideId, null).thenAccept(response -> {
+            if (response.ok())
+                activeRideId = null;
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+// scenario.properties with -Dloadtest.<key> overrides
+public class ScenarioConfig {
+
+    private final Properties properties = new Properties();
+
+    public ScenarioConfig() {
+        try (InputStream in = ScenarioConfig.class.getResourceAsStream("/scenario.properties")) {
+            if (in != null)
+                properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read scenario.properties", e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("loadtest."))
+                .forEach(name -> properties.setProperty(name.substring("loadtest.".length()),
+                        System.getProperty(name)));
+    }
+
+    public String getString(String key) {
+        String value = properties.getProperty(key);
+        if (value == null)
+            throw new IllegalArgumentException("Missing scenario setting: " + key);
+        return value.trim();
+    }
+
+    public int getInt(String key) {
+        return Integer.parseInt(getString(key));
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return properties.containsKey(key) ? getInt(key) : defaultValue;
+    }
+
+    @Override
+    public String toString() {
+        return new java.util.TreeMap<>(properties).toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Picks an action name with probability proportional to its configured weight
+public class WeightedChoice {
+
+    private final Map<String, Integer> weights = new LinkedHashMap<>();
+    private int total;
+
+    public WeightedChoice(ScenarioConfig config, String prefix, String... actions) {
+        for (String action : actions) {
+            int weight = config.getInt(prefix + "." + action, 0);
+            if (weight > 0) {
+                weights.put(action, weight);
+                total += weight;
+            }
+        }
+        if (total == 0)
+            throw new IllegalArgumentException("All " + prefix + ".* weights are zero");
+    }
+
+    public String next() {
+        int pick = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0)
+                return entry.getKey();
+        }
+        throw new IllegalStateException();
+    }
+}
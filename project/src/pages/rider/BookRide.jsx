@@ -6,6 +6,7 @@ import 'leaflet/dist/leaflet.css';
 import { useAuth } from '../../contexts/AuthContext';
 import { rideService } from '../../services/rideService';
 import { paymentService } from '../../services/paymentService';
+import { placeService } from '../../services/placeService';
 import { motion } from 'framer-motion';
 import {
   Map as MapIcon, Search, MapPin, Navigation, Car, Clock, CreditCard,
@@ -94,9 +95,10 @@ const BookRide = () => {
 
   // Fetch payment methods on component mount
   useEffect(() => {
+    if (!user?.id) return;
     const fetchPaymentMethods = async () => {
       try {
-        const methods = await paymentService.getPaymentMethods();
+        const methods = await paymentService.getPaymentMethods(user.id);
         setPaymentMethods(methods);
         setSelectedPaymentMethod(methods.find(m => m.isDefault) || methods[0]);
       } catch (error) {
@@ -105,13 +107,14 @@ const BookRide = () => {
     };
 
     fetchPaymentMethods();
-  }, []);
+  }, [user?.id]);
 
   // Optionally, fetch wallet balance on component mount
   useEffect(() => {
+    if (!user?.id) return;
     const fetchWalletBalance = async () => {
       try {
-        const { balance } = await paymentService.getWalletBalance();
+        const { balance } = await paymentService.getWalletBalance(user.id);
         setWalletBalance(balance);
       } catch (error) {
         console.error('Error fetching wallet balance:', error);
@@ -119,7 +122,7 @@ const BookRide = () => {
     };
 
     fetchWalletBalance();
-  }, []);
+  }, [user?.id]);
 
   // Filter locations based on search term
   const filterLocations = (searchTerm) => {
@@ -129,6 +132,30 @@ const BookRide = () => {
     );
   };
 
+  // Suggestions come from the backend gazetteer; the local list is the offline fallback
+  const [pickupSuggestions, setPickupSuggestions] = useState([]);
+  const [dropoffSuggestions, setDropoffSuggestions] = useState([]);
+
+  useEffect(() => {
+    if (!pickupLocation) return setPickupSuggestions([]);
+    const timer = setTimeout(() => {
+      placeService.autocomplete(pickupLocation)
+        .then(setPickupSuggestions)
+        .catch(() => setPickupSuggestions(filterLocations(pickupLocation)));
+    }, 150);
+    return () => clearTimeout(timer);
+  }, [pickupLocation]);
+
+  useEffect(() => {
+    if (!dropoffLocation) return setDropoffSuggestions([]);
+    const timer = setTimeout(() => {
+      placeService.autocomplete(dropoffLocation)
+        .then(setDropoffSuggestions)
+        .catch(() => setDropoffSuggestions(filterLocations(dropoffLocation)));
+    }, 150);
+    return () => clearTimeout(timer);
+  }, [dropoffLocation]);
+
   // Handle location selection
   const handleSelectLocation = (location, type) => {
     if (type === 'pickup') {
@@ -212,7 +239,8 @@ const BookRide = () => {
         dropoffLongitude: dropoffCoords[1],
         rideTypeId: selectedRideType.id,
         rideTypeId: selectedRideType.id,
-        paymentMethod: selectedPaymentMethod.id, // Changed from paymentMethodId to match Backend Entity
+        pooled: selectedRideType.id === 'pool', // shares the car; the backend splits the fare
+        paymentMethod: String(selectedPaymentMethod.id), // saved method id, or "wallet"
         estimatedFare: estimatedFare,
         estimatedFare: estimatedFare,
         distance,
@@ -397,7 +425,7 @@ const BookRide = () => {
                   {/* Pickup Suggestions */}
                   {showPickupSuggestions && pickupLocation && (
                     <div className="absolute z-50 mt-1 w-full bg-dark-800 border border-dark-700 rounded-lg shadow-lg max-h-48 overflow-y-auto">
-                      {filterLocations(pickupLocation).map((location) => (
+                      {pickupSuggestions.map((location) => (
                         <button
                           key={location.name}
                           className="w-full text-left px-4 py-2 hover:bg-dark-700 text-white"
@@ -406,7 +434,7 @@ const BookRide = () => {
                           {location.name}
                         </button>
                       ))}
-                      {filterLocations(pickupLocation).length === 0 && (
+                      {pickupSuggestions.length === 0 && (
                         <div className="px-4 py-2 text-dark-400">
                           No locations found. Try a different search.
                         </div>
@@ -451,7 +479,7 @@ const BookRide = () => {
                   {/* Dropoff Suggestions */}
                   {showDropoffSuggestions && dropoffLocation && (
                     <div className="absolute z-50 mt-1 w-full bg-dark-800 border border-dark-700 rounded-lg shadow-lg max-h-48 overflow-y-auto">
-                      {filterLocations(dropoffLocation).map((location) => (
+                      {dropoffSuggestions.map((location) => (
                         <button
                           key={location.name}
                           className="w-full text-left px-4 py-2 hover:bg-dark-700 text-white"
@@ -460,7 +488,7 @@ const BookRide = () => {
                           {location.name}
                         </button>
                       ))}
-                      {filterLocations(dropoffLocation).length === 0 && (
+                      {dropoffSuggestions.length === 0 && (
                         <div className="px-4 py-2 text-dark-400">
                           No locations found. Try a different search.
                         </div>
@@ -41,7 +41,7 @@ const RiderDashboard = () => {
         const [active, rides, wallet] = await Promise.all([
           rideService.getActiveRide('RIDER', user.id).catch(() => null),
           rideService.getRideHistory('RIDER', user.id, 0, 3),
-          paymentService.getWalletBalance(),
+          paymentService.getWalletBalance(user.id),
         ]);
 
         setActiveRide(active);
@@ -106,8 +106,7 @@ const RiderDashboard = () => {
 
     setIsProcessing(true);
     try {
-      // Mock payment method ID for now as per mock service
-      const result = await paymentService.topUpWallet(amount, 'default-method');
+      const result = await paymentService.topUpWallet(user.id, amount);
       setWalletBalance(result.newBalance);
       setShowTopUpModal(false);
       setTopUpAmount('');
@@ -148,84 +147,13 @@ const RiderDashboard = () => {
 
     setIsProcessing(true);
     try {
-      // 1. Process Payment
-      // We need to check the payment method. 
-      // Assuming activeRide has paymentMethod object or ID. 
-      // Based on BookRide, we send paymentMethodId. 
-      // We might need to fetch full details or infer. activeRide from backend usually has expanded fields.
-      // Let's assume activeRide.paymentMethod is the object (type: 'WALLET', 'CARD', etc.)
-
-      // If we don't have payment info on activeRide, we might default to Cash or skip.
-      // For this demo, let's assume 'WALLET' if not specified or check specific fields.
-      // Note: In `rideService.js` mock, bookRide sends `paymentMethodId`.
-      // The `activeRide` response structure isn't fully visible but likely mirrors transaction or ride history.
-
-      // We'll trust the user's request: "transfer depending on chosen mode".
-
-      // Heuristic: If payment method involves "Wallet" or isn't ID-based (mock), we withdraw.
-      // Let's try to find the payment method type.
-      // If we can't find it easily, we'll assume it was passed or look up.
-
-      // CHECK: Does activeRide have paymentMethod?
-      // In Dashboard load: `rideService.getActiveRide`
-      // In `rideService`: calls endpoint.
-      // In `BookRide`: we passed `paymentMethodId`.
-
-      // For now, we will try to look for a property that hints at Wallet.
-      // Or we can fetch the payment method details if needed.
-      // Let's assume for this MVP that if the paymentMethodId is 'wallet' (if we had one) or we just check logic.
-
-      // However, `paymentService` has `mockPaymentMethods`. None are explicitly "Wallet" type in the file I read (only CARD, MOBILE_MONEY).
-      // WAIT. If the user wants "add money to wallet", that implies a separate Wallet balance system.
-      // Usually, "Wallet" is a distinct payment method choice.
-      // If the user selected "Card", we don't deduct from Wallet.
-      // If the user selected "Wallet" (if it existed), we deduct.
-
-      // Let's look at BookRide options again? 
-      // I only saw mockPaymentMethods having CARD and MOBILE_MONEY.
-      // If the user wants to pay via Wallet, they need a "Wallet" payment method option in BookRide.
-      // I haven't seen that added yet. The user might be assuming it exists or wants me to add it?
-      // "money should get transfered depending on the choosen mode"
-
-      // Implication:
-      // 1. If mode is WALLET -> Deduct from Wallet.
-      // 2. If mode is CARD/MOBILE -> Just complete (external charge).
-
-      // Since I don't recall adding a "Wallet" payment method to the list in `paymentService`, 
-      // I might need to treating this request as: "If I pay by Wallet, deduct. If others, don't."
-
-      // Implementation strategy:
-      // We will check activeRide.paymentMethod (or ID).
-      // If it looks like wallet (or we add logic to support it), we deduct.
-      // Since `paymentService` only showed Card/Mobile, maybe the user implies I should ADD Wallet as a payment option too?
-      // For now, I will implement the DEDUCTION logic if the method is 'WALLET'.
-      // And I will simply call complete for others.
-      // I will also log what the method is to help debug.
-
-      let paymentSuccess = true;
-
-      // MockING the object availability check
-      const pMethod = activeRide.paymentMethod;
-      // Handle both string ID (saved in backend) and object (if expanded)
-      const methodId = typeof pMethod === 'object' ? pMethod?.id : pMethod;
-      const methodType = typeof pMethod === 'object' ? pMethod?.type : null;
-
-      const isWallet = methodId === 'wallet' || methodType === 'WALLET';
-
-      if (isWallet) {
-        const wallet = await paymentService.getWalletBalance();
-        if (wallet.balance < finalFare) {
-          alert(`Insufficient wallet balance (${wallet.balance.toLocaleString()} RWF). Please top up.`);
-          setIsProcessing(false);
-          return;
-        }
-        await paymentService.withdrawFromWallet(finalFare);
-      }
-
-      // 2. Complete Ride
+      // The backend posts the fare to the ledger on completion; wallet rides
+      // come back with 409 when the balance cannot cover it
       await rideService.completeRide(activeRide.id);
 
-      alert(`Ride completed. Paid ${finalFare.toLocaleString()} RWF via ${pMethod.type || 'Selected Method'}.`);
+      const pMethod = activeRide.paymentMethod;
+      const methodLabel = pMethod === 'wallet' ? 'Wallet' : 'Selected Method';
+      alert(`Ride completed. Paid ${finalFare.toLocaleString()} RWF via ${methodLabel}.`);
       await refreshDashboard();
 
     } catch (error) {
@@ -241,7 +169,7 @@ const RiderDashboard = () => {
       const [active, rides, wallet] = await Promise.all([
         rideService.getActiveRide('RIDER', user.id).catch(() => null),
         rideService.getRideHistory('RIDER', user.id, 0, 3),
-        paymentService.getWalletBalance(),
+        paymentService.getWalletBalance(user.id),
       ]);
 
       // Only set as active if not COMPLETED or CANCELLED
@@ -1,203 +1,91 @@
-// Mock payment service for frontend demo
-// In a real application, this would make API calls to the Spring Boot backend
-
-const delay = (ms) => new Promise(resolve => setTimeout(resolve, ms));
-
-// Mock payment methods
-const mockPaymentMethods = [
-  {
-    id: 'card1',
-    type: 'CARD',
-    brand: 'Visa',
-    last4: '4242',
-    expiryMonth: 12,
-    expiryYear: 2025,
-    isDefault: true,
-  },
-  {
-    id: 'card2',
-    type: 'CARD',
-    brand: 'Mastercard',
-    last4: '5678',
-    expiryMonth: 9,
-    expiryYear: 2024,
-    isDefault: false,
-  },
-  {
-    id: 'mobile1',
-    type: 'MOBILE_MONEY',
-    provider: 'MTN',
-    phoneNumber: '+250788123456',
-    isDefault: false,
-  },
-  {
-    id: 'wallet',
-    type: 'WALLET',
-    brand: 'RwandaRide Wallet',
-    last4: '',
-    expiryMonth: 0,
-    expiryYear: 0,
-    isDefault: false,
-  }
-];
-
-// Mock transactions
-const mockTransactions = [
-  {
-    id: 'tx1',
-    amount: 3500,
-    currency: 'RWF',
-    type: 'PAYMENT',
-    status: 'COMPLETED',
-    date: '2023-09-15T14:35:00',
-    description: 'Ride payment - Kigali Heights to Kigali Airport',
-    paymentMethod: {
-      id: 'mobile1',
-      type: 'MOBILE_MONEY',
-      provider: 'MTN',
-    },
-    rideId: 'ride1',
-  },
-  {
-    id: 'tx2',
-    amount: 2200,
-    currency: 'RWF',
-    type: 'PAYMENT',
-    status: 'COMPLETED',
-    date: '2023-09-10T09:20:00',
-    description: 'Ride payment - Nyarutarama to Kimihurura',
-    paymentMethod: {
-      id: 'card1',
-      type: 'CARD',
-      brand: 'Visa',
-      last4: '4242',
-    },
-    rideId: 'ride2',
-  },
-  {
-    id: 'tx3',
-    amount: 5000,
-    currency: 'RWF',
-    type: 'TOP_UP',
-    status: 'COMPLETED',
-    date: '2023-09-08T10:15:00',
-    description: 'Wallet top-up',
-    paymentMethod: {
-      id: 'card1',
-      type: 'CARD',
-      brand: 'Visa',
-      last4: '4242',
-    },
-  },
-  {
-    id: 'tx4',
-    amount: 10000,
-    currency: 'RWF',
-    type: 'TOP_UP',
-    status: 'COMPLETED',
-    date: '2023-09-01T16:30:00',
-    description: 'Wallet top-up',
-    paymentMethod: {
-      id: 'mobile1',
-      type: 'MOBILE_MONEY',
-      provider: 'MTN',
+const API_BASE_URL = '/api/payments';
+
+const request = async (url, options = {}) => {
+  const response = await fetch(url, {
+    credentials: 'include',
+    ...options,
+    headers: {
+      'Content-Type': 'application/json',
+      ...options.headers,
     },
-  },
-];
-
-export const paymentService = {
-  getPaymentMethods: async () => {
-    await delay(1000);
-    return mockPaymentMethods;
-  },
-
-  addPaymentMethod: async (paymentMethod) => {
-    await delay(1500);
-
-    const newPaymentMethod = {
-      id: 'new-' + Date.now(),
-      ...paymentMethod,
-      isDefault: false,
-    };
-
-    return { success: true, paymentMethod: newPaymentMethod };
-  },
-
-  removePaymentMethod: async (paymentMethodId) => {
-    await delay(1000);
-    return { success: true, message: 'Payment method removed successfully' };
-  },
-
-  setDefaultPaymentMethod: async (paymentMethodId) => {
-    await delay(800);
-    return { success: true, message: 'Default payment method updated' };
-  },
-
-  getTransactions: async (page = 0, size = 10) => {
-    await delay(1000);
-
-    return {
-      content: mockTransactions,
-      totalElements: mockTransactions.length,
-      totalPages: Math.ceil(mockTransactions.length / size),
-      size,
-      number: page,
-    };
-  },
-
-  getWalletBalance: async () => {
-    await delay(500);
-    return {
-      balance: 15000,
-      currency: 'RWF',
-    };
-  },
-
-  topUpWallet: async (amount, paymentMethodId) => {
-    await delay(2000);
-
-    if (amount <= 0) {
-      throw new Error('Amount must be greater than 0');
-    }
-
-    return {
-      success: true,
-      transaction: {
-        id: 'top-up-' + Date.now(),
-        amount,
-        currency: 'RWF',
-        type: 'TOP_UP',
-        status: 'COMPLETED',
-        date: new Date().toISOString(),
-        description: 'Wallet top-up',
-      },
-      newBalance: 15000 + amount,
-    };
-  },
-
-  withdrawFromWallet: async (amount, paymentMethodId) => {
-    await delay(2000);
-
-    if (amount <= 0) {
-      throw new Error('Amount must be greater than 0');
-    }
+  });
+
+  if (!response.ok) {
+    let errorMessage = 'Request failed';
+    try {
+      errorMessage = await response.text();
+    } catch (_) { }
+    throw new Error(errorMessage);
+  }
 
-    if (amount > 15000) {
-      throw new Error('Insufficient funds');
+  try {
+    return await response.json();
+  } catch {
+    return null;
+  }
+};
+
+// Money movements reuse one Idempotency-Key across network retries so a
+// retried top-up is not posted twice.
+const MAX_ATTEMPTS = 3;
+
+const idempotentRequest = async (url, options = {}) => {
+  const key = crypto.randomUUID();
+  for (let attempt = 1; ; attempt++) {
+    try {
+      return await request(url, {
+        ...options,
+        headers: { ...options.headers, 'Idempotency-Key': key },
+      });
+    } catch (error) {
+      if (!(error instanceof TypeError) || attempt >= MAX_ATTEMPTS) throw error;
+      await new Promise((resolve) => setTimeout(resolve, 500 * attempt));
     }
+  }
+};
 
-    return {
-      success: true,
-      transaction: {
-        id: 'withdraw-' + Date.now(),
-        amount,
-        currency: 'RWF',
-        type: 'WITHDRAWAL',
-        status: 'COMPLETED',
-        date: new Date().toISOString(),
-        description: 'Wallet withdrawal',
-      },
-      newBalance: 15000 - amount,
-    };
-  },
-};
\ No newline at end of file
+// Amounts are whole RWF. Ride charges are posted by the backend when a ride
+// is completed; the wallet is used when the ride's payment method is "wallet".
+export const paymentService = {
+  getPaymentMethods: (userId) =>
+    request(`${API_BASE_URL}/methods?userId=${userId}`),
+
+  // Only display details (brand, last4, provider, phone) are sent, never card numbers
+  addPaymentMethod: (userId, paymentMethod) =>
+    request(`${API_BASE_URL}/methods?userId=${userId}`, {
+      method: 'POST',
+      body: JSON.stringify(paymentMethod),
+    }),
+
+  removePaymentMethod: (userId, paymentMethodId) =>
+    request(`${API_BASE_URL}/methods/${paymentMethodId}?userId=${userId}`, {
+      method: 'DELETE',
+    }),
+
+  setDefaultPaymentMethod: (userId, paymentMethodId) =>
+    request(`${API_BASE_URL}/methods/${paymentMethodId}/default?userId=${userId}`, {
+      method: 'POST',
+    }),
+
+  // { content, totalElements, totalPages, size, number }, newest first
+  getTransactions: (userId, page = 0, size = 10) =>
+    request(`${API_BASE_URL}/transactions?userId=${userId}&page=${page}&size=${size}`),
+
+  // { userId, balance, currency }
+  getWalletBalance: (userId) =>
+    request(`${API_BASE_URL}/wallet/${userId}`),
+
+  // { success, transaction, newBalance }
+  topUpWallet: (userId, amount, paymentMethodId = null) =>
+    idempotentRequest(`${API_BASE_URL}/wallet/${userId}/top-up`, {
+      method: 'POST',
+      body: JSON.stringify({ amount, paymentMethodId }),
+    }),
+
+  // Fails with "Insufficient wallet balance" when the wallet cannot cover it
+  withdrawFromWallet: (userId, amount, paymentMethodId = null) =>
+    idempotentRequest(`${API_BASE_URL}/wallet/${userId}/withdraw`, {
+      method: 'POST',
+      body: JSON.stringify({ amount, paymentMethodId }),
+    }),
+};
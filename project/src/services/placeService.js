@@ -0,0 +1,16 @@
+const API_BASE_URL = '/api/places';
+
+const request = async (url) => {
+  const response = await fetch(url, { credentials: 'include' });
+  if (!response.ok) throw new Error(await response.text());
+  return response.json();
+};
+
+export const placeService = {
+  // [{ id, name, lat, lng }] for names, aliases or any word in them starting with the prefix
+  autocomplete: (prefix, limit = 8) =>
+    request(`${API_BASE_URL}/autocomplete?q=${encodeURIComponent(prefix)}&limit=${limit}`),
+
+  getPlace: (placeId) =>
+    request(`${API_BASE_URL}/${placeId}`),
+};
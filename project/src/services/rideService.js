@@ -3,11 +3,11 @@ const API_BASE_URL = '/api/rides';
 const request = async (url, options = {}) => {
   const response = await fetch(url, {
     credentials: 'include',
+    ...options,
     headers: {
       'Content-Type': 'application/json',
       ...options.headers,
     },
-    ...options,
   });
 
   if (!response.ok) {
@@ -25,10 +25,30 @@ const request = async (url, options = {}) => {
   }
 };
 
+// Write calls reuse one Idempotency-Key across network retries, so the
+// backend replays the first result instead of booking/accepting twice.
+const MAX_ATTEMPTS = 3;
+
+const idempotentRequest = async (url, options = {}) => {
+  const key = crypto.randomUUID();
+  for (let attempt = 1; ; attempt++) {
+    try {
+      return await request(url, {
+        ...options,
+        headers: { ...options.headers, 'Idempotency-Key': key },
+      });
+    } catch (error) {
+      // fetch only throws TypeError when the request never got a response
+      if (!(error instanceof TypeError) || attempt >= MAX_ATTEMPTS) throw error;
+      await new Promise((resolve) => setTimeout(resolve, 500 * attempt));
+    }
+  }
+};
+
 export const rideService = {
   // Rider actions
   bookRide: (rideDetails) =>
-    request(`${API_BASE_URL}/book`, {
+    idempotentRequest(`${API_BASE_URL}/book`, {
       method: 'POST',
       body: JSON.stringify(rideDetails),
     }),
@@ -59,16 +79,16 @@ export const rideService = {
     request(`${API_BASE_URL}/available`),
 
   acceptRide: (rideId, driverId) =>
-    request(`${API_BASE_URL}/accept`, {
+    idempotentRequest(`${API_BASE_URL}/accept`, {
       method: 'POST',
       body: JSON.stringify({ rideId, driverId }),
     }),
 
   startRide: (rideId) =>
-    request(`${API_BASE_URL}/start/${rideId}`, { method: 'POST' }),
+    idempotentRequest(`${API_BASE_URL}/start/${rideId}`, { method: 'POST' }),
 
   completeRide: (rideId) =>
-    request(`${API_BASE_URL}/complete/${rideId}`, { method: 'POST' }),
+    idempotentRequest(`${API_BASE_URL}/complete/${rideId}`, { method: 'POST' }),
 
   // Driver availability
   getDriver: (driverId) =>
@@ -80,4 +100,20 @@ export const rideService = {
   // Search / Dashboard
   searchRides: (query) =>
     request(`${API_BASE_URL}/search?query=${encodeURIComponent(query)}`),
+
+  // Delta sync: { cursor, hasMore, rides, deleted } since the last cursor
+  getRideChanges: (since = 0, limit = 200) =>
+    request(`${API_BASE_URL}/changes?since=${since}&limit=${limit}`),
+
+  // Brings a local { cursor, rides: Map<id, ride> } copy up to date
+  syncRides: async (local = { cursor: 0, rides: new Map() }) => {
+    let page;
+    do {
+      page = await rideService.getRideChanges(local.cursor);
+      page.rides.forEach((ride) => local.rides.set(ride.id, ride));
+      page.deleted.forEach((id) => local.rides.delete(id));
+      local.cursor = page.cursor;
+    } while (page.hasMore);
+    return local;
+  },
 };